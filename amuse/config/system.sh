@@ -30,6 +30,12 @@ export VALIDATORNODE="/tmp/$USER.validator$LSB_JOBID"
 ### Path to optimization node
 export OPTIMIZERNODE="/tmp/$USER.optimizer$LSB_JOBID"
 
+### Host and port of the Amuse scheduler for the notifications of finished jobs
+### (the host must be equal to STRING_JOB_COMPLETION_HOST, which is not localhost if the jobs run on other machines,
+### and the port must be equal to INT_JOB_COMPLETION_PORT; leave empty if the scheduler should only watch $AMUSEHOME/taskinput)
+export AMUSECOMPLETIONHOST=""
+export AMUSECOMPLETIONPORT=""
+
 ### Maximal size of extractor node input wave file 
 export MAXWAVESIZE="25000000"
 
@@ -37,6 +37,11 @@ $JAVAPATH -classpath lib/weka.jar:lib/log4j-1.2.14.jar:lib/amuse-utils.jar:lib/a
 #cp -r $CLASSIFIERNODE/ /home/scripts
 
 # Copy the log and delete tmp folder
-cp -rf $CLASSIFIERNODE/Amuse.log $AMUSEHOME/input/log.$LSB_JOBID
+cp -rf $CLASSIFIERNODE/Amuse.log $AMUSEHOME/taskinput/log.$LSB_JOBID
+
+# Notify the scheduler directly, if a completion port is set in system.sh
+if [ -n "$AMUSECOMPLETIONPORT" ]; then
+	echo "log.$LSB_JOBID" | nc $AMUSECOMPLETIONHOST $AMUSECOMPLETIONPORT
+fi
 cd /tmp
 rm -rf $CLASSIFIERNODE
\ No newline at end of file
@@ -38,5 +38,10 @@ $JAVAPATH -Xmx1800m -classpath lib/weka.jar:lib/jl1.0.jar:lib/tritonus_share-0.3
 
 # Copy the log and delete tmp folder
 cp -r $EXTRACTORNODE/Amuse.log $AMUSEHOME/taskinput/log.$LSB_JOBID
+
+# Notify the scheduler directly, if a completion port is set in system.sh
+if [ -n "$AMUSECOMPLETIONPORT" ]; then
+	echo "log.$LSB_JOBID" | nc $AMUSECOMPLETIONHOST $AMUSECOMPLETIONPORT
+fi
 cd /tmp
 rm -rf $EXTRACTORNODE
\ No newline at end of file
@@ -55,6 +55,11 @@ $JAVAPATH -Djava.awt.headless=true -Xmx1800m -XX:MaxPermSize=128m -classpath too
 # Copy the log and delete tmp folder
 #cleanup:
 cp -rf $OPTIMIZERNODE/optimizer.res $AMUSEHOME/optimizer.res
-cp -rf $OPTIMIZERNODE/Amuse.log $AMUSEHOME/input/log.$LSB_JOBID
+cp -rf $OPTIMIZERNODE/Amuse.log $AMUSEHOME/taskinput/log.$LSB_JOBID
+
+# Notify the scheduler directly, if a completion port is set in system.sh
+if [ -n "$AMUSECOMPLETIONPORT" ]; then
+	echo "log.$LSB_JOBID" | nc $AMUSECOMPLETIONHOST $AMUSECOMPLETIONPORT
+fi
 cd /tmp
 rm -rf $OPTIMIZERNODE
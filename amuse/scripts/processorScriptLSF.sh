@@ -34,6 +34,11 @@ $JAVAPATH -Xmx1600m -classpath lib/weka.jar:lib/log4j-1.2.14.jar:lib/amuse-utils
 #cp -r $PROCESSORNODE/ /home
 
 # Copy the log and delete tmp folder
-cp -rf $PROCESSORNODE/Amuse.log $AMUSEHOME/input/log.$LSB_JOBID
+cp -rf $PROCESSORNODE/Amuse.log $AMUSEHOME/taskinput/log.$LSB_JOBID
+
+# Notify the scheduler directly, if a completion port is set in system.sh
+if [ -n "$AMUSECOMPLETIONPORT" ]; then
+	echo "log.$LSB_JOBID" | nc $AMUSECOMPLETIONHOST $AMUSECOMPLETIONPORT
+fi
 cd /tmp
 rm -rf $PROCESSORNODE
\ No newline at end of file
@@ -34,6 +34,11 @@ $JAVAPATH -Xmx1800m -classpath tools/Yale/lib/colt.jar:lib/weka.jar:lib/log4j-1.
 #cp -r $TRAINERNODE/ /home/scripts
 
 # Copy the log and delete tmp folder
-cp -rf $TRAINERNODE/Amuse.log $AMUSEHOME/input/log.$LSB_JOBID
+cp -rf $TRAINERNODE/Amuse.log $AMUSEHOME/taskinput/log.$LSB_JOBID
+
+# Notify the scheduler directly, if a completion port is set in system.sh
+if [ -n "$AMUSECOMPLETIONPORT" ]; then
+	echo "log.$LSB_JOBID" | nc $AMUSECOMPLETIONHOST $AMUSECOMPLETIONPORT
+fi
 cd /tmp
 rm -rf $TRAINERNODE
\ No newline at end of file
@@ -37,5 +37,10 @@ $JAVAPATH -Djava.awt.headless=true -Xmx1600m -classpath tools/RapidMiner4.5/lib/
 
 # Copy the log and delete tmp folder
 cp -rf $VALIDATORNODE/Amuse.log $AMUSEHOME/taskinput/log.$LSB_JOBID
+
+# Notify the scheduler directly, if a completion port is set in system.sh
+if [ -n "$AMUSECOMPLETIONPORT" ]; then
+	echo "log.$LSB_JOBID" | nc $AMUSECOMPLETIONHOST $AMUSECOMPLETIONPORT
+fi
 cd /tmp
 rm -rf $VALIDATORNODE
\ No newline at end of file
@@ -28,9 +28,13 @@ import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.StringTokenizer;
 
+import org.apache.log4j.Level;
+
 import amuse.interfaces.nodes.NodeException;
+import amuse.util.AmuseLogger;
 
 /**
  * Loads feature from an arff file
@@ -40,9 +44,37 @@ import amuse.interfaces.nodes.NodeException;
  */
 public class ArffFeatureLoader {
 	
+	/**
+	 * Loads the feature into the primitive storage of Feature. If an up-to-date binary feature file
+	 * exists next to the ARFF feature file, it is loaded instead
+	 * @param featureFile Path to the ARFF feature file
+	 * @param id Feature id
+	 * @return Loaded feature
+	 * @throws NodeException
+	 */
 	public static Feature loadFeature(String featureFile, int id) throws NodeException {
-		ArrayList<Double[]> values;
-		ArrayList<Double> windows;
+		if(BinaryFeatureFile.isAvailableFor(featureFile)) {
+			try {
+				return BinaryFeatureFile.load(BinaryFeatureFile.getBinaryFileName(featureFile), id);
+			} catch(IOException e) {
+				AmuseLogger.write(ArffFeatureLoader.class.getName(), Level.WARN, 
+						"Could not load binary feature file, loading ARFF feature file instead: " + e.getMessage());
+			}
+		}
+		return loadFeatureFromArff(featureFile, id);
+	}
+	
+	/**
+	 * Loads the feature from the ARFF feature file into the primitive storage of Feature 
+	 * @param featureFile Path to the ARFF feature file
+	 * @param id Feature id
+	 * @return Loaded feature
+	 * @throws NodeException
+	 */
+	public static Feature loadFeatureFromArff(String featureFile, int id) throws NodeException {
+		double[] values;
+		double[] windows;
+		int numberOfWindows = 0;
 		int numberOfValues = 0;
 		int sourceFrameSize = -1;
 		int sourceStepSize = -1;
@@ -95,37 +127,43 @@ public class ArffFeatureLoader {
 				line = featureReader.readLine();
 			}
 			
-			// Initialize the array lists
-			values = new ArrayList<Double[]>(numberOfValues);
-			windows = new ArrayList<Double>(numberOfValues);
-			
 			// Window number (the last attribute) does not count as feature dimension!
 			if(windowNumberAttributeExisting) {
 				dimensionNumber--;
 			}
 			
+			// Initialize the arrays; they are enlarged if the number of values is not given in the header
+			int initialCapacity = Math.max(numberOfValues, 16);
+			values = new double[initialCapacity * dimensionNumber];
+			windows = new double[initialCapacity];
+			
 			line = featureReader.readLine();
 			while(line != null) {
 				if(!line.equals("") && !line.startsWith("%")) {
+					if(numberOfWindows == windows.length) {
+						windows = Arrays.copyOf(windows, windows.length * 2);
+						values = Arrays.copyOf(values, windows.length * dimensionNumber);
+					}
 					
 					// Proceed the attributes
 					StringTokenizer t = new StringTokenizer(line,",");
-					Double[] valuesOfCurrentWindow = new Double[dimensionNumber];
+					int offset = numberOfWindows * dimensionNumber;
 					for(int i=0;i<dimensionNumber;i++) {
 						String val = t.nextToken();
 						if(val.toUpperCase().equals("NAN")) {
-							val = "NaN";
+							values[offset + i] = Double.NaN;
+						} else {
+							values[offset + i] = Double.parseDouble(val);
 						}
-						valuesOfCurrentWindow[i] = new Double(val);
 					}
 					
 					// Add time window of this feature (last attribute)
 					if(windowNumberAttributeExisting) {
-						windows.add(new Double(t.nextToken()));
+						windows[numberOfWindows] = Double.parseDouble(t.nextToken());
 					} else {
-						windows.add(-1d);
+						windows[numberOfWindows] = -1d;
 					}
-					values.add(valuesOfCurrentWindow);
+					numberOfWindows++;
 				}
 				line = featureReader.readLine();
 			}
@@ -139,7 +177,11 @@ public class ArffFeatureLoader {
 		// Create the Feature object and set the frame size
 		ArrayList<Integer> ids = new ArrayList<Integer>(1);
 		ids.add(id);
-		Feature loadedFeature = new Feature(ids, featureName, values, windows);
+		if(windows.length != numberOfWindows) {
+			windows = Arrays.copyOf(windows, numberOfWindows);
+			values = Arrays.copyOf(values, numberOfWindows * dimensionNumber);
+		}
+		Feature loadedFeature = new Feature(ids, featureName, values, windows, dimensionNumber);
 		loadedFeature.setSourceFrameSize(sourceFrameSize);
 		if(sourceStepSize == -1) {
 			sourceStepSize = sourceFrameSize;
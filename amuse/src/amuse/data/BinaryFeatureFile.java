@@ -0,0 +1,344 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+import org.apache.log4j.Level;
+
+import amuse.interfaces.nodes.NodeException;
+import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysStringValue;
+import amuse.util.AmuseLogger;
+
+/**
+ * Binary feature file which is saved in the feature database next to the ARFF feature file.
+ * Layout (little-endian):
+ * <ul>
+ * <li>Header: magic number, format version, bytes per value (8 for double, 4 for float),
+ * source frame size, source step size, sample rate, dimension, number of time windows,
+ * number of ids followed by the ids, length of the UTF-8 feature name followed by the name</li>
+ * <li>Time window numbers as doubles</li>
+ * <li>Values as row-major matrix (one row per time window)</li>
+ * </ul>
+ *
+ * @version $Id$
+ */
+public class BinaryFeatureFile {
+
+	/** Extension of binary feature files; replaces ".arff" of the corresponding ARFF feature file */
+	public static final String FILE_EXTENSION = ".bin";
+
+	/** "AMFB" as little-endian integer */
+	private static final int MAGIC_NUMBER = 0x42464D41;
+
+	private static final int FORMAT_VERSION = 1;
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/** Size of the buffer used for writing */
+	private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Returns the path of the binary feature file which corresponds to the given ARFF feature file
+	 * @param arffFeatureFile Path to ARFF feature file
+	 */
+	public static String getBinaryFileName(String arffFeatureFile) {
+		if(arffFeatureFile.toLowerCase().endsWith(".arff")) {
+			return arffFeatureFile.substring(0, arffFeatureFile.length() - 5) + FILE_EXTENSION;
+		}
+		return arffFeatureFile + FILE_EXTENSION;
+	}
+
+	/**
+	 * Checks if the binary feature file exists and is not older than the ARFF feature file
+	 * @param arffFeatureFile Path to ARFF feature file
+	 */
+	public static boolean isAvailableFor(String arffFeatureFile) {
+		File binaryFile = new File(getBinaryFileName(arffFeatureFile));
+		if(!binaryFile.exists()) {
+			return false;
+		}
+		File arffFile = new File(arffFeatureFile);
+		return !arffFile.exists() || binaryFile.lastModified() >= arffFile.lastModified();
+	}
+
+	/**
+	 * Saves the feature to a binary feature file
+	 * @param feature Feature to save
+	 * @param binaryFeatureFile Path to binary feature file
+	 * @param singlePrecision If true, the values are saved as floats, otherwise as doubles
+	 * @throws IOException
+	 */
+	public static void save(Feature feature, String binaryFeatureFile, boolean singlePrecision) throws IOException {
+		int numberOfWindows = feature.getNumberOfWindows();
+		int dimension = feature.getDimension();
+		byte[] name = (feature.getDescription() == null ? "" : feature.getDescription()).getBytes(UTF8);
+
+		RandomAccessFile file = new RandomAccessFile(binaryFeatureFile, "rw");
+		try {
+			file.setLength(0);
+			FileChannel channel = file.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+			// Header
+			buffer.putInt(MAGIC_NUMBER);
+			buffer.putInt(FORMAT_VERSION);
+			buffer.putInt(singlePrecision ? 4 : 8);
+			buffer.putInt(feature.getSourceFrameSize());
+			buffer.putInt(feature.getSourceStepSize());
+			buffer.putInt(feature.getSampleRate());
+			buffer.putInt(dimension);
+			buffer.putInt(numberOfWindows);
+			buffer.putInt(feature.getIds().size());
+			for(Integer id : feature.getIds()) {
+				flushIfFull(channel, buffer, 4);
+				buffer.putInt(id);
+			}
+			flushIfFull(channel, buffer, 4);
+			buffer.putInt(name.length);
+			for(byte b : name) {
+				flushIfFull(channel, buffer, 1);
+				buffer.put(b);
+			}
+
+			// Time windows
+			for(int i=0;i<numberOfWindows;i++) {
+				flushIfFull(channel, buffer, 8);
+				buffer.putDouble(feature.getWindow(i));
+			}
+
+			// Values
+			for(int i=0;i<numberOfWindows;i++) {
+				for(int d=0;d<dimension;d++) {
+					if(singlePrecision) {
+						flushIfFull(channel, buffer, 4);
+						buffer.putFloat((float)feature.getValue(i, d));
+					} else {
+						flushIfFull(channel, buffer, 8);
+						buffer.putDouble(feature.getValue(i, d));
+					}
+				}
+			}
+			flush(channel, buffer);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Loads the feature from a binary feature file. The file is read at once into a heap buffer
+	 * and closed before the feature is returned; it is not mapped into memory, since a mapping
+	 * would lock the file (e.g. on Windows) until the buffer is garbage collected
+	 * @param binaryFeatureFile Path to binary feature file
+	 * @param id Feature id; if -1, the id saved in the file is used
+	 * @return Loaded feature with primitive value storage
+	 * @throws IOException
+	 */
+	public static Feature load(String binaryFeatureFile, int id) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(binaryFeatureFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			if(channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Binary feature file '" + binaryFeatureFile + "' is too large (" + channel.size() + " bytes)");
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((int)channel.size());
+			while(buffer.hasRemaining()) {
+				if(channel.read(buffer) < 0) {
+					throw new IOException("Unexpected end of binary feature file '" + binaryFeatureFile + "'");
+				}
+			}
+			buffer.flip();
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			// Header
+			if(buffer.getInt() != MAGIC_NUMBER) {
+				throw new IOException("'" + binaryFeatureFile + "' is not a binary feature file");
+			}
+			int version = buffer.getInt();
+			if(version != FORMAT_VERSION) {
+				throw new IOException("Unsupported version " + version + " of binary feature file '" + binaryFeatureFile + "'");
+			}
+			int bytesPerValue = buffer.getInt();
+			if(bytesPerValue != 4 && bytesPerValue != 8) {
+				throw new IOException("Binary feature file '" + binaryFeatureFile + "' has " + bytesPerValue + 
+						" bytes per value; only 4 (float) and 8 (double) are supported");
+			}
+			int sourceFrameSize = buffer.getInt();
+			int sourceStepSize = buffer.getInt();
+			int sampleRate = buffer.getInt();
+			int dimension = buffer.getInt();
+			int numberOfWindows = buffer.getInt();
+			int numberOfIds = buffer.getInt();
+			ArrayList<Integer> ids = new ArrayList<Integer>(numberOfIds);
+			for(int i=0;i<numberOfIds;i++) {
+				ids.add(buffer.getInt());
+			}
+			byte[] name = new byte[buffer.getInt()];
+			buffer.get(name);
+			if(id != -1) {
+				ids.clear();
+				ids.add(id);
+			}
+
+			// Time windows and values
+			double[] windows = new double[numberOfWindows];
+			buffer.asDoubleBuffer().get(windows);
+			buffer.position(buffer.position() + numberOfWindows * 8);
+			double[] values = new double[numberOfWindows * dimension];
+			if(bytesPerValue == 8) {
+				buffer.asDoubleBuffer().get(values);
+			} else {
+				for(int i=0;i<values.length;i++) {
+					values[i] = buffer.getFloat();
+				}
+			}
+
+			Feature loadedFeature = new Feature(ids, new String(name, UTF8), values, windows, dimension);
+			loadedFeature.setSourceFrameSize(sourceFrameSize);
+			loadedFeature.setSourceStepSize(sourceStepSize);
+			loadedFeature.setSampleRate(sampleRate);
+			return loadedFeature;
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Creates the binary feature file for the given ARFF feature file
+	 * @param arffFeatureFile Path to ARFF feature file
+	 * @param singlePrecision If true, the values are saved as floats, otherwise as doubles
+	 * @throws NodeException If the ARFF feature file could not be loaded or the binary file could not be written
+	 */
+	public static void convertArffFile(File arffFeatureFile, boolean singlePrecision) throws NodeException {
+		Feature feature = ArffFeatureLoader.loadFeatureFromArff(arffFeatureFile.getPath(), parseFeatureId(arffFeatureFile));
+		try {
+			save(feature, getBinaryFileName(arffFeatureFile.getPath()), singlePrecision);
+		} catch(IOException e) {
+			throw new NodeException("Could not write binary feature file for '" + arffFeatureFile + "': " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Creates binary feature files for all ARFF feature files in the given folder and its subfolders,
+	 * which do not have an up-to-date binary feature file yet
+	 * @param folder Folder of the feature database
+	 * @param singlePrecision If true, the values are saved as floats, otherwise as doubles
+	 * @return Number of created binary feature files
+	 */
+	public static int convertFeatureDatabase(File folder, boolean singlePrecision) {
+		int numberOfConvertedFiles = 0;
+		File[] files = folder.listFiles();
+		if(files == null) {
+			return 0;
+		}
+		for(File file : files) {
+			if(file.isDirectory()) {
+				numberOfConvertedFiles += convertFeatureDatabase(file, singlePrecision);
+			} else if(file.getName().toLowerCase().endsWith(".arff") && !isAvailableFor(file.getPath())) {
+				try {
+					convertArffFile(file, singlePrecision);
+					numberOfConvertedFiles++;
+				} catch(Exception e) {
+
+					// E.g. string features can not be saved in binary format
+					AmuseLogger.write(BinaryFeatureFile.class.getName(), Level.DEBUG,
+							"Skipping '" + file + "': " + e.getMessage());
+				}
+			}
+		}
+		return numberOfConvertedFiles;
+	}
+
+	/**
+	 * Estimates the feature id from the file name in the feature database, where feature files are
+	 * saved as "[music file name]/[music file name]_[feature id](_[configuration id]).arff"
+	 * @param featureFile Feature file
+	 * @return Feature id or -1 if it could not be estimated
+	 */
+	static int parseFeatureId(File featureFile) {
+		String prefix = featureFile.getParentFile() == null ? "" : featureFile.getParentFile().getName() + "_";
+		String name = featureFile.getName();
+		if(!name.startsWith(prefix) || name.lastIndexOf('.') <= prefix.length()) {
+			return -1;
+		}
+		String idString = name.substring(prefix.length(), name.lastIndexOf('.'));
+		if(idString.indexOf('_') != -1) {
+			idString = idString.substring(0, idString.indexOf('_'));
+		}
+		try {
+			return Integer.parseInt(idString);
+		} catch(NumberFormatException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Writes the buffer to the channel if it has less free space than required
+	 */
+	private static void flushIfFull(FileChannel channel, ByteBuffer buffer, int requiredBytes) throws IOException {
+		if(buffer.remaining() < requiredBytes) {
+			flush(channel, buffer);
+		}
+	}
+
+	/**
+	 * Writes the buffer content to the channel
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Converts an existing feature database to binary feature files
+	 * @param args Optional: path to feature database (default: feature database from AMUSE settings)
+	 * and "float" for single precision values
+	 */
+	public static void main(String[] args) {
+		String featureDatabase = AmusePreferences.get(KeysStringValue.FEATURE_DATABASE);
+		boolean singlePrecision = false;
+		for(String arg : args) {
+			if(arg.equalsIgnoreCase("float")) {
+				singlePrecision = true;
+			} else {
+				featureDatabase = arg;
+			}
+		}
+		AmuseLogger.write(BinaryFeatureFile.class.getName(), Level.INFO, "Converting feature database '" + featureDatabase + "'...");
+		int numberOfConvertedFiles = convertFeatureDatabase(new File(featureDatabase), singlePrecision);
+		AmuseLogger.write(BinaryFeatureFile.class.getName(), Level.INFO, "..." + numberOfConvertedFiles + " binary feature files created");
+	}
+
+}
@@ -25,8 +25,18 @@ package amuse.data;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import amuse.data.io.ArffDataSet;
 import amuse.data.io.DataSet;
@@ -85,20 +95,247 @@ public class Feature implements Serializable {
 	 *  First step = original name of the feature */
 	private ArrayList<String> history;
 	
+	/** Values of this feature as one array per time window; null if the primitive storage is used */
 	private ArrayList<Double[]> values;
 	
+	/** Numbers of time windows (a WindowList, which counts its changes); null if the primitive storage is used */
 	private ArrayList<Double> windows;
 	
+	/** Primitive storage of the values: row-major matrix with one row per time window
+	 * and one column per feature dimension. Is used instead of values/windows until 
+	 * getValues() or getWindows() is called, since the returned lists may be changed by the caller */
+	private double[] valueMatrix;
+	
+	/** Primitive storage of the time window numbers; corresponds to the rows of valueMatrix */
+	private double[] windowAxis;
+	
+	/** Repeated-window view of the values of a feature from larger source frames; used instead of
+	 * the other storages until the values are changed (see createRepeatedWindowView()) */
+	private RepeatedWindows repeatedWindows;
+	
 	/** Description of this feature */
 	private String description;
 	
 	/** This value is used to determine if this feature is selected for extraction */
 	private boolean isSelectedForExtraction = true;
 	
+	/** Layout of the time window numbers, which decides how a time window is searched:
+	 * REGULAR - equal steps between the windows, the position is calculated directly;
+	 * SORTED - ascending windows with irregular steps (e.g. CENS or event features), binary search is used;
+	 * UNSORTED - a hash map from window numbers to positions is used */
+	private enum WindowAxisLayout {REGULAR, SORTED, UNSORTED};
+	
+	/** Index of time window numbers; built on demand and rebuilt after any change of time windows */
+	private transient WindowAxisLayout windowAxisLayout = null;
+	
+	/** The time window storage (list or array) and the number of its changes at the moment the index was built.
+	 * Used to recognize changes made through the list returned by getWindows() */
+	private transient Object indexedWindowStorage;
+	private transient int indexedModifications;
+	
+	/** The first time window number at the moment the index was built */
+	private transient double indexedFirstWindow;
+	
+	/** Step between time window numbers for the REGULAR layout */
+	private transient double windowStep;
+	
+	/** Positions of time window numbers for the UNSORTED layout */
+	private transient HashMap<Double,Integer> windowPositions;
+	
+	/**
+	 * List of time window numbers which counts every change, also those made through its iterators
+	 * and sublists, so that the window index can be rebuilt after the list has been changed by a caller
+	 */
+	private static class WindowList extends ArrayList<Double> {
+		
+		private static final long serialVersionUID = 6052431896215305117L;
+		
+		/** Number of changes of the list */
+		private int modifications = 0;
+		
+		WindowList() {
+			super();
+		}
+		
+		WindowList(Collection<? extends Double> windows) {
+			super(windows);
+		}
+		
+		public Double set(int index, Double window) {
+			modifications++;
+			return super.set(index, window);
+		}
+		
+		public boolean add(Double window) {
+			modifications++;
+			return super.add(window);
+		}
+		
+		public void add(int index, Double window) {
+			modifications++;
+			super.add(index, window);
+		}
+		
+		public boolean addAll(Collection<? extends Double> windows) {
+			modifications++;
+			return super.addAll(windows);
+		}
+		
+		public boolean addAll(int index, Collection<? extends Double> windows) {
+			modifications++;
+			return super.addAll(index, windows);
+		}
+		
+		public Double remove(int index) {
+			modifications++;
+			return super.remove(index);
+		}
+		
+		public boolean remove(Object window) {
+			modifications++;
+			return super.remove(window);
+		}
+		
+		public boolean removeAll(Collection<?> windows) {
+			modifications++;
+			return super.removeAll(windows);
+		}
+		
+		public boolean retainAll(Collection<?> windows) {
+			modifications++;
+			return super.retainAll(windows);
+		}
+		
+		public boolean removeIf(Predicate<? super Double> filter) {
+			modifications++;
+			return super.removeIf(filter);
+		}
+		
+		public void replaceAll(UnaryOperator<Double> operator) {
+			modifications++;
+			super.replaceAll(operator);
+		}
+		
+		public void sort(Comparator<? super Double> comparator) {
+			modifications++;
+			super.sort(comparator);
+		}
+		
+		public void clear() {
+			modifications++;
+			super.clear();
+		}
+		
+		protected void removeRange(int fromIndex, int toIndex) {
+			modifications++;
+			super.removeRange(fromIndex, toIndex);
+		}
+		
+		/**
+		 * Returns a view which changes this list through the counting methods
+		 */
+		public List<Double> subList(int fromIndex, int toIndex) {
+			if(fromIndex < 0 || toIndex > size() || fromIndex > toIndex) {
+				throw new IndexOutOfBoundsException("fromIndex: " + fromIndex + ", toIndex: " + toIndex + ", size: " + size());
+			}
+			return new WindowSubList(this, fromIndex, toIndex);
+		}
+	}
+	
+	/**
+	 * Sublist of a WindowList
+	 */
+	private static class WindowSubList extends AbstractList<Double> implements RandomAccess {
+		
+		private final WindowList parent;
+		private final int offset;
+		private int size;
+		
+		WindowSubList(WindowList parent, int fromIndex, int toIndex) {
+			this.parent = parent;
+			this.offset = fromIndex;
+			this.size = toIndex - fromIndex;
+		}
+		
+		public Double get(int index) {
+			checkIndex(index, size);
+			return parent.get(offset + index);
+		}
+		
+		public Double set(int index, Double window) {
+			checkIndex(index, size);
+			return parent.set(offset + index, window);
+		}
+		
+		public void add(int index, Double window) {
+			checkIndex(index, size + 1);
+			parent.add(offset + index, window);
+			size++;
+		}
+		
+		public Double remove(int index) {
+			checkIndex(index, size);
+			size--;
+			return parent.remove(offset + index);
+		}
+		
+		protected void removeRange(int fromIndex, int toIndex) {
+			parent.removeRange(offset + fromIndex, offset + toIndex);
+			size -= toIndex - fromIndex;
+		}
+		
+		public int size() {
+			return size;
+		}
+		
+		private void checkIndex(int index, int bound) {
+			if(index < 0 || index >= bound) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+			}
+		}
+	}
+	
+	/**
+	 * Maps the time windows 1, 2, 3, ... of smaller frames to the rows of a feature from larger
+	 * frames. The time window with the position i belongs to the source row i * frameSize / sourceFrameSize;
+	 * the windows after the last source row have NaN values
+	 */
+	private static class RepeatedWindows implements Serializable {
+		
+		private static final long serialVersionUID = -2904213471658230612L;
+		
+		/** Values of the source feature as row-major matrix; never changed */
+		final double[] sourceMatrix;
+		final int numberOfSourceRows;
+		final long sourceFrameSize;
+		final long frameSize;
+		final int numberOfWindows;
+		
+		RepeatedWindows(double[] sourceMatrix, int numberOfSourceRows, int sourceFrameSize, int frameSize, int numberOfWindows) {
+			this.sourceMatrix = sourceMatrix;
+			this.numberOfSourceRows = numberOfSourceRows;
+			this.sourceFrameSize = sourceFrameSize;
+			this.frameSize = frameSize;
+			this.numberOfWindows = numberOfWindows;
+		}
+		
+		/**
+		 * @return Source row of the time window at the given position or -1 if the window is after the last source row
+		 */
+		int getSourceRow(int index) {
+			long row = index * frameSize / sourceFrameSize;
+			return row < numberOfSourceRows ? (int)row : -1;
+		}
+	}
+	
+	/**
+	 * Creates a feature with list storage of values and time windows. The time windows are copied,
+	 * unless they are the windows of another feature (e.g. of the feature a new one is derived from)
+	 */
 	public Feature(ArrayList<Integer> ids, String description, ArrayList<Double[]> values,ArrayList<Double> windows) {
 		this.ids = ids;
 		this.values = values;
-		this.windows = windows;
+		this.windows = (windows instanceof WindowList) ? windows : new WindowList(windows);
 		this.dimension = values.get(0).length;
 		this.history = new ArrayList<String>();
 		this.description = description;
@@ -106,6 +343,29 @@ public class Feature implements Serializable {
 		this.featureType = FeatureType.WindowedNumeric;
 	}
 	
+	/**
+	 * Creates a feature with primitive storage of values and time windows
+	 * @param ids Feature ids
+	 * @param description Feature description
+	 * @param valueMatrix Values as row-major matrix (one row with the given dimension per time window)
+	 * @param windowAxis Numbers of time windows
+	 * @param dimension Feature dimension
+	 */
+	public Feature(ArrayList<Integer> ids, String description, double[] valueMatrix, double[] windowAxis, int dimension) {
+		if(valueMatrix.length != windowAxis.length * dimension) {
+			throw new IllegalArgumentException("Value matrix with " + valueMatrix.length + 
+					" entries does not match " + windowAxis.length + " time windows of dimension " + dimension);
+		}
+		this.ids = ids;
+		this.valueMatrix = valueMatrix;
+		this.windowAxis = windowAxis;
+		this.dimension = dimension;
+		this.history = new ArrayList<String>();
+		this.description = description;
+		this.history.add(new String(description));
+		this.featureType = FeatureType.WindowedNumeric;
+	}
+	
 	public Feature(ArrayList<Integer> ids, String description, int dimension) {
 		this.ids = ids;
 		this.description = description;
@@ -113,7 +373,7 @@ public class Feature implements Serializable {
 		this.history = new ArrayList<String>();
 		this.history.add(new String(description));
 		this.values = new ArrayList<Double[]>();
-		this.windows = new ArrayList<Double>();
+		this.windows = new WindowList();
 		this.featureType = FeatureType.WindowedNumeric;
 	}
 	
@@ -136,11 +396,43 @@ public class Feature implements Serializable {
 		this.ids = new ArrayList<Integer>(1);
 		ids.add(id);
 		this.values = new ArrayList<Double[]>();
-		this.windows = new ArrayList<Double>();
+		this.windows = new WindowList();
 		this.history = new ArrayList<String>();
 		this.featureType = FeatureType.WindowedNumeric;
 	}
 	
+	/**
+	 * Creates a view of a feature from larger source frames with the time windows of smaller frames,
+	 * e.g. to process it together with features extracted from the smaller frames. Each value of the
+	 * source feature is repeated for all small time windows within its source frame and the windows after 
+	 * the end of the source feature have NaN values. The values are not copied until they are changed
+	 * through getValues(), retainWindows() or convertToPrimitiveStorage()
+	 * @param source Feature with the time windows 1, 2, ..., n (see hasConsecutiveWindows()); must not be changed
+	 * after the view is created
+	 * @param sourceFrameSize Frame size of the source feature in samples
+	 * @param frameSize Smaller frame size of the view in samples
+	 * @param minimalNumberOfWindows The view has at least this number of time windows
+	 * @return View with the time windows 1, 2, ..., m and the meta data of the source feature
+	 */
+	public static Feature createRepeatedWindowView(Feature source, int sourceFrameSize, int frameSize, int minimalNumberOfWindows) {
+		if(!source.hasConsecutiveWindows()) {
+			throw new IllegalArgumentException("Time windows of feature '" + source.getDescription() + "' are not consecutive");
+		}
+		source.convertToPrimitiveStorage();
+		int numberOfSourceRows = source.getNumberOfWindows();
+		int numberOfWindows = (int)Math.max(((long)numberOfSourceRows * sourceFrameSize + frameSize - 1) / frameSize, 
+				minimalNumberOfWindows);
+		Feature view = new Feature(new ArrayList<Integer>(source.ids), source.description, source.dimension);
+		view.values = null;
+		view.windows = null;
+		view.repeatedWindows = new RepeatedWindows(source.valueMatrix, numberOfSourceRows, sourceFrameSize, frameSize, numberOfWindows);
+		view.setHistory(source.getHistory());
+		view.sampleRate = source.sampleRate;
+		view.sourceFrameSize = source.sourceFrameSize;
+		view.sourceStepSize = source.sourceStepSize;
+		return view;
+	}
+	
 	public String getDescription() {
 		return this.description;
 	}
@@ -176,7 +468,18 @@ public class Feature implements Serializable {
 	public int getExtractorId() {
 		return this.extractorId;
 	}
+	
+	/**
+	 * Returns the values as list of time window rows. If the primitive storage is used, it is
+	 * converted to the list storage, since the returned list may be modified by the caller
+	 */
 	public ArrayList<Double[]> getValues() {
+		if(repeatedWindows != null) {
+			materializeRepeatedWindows();
+		}
+		if(valueMatrix != null) {
+			convertToListStorage();
+		}
 		return values;
 	}
 	
@@ -185,18 +488,509 @@ public class Feature implements Serializable {
 	 * @param window The given time window
 	 */
 	public Double[] getValuesFromWindow(double window) {
+		int index = getWindowIndex(window);
+		if(index == -1) {
+			return null;
+		}
+		return getValues().get(index);
+	}
+	
+	/**
+	 * Returns the values of all time windows from the given interval; the time windows must be
+	 * sorted in ascending order, otherwise all matching windows are collected in the list order
+	 * @param start First time window of the interval (inclusive)
+	 * @param end Last time window of the interval (exclusive)
+	 * @return View of the rows with values of the time windows from the given interval
+	 */
+	public List<Double[]> getValuesFromWindowRange(double start, double end) {
+		ArrayList<Double[]> values = getValues();
+		if(getWindowAxisLayout() != WindowAxisLayout.UNSORTED) {
+			int from = getFirstWindowIndexFrom(start);
+			int to = Math.max(from, getFirstWindowIndexFrom(end));
+			return values.subList(from, to);
+		}
+		List<Double[]> valuesFromRange = new ArrayList<Double[]>();
 		for(int i=0;i<windows.size();i++) {
-			if(windows.get(i) == window) {
-				return values.get(i);
+			if(windows.get(i) >= start && windows.get(i) < end) {
+				valuesFromRange.add(values.get(i));
+			}
+		}
+		return valuesFromRange;
+	}
+	
+	/**
+	 * Returns the position of the given time window
+	 * @param window The given time window
+	 * @return Position of the time window or -1 if this time window is not found
+	 */
+	public int getWindowIndex(double window) {
+		WindowAxisLayout layout = getWindowAxisLayout();
+		int numberOfWindows = getNumberOfWindows();
+		int index = -1;
+		if(layout == WindowAxisLayout.REGULAR) {
+			double position = Math.rint((window - indexedFirstWindow) / windowStep);
+			if(position >= 0 && position < numberOfWindows) {
+				index = (int)position;
+			}
+		} else if(layout == WindowAxisLayout.SORTED) {
+			index = getFirstWindowIndexFrom(window);
+		} else {
+			Integer position = windowPositions.get(window);
+			if(position != null) {
+				index = position;
+			}
+		}
+		if(index == -1 || index >= numberOfWindows || getWindow(index) != window) {
+			return -1;
+		}
+		return index;
+	}
+	
+	/**
+	 * Returns the position of the first time window with a number equal to or larger than the given one.
+	 * The time windows should be sorted in ascending order; otherwise the first matching position in 
+	 * the list order is returned
+	 * @param window The given time window
+	 * @return Position of the time window or the number of time windows if all windows are smaller
+	 */
+	public int getFirstWindowIndexFrom(double window) {
+		WindowAxisLayout layout = getWindowAxisLayout();
+		int numberOfWindows = getNumberOfWindows();
+		if(layout == WindowAxisLayout.UNSORTED) {
+			for(int i=0;i<numberOfWindows;i++) {
+				if(getWindow(i) >= window) {
+					return i;
+				}
+			}
+			return numberOfWindows;
+		}
+		int low = 0;
+		int high = numberOfWindows;
+		if(layout == WindowAxisLayout.REGULAR) {
+			
+			// Estimate the position and correct it, since window numbers may have rounding errors
+			double position = Math.ceil((window - indexedFirstWindow) / windowStep);
+			low = (int)Math.max(0, Math.min(numberOfWindows, position));
+			while(low > 0 && getWindow(low - 1) >= window) {
+				low--;
+			}
+			while(low < numberOfWindows && getWindow(low) < window) {
+				low++;
+			}
+			return low;
+		}
+		while(low < high) {
+			int middle = (low + high) >>> 1;
+			if(getWindow(middle) < window) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+	
+	/**
+	 * Removes the time windows which are not marked to remain
+	 * @param windowsToRetain True for each time window which should remain
+	 */
+	public void retainWindows(boolean[] windowsToRetain) {
+		if(repeatedWindows != null) {
+			materializeRepeatedWindows();
+		}
+		if(valueMatrix != null) {
+			int numberOfRemainingWindows = 0;
+			for(int i=0;i<windowAxis.length;i++) {
+				if(windowsToRetain[i]) {
+					if(i != numberOfRemainingWindows) {
+						windowAxis[numberOfRemainingWindows] = windowAxis[i];
+						System.arraycopy(valueMatrix, i * dimension, valueMatrix, numberOfRemainingWindows * dimension, dimension);
+					}
+					numberOfRemainingWindows++;
+				}
+			}
+			windowAxis = Arrays.copyOf(windowAxis, numberOfRemainingWindows);
+			valueMatrix = Arrays.copyOf(valueMatrix, numberOfRemainingWindows * dimension);
+		} else {
+			int numberOfRemainingWindows = 0;
+			for(int i=0;i<windows.size();i++) {
+				if(windowsToRetain[i]) {
+					if(i != numberOfRemainingWindows) {
+						windows.set(numberOfRemainingWindows, windows.get(i));
+						values.set(numberOfRemainingWindows, values.get(i));
+					}
+					numberOfRemainingWindows++;
+				}
+			}
+			windows.subList(numberOfRemainingWindows, windows.size()).clear();
+			values.subList(numberOfRemainingWindows, values.size()).clear();
+		}
+		windowAxisLayout = null;
+	}
+	
+	/**
+	 * Returns the layout of the time window numbers, (re)building the window index if
+	 * it does not exist or the time windows have been changed since it was built
+	 */
+	private WindowAxisLayout getWindowAxisLayout() {
+		Object windowStorage = (valueMatrix != null) ? windowAxis : (repeatedWindows != null ? repeatedWindows : windows);
+		
+		// The primitive storages are changed only by the methods of this class, which drop the index
+		int modifications = (windowStorage == windows && windows != null) ? ((WindowList)windows).modifications : 0;
+		if(windowAxisLayout != null && windowStorage == indexedWindowStorage && modifications == indexedModifications) {
+			return windowAxisLayout;
+		}
+		
+		int numberOfWindows = getNumberOfWindows();
+		indexedWindowStorage = windowStorage;
+		indexedModifications = modifications;
+		indexedFirstWindow = numberOfWindows > 0 ? getWindow(0) : 0;
+		windowPositions = null;
+		windowStep = numberOfWindows > 1 ? getWindow(1) - indexedFirstWindow : 1;
+		
+		boolean isRegular = windowStep > 0;
+		boolean isSorted = true;
+		for(int i=1;i<numberOfWindows && isSorted;i++) {
+			double currentWindow = getWindow(i);
+			if(currentWindow < getWindow(i-1) || Double.isNaN(currentWindow)) {
+				isSorted = false;
+			} else if(isRegular && currentWindow != indexedFirstWindow + i * windowStep) {
+				isRegular = false;
+			}
+		}
+		
+		if(isSorted && isRegular) {
+			windowAxisLayout = WindowAxisLayout.REGULAR;
+		} else if(isSorted) {
+			windowAxisLayout = WindowAxisLayout.SORTED;
+		} else {
+			windowAxisLayout = WindowAxisLayout.UNSORTED;
+			windowPositions = new HashMap<Double,Integer>(numberOfWindows * 2);
+			for(int i=numberOfWindows-1;i>=0;i--) {
+				windowPositions.put(getWindow(i), i);
 			}
 		}
-		return null;
+		return windowAxisLayout;
 	}
 
+	/**
+	 * Returns the numbers of time windows. If the primitive storage is used, it is
+	 * converted to the list storage, since the returned list may be modified by the caller
+	 */
 	public ArrayList<Double> getWindows() {
+		if(repeatedWindows != null) {
+			materializeRepeatedWindows();
+		}
+		if(valueMatrix != null) {
+			convertToListStorage();
+		}
 		return windows;
 	}
 	
+	/**
+	 * Appends a time window with its values. Should be used instead of changing the lists returned
+	 * by getValues() and getWindows() one after another
+	 * @param window Number of the time window
+	 * @param windowValues Values of all feature dimensions for this time window
+	 */
+	public void addWindow(double window, Double[] windowValues) {
+		if(repeatedWindows != null) {
+			materializeRepeatedWindows();
+		}
+		if(valueMatrix != null) {
+			convertToListStorage();
+		}
+		values.add(windowValues);
+		windows.add(window);
+		windowAxisLayout = null;
+	}
+	
+	/**
+	 * Replaces the time window lists of features saved before the WindowList was introduced,
+	 * so that their changes are counted as well
+	 */
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		if(windows != null && !(windows instanceof WindowList)) {
+			windows = new WindowList(windows);
+		}
+	}
+	
+	/**
+	 * @return True if the values are currently kept in the primitive storage or in a repeated-window view
+	 */
+	public boolean hasPrimitiveStorage() {
+		return valueMatrix != null || repeatedWindows != null;
+	}
+	
+	/**
+	 * @return True if this feature is a repeated-window view, which has not been changed yet
+	 */
+	public boolean isRepeatedWindowView() {
+		return repeatedWindows != null;
+	}
+	
+	/**
+	 * @return True if the time windows are 1, 2, ..., n 
+	 */
+	public boolean hasConsecutiveWindows() {
+		int numberOfWindows = getNumberOfWindows();
+		return numberOfWindows == 0 || (getWindow(0) == 1d && getWindow(numberOfWindows - 1) == numberOfWindows &&
+			(numberOfWindows == 1 || getWindowAxisLayout() == WindowAxisLayout.REGULAR));
+	}
+	
+	/**
+	 * @return Number of time windows of this feature
+	 */
+	public int getNumberOfWindows() {
+		if(valueMatrix != null) {
+			return windowAxis.length;
+		}
+		if(repeatedWindows != null) {
+			return repeatedWindows.numberOfWindows;
+		}
+		return windows == null ? 0 : windows.size();
+	}
+	
+	/**
+	 * @return Number of time windows for which the values are actually stored; smaller than the number of
+	 * time windows for repeated-window views
+	 */
+	public int getNumberOfStoredWindows() {
+		if(repeatedWindows != null) {
+			return repeatedWindows.numberOfSourceRows;
+		}
+		return getNumberOfWindows();
+	}
+	
+	/**
+	 * Returns the number of the time window at the given position
+	 * @param index Position of the time window
+	 */
+	public double getWindow(int index) {
+		if(valueMatrix != null) {
+			return windowAxis[index];
+		}
+		if(repeatedWindows != null) {
+			if(index < 0 || index >= repeatedWindows.numberOfWindows) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + repeatedWindows.numberOfWindows);
+			}
+			return index + 1; // Time windows are counted up from 1, not 0!
+		}
+		return windows.get(index);
+	}
+	
+	/**
+	 * Returns a single value without copying the data
+	 * @param index Position of the time window
+	 * @param dimension Feature dimension
+	 */
+	public double getValue(int index, int dimension) {
+		if(valueMatrix != null) {
+			return valueMatrix[index * this.dimension + dimension];
+		}
+		if(repeatedWindows != null) {
+			int row = repeatedWindows.getSourceRow(index);
+			return row == -1 ? Double.NaN : repeatedWindows.sourceMatrix[row * this.dimension + dimension];
+		}
+		return values.get(index)[dimension];
+	}
+	
+	/**
+	 * Copies the values of the given time window to the target array
+	 * @param index Position of the time window
+	 * @param target Array with at least the feature dimension as length; if null, a new array is created
+	 * @return The target array
+	 */
+	public double[] getRow(int index, double[] target) {
+		if(target == null) {
+			target = new double[dimension];
+		}
+		if(valueMatrix != null) {
+			System.arraycopy(valueMatrix, index * dimension, target, 0, dimension);
+		} else if(repeatedWindows != null) {
+			int row = repeatedWindows.getSourceRow(index);
+			if(row == -1) {
+				Arrays.fill(target, 0, dimension, Double.NaN);
+			} else {
+				System.arraycopy(repeatedWindows.sourceMatrix, row * dimension, target, 0, dimension);
+			}
+		} else {
+			Double[] row = values.get(index);
+			for(int d=0;d<row.length;d++) {
+				target[d] = row[d];
+			}
+		}
+		return target;
+	}
+	
+	/**
+	 * Copies the values of the given feature dimension for all time windows to the target array
+	 * @param dimension Feature dimension
+	 * @param target Array with at least the number of time windows as length; if null, a new array is created
+	 * @return The target array
+	 */
+	public double[] getColumn(int dimension, double[] target) {
+		int numberOfWindows = getNumberOfWindows();
+		if(target == null) {
+			target = new double[numberOfWindows];
+		}
+		if(valueMatrix != null) {
+			for(int i=0, offset=dimension;i<numberOfWindows;i++, offset+=this.dimension) {
+				target[i] = valueMatrix[offset];
+			}
+		} else if(repeatedWindows != null) {
+			for(int i=0;i<numberOfWindows;i++) {
+				target[i] = getValue(i, dimension);
+			}
+		} else {
+			for(int i=0;i<numberOfWindows;i++) {
+				target[i] = values.get(i)[dimension];
+			}
+		}
+		return target;
+	}
+	
+	/**
+	 * Copies the numbers of all time windows to the target array
+	 * @param target Array with at least the number of time windows as length; if null, a new array is created
+	 * @return The target array
+	 */
+	public double[] getWindowAxis(double[] target) {
+		int numberOfWindows = getNumberOfWindows();
+		if(target == null) {
+			target = new double[numberOfWindows];
+		}
+		if(valueMatrix != null) {
+			System.arraycopy(windowAxis, 0, target, 0, numberOfWindows);
+		} else if(repeatedWindows != null) {
+			for(int i=0;i<numberOfWindows;i++) {
+				target[i] = i + 1;
+			}
+		} else {
+			for(int i=0;i<numberOfWindows;i++) {
+				target[i] = windows.get(i);
+			}
+		}
+		return target;
+	}
+	
+	/**
+	 * Moves the values from the list storage to the primitive storage. Should be called
+	 * after the feature is completely built, e.g. by a processing method
+	 */
+	public void convertToPrimitiveStorage() {
+		if(repeatedWindows != null) {
+			materializeRepeatedWindows();
+		}
+		if(valueMatrix != null || values == null) {
+			return;
+		}
+		int numberOfWindows = windows.size();
+		if(numberOfWindows > 0) {
+			dimension = values.get(0).length;
+		}
+		double[] newMatrix = new double[numberOfWindows * dimension];
+		double[] newAxis = new double[numberOfWindows];
+		for(int i=0;i<numberOfWindows;i++) {
+			Double[] row = values.get(i);
+			for(int d=0;d<dimension;d++) {
+				newMatrix[i * dimension + d] = row[d];
+			}
+			newAxis[i] = windows.get(i);
+		}
+		valueMatrix = newMatrix;
+		windowAxis = newAxis;
+		values = null;
+		windows = null;
+	}
+	
+	/**
+	 * Copies the values of the repeated-window view to the primitive storage, so that they can be changed
+	 */
+	private void materializeRepeatedWindows() {
+		int numberOfWindows = repeatedWindows.numberOfWindows;
+		double[] newMatrix = new double[numberOfWindows * dimension];
+		double[] newAxis = new double[numberOfWindows];
+		for(int i=0;i<numberOfWindows;i++) {
+			int row = repeatedWindows.getSourceRow(i);
+			if(row == -1) {
+				Arrays.fill(newMatrix, i * dimension, (i + 1) * dimension, Double.NaN);
+			} else {
+				System.arraycopy(repeatedWindows.sourceMatrix, row * dimension, newMatrix, i * dimension, dimension);
+			}
+			newAxis[i] = i + 1;
+		}
+		valueMatrix = newMatrix;
+		windowAxis = newAxis;
+		repeatedWindows = null;
+	}
+	
+	/**
+	 * Moves the values from the primitive storage to the list storage
+	 */
+	private void convertToListStorage() {
+		int numberOfWindows = windowAxis.length;
+		ArrayList<Double[]> newValues = new ArrayList<Double[]>(numberOfWindows);
+		ArrayList<Double> newWindows = new WindowList();
+		for(int i=0;i<numberOfWindows;i++) {
+			Double[] row = new Double[dimension];
+			for(int d=0;d<dimension;d++) {
+				row[d] = valueMatrix[i * dimension + d];
+			}
+			newValues.add(row);
+			newWindows.add(windowAxis[i]);
+		}
+		values = newValues;
+		windows = newWindows;
+		valueMatrix = null;
+		windowAxis = null;
+	}
+
+	/**
+	 * Creates a deep copy of this feature, which can be changed independently (e.g.
+	 * by processing methods)
+	 * @return Copy with the same values, time windows, history and meta data
+	 */
+	public Feature copy() {
+		Feature copy = new Feature(new ArrayList<Integer>(ids), description, dimension);
+		if(valueMatrix != null) {
+			copy.valueMatrix = valueMatrix.clone();
+			copy.windowAxis = windowAxis.clone();
+			copy.values = null;
+			copy.windows = null;
+		} else if(repeatedWindows != null) {
+			
+			// The source values of the view are never changed and can be shared
+			copy.repeatedWindows = repeatedWindows;
+			copy.values = null;
+			copy.windows = null;
+		} else if(values != null) {
+			copy.values.ensureCapacity(values.size());
+			for(Double[] row : values) {
+				copy.values.add(row.clone());
+			}
+			copy.windows.addAll(windows);
+		} else {
+			copy.values = null;
+			copy.windows = null;
+		}
+		if(history != null) {
+			copy.history = new ArrayList<String>(history);
+		} else {
+			copy.history = null;
+		}
+		copy.extractorId = extractorId;
+		copy.configurationId = configurationId;
+		copy.customScript = customScript;
+		copy.sourceFrameSize = sourceFrameSize;
+		copy.sourceStepSize = sourceStepSize;
+		copy.sampleRate = sampleRate;
+		copy.featureType = featureType;
+		copy.isSelectedForExtraction = isSelectedForExtraction;
+		return copy;
+	}
+
 	public ArrayList<String> getHistory() {
 		return history;
 	}
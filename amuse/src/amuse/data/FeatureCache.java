@@ -0,0 +1,255 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.data;
+
+import java.io.File;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysIntValue;
+
+/**
+ * Keeps loaded features in memory, so that several processing tasks of one scheduler
+ * run which use the same raw features do not have to load them again. The cache is
+ * bounded by the size given in the AMUSE preferences and by a fraction of the maximum
+ * heap size; the least recently used features are removed first. The features are
+ * held by soft references and may also be removed by the garbage collector if the
+ * memory is needed elsewhere.
+ *
+ * The cached features are copied on storing and on lookup, since processing methods
+ * change the features in place.
+ *
+ * @version $Id$
+ */
+public class FeatureCache {
+
+	/** Estimated memory in bytes per stored value or time window in the primitive storage */
+	private static final int BYTES_PER_PRIMITIVE_VALUE = 8;
+
+	/** Estimated memory in bytes per stored value or time window in the list storage */
+	private static final int BYTES_PER_OBJECT_VALUE = 24;
+
+	/** The cache may not use more than this part of the maximum heap size */
+	private static final double MAX_HEAP_FRACTION = 0.25;
+
+	/** The cache shared by all tasks of the scheduler */
+	private static FeatureCache sharedInstance = null;
+
+	/** Cache entries in the order of access, the least recently used first */
+	private final LinkedHashMap<String,Entry> entries = new LinkedHashMap<String,Entry>(16, 0.75f, true);
+
+	/** Maximum size of all cached features in bytes */
+	private final long maxSizeInBytes;
+
+	/** Current size of all cached features in bytes */
+	private long sizeInBytes = 0;
+
+	private long hits = 0;
+	private long misses = 0;
+	private long evictions = 0;
+
+	/**
+	 * A cached feature together with its estimated size
+	 */
+	private static class Entry {
+		final SoftReference<Feature> feature;
+		final long sizeInBytes;
+
+		Entry(Feature feature, long sizeInBytes) {
+			this.feature = new SoftReference<Feature>(feature);
+			this.sizeInBytes = sizeInBytes;
+		}
+	}
+
+	/**
+	 * @param maxSizeInBytes Maximum size of all cached features in bytes; 0 disables the cache
+	 */
+	public FeatureCache(long maxSizeInBytes) {
+		this.maxSizeInBytes = Math.max(0, maxSizeInBytes);
+	}
+
+	/**
+	 * Returns the cache shared by the tasks of the scheduler. It is created at the first call with the
+	 * size given by <code>KeysIntValue.FEATURE_CACHE_SIZE_IN_MB</code>
+	 * @return Shared feature cache
+	 */
+	public static synchronized FeatureCache getSharedInstance() {
+		if(sharedInstance == null) {
+			long maxSize = (long)AmusePreferences.getInt(KeysIntValue.FEATURE_CACHE_SIZE_IN_MB) * 1024 * 1024;
+			maxSize = Math.min(maxSize, (long)(Runtime.getRuntime().maxMemory() * MAX_HEAP_FRACTION));
+			sharedInstance = new FeatureCache(maxSize);
+		}
+		return sharedInstance;
+	}
+
+	/**
+	 * Creates the cache key for a feature file. The key contains the modification time of the
+	 * feature file (and of the corresponding binary feature file), so that changed feature files
+	 * are loaded again
+	 * @param featureFile Path to the ARFF feature file
+	 * @param featureId Feature id
+	 * @param configurationId Id of the feature configuration, may be null
+	 * @return Cache key
+	 */
+	public static String createKey(String featureFile, int featureId, String configurationId) {
+		long lastModified = new File(featureFile).lastModified();
+		lastModified = Math.max(lastModified, new File(BinaryFeatureFile.getBinaryFileName(featureFile)).lastModified());
+		return featureFile + "|" + featureId + "|" + configurationId + "|" + lastModified;
+	}
+
+	/**
+	 * @param key Cache key
+	 * @return Copy of the cached feature or null if it is not in the cache
+	 */
+	public Feature get(String key) {
+		Feature cached = null;
+		synchronized(this) {
+			Entry entry = entries.get(key);
+			if(entry != null) {
+				cached = entry.feature.get();
+				if(cached == null) {
+
+					// Removed by the garbage collector
+					remove(key);
+				}
+			}
+			if(cached == null) {
+				misses++;
+				return null;
+			}
+			hits++;
+		}
+
+		// Cached features are never changed, so that they can be copied outside of the lock
+		return cached.copy();
+	}
+
+	/**
+	 * Stores a copy of the feature. Features larger than the cache are not stored
+	 * @param key Cache key
+	 * @param feature Feature to store
+	 */
+	public void put(String key, Feature feature) {
+		long featureSize = estimateSize(feature);
+		if(!isEnabled() || featureSize > maxSizeInBytes) {
+			return;
+		}
+		Feature copy = feature.copy();
+		synchronized(this) {
+			remove(key);
+			entries.put(key, new Entry(copy, featureSize));
+			sizeInBytes += featureSize;
+			removeClearedEntries();
+			Iterator<Map.Entry<String,Entry>> iterator = entries.entrySet().iterator();
+			while(sizeInBytes > maxSizeInBytes && iterator.hasNext()) {
+				Entry eldest = iterator.next().getValue();
+				iterator.remove();
+				sizeInBytes -= eldest.sizeInBytes;
+				evictions++;
+			}
+		}
+	}
+
+	/**
+	 * Removes all features from the cache. The counters are not reset
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		sizeInBytes = 0;
+	}
+
+	/**
+	 * @return True if the cache may store features
+	 */
+	public boolean isEnabled() {
+		return maxSizeInBytes > 0;
+	}
+
+	public synchronized long getHits() {
+		return hits;
+	}
+
+	public synchronized long getMisses() {
+		return misses;
+	}
+
+	public synchronized long getEvictions() {
+		return evictions;
+	}
+
+	public synchronized int getNumberOfEntries() {
+		return entries.size();
+	}
+
+	public synchronized long getSizeInBytes() {
+		return sizeInBytes;
+	}
+
+	public long getMaxSizeInBytes() {
+		return maxSizeInBytes;
+	}
+
+	/**
+	 * @return Hit and miss counters and current size as single string for logging
+	 */
+	public synchronized String getStatistics() {
+		long requests = hits + misses;
+		return hits + " hits, " + misses + " misses (hit rate " +
+			(requests == 0 ? 0 : Math.round(100d * hits / requests)) + "%), " +
+			evictions + " evictions, " + entries.size() + " features with " +
+			(sizeInBytes / 1024) + " KB of " + (maxSizeInBytes / 1024) + " KB";
+	}
+
+	/**
+	 * Estimates the memory used by the values and time windows of the feature
+	 * @param feature Feature
+	 * @return Estimated size in bytes
+	 */
+	static long estimateSize(Feature feature) {
+		long numberOfWindows = feature.getNumberOfStoredWindows();
+		long numberOfEntries = numberOfWindows * feature.getDimension() + numberOfWindows;
+		return numberOfEntries * (feature.hasPrimitiveStorage() ? BYTES_PER_PRIMITIVE_VALUE : BYTES_PER_OBJECT_VALUE);
+	}
+
+	private void remove(String key) {
+		Entry entry = entries.remove(key);
+		if(entry != null) {
+			sizeInBytes -= entry.sizeInBytes;
+		}
+	}
+
+	private void removeClearedEntries() {
+		Iterator<Entry> iterator = entries.values().iterator();
+		while(iterator.hasNext()) {
+			Entry entry = iterator.next();
+			if(entry.feature.get() == null) {
+				iterator.remove();
+				sizeInBytes -= entry.sizeInBytes;
+			}
+		}
+	}
+}
@@ -31,6 +31,9 @@ package amuse.data.annotation;
  */
 public class ClassifiedSongPartitions extends SongPartitionsDescription {
 	
+	/** For Serializable interface */
+	private static final long serialVersionUID = -2178930537742156392L;
+	
 	/** labels that were classified **/
 	final String[] labels;
 	
@@ -23,13 +23,18 @@
  */
 package amuse.data.annotation;
 
+import java.io.Serializable;
+
 /**
  * This class describes the partitions from the given song
  * 
  * @author Igor Vatolkin
  * @version $Id: SongPartitionsDescription.java 197 2017-08-11 12:15:34Z frederik-h $
  */
-public class SongPartitionsDescription {
+public class SongPartitionsDescription implements Serializable {
+	
+	/** For Serializable interface */
+	private static final long serialVersionUID = 4615930788712047813L;
 	
 	/** Path to the song */
 	final String pathToMusicSong;
@@ -23,14 +23,17 @@
  */
 package amuse.data.io;
 
-import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.LineNumberReader;
 import java.io.StreamTokenizer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -87,6 +90,10 @@ public class ArffDataSet extends DataSetAbstract {
 	private int valueCount = 0;
 	private StreamTokenizer tokenizer;
 	private List<Integer> emptyLines = new ArrayList<Integer>();
+	/** Byte offsets of the data lines, used to seek directly to a data line (null if not available) */
+	private long[] dataLineOffsets;
+	/** Column of each attribute in the buffered lines */
+	private final Map<String, Integer> attributeColumns = new HashMap<String, Integer>();
 
 	/**
 	 * The standard constructor to create a new DataSet.
@@ -219,37 +226,47 @@ public class ArffDataSet extends DataSetAbstract {
 			throw new IOException("Can not write/read to/from same file!");
 		}
 		File outputFile = new File(file.getAbsolutePath());
-		StringBuilder output = new StringBuilder();
-		// Write Amuse attributes:
-		for (String key : amuseAttributes.keySet()) {
-			output.append("%@" + key + "=" + amuseAttributes.get(key) + "\n");
-		}
-		// Write @RELATION name:
-		output.append(this.getRelationHeaderStr() + "\n\n");
-		// Write @ATTRIBUTE Headers:
-		for (Attribute atr : attributes) {
-			output.append(atr.getHeaderStr() + "\n");
-		}
-		// Begin writing data to StringBuilder:
-		output.append("\n" + dataStr + "\n");
-		BufferedWriter fileWriter = new BufferedWriter(new FileWriter(outputFile));
-		fileWriter.append(output);
-		output = new StringBuilder();
-		for (int i = 0; i < getValueCount(); i++) {
+		ArffWriter writer = new ArffWriter(outputFile);
+		try {
+			// Write Amuse attributes:
+			for (String key : amuseAttributes.keySet()) {
+				writer.writeLine("%@" + key + "=" + amuseAttributes.get(key));
+			}
+			// Write @RELATION name:
+			writer.writeLine(this.getRelationHeaderStr());
+			writer.writeLine("");
+			// Write @ATTRIBUTE Headers:
 			for (Attribute atr : attributes) {
-				output.append(atr.getValueStrAt(i));
-				if (attributes.indexOf(atr) == attributes.size() - 1) {
-					output.append("\n");
-				} else {
-					output.append(",");
+				writer.writeLine(atr.getHeaderStr());
+			}
+			writer.writeLine("");
+			writer.writeLine(dataStr);
+			// Write the values row by row:
+			int attributeCount = attributes.size();
+			boolean[] isNumeric = new boolean[attributeCount];
+			for (int j = 0; j < attributeCount; j++) {
+				isNumeric[j] = attributes.get(j) instanceof NumericAttribute;
+			}
+			for (int i = 0; i < getValueCount(); i++) {
+				for (int j = 0; j < attributeCount; j++) {
+					if (isNumeric[j]) {
+						
+						// Integer values are written without fraction digits like in NumericAttribute.getValueStrAt()
+						double value = ((NumericAttribute) attributes.get(j)).getDoubleValueAt(i);
+						if (value - Math.floor(value) == 0 && Math.abs(value) <= Integer.MAX_VALUE) {
+							writer.writeValue((long) value);
+						} else {
+							writer.writeValue(value);
+						}
+					} else {
+						writer.writeValue(attributes.get(j).getValueStrAt(i));
+					}
 				}
+				writer.endRow();
 			}
-			
-			// Write the attribute values of the current instance to file:
-			fileWriter.append(output);
-			output = new StringBuilder();
+		} finally {
+			writer.close();
 		}
-		fileWriter.close();
 	}
 
 	/**
@@ -300,8 +317,18 @@ public class ArffDataSet extends DataSetAbstract {
 		// "\" is out of bounds of this DataSet.");
 		// }
 		assertInBuffer(index);
-		return bufferedLines[calculateBufferIndex(index)][this
-				.getAttributeNames().indexOf(attribute.getName())];
+		return bufferedLines[calculateBufferIndex(index)][getAttributeColumn(attribute)];
+	}
+
+	private int getAttributeColumn(Attribute attribute) {
+		if (attributeColumns.size() != attributes.size()) {
+			attributeColumns.clear();
+			for (int i = attributes.size() - 1; i >= 0; i--) {
+				attributeColumns.put(attributes.get(i).getName(), i);
+			}
+		}
+		Integer column = attributeColumns.get(attribute.getName());
+		return column == null ? -1 : column;
 	}
 
 	/*
@@ -335,7 +362,11 @@ public class ArffDataSet extends DataSetAbstract {
 			try {
 				// Move Buffer:
 				startLine = index;
-				initTokenizer(startLine + dataTagLine);
+				if (dataLineOffsets != null && index >= 0 && index < dataLineOffsets.length) {
+					initTokenizerAtDataLine(index);
+				} else {
+					initTokenizer(startLine + dataTagLine);
+				}
 				int bufferIndex = 0;
 				getFirstToken();
 				while (bufferIndex < bufferedLines.length
@@ -399,6 +430,78 @@ public class ArffDataSet extends DataSetAbstract {
 			getFirstToken();
 		}
 		// System.out.println(Arrays.toString(emptyLines.toArray()));
+		indexDataLines();
+	}
+
+	/**
+	 * Scans the data section once and stores the byte offset of every data
+	 * line, so that the buffer can later be filled starting at any line
+	 * without reading the file from its beginning. Empty lines and comments
+	 * are skipped the same way the tokenizer skips them. If the number of
+	 * found lines does not match the number of values (e.g. for quoted
+	 * strings spanning several lines), no index is used.
+	 * 
+	 * @throws IOException
+	 */
+	private void indexDataLines() throws IOException {
+		long[] offsets = new long[Math.max(valueCount, 16)];
+		int numberOfDataLines = 0;
+		FileInputStream input = new FileInputStream(file);
+		try {
+			FileChannel channel = input.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+			long position = 0;
+			long lineStart = 0;
+			int lineNumber = 0;
+			// 0: only whitespace so far, 1: comment line, 2: data line
+			int lineType = 0;
+			boolean previousWasCarriageReturn = false;
+			while (channel.read(buffer) != -1) {
+				buffer.flip();
+				while (buffer.hasRemaining()) {
+					byte b = buffer.get();
+					position++;
+					if (b == '\n' || b == '\r') {
+						if (b == '\n' && previousWasCarriageReturn) {
+							// Second byte of a \r\n line break
+							lineStart = position;
+							previousWasCarriageReturn = false;
+							continue;
+						}
+						if (lineType == 2 && lineNumber >= dataTagLine) {
+							if (numberOfDataLines == offsets.length) {
+								offsets = Arrays.copyOf(offsets, offsets.length * 2);
+							}
+							offsets[numberOfDataLines++] = lineStart;
+						}
+						lineNumber++;
+						lineStart = position;
+						lineType = 0;
+						previousWasCarriageReturn = (b == '\r');
+					} else {
+						previousWasCarriageReturn = false;
+						if (lineType == 0 && (b & 0xFF) > ' ') {
+							lineType = (b == '%') ? 1 : 2;
+						}
+					}
+				}
+				buffer.clear();
+			}
+			// Last line without line break
+			if (lineType == 2 && lineNumber >= dataTagLine) {
+				if (numberOfDataLines == offsets.length) {
+					offsets = Arrays.copyOf(offsets, offsets.length + 1);
+				}
+				offsets[numberOfDataLines++] = lineStart;
+			}
+		} finally {
+			input.close();
+		}
+		if (numberOfDataLines == valueCount) {
+			dataLineOffsets = Arrays.copyOf(offsets, numberOfDataLines);
+		} else {
+			dataLineOffsets = null;
+		}
 	}
 
 	private void validateHeader() throws IOException {
@@ -424,6 +527,24 @@ public class ArffDataSet extends DataSetAbstract {
 	 */
 	private void initTokenizer(int marker) throws IOException {
 		initReader(marker);
+		setupTokenizer();
+	}
+
+	/**
+	 * Initializes the StreamTokenizer at the given data line using the byte
+	 * offsets found by <code>indexDataLines()</code>.
+	 * 
+	 * @throws IOException
+	 */
+	private void initTokenizerAtDataLine(int index) throws IOException {
+		FileInputStream input = new FileInputStream(file);
+		input.getChannel().position(dataLineOffsets[index]);
+		reader = new LineNumberReader(new InputStreamReader(input));
+		reader.setLineNumber(0);
+		setupTokenizer();
+	}
+
+	private void setupTokenizer() {
 		tokenizer = new StreamTokenizer(reader);
 		tokenizer.resetSyntax();
 		tokenizer.whitespaceChars(0, ' ');
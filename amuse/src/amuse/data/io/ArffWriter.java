@@ -0,0 +1,222 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.data.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Writes ARFF files row by row with constant memory. The header lines are
+ * written first, followed by the data rows; the values of a row are separated
+ * by commas automatically. Numbers are formatted directly into the output
+ * buffer in the same notation as <code>Double.toString()</code> and
+ * <code>Long.toString()</code>, so that the files do not differ from those
+ * written with string concatenation.
+ *
+ * @version $Id$
+ */
+public class ArffWriter implements Closeable {
+
+	/** Size of the output buffer; a heap buffer of this size is created per writer, since many small
+	 * files are written and direct buffers are released only by the garbage collector */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Double.toString() uses the computerized scientific notation from this value on */
+	private static final double MIN_SCIENTIFIC_NOTATION_VALUE = 1e7;
+
+	private static final byte[] ZERO_FRACTION = { '.', '0' };
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private final byte[] lineSeparator;
+	private final Charset charset = Charset.defaultCharset();
+
+	/** Used for formatting of numbers */
+	private final StringBuilder numberBuilder = new StringBuilder(32);
+	private final byte[] digits = new byte[20];
+
+	/** True if the current row has no values yet */
+	private boolean atRowStart = true;
+
+	/**
+	 * Creates a writer which uses '\n' as line separator
+	 *
+	 * @param file
+	 *            The file to write to, existing files are overwritten
+	 * @throws IOException
+	 */
+	public ArffWriter(File file) throws IOException {
+		this(file, "\n");
+	}
+
+	/**
+	 * @param file
+	 *            The file to write to, existing files are overwritten
+	 * @param lineSeparator
+	 *            Line separator for header lines and data rows
+	 * @throws IOException
+	 */
+	public ArffWriter(File file, String lineSeparator) throws IOException {
+		this.channel = new FileOutputStream(file).getChannel();
+		this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		this.lineSeparator = lineSeparator.getBytes(charset);
+	}
+
+	/**
+	 * Writes a header line, e.g. a comment, the relation or an attribute
+	 * declaration
+	 */
+	public void writeLine(String line) throws IOException {
+		putBytes(line.getBytes(charset));
+		putBytes(lineSeparator);
+	}
+
+	/**
+	 * Appends a numeric value to the current row like <code>Double.toString()</code>,
+	 * e.g. "3.0" or "1.5E-4"
+	 */
+	public void writeValue(double value) throws IOException {
+		startValue();
+
+		// Integer values are formatted digit by digit; -0.0 is left to the StringBuilder
+		if (Math.abs(value) < MIN_SCIENTIFIC_NOTATION_VALUE && value == (long) value && 
+				(value != 0 || Double.doubleToRawLongBits(value) == 0)) {
+			putLong((long) value);
+			putBytes(ZERO_FRACTION);
+		} else {
+			numberBuilder.setLength(0);
+			numberBuilder.append(value);
+			putChars(numberBuilder);
+		}
+	}
+
+	/**
+	 * Appends an integer value to the current row without fraction digits
+	 */
+	public void writeValue(long value) throws IOException {
+		startValue();
+		putLong(value);
+	}
+
+	/**
+	 * Appends a value to the current row as it is (e.g. a quoted string or
+	 * nominal value)
+	 */
+	public void writeValue(String value) throws IOException {
+		startValue();
+		putBytes(value.getBytes(charset));
+	}
+
+	/**
+	 * Writes a complete row of numeric values
+	 */
+	public void writeRow(double[] values) throws IOException {
+		for (int i = 0; i < values.length; i++) {
+			writeValue(values[i]);
+		}
+		endRow();
+	}
+
+	/**
+	 * Finishes the current row
+	 */
+	public void endRow() throws IOException {
+		putBytes(lineSeparator);
+		atRowStart = true;
+	}
+
+	/**
+	 * Writes the buffered data to the file and closes it
+	 */
+	public void close() throws IOException {
+		try {
+			flush();
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void startValue() throws IOException {
+		if (!atRowStart) {
+			ensureCapacity(1);
+			buffer.put((byte) ',');
+		}
+		atRowStart = false;
+	}
+
+	private void putLong(long value) throws IOException {
+		ensureCapacity(digits.length + 1);
+		// The digits are taken from the negative value, since -Long.MIN_VALUE does not exist
+		if (value < 0) {
+			buffer.put((byte) '-');
+		} else {
+			value = -value;
+		}
+		int position = digits.length;
+		do {
+			digits[--position] = (byte) ('0' - (value % 10));
+			value /= 10;
+		} while (value != 0);
+		buffer.put(digits, position, digits.length - position);
+	}
+
+	private void putChars(CharSequence chars) throws IOException {
+		// Numbers contain only ASCII characters
+		ensureCapacity(chars.length());
+		for (int i = 0; i < chars.length(); i++) {
+			buffer.put((byte) chars.charAt(i));
+		}
+	}
+
+	private void putBytes(byte[] bytes) throws IOException {
+		int offset = 0;
+		while (offset < bytes.length) {
+			if (!buffer.hasRemaining()) {
+				flush();
+			}
+			int length = Math.min(buffer.remaining(), bytes.length - offset);
+			buffer.put(bytes, offset, length);
+			offset += length;
+		}
+	}
+
+	private void ensureCapacity(int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			flush();
+		}
+	}
+
+	private void flush() throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
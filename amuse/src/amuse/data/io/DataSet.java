@@ -77,7 +77,7 @@ public class DataSet extends DataSetAbstract implements Serializable {
 		int aCount = 0;
 		for (Attribute a : fileSet.attributes) {
 		    if (a instanceof NumericAttribute) {
-		    	values[aCount] = new Double[fileSet.getValueCount()];
+		    	values[aCount] = new double[fileSet.getValueCount()];
 		    } else if (a instanceof StringAttribute) {
 		    	values[aCount] = new String[fileSet.getValueCount()];
 		    } else {
@@ -91,8 +91,8 @@ public class DataSet extends DataSetAbstract implements Serializable {
 		    for (Attribute a : fileSet.attributes) {
 				if (a instanceof NumericAttribute) {
 				    NumericAttribute atr = (NumericAttribute) a;
-				    Double[] val = (Double[]) values[aCount];
-				    val[i]= (atr.getValueAt(i));
+				    double[] val = (double[]) values[aCount];
+				    val[i]= (atr.getDoubleValueAt(i));
 				} else if (a instanceof StringAttribute) {
 				    StringAttribute atr = (StringAttribute) a;
 				    String[] val = (String[]) values[aCount];
@@ -111,7 +111,7 @@ public class DataSet extends DataSetAbstract implements Serializable {
 		for (Attribute a : fileSet.attributes) {
 		    Attribute newAttr;
 		    if (a instanceof NumericAttribute) {
-		    	newAttr = new NumericAttribute(a.getName(), (Double[])values[aCount]);
+		    	newAttr = new NumericAttribute(a.getName(), (double[])values[aCount]);
 		    } else if (a instanceof StringAttribute) {
 		    	newAttr = new StringAttribute(a.getName(), (String[])values[aCount]);
 		    } else {
@@ -140,7 +140,7 @@ public class DataSet extends DataSetAbstract implements Serializable {
 		while (it.hasNext()) {
 		    com.rapidminer.example.Attribute a = it.next();
 		    if (a.isNumerical()) {
-		    	attributes.add(new NumericAttribute(a.getName(), new ArrayList<Double>()));
+		    	attributes.add(new NumericAttribute(a.getName(), exampleSet.size()));
 		    } else {
 		    	attributes.add(new StringAttribute(a.getName(), new ArrayList<String>()));
 		    }
@@ -153,7 +153,7 @@ public class DataSet extends DataSetAbstract implements Serializable {
 		    com.rapidminer.example.Attribute a = it.next();
 		    for (int j = 0; j < exampleSet.size(); j++) {
 				if (a.isNumerical()) {
-				    attributes.get(i).addValue(exampleSet.getExample(j).getValue(a));
+				    ((NumericAttribute) attributes.get(i)).addValue(exampleSet.getExample(j).getValue(a));
 				} else {
 				    String s = a.getMapping().mapIndex(new Double(exampleSet.getExample(j).getValue(a)).intValue());
 				    attributes.get(i).addValue(s);
@@ -276,6 +276,8 @@ public class DataSet extends DataSetAbstract implements Serializable {
 				} else if (getAttribute(a+offSet) instanceof StringAttribute) {
 		    		data[a] = attributes.get(a).getMapping().mapString(
 				    getAttribute(a+offSet).getValueAt(d).toString());
+		    	} else if (getAttribute(a+offSet) instanceof NumericAttribute) {
+		    		data[a] = ((NumericAttribute) getAttribute(a+offSet)).getDoubleValueAt(d);
 		    	} else {
 		    		data[a] = new Double(getAttribute(a+offSet).getValueAt(d).toString());
 		    	}
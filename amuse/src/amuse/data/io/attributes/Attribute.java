@@ -107,7 +107,7 @@ public abstract class Attribute implements AttributeInterface, Serializable {
 	return this.getValueAt(index).toString();
     }
     @Override
-    public final int getValueCount() {
+    public int getValueCount() {
         if (arffDataSet != null) {
             return arffDataSet.getValueCount();
         } else {
@@ -23,6 +23,7 @@
  */
 package amuse.data.io.attributes;
 
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -43,6 +44,14 @@ public class NumericAttribute extends Attribute {
 	 */
 	public static final String typeStr = "NUMERIC";
 
+	/**
+	 * Values of this Attribute if they are stored as primitive array,
+	 * otherwise null. Only the first <code>primitiveValueCount</code> entries
+	 * are used.
+	 */
+	private double[] primitiveValues = null;
+	private int primitiveValueCount = 0;
+
 	/**
 	 * Creates a new NumericAttribute with given name and initial values.
 	 * 
@@ -70,13 +79,43 @@ public class NumericAttribute extends Attribute {
 		return new NumericAttribute(name, list);
 	}
 
+	/**
+	 * Creates a new NumericAttribute which stores its values in the given
+	 * array. The array is not copied and must not be changed afterwards.
+	 * 
+	 * @param name
+	 *            Name of this new Attribute.
+	 * @param values
+	 *            Initial values of this Attribute.
+	 */
+	public NumericAttribute(String name, double[] values) {
+		super(name, new ArrayList<Double>(0));
+		this.primitiveValues = values;
+		this.primitiveValueCount = values.length;
+	}
+
+	/**
+	 * Creates a new empty NumericAttribute which stores its values as
+	 * primitive array. Use this constructor if the values are added one by
+	 * one, e.g. while creating a DataSet from features.
+	 * 
+	 * @param name
+	 *            Name of this new Attribute.
+	 * @param initialCapacity
+	 *            Expected number of values.
+	 */
+	public NumericAttribute(String name, int initialCapacity) {
+		this(name, new double[initialCapacity]);
+		this.primitiveValueCount = 0;
+	}
+
 	public NumericAttribute(String name, ArffDataSet accordingSet) {
 		super(name, accordingSet);
 	}
 
 	/* Only copies containing data. */
 	public NumericAttribute(NumericAttribute a) {
-		this(a.name, a.getValues());
+		this(a.name, a.toDoubleArray());
 	}
 
     public NumericAttribute(String name, Double[] aDouble) {
@@ -91,7 +130,13 @@ public class NumericAttribute extends Attribute {
 	 *         this Attribute.
 	 */
 	public List<Double> getValues() {
-		if (getDataSet() == null) {
+		if (primitiveValues != null) {
+			ArrayList<Double> values = new ArrayList<Double>(primitiveValueCount);
+			for (int i = 0; i < primitiveValueCount; i++) {
+				values.add(primitiveValues[i]);
+			}
+			return values;
+		} else if (getDataSet() == null) {
 			return new ArrayList<Double>(valueList);
 		} else {
 			ArrayList<Double> values = new ArrayList<Double>();
@@ -102,6 +147,121 @@ public class NumericAttribute extends Attribute {
 		}
 	}
 
+	/**
+	 * Returns the value at the given index without creating a
+	 * <code>Double</code> object if the values are stored as primitive array.
+	 * 
+	 * @param index
+	 *            The index of the value.
+	 * @return The value, NaN for missing values.
+	 */
+	public double getDoubleValueAt(int index) {
+		if (primitiveValues != null) {
+			if (index >= primitiveValueCount) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + primitiveValueCount);
+			}
+			return primitiveValues[index];
+		} else if (getDataSet() == null) {
+			return (Double) valueList.get(index);
+		} else {
+			return getDataSet().getValueFor(index, this);
+		}
+	}
+
+	/**
+	 * Returns a read-only view of all values. If the values are stored as
+	 * list, they are moved to a primitive array first, so that the view does
+	 * not copy any values. For Attributes loaded from ARFF files the values
+	 * are copied.
+	 * 
+	 * @return Read-only buffer with all values of this Attribute.
+	 */
+	public DoubleBuffer getValueBuffer() {
+		if (primitiveValues == null) {
+			if (getDataSet() != null) {
+				return DoubleBuffer.wrap(toDoubleArray()).asReadOnlyBuffer();
+			}
+			convertToPrimitiveStorage();
+		}
+		return DoubleBuffer.wrap(primitiveValues, 0, primitiveValueCount).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Returns a copy of all values of this Attribute as array.
+	 * 
+	 * @return Array with all values.
+	 */
+	public double[] toDoubleArray() {
+		if (primitiveValues != null) {
+			return Arrays.copyOf(primitiveValues, primitiveValueCount);
+		}
+		double[] values = new double[getValueCount()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = getDoubleValueAt(i);
+		}
+		return values;
+	}
+
+	/**
+	 * Appends a value without creating a <code>Double</code> object if the
+	 * values are stored as primitive array.
+	 * 
+	 * @param value
+	 *            The value to add.
+	 */
+	public void addValue(double value) {
+		if (primitiveValues != null) {
+			if (primitiveValueCount == primitiveValues.length) {
+				primitiveValues = Arrays.copyOf(primitiveValues, Math.max(16, primitiveValueCount * 2));
+			}
+			primitiveValues[primitiveValueCount++] = value;
+		} else {
+			super.addValue(value);
+		}
+	}
+
+	@Override
+	public void addValue(Object value) {
+		if (primitiveValues != null) {
+			addValue(((Number) value).doubleValue());
+		} else {
+			super.addValue(value);
+		}
+	}
+
+	@Override
+	public void setValueAt(int index, Object value) {
+		if (primitiveValues != null) {
+			if (index >= primitiveValueCount) {
+				throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + primitiveValueCount);
+			}
+			primitiveValues[index] = ((Number) value).doubleValue();
+		} else {
+			super.setValueAt(index, value);
+		}
+	}
+
+	@Override
+	public int getValueCount() {
+		if (primitiveValues != null) {
+			return primitiveValueCount;
+		}
+		return super.getValueCount();
+	}
+
+	/**
+	 * Moves the values of the list storage to a primitive array
+	 */
+	private void convertToPrimitiveStorage() {
+		double[] values = new double[valueList.size()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = (Double) valueList.get(i);
+		}
+		valueList.clear();
+		primitiveValues = values;
+		primitiveValueCount = values.length;
+	}
+
 	@Override
 	public String getHeaderStr() {
 		return attributeStr + " '" + name + "' " + typeStr;
@@ -113,15 +273,18 @@ public class NumericAttribute extends Attribute {
 	}
 
 	public String getValueStrAt(int index) {
-		if (getValueAt(index) - Math.floor(getValueAt(index)) == 0) {
-			return getValueAt(index).intValue() + "";
+		double value = getDoubleValueAt(index);
+		if (value - Math.floor(value) == 0) {
+			return (int) value + "";
 		}
-		return getValues().get(index).toString();
+		return Double.toString(value);
 	}
 
 	@Override
 	public Double getValueAt(int index) {
-		if (getDataSet() == null) {
+		if (primitiveValues != null) {
+			return getDoubleValueAt(index);
+		} else if (getDataSet() == null) {
 			return (Double) valueList.get(index);
 		} else {
 			return parse(super.getValueAt(index).toString());
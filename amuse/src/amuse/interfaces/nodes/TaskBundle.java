@@ -0,0 +1,459 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.interfaces.nodes;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import amuse.data.FeatureTable;
+import amuse.data.MeasureTable;
+import amuse.data.io.DataInputInterface;
+
+/**
+ * Task bundles pass the configurations of the Amuse jobs of one grid job to the node scheduler
+ * (<code>taskoutput/task_%id%.ser</code>). Tables which are used by several jobs (feature tables,
+ * measure tables and data inputs) are stored only once and are referenced by the jobs. A bundle
+ * consists of records, which are written one after another, so that a job is written as soon as
+ * it is configured:
+ * <ul>
+ * <li>Header: magic number and format version</li>
+ * <li>Class record: name and serial version of a serialized class, written before the first record which
+ * contains objects of this class; the records refer to the classes by their numbers instead of repeating
+ * the class descriptions</li>
+ * <li>Shared record: one serialized table, written before the first job which references it</li>
+ * <li>Job record: one serialized task configuration with references to the shared tables</li>
+ * <li>End record: number of jobs, so that incomplete bundles are recognized</li>
+ * </ul>
+ * The node scheduler reads only the positions of the records when the bundle is opened and
+ * deserializes a job and its tables when it is proceeded. Bundles written by previous versions
+ * with <code>ObjectOutputStream</code> are read as well. Since the class descriptions are not stored, the
+ * node must use the same Amuse version as the scheduler.
+ *
+ * @version $Id$
+ */
+public class TaskBundle {
+
+	/** "AMTB" */
+	private static final int MAGIC_NUMBER = 0x414D5442;
+	private static final int FORMAT_VERSION = 1;
+
+	private static final byte END_RECORD = 0;
+	private static final byte SHARED_RECORD = 1;
+	private static final byte JOB_RECORD = 2;
+	private static final byte CLASS_RECORD = 3;
+
+	/** First bytes of the files written by <code>ObjectOutputStream</code> */
+	private static final int SERIALIZATION_MAGIC_NUMBER = 0xACED;
+
+	private final File file;
+	private RandomAccessFile input = null;
+	private final List<long[]> classRecords = new ArrayList<long[]>();
+	private final List<ObjectStreamClass> classes = new ArrayList<ObjectStreamClass>();
+	private final List<long[]> sharedRecords = new ArrayList<long[]>();
+	private final List<long[]> jobRecords = new ArrayList<long[]>();
+
+	/** Jobs of a bundle written by previous versions */
+	private TaskConfiguration[] serializedJobs = null;
+
+	/**
+	 * Opens the bundle and reads the positions of its records
+	 * @param file Bundle file
+	 * @throws IOException If the file can not be read or is incomplete
+	 */
+	public TaskBundle(File file) throws IOException {
+		this.file = file;
+		input = new RandomAccessFile(file, "r");
+		try {
+			if(input.length() >= 2 && input.readUnsignedShort() == SERIALIZATION_MAGIC_NUMBER) {
+				readSerializedJobs();
+				return;
+			}
+			input.seek(0);
+			if(input.length() < 8 || input.readInt() != MAGIC_NUMBER) {
+				throw new IOException("'" + file + "' is not a task bundle");
+			}
+			int version = input.readInt();
+			if(version != FORMAT_VERSION) {
+				throw new IOException("Task bundle '" + file + "' has the unsupported format version " + version);
+			}
+			indexRecords();
+		} catch(IOException e) {
+			close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes the jobs to a bundle
+	 * @param file Bundle file
+	 * @param jobs Configurations of the jobs
+	 * @throws IOException If the bundle can not be written
+	 */
+	public static void write(File file, TaskConfiguration[] jobs) throws IOException {
+		Writer writer = new Writer(file);
+		try {
+			for(TaskConfiguration job : jobs) {
+				writer.write(job);
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * @return Number of jobs in this bundle
+	 */
+	public int getNumberOfJobs() {
+		return serializedJobs != null ? serializedJobs.length : jobRecords.size();
+	}
+
+	/**
+	 * Reads the configuration of a job and the tables it references
+	 * @param index Number of the job in this bundle
+	 * @return Job configuration
+	 * @throws IOException If the job can not be read
+	 */
+	public TaskConfiguration getJob(int index) throws IOException {
+		if(serializedJobs != null) {
+			return serializedJobs[index];
+		}
+		CompactInputStream in = new CompactInputStream(readRecord(jobRecords.get(index)));
+		try {
+			return (TaskConfiguration)in.readObject();
+		} catch(ClassNotFoundException e) {
+			throw new IOException("Job " + index + " of task bundle '" + file + "' could not be read: " + e.getMessage());
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Closes the bundle file
+	 */
+	public void close() {
+		if(input != null) {
+			try {
+				input.close();
+			} catch(IOException e) {
+				// Nothing to do
+			}
+			input = null;
+		}
+	}
+
+	private void indexRecords() throws IOException {
+		while(true) {
+			byte type = input.readByte();
+			if(type == END_RECORD) {
+				int numberOfJobs = input.readInt();
+				if(numberOfJobs != jobRecords.size()) {
+					throw new IOException("Task bundle '" + file + "' contains " + jobRecords.size() + " of " + numberOfJobs + " jobs");
+				}
+				return;
+			}
+			int length = input.readInt();
+			long[] record = new long[]{input.getFilePointer(), length};
+			if(type == CLASS_RECORD) {
+				classRecords.add(record);
+				classes.add(null);
+			} else if(type == SHARED_RECORD) {
+				sharedRecords.add(record);
+			} else if(type == JOB_RECORD) {
+				jobRecords.add(record);
+			} else {
+				throw new IOException("Task bundle '" + file + "' contains an unknown record of type " + type);
+			}
+			if(record[0] + length > input.length()) {
+				throw new IOException("Task bundle '" + file + "' is incomplete");
+			}
+			input.seek(record[0] + length);
+		}
+	}
+
+	private InputStream readRecord(long[] record) throws IOException {
+		byte[] data = new byte[(int)record[1]];
+		input.seek(record[0]);
+		input.readFully(data);
+		return new ByteArrayInputStream(data);
+	}
+
+	private void readSerializedJobs() throws IOException {
+		ObjectInputStream in = new ObjectInputStream(new FileInputStream(file));
+		try {
+			Object o = in.readObject();
+			if(o instanceof TaskConfiguration[]) {
+				serializedJobs = (TaskConfiguration[])o;
+			} else {
+				serializedJobs = new TaskConfiguration[]{(TaskConfiguration)o};
+			}
+		} catch(ClassNotFoundException e) {
+			throw new IOException("Task file '" + file + "' could not be read: " + e.getMessage());
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * @return True if the object is stored once for all jobs which reference it
+	 */
+	private static boolean isShared(Object object) {
+		return object instanceof FeatureTable || object instanceof MeasureTable || object instanceof DataInputInterface;
+	}
+
+	/**
+	 * Replaces a shared table in a job record
+	 */
+	private static class SharedReference implements Serializable {
+
+		private static final long serialVersionUID = 2416139537290245361L;
+
+		private final int id;
+
+		private SharedReference(int id) {
+			this.id = id;
+		}
+	}
+
+	/**
+	 * @return Description of the class with the given number in this bundle
+	 */
+	private ObjectStreamClass getClassDescriptor(int id) throws IOException {
+		if(id < 0 || id >= classRecords.size()) {
+			throw new IOException("Task bundle '" + file + "' does not contain the class " + id);
+		}
+		if(classes.get(id) == null) {
+			DataInputStream in = new DataInputStream(readRecord(classRecords.get(id)));
+			String className = in.readUTF();
+			long serialVersionUID = in.readLong();
+			in.close();
+			ObjectStreamClass descriptor;
+			try {
+				descriptor = ObjectStreamClass.lookupAny(Class.forName(className, false, TaskBundle.class.getClassLoader()));
+			} catch(ClassNotFoundException e) {
+				throw new IOException("Class " + className + " of task bundle '" + file + "' is not available");
+			}
+			if(descriptor.getSerialVersionUID() != serialVersionUID) {
+				throw new InvalidClassException(className, "Task bundle '" + file + "' was written by another Amuse version");
+			}
+			classes.set(id, descriptor);
+		}
+		return classes.get(id);
+	}
+
+	/**
+	 * Reads a record and replaces the references by the shared tables. Each job gets its own copies
+	 * of the tables, since the node schedulers may modify them
+	 */
+	private class CompactInputStream extends ObjectInputStream {
+
+		private final HashMap<Integer, Object> sharedObjects = new HashMap<Integer, Object>();
+
+		private CompactInputStream(InputStream in) throws IOException {
+			super(in);
+			enableResolveObject(true);
+		}
+
+		protected ObjectStreamClass readClassDescriptor() throws IOException {
+			return getClassDescriptor(readInt());
+		}
+
+		protected Object resolveObject(Object object) throws IOException {
+			if(!(object instanceof SharedReference)) {
+				return object;
+			}
+			int id = ((SharedReference)object).id;
+			if(!sharedObjects.containsKey(id)) {
+				if(id < 0 || id >= sharedRecords.size()) {
+					throw new IOException("Task bundle '" + file + "' does not contain the shared table " + id);
+				}
+				ObjectInputStream in = new CompactInputStream(readRecord(sharedRecords.get(id)));
+				try {
+					sharedObjects.put(id, in.readObject());
+				} catch(ClassNotFoundException e) {
+					throw new IOException("Shared table " + id + " of task bundle '" + file + "' could not be read: " + e.getMessage());
+				} finally {
+					in.close();
+				}
+			}
+			return sharedObjects.get(id);
+		}
+	}
+
+	/**
+	 * Writes the jobs of a bundle one after another
+	 */
+	public static class Writer {
+
+		private final DataOutputStream output;
+
+		/** Numbers of the written classes */
+		private final HashMap<String, Integer> classIds = new HashMap<String, Integer>();
+
+		/** Numbers of the written shared tables; feature tables are compared by their features */
+		private final IdentityHashMap<Object, Integer> sharedIds = new IdentityHashMap<Object, Integer>();
+		private final HashMap<FeatureTable, Integer> featureTableIds = new HashMap<FeatureTable, Integer>();
+
+		/** Classes and shared tables of the current job which have not been written yet */
+		private final List<ObjectStreamClass> newClasses = new ArrayList<ObjectStreamClass>();
+		private final List<Object> newSharedObjects = new ArrayList<Object>();
+		private int numberOfSharedObjects = 0;
+		private int numberOfJobs = 0;
+
+		/**
+		 * Creates the bundle file and writes the header
+		 * @param file Bundle file
+		 * @throws IOException If the file can not be created
+		 */
+		public Writer(File file) throws IOException {
+			output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+			output.writeInt(MAGIC_NUMBER);
+			output.writeInt(FORMAT_VERSION);
+		}
+
+		/**
+		 * Appends a job to the bundle
+		 * @param job Job configuration
+		 * @throws IOException If the job can not be written
+		 */
+		public void write(TaskConfiguration job) throws IOException {
+			ByteArrayOutputStream jobData = serialize(job, true);
+			List<ByteArrayOutputStream> sharedData = new ArrayList<ByteArrayOutputStream>(newSharedObjects.size());
+			for(Object sharedObject : newSharedObjects) {
+				sharedData.add(serialize(sharedObject, false));
+			}
+			newSharedObjects.clear();
+
+			// The classes and tables are written before the first record which uses them
+			for(ObjectStreamClass newClass : newClasses) {
+				ByteArrayOutputStream classData = new ByteArrayOutputStream();
+				DataOutputStream out = new DataOutputStream(classData);
+				out.writeUTF(newClass.getName());
+				out.writeLong(newClass.getSerialVersionUID());
+				out.close();
+				writeRecord(CLASS_RECORD, classData);
+			}
+			newClasses.clear();
+			for(ByteArrayOutputStream data : sharedData) {
+				writeRecord(SHARED_RECORD, data);
+			}
+			writeRecord(JOB_RECORD, jobData);
+			numberOfJobs++;
+		}
+
+		/**
+		 * Writes the end record and closes the file
+		 * @throws IOException If the file can not be written
+		 */
+		public void close() throws IOException {
+			try {
+				output.writeByte(END_RECORD);
+				output.writeInt(numberOfJobs);
+			} finally {
+				output.close();
+			}
+		}
+
+		private ByteArrayOutputStream serialize(Object object, boolean replaceSharedObjects) throws IOException {
+			ByteArrayOutputStream data = new ByteArrayOutputStream();
+			ObjectOutputStream out = new CompactOutputStream(data, replaceSharedObjects);
+			out.writeObject(object);
+			out.close();
+			return data;
+		}
+
+		private void writeRecord(byte type, ByteArrayOutputStream data) throws IOException {
+			output.writeByte(type);
+			output.writeInt(data.size());
+			data.writeTo(output);
+		}
+
+		private int getClassId(ObjectStreamClass descriptor) {
+			Integer id = classIds.get(descriptor.getName());
+			if(id == null) {
+				id = classIds.size();
+				classIds.put(descriptor.getName(), id);
+				newClasses.add(descriptor);
+			}
+			return id;
+		}
+
+		private int getSharedId(Object object) {
+			Integer id = sharedIds.get(object);
+			if(id == null && object instanceof FeatureTable) {
+				id = featureTableIds.get(object);
+			}
+			if(id == null) {
+				id = numberOfSharedObjects++;
+				newSharedObjects.add(object);
+				if(object instanceof FeatureTable) {
+					featureTableIds.put((FeatureTable)object, id);
+				}
+			}
+			sharedIds.put(object, id);
+			return id;
+		}
+
+		/**
+		 * Writes the numbers of the classes instead of their descriptions and replaces the shared
+		 * tables of a job by references
+		 */
+		private class CompactOutputStream extends ObjectOutputStream {
+
+			private CompactOutputStream(OutputStream out, boolean replaceSharedObjects) throws IOException {
+				super(out);
+				enableReplaceObject(replaceSharedObjects);
+			}
+
+			protected void writeClassDescriptor(ObjectStreamClass descriptor) throws IOException {
+				writeInt(getClassId(descriptor));
+			}
+
+			protected Object replaceObject(Object object) throws IOException {
+				if(!isShared(object)) {
+					return object;
+				}
+				return new SharedReference(getSharedId(object));
+			}
+		}
+	}
+}
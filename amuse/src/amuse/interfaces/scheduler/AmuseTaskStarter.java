@@ -24,18 +24,24 @@
 package amuse.interfaces.scheduler;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Level;
 
 import amuse.interfaces.nodes.NodeEvent;
 import amuse.interfaces.nodes.NodeEventListener;
-import amuse.interfaces.nodes.NodeEventSource;
 import amuse.interfaces.nodes.NodeScheduler;
 import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysBooleanValue;
 import amuse.preferences.KeysStringValue;
+import amuse.scheduler.LocalNodeProcessPool;
+import amuse.scheduler.TaskExecutor;
 import amuse.scheduler.taskstarters.ClassificationStarter;
 import amuse.scheduler.taskstarters.ClassificationTrainingStarter;
 import amuse.scheduler.taskstarters.ClassificationValidationStarter;
@@ -66,9 +72,10 @@ public abstract class AmuseTaskStarter implements AmuseTaskStarterInterface, Nod
      */
     protected List<StringBuilder> errorDescriptionsList;
     
-    /** If the tasks should be started locally as threads, currently working node schedulers are
-     * kept in this list */
-    protected ArrayList<NodeEventSource> nodeSchedulers = null;
+    /** If the tasks should be started locally, the node schedulers submitted to the task executor
+     * and their futures are kept in these lists */
+    private final List<NodeScheduler> submittedSchedulers = new ArrayList<NodeScheduler>();
+    private final List<Future<Long>> submittedTasks = new ArrayList<Future<Long>>();
     
     /** If true, node scheduler will be started directly as thread; if false, it will be started
      * via command line script (e.g. processing the task to grid) */
@@ -79,7 +86,6 @@ public abstract class AmuseTaskStarter implements AmuseTaskStarterInterface, Nod
      */
     public AmuseTaskStarter(String nodeFolder, long jobCounter, boolean startNodeDirectly) throws SchedulerException {
     	this.errorDescriptionsList = Collections.synchronizedList(new ArrayList<StringBuilder>());
-        this.nodeSchedulers = new ArrayList<NodeEventSource>();
         this.nodeFolder = new String(nodeFolder);
         this.jobCounter = jobCounter;
         this.startNodeDirectly = startNodeDirectly;
@@ -102,6 +108,102 @@ public abstract class AmuseTaskStarter implements AmuseTaskStarterInterface, Nod
 	    errorDescriptionsList.add(scheduler.getErrorDescriptionBuilder());
     }
     
+    /**
+     * Passes the node scheduler to the task executor shared by all task starters. Blocks if
+     * the queue of the executor is full
+     * @param scheduler Node scheduler with set thread parameters
+     * @param priority Node schedulers with higher priority are started first
+     * @throws SchedulerException If the task starter is interrupted while waiting
+     */
+    protected void submitNodeScheduler(NodeScheduler scheduler, long priority) throws SchedulerException {
+    	this.connectSchedulerToErrorDescriptionList(scheduler);
+    	scheduler.addListener(this);
+    	try {
+    		this.submittedTasks.add(TaskExecutor.getSharedInstance().submit(scheduler, priority));
+    		this.submittedSchedulers.add(scheduler);
+    	} catch (InterruptedException e) {
+    		cancelNodeSchedulers();
+    		throw new SchedulerException(this.getClass().getName() + " was interrupted: " + e.getMessage());
+    	}
+    }
+    
+    /**
+     * Waits until all submitted node schedulers are completed. Node schedulers which have failed
+     * with an exception or have been cancelled are added to the error descriptions
+     * @return Running times of the node schedulers in ns in the order of submission (-1 for failed ones)
+     * @throws SchedulerException If the task starter is interrupted; the remaining node schedulers are cancelled
+     */
+    protected long[] waitForNodeSchedulers() throws SchedulerException {
+    	long[] runningTimes = new long[this.submittedTasks.size()];
+    	try {
+    		for (int i = 0; i < this.submittedTasks.size(); i++) {
+    			try {
+    				runningTimes[i] = this.submittedTasks.get(i).get();
+    			} catch (ExecutionException e) {
+    				runningTimes[i] = -1;
+    				markAsFailed(this.submittedSchedulers.get(i), "failed: " + e.getCause());
+    			} catch (CancellationException e) {
+    				runningTimes[i] = -1;
+    				markAsFailed(this.submittedSchedulers.get(i), "was cancelled");
+    			}
+    		}
+    	} catch (InterruptedException e) {
+    		cancelNodeSchedulers();
+    		throw new SchedulerException(this.getClass().getName() + " was interrupted: " + e.getMessage());
+    	} finally {
+    		this.submittedTasks.clear();
+    		this.submittedSchedulers.clear();
+    	}
+    	return runningTimes;
+    }
+    
+    /**
+     * Cancels the submitted node schedulers which are not completed yet; running node schedulers are interrupted
+     */
+    public void cancelNodeSchedulers() {
+    	for (Future<Long> task : this.submittedTasks) {
+    		task.cancel(true);
+    	}
+    }
+    
+    /**
+     * Starts a grid job for the task bundle <code>taskoutput/task_%jobCounter%.ser</code>. The job is
+     * submitted with the grid script or, if <code>KeysBooleanValue.RUN_GRID_JOBS_LOCALLY</code> is set,
+     * queued for a node process on this machine
+     * @param gridScript Key of the grid script
+     * @param nodeSchedulerClass Node scheduler which proceeds the job
+     * @throws SchedulerException If the job could not be started
+     */
+    protected void proceedToGrid(KeysStringValue gridScript, Class<? extends NodeScheduler> nodeSchedulerClass) throws SchedulerException {
+    	if (AmusePreferences.getBoolean(KeysBooleanValue.RUN_GRID_JOBS_LOCALLY)) {
+    		LocalNodeProcessPool.getSharedInstance().submit(nodeSchedulerClass, this.nodeFolder, this.jobCounter);
+    		return;
+    	}
+    	
+    	// Proceed script to grid
+    	Process process;
+    	try {
+    		process = Runtime.getRuntime().exec(AmusePreferences.get(gridScript) + " " + this.jobCounter);
+    	} catch (IOException e) {
+    		throw new SchedulerException("Error on proceeding a script to the grid: " + e.getMessage());
+    	}
+    	
+    	// Wait till the job is proceeded to grid (otherwise "too many open files" exception may occur)
+    	try {
+    		process.waitFor();
+    	} catch (Exception e) {
+    		throw new SchedulerException("Problems at proceeding of jobs to grid: " + e.getMessage());
+    	}
+    }
+    
+    private void markAsFailed(NodeScheduler scheduler, String reason) {
+    	AmuseLogger.write(this.getClass().getName(), Level.ERROR, "Job " + scheduler.getTaskId() + " " + reason);
+    	StringBuilder errorDescription = scheduler.getErrorDescriptionBuilder();
+    	if (errorDescription.length() == 0) {
+    		errorDescription.append("Job " + scheduler.getTaskId());
+    	}
+    }
+    
     public void logResults(){
 		String errorText = "";
 		int numErrors = 0;
@@ -148,10 +250,6 @@ public abstract class AmuseTaskStarter implements AmuseTaskStarterInterface, Nod
     public void processEvent(NodeEvent event) {
         AmuseLogger.write(this.getClass().getName(), Level.INFO, "Job "
                 + ((NodeScheduler) event.getEventSource()).getTaskId() + " ready");
-        this.nodeSchedulers.remove(event.getEventSource());
-
-        // DEBUG Show the current number of threads
-        //System.out.println("Current Number of Threads: " + this.processorNodeSchedulers.size());
     }
 
     /**
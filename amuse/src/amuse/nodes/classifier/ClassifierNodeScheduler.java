@@ -24,14 +24,10 @@
 package amuse.nodes.classifier;
 
 import java.io.BufferedWriter;
-import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
@@ -50,6 +46,7 @@ import amuse.data.ModelType.RelationshipType;
 import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.data.annotation.SongPartitionsDescription;
 import amuse.data.io.ArffDataSet;
+import amuse.data.io.ArffWriter;
 import amuse.data.io.DataInputInterface;
 import amuse.data.io.DataSet;
 import amuse.data.io.DataSetAbstract;
@@ -60,6 +57,7 @@ import amuse.data.io.attributes.NumericAttribute;
 import amuse.interfaces.nodes.NodeEvent;
 import amuse.interfaces.nodes.NodeException;
 import amuse.interfaces.nodes.NodeScheduler;
+import amuse.interfaces.nodes.TaskBundle;
 import amuse.interfaces.nodes.TaskConfiguration;
 import amuse.interfaces.nodes.methods.AmuseTask;
 import amuse.nodes.classifier.ClassificationConfiguration.InputSourceType;
@@ -253,27 +251,23 @@ public class ClassifierNodeScheduler extends NodeScheduler {
 			System.exit(1);
 		}
 		
-		// Load the task configuration from %CLASSIFIERHOME%/task.ser
-		ClassificationConfiguration[] classifierConfig = null;
-		FileInputStream fis = null;
-		ObjectInputStream in = null;
+		// Load the task configurations from %CLASSIFIERHOME%/task_%id%.ser; each job is read when it is proceeded
+		TaskBundle taskBundle = null;
 		try {
-			fis = new FileInputStream(args[0] + File.separator + "task_" + args[1] + ".ser");
-			in = new ObjectInputStream(fis);
-			Object o = in.readObject();
-			classifierConfig = (ClassificationConfiguration[])o;
-		    in.close();
-		} catch(IOException ex) {
-		    ex.printStackTrace();
-		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
-		}
-		
-		// Proceed the classification task(s)
-		for(int i=0;i<classifierConfig.length;i++) {
-			proceedTask(args[0],new Long(args[1]),classifierConfig[i]);
-			AmuseLogger.write(this.getClass().getName(), Level.INFO, "Classifier node is going to start job " + 
-					(i+1) + File.separator + classifierConfig.length);
+			taskBundle = new TaskBundle(new File(args[0] + File.separator + "task_" + args[1] + ".ser"));
+			
+			// Proceed the classification task(s)
+			for(int i=0;i<taskBundle.getNumberOfJobs();i++) {
+				proceedTask(args[0],new Long(args[1]),(ClassificationConfiguration)taskBundle.getJob(i));
+				AmuseLogger.write(this.getClass().getName(), Level.INFO, "Classifier node is going to start job " + 
+						(i+1) + File.separator + taskBundle.getNumberOfJobs());
+			}
+		} catch(IOException e) {
+			AmuseLogger.write(this.getClass().getName(), Level.FATAL, "Could not load the task configuration: " + e.getMessage());
+		} finally {
+			if(taskBundle != null) {
+				taskBundle.close();
+			}
 		}
 	}
 	
@@ -630,7 +624,7 @@ public class ClassifierNodeScheduler extends NodeScheduler {
 					for(int i = 0; i < features.size(); i++) {
 						//Omit the attributes that are supposed to be ignored
 						if(!attributesToIgnore.contains(i%numberOfValuesPerWindow)) {
-							inputForClassification.addAttribute(new NumericAttribute(features.get(i).getHistoryAsString(), new ArrayList<Double>()));
+							inputForClassification.addAttribute(new NumericAttribute(features.get(i).getHistoryAsString(), features.get(i).getNumberOfWindows()));
 						}
 					}
 					
@@ -650,10 +644,10 @@ public class ClassifierNodeScheduler extends NodeScheduler {
 						String currentInputSong = new String(currentInputFile);
 						
 						// TODO Consider only the partitions up to 6 minutes of a music track; should be a parameter?
-						int numberOfMaxPartitions = features.get(0).getValues().size();
+						int numberOfMaxPartitions = features.get(0).getNumberOfWindows();
 						for(int j=1;j<features.size();j++) {
-							if(features.get(j).getValues().size() < numberOfMaxPartitions) {
-								numberOfMaxPartitions = features.get(j).getValues().size();
+							if(features.get(j).getNumberOfWindows() < numberOfMaxPartitions) {
+								numberOfMaxPartitions = features.get(j).getNumberOfWindows();
 							}
 						}
 						if((numberOfMaxPartitions * (((ClassificationConfiguration)this.taskConfiguration).getClassificationWindowSize() - 
@@ -661,7 +655,7 @@ public class ClassifierNodeScheduler extends NodeScheduler {
 							numberOfMaxPartitions = 360000 / (((ClassificationConfiguration)this.taskConfiguration).getClassificationWindowSize() - 
 									((ClassificationConfiguration)this.taskConfiguration).getClassificationWindowOverlap());
 							AmuseLogger.write(this.getClass().getName(), Level.WARN, 
-					   				"Number of partitions after processing reduced from " + features.get(0).getValues().size() + 
+					   				"Number of partitions after processing reduced from " + features.get(0).getNumberOfWindows() + 
 					   				" to " + numberOfMaxPartitions);
 						}
 						
@@ -674,8 +668,7 @@ public class ClassifierNodeScheduler extends NodeScheduler {
 							for(int k = 0; k < features.size(); k++) {
 								// Omit the attributes that are supposed to be ignored
 								if(!attributesToIgnore.contains(k%numberOfValuesPerWindow)) {
-									Double val = features.get(k).getValues().get(j)[0];
-									inputForClassification.getAttribute(currentAttribute).addValue(val);
+									((NumericAttribute)inputForClassification.getAttribute(currentAttribute)).addValue(features.get(k).getValue(j, 0));
 									currentAttribute++;
 								}
 							}
@@ -1137,32 +1130,22 @@ public class ClassifierNodeScheduler extends NodeScheduler {
 				classifierResultFile.createNewFile();
 			}
 			
-			FileOutputStream values_to = new FileOutputStream(classifierResultFile);
-			DataOutputStream values_writer = new DataOutputStream(values_to);
-			String sep = System.getProperty("line.separator");
-			values_writer.writeBytes("% Classifier result");
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("@RELATION 'Classification result'");
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("@ATTRIBUTE Id NUMERIC");
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("@ATTRIBUTE Filename STRING");
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("@ATTRIBUTE StartMs NUMERIC");
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("@ATTRIBUTE EndMs NUMERIC");
-			values_writer.writeBytes(sep);
+			ArffWriter values_writer = new ArffWriter(classifierResultFile, System.getProperty("line.separator"));
+			values_writer.writeLine("% Classifier result");
+			values_writer.writeLine("");
+			values_writer.writeLine("@RELATION 'Classification result'");
+			values_writer.writeLine("");
+			values_writer.writeLine("@ATTRIBUTE Id NUMERIC");
+			values_writer.writeLine("@ATTRIBUTE Filename STRING");
+			values_writer.writeLine("@ATTRIBUTE StartMs NUMERIC");
+			values_writer.writeLine("@ATTRIBUTE EndMs NUMERIC");
 			for(int category = 0; category < numberOfCategories; category ++) {
-				values_writer.writeBytes("@ATTRIBUTE " + classifierResult.get(0).getLabels()[category] + " NUMERIC");
-				values_writer.writeBytes(sep);
+				values_writer.writeLine("@ATTRIBUTE " + classifierResult.get(0).getLabels()[category] + " NUMERIC");
 			}
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("@DATA");
-			values_writer.writeBytes(sep);
+			values_writer.writeLine("");
+			values_writer.writeLine("");
+			values_writer.writeLine("");
+			values_writer.writeLine("@DATA");
 	        
 			// If the partition classifications should be combined
 			if(((ClassificationConfiguration)taskConfiguration).getMergeSongResults().equals(new Integer("1"))) {
@@ -1176,7 +1159,10 @@ public class ClassifierNodeScheduler extends NodeScheduler {
 					double[] currentSongsClusterAffiliations = new double[numberOfCategories];
 					
 					// Write the results
-					values_writer.writeBytes(descriptionOfClassifierInput.get(songNumber).getSongId() + ",'" + currentSongName + "',-1,-1");
+					values_writer.writeValue(descriptionOfClassifierInput.get(songNumber).getSongId());
+					values_writer.writeValue("'" + currentSongName + "'");
+					values_writer.writeValue(-1);
+					values_writer.writeValue(-1);
 					
 					// Go through all categories
 					for(int category=0; category < numberOfCategories; category++) {
@@ -1187,11 +1173,11 @@ public class ClassifierNodeScheduler extends NodeScheduler {
 						}
 						meanRelationship /= classifierResult.get(songNumber).getRelationships().length;
 						currentSongsClusterAffiliations[category] = meanRelationship;
-						values_writer.writeBytes("," + meanRelationship);
+						values_writer.writeValue(meanRelationship);
 					}
 					
 					clusterAffiliations.add(songNumber, currentSongsClusterAffiliations);
-					values_writer.writeBytes(sep);
+					values_writer.endRow();
 				}
 				
 				this.createVisual(songNames, clusterAffiliations, classificationOutput + "_visual.tex");
@@ -1209,14 +1195,17 @@ public class ClassifierNodeScheduler extends NodeScheduler {
 					double[] currentSongsClusterAffiliations = new double[numberOfCategories];
 					
 					// Write the results
-					values_writer.writeBytes("1,'" + songName + "-partition-" + partitionNumber + "',-1,-1");
+					values_writer.writeValue(1);
+					values_writer.writeValue("'" + songName + "-partition-" + partitionNumber + "'");
+					values_writer.writeValue(-1);
+					values_writer.writeValue(-1);
 					for(int category=0;category<numberOfCategories;category++) {
 						currentSongsClusterAffiliations[category] = classifierResult.get(0).getRelationships()[partitionNumber][category];
-						values_writer.writeBytes("," + currentSongsClusterAffiliations[category]);
+						values_writer.writeValue(currentSongsClusterAffiliations[category]);
 					}
 					
 					clusterAffiliations.add(partitionNumber, currentSongsClusterAffiliations);
-					values_writer.writeBytes(sep);
+					values_writer.endRow();
 				}
 				
 				songNames.add(songName);
@@ -1234,15 +1223,16 @@ public class ClassifierNodeScheduler extends NodeScheduler {
 					for(int j=0;j<classifierResult.get(i).getRelationships().length;j++) {
 						
 						// Save the results
-						values_writer.writeBytes(descriptionOfClassifierInput.get(i).getSongId() + "," + currentSongName + "," + 
-								classifierResult.get(i).getStartMs()[j] + "," + 
-								classifierResult.get(i).getEndMs()[j]);
+						values_writer.writeValue(descriptionOfClassifierInput.get(i).getSongId());
+						values_writer.writeValue(currentSongName);
+						values_writer.writeValue(classifierResult.get(i).getStartMs()[j]);
+						values_writer.writeValue(classifierResult.get(i).getEndMs()[j]);
 						
 						for(int category=0;category<numberOfCategories;category++) {
-							values_writer.writeBytes("," + classifierResult.get(i).getRelationships()[j][category]);
+							values_writer.writeValue(classifierResult.get(i).getRelationships()[j][category]);
 						}
 						
-						values_writer.writeBytes(sep);
+						values_writer.endRow();
 					}
 					
 				}
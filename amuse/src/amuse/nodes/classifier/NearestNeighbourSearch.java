@@ -0,0 +1,643 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.classifier;
+
+import java.nio.DoubleBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Finds the k nearest neighbours (Euclidean distance) of query points among the rows of a training
+ * matrix. The training values are copied once into a primitive row-major array, which is indexed by
+ * a KD-tree, a ball tree or a vantage-point tree. Rows with missing values (NaN) are not indexed.
+ * Neighbours with equal distances are ordered by their row number, so that the results do not
+ * depend on the index type.
+ *
+ * @version $Id$
+ */
+public class NearestNeighbourSearch {
+
+	/** Index structures */
+	public enum IndexType {
+		/** KD-tree for up to 16 dimensions, ball tree for up to 64 dimensions and vantage-point tree above */
+		AUTO,
+		/** Splits the rows at the median of the dimension with the largest spread */
+		KD_TREE,
+		/** Splits the rows at the median of their projection on the line between two distant rows;
+		 * each node is bounded by a sphere around the centroid of its rows */
+		BALL_TREE,
+		/** Splits the rows at the median distance to a vantage row; uses distances only */
+		VP_TREE
+	}
+
+	/** Rows in a leaf, which are compared with the query one after another */
+	private static final int MAX_ROWS_PER_LEAF = 16;
+
+	/** Dimension limits of the index types chosen by <code>IndexType.AUTO</code> */
+	private static final int MAX_KD_TREE_DIMENSIONS = 16;
+	private static final int MAX_BALL_TREE_DIMENSIONS = 64;
+
+	/** Minimum number of queries searched by a thread in a batch */
+	private static final int MIN_QUERIES_PER_BLOCK = 64;
+
+	private final int numberOfDimensions;
+	private final int numberOfIndexedRows;
+	private final IndexType indexType;
+
+	/** Values of the indexed rows (row-major) in the order of the tree leaves */
+	private final double[] values;
+
+	/** Original row number of each indexed row */
+	private final int[] rowNumbers;
+
+	private final Node root;
+
+	/**
+	 * Copies the training values and builds the index
+	 * @param columns Training values; one buffer per dimension, read with absolute indices
+	 * @param numberOfRows Number of training rows
+	 * @param indexType Index structure
+	 */
+	public NearestNeighbourSearch(DoubleBuffer[] columns, int numberOfRows, IndexType indexType) {
+		this.numberOfDimensions = columns.length;
+		if(indexType == IndexType.AUTO) {
+			if(numberOfDimensions <= MAX_KD_TREE_DIMENSIONS) {
+				indexType = IndexType.KD_TREE;
+			} else if(numberOfDimensions <= MAX_BALL_TREE_DIMENSIONS) {
+				indexType = IndexType.BALL_TREE;
+			} else {
+				indexType = IndexType.VP_TREE;
+			}
+		}
+		this.indexType = indexType;
+
+		// Pack the rows without missing values
+		double[] packedValues = new double[numberOfRows * numberOfDimensions];
+		int[] packedRowNumbers = new int[numberOfRows];
+		int rows = 0;
+		for(int row = 0; row < numberOfRows; row++) {
+			boolean isComplete = true;
+			for(int n = 0; n < numberOfDimensions; n++) {
+				double value = columns[n].get(row);
+				if(Double.isNaN(value)) {
+					isComplete = false;
+					break;
+				}
+				packedValues[rows * numberOfDimensions + n] = value;
+			}
+			if(isComplete) {
+				packedRowNumbers[rows++] = row;
+			}
+		}
+		this.numberOfIndexedRows = rows;
+
+		// Build the tree on a permutation of the packed rows and store the rows in the tree order
+		int[] order = new int[rows];
+		for(int i = 0; i < rows; i++) {
+			order[i] = i;
+		}
+		TreeBuilder builder = new TreeBuilder(packedValues, order);
+		this.root = rows == 0 ? null : builder.build(0, rows);
+		this.values = new double[rows * numberOfDimensions];
+		this.rowNumbers = new int[rows];
+		for(int i = 0; i < rows; i++) {
+			System.arraycopy(packedValues, order[i] * numberOfDimensions, values, i * numberOfDimensions, numberOfDimensions);
+			rowNumbers[i] = packedRowNumbers[order[i]];
+		}
+	}
+
+	/**
+	 * @return Index structure; never <code>IndexType.AUTO</code>
+	 */
+	public IndexType getIndexType() {
+		return indexType;
+	}
+
+	/**
+	 * @return Number of training rows without missing values
+	 */
+	public int getNumberOfIndexedRows() {
+		return numberOfIndexedRows;
+	}
+
+	/**
+	 * Searches the nearest neighbours of a single query
+	 * @param query Query point with one value per dimension
+	 * @param k Number of neighbours
+	 * @return The at most k nearest training rows or null if the query has missing values
+	 */
+	public Neighbours search(double[] query, int k) {
+		for(int n = 0; n < numberOfDimensions; n++) {
+			if(Double.isNaN(query[n])) {
+				return null;
+			}
+		}
+		Candidates candidates = new Candidates(Math.max(0, Math.min(k, numberOfIndexedRows)));
+		if(root != null && candidates.capacity > 0) {
+			search(root, query, candidates);
+		}
+		return candidates.toNeighbours();
+	}
+
+	/**
+	 * Searches the nearest neighbours of several queries. The queries are divided into blocks,
+	 * which are searched in parallel
+	 * @param queryColumns Query values; one buffer per dimension, read with absolute indices
+	 * @param numberOfQueries Number of queries
+	 * @param k Number of neighbours
+	 * @param numberOfThreads Maximum number of threads
+	 * @return Neighbours of each query; null for the queries with missing values
+	 * @throws InterruptedException If the thread is interrupted while waiting for the search
+	 */
+	public Neighbours[] search(final DoubleBuffer[] queryColumns, int numberOfQueries, final int k, int numberOfThreads) throws InterruptedException {
+		final Neighbours[] neighbours = new Neighbours[numberOfQueries];
+		int numberOfBlocks = Math.min(numberOfThreads * 4, (numberOfQueries + MIN_QUERIES_PER_BLOCK - 1) / MIN_QUERIES_PER_BLOCK);
+		if(numberOfThreads <= 1 || numberOfBlocks <= 1) {
+			searchBlock(queryColumns, 0, numberOfQueries, k, neighbours);
+			return neighbours;
+		}
+
+		int blockSize = (numberOfQueries + numberOfBlocks - 1) / numberOfBlocks;
+		ExecutorService searchPool = Executors.newFixedThreadPool(Math.min(numberOfThreads, numberOfBlocks));
+		List<Future<Void>> results = new ArrayList<Future<Void>>(numberOfBlocks);
+		for(int start = 0; start < numberOfQueries; start += blockSize) {
+			final int blockStart = start;
+			final int blockEnd = Math.min(numberOfQueries, start + blockSize);
+			results.add(searchPool.submit(new Callable<Void>() {
+				public Void call() {
+					searchBlock(queryColumns, blockStart, blockEnd, k, neighbours);
+					return null;
+				}
+			}));
+		}
+		searchPool.shutdown();
+		try {
+			for(Future<Void> result : results) {
+				result.get();
+			}
+		} catch(ExecutionException e) {
+			if(e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			searchPool.shutdownNow();
+		}
+		return neighbours;
+	}
+
+	private void searchBlock(DoubleBuffer[] queryColumns, int start, int end, int k, Neighbours[] neighbours) {
+		double[] query = new double[numberOfDimensions];
+		for(int i = start; i < end; i++) {
+			for(int n = 0; n < numberOfDimensions; n++) {
+				query[n] = queryColumns[n].get(i);
+			}
+			neighbours[i] = search(query, k);
+		}
+	}
+
+	private void search(Node node, double[] query, Candidates candidates) {
+		if(node.left == null) {
+			for(int i = node.start; i < node.end; i++) {
+				offer(i, query, candidates);
+			}
+			return;
+		}
+		if(indexType == IndexType.KD_TREE) {
+			double difference = query[node.splitDimension] - node.threshold;
+			Node nearChild = difference <= 0 ? node.left : node.right;
+			Node farChild = difference <= 0 ? node.right : node.left;
+			search(nearChild, query, candidates);
+			if(difference * difference <= candidates.getWorstDistance()) {
+				search(farChild, query, candidates);
+			}
+		} else if(indexType == IndexType.BALL_TREE) {
+			double leftDistance = Math.sqrt(squaredDistance(query, node.left.center, 0));
+			double rightDistance = Math.sqrt(squaredDistance(query, node.right.center, 0));
+			Node nearChild = leftDistance <= rightDistance ? node.left : node.right;
+			Node farChild = leftDistance <= rightDistance ? node.right : node.left;
+			double nearDistance = Math.min(leftDistance, rightDistance);
+			double farDistance = Math.max(leftDistance, rightDistance);
+			if(isReachable(nearDistance - nearChild.threshold, candidates)) {
+				search(nearChild, query, candidates);
+			}
+			if(isReachable(farDistance - farChild.threshold, candidates)) {
+				search(farChild, query, candidates);
+			}
+		} else {
+
+			// The vantage row is the first row of the node; the inner rows are not farther from it than the threshold
+			double squaredDistance = squaredDistance(query, values, node.start * numberOfDimensions);
+			if(squaredDistance <= candidates.getWorstDistance()) {
+				candidates.offer(squaredDistance, rowNumbers[node.start]);
+			}
+			double distance = Math.sqrt(squaredDistance);
+			if(distance <= node.threshold) {
+				search(node.left, query, candidates);
+				if(isReachable(node.threshold - distance, candidates)) {
+					search(node.right, query, candidates);
+				}
+			} else {
+				search(node.right, query, candidates);
+				if(isReachable(distance - node.threshold, candidates)) {
+					search(node.left, query, candidates);
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return True if a row at the given lower bound of the distance may be one of the neighbours
+	 */
+	private static boolean isReachable(double lowerBound, Candidates candidates) {
+		return lowerBound <= 0 || lowerBound * lowerBound <= candidates.getWorstDistance();
+	}
+
+	/**
+	 * Compares the indexed row with the query and adds it to the candidates if it is near enough
+	 */
+	private void offer(int position, double[] query, Candidates candidates) {
+		double worstDistance = candidates.getWorstDistance();
+		double distance = 0;
+		int offset = position * numberOfDimensions;
+		for(int n = 0; n < numberOfDimensions; n++) {
+			double difference = query[n] - values[offset + n];
+			distance += difference * difference;
+
+			// Stop as soon as the row can not be a neighbour
+			if(distance > worstDistance) {
+				return;
+			}
+		}
+		candidates.offer(distance, rowNumbers[position]);
+	}
+
+	private double squaredDistance(double[] query, double[] data, int offset) {
+		double distance = 0;
+		for(int n = 0; n < numberOfDimensions; n++) {
+			double difference = query[n] - data[offset + n];
+			distance += difference * difference;
+		}
+		return distance;
+	}
+
+	/**
+	 * Node of the index; the rows of a node are the rows start to end - 1 in the tree order
+	 */
+	private static class Node {
+		private final int start;
+		private final int end;
+		private Node left = null;
+		private Node right = null;
+
+		/** Split dimension of KD-tree nodes */
+		private int splitDimension;
+
+		/** Split value of KD-tree nodes, radius of ball tree nodes or median distance of VP-tree nodes */
+		private double threshold;
+
+		/** Center of ball tree nodes */
+		private double[] center;
+
+		private Node(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * Builds the tree by reordering a permutation of the packed rows
+	 */
+	private class TreeBuilder {
+
+		private final double[] data;
+		private final int[] order;
+		private final double[] keys;
+		private final Random random = new Random(0);
+
+		private TreeBuilder(double[] data, int[] order) {
+			this.data = data;
+			this.order = order;
+			this.keys = new double[order.length];
+		}
+
+		private Node build(int start, int end) {
+			Node node = new Node(start, end);
+			if(indexType == IndexType.KD_TREE) {
+				buildKdNode(node);
+			} else if(indexType == IndexType.BALL_TREE) {
+				buildBallNode(node);
+			} else {
+				buildVpNode(node);
+			}
+			return node;
+		}
+
+		private void buildKdNode(Node node) {
+			if(node.end - node.start <= MAX_ROWS_PER_LEAF) {
+				return;
+			}
+			int splitDimension = -1;
+			double maxSpread = 0;
+			for(int n = 0; n < numberOfDimensions; n++) {
+				double min = Double.POSITIVE_INFINITY;
+				double max = Double.NEGATIVE_INFINITY;
+				for(int i = node.start; i < node.end; i++) {
+					double value = data[order[i] * numberOfDimensions + n];
+					min = Math.min(min, value);
+					max = Math.max(max, value);
+				}
+				if(max - min > maxSpread) {
+					maxSpread = max - min;
+					splitDimension = n;
+				}
+			}
+			if(splitDimension == -1) {
+
+				// All rows are equal
+				return;
+			}
+			for(int i = node.start; i < node.end; i++) {
+				keys[i] = data[order[i] * numberOfDimensions + splitDimension];
+			}
+			int middle = (node.start + node.end) >>> 1;
+			select(node.start, node.end, middle);
+			node.splitDimension = splitDimension;
+			node.threshold = keys[middle];
+			node.left = build(node.start, middle);
+			node.right = build(middle, node.end);
+		}
+
+		private void buildBallNode(Node node) {
+			double[] center = new double[numberOfDimensions];
+			for(int i = node.start; i < node.end; i++) {
+				int offset = order[i] * numberOfDimensions;
+				for(int n = 0; n < numberOfDimensions; n++) {
+					center[n] += data[offset + n];
+				}
+			}
+			for(int n = 0; n < numberOfDimensions; n++) {
+				center[n] /= node.end - node.start;
+			}
+			int farthestFromCenter = farthest(node, center, 0);
+			double radius = Math.sqrt(squaredDistance(center, 0, farthestFromCenter * numberOfDimensions));
+			node.center = center;
+
+			// Some rounding tolerance, since the center is not a row
+			node.threshold = radius * (1 + 1e-12) + 1e-12;
+			if(node.end - node.start <= MAX_ROWS_PER_LEAF || radius == 0) {
+				return;
+			}
+
+			// Project the rows on the line between the two pivots
+			int firstPivot = farthestFromCenter;
+			int secondPivot = farthest(node, data, firstPivot * numberOfDimensions);
+			int firstOffset = firstPivot * numberOfDimensions;
+			int secondOffset = secondPivot * numberOfDimensions;
+			for(int i = node.start; i < node.end; i++) {
+				int offset = order[i] * numberOfDimensions;
+				double projection = 0;
+				for(int n = 0; n < numberOfDimensions; n++) {
+					projection += (data[offset + n] - data[firstOffset + n]) * (data[secondOffset + n] - data[firstOffset + n]);
+				}
+				keys[i] = projection;
+			}
+			int middle = (node.start + node.end) >>> 1;
+			select(node.start, node.end, middle);
+			node.left = build(node.start, middle);
+			node.right = build(middle, node.end);
+		}
+
+		private void buildVpNode(Node node) {
+			if(node.end - node.start <= MAX_ROWS_PER_LEAF) {
+				return;
+			}
+
+			// Move a random vantage row to the start of the node
+			swap(node.start, node.start + random.nextInt(node.end - node.start));
+			int vantageOffset = order[node.start] * numberOfDimensions;
+			for(int i = node.start + 1; i < node.end; i++) {
+				keys[i] = Math.sqrt(squaredDistance(data, order[i] * numberOfDimensions, vantageOffset));
+			}
+			int middle = (node.start + 1 + node.end) >>> 1;
+			select(node.start + 1, node.end, middle);
+			node.threshold = keys[middle];
+
+			// The row at the median belongs to the inner rows, so that both children are not empty
+			node.left = build(node.start + 1, middle + 1);
+			node.right = build(middle + 1, node.end);
+		}
+
+		/**
+		 * @return Packed row of the node which is farthest from the given point
+		 */
+		private int farthest(Node node, double[] point, int pointOffset) {
+			int farthestRow = order[node.start];
+			double maxDistance = -1;
+			for(int i = node.start; i < node.end; i++) {
+				double distance = squaredDistance(point, pointOffset, order[i] * numberOfDimensions);
+				if(distance > maxDistance) {
+					maxDistance = distance;
+					farthestRow = order[i];
+				}
+			}
+			return farthestRow;
+		}
+
+		private double squaredDistance(double[] point, int pointOffset, int rowOffset) {
+			double distance = 0;
+			for(int n = 0; n < numberOfDimensions; n++) {
+				double difference = point[pointOffset + n] - data[rowOffset + n];
+				distance += difference * difference;
+			}
+			return distance;
+		}
+
+		/**
+		 * Reorders the rows from start to end - 1, so that the key of the row at position k is the
+		 * k-th smallest key; rows before it have smaller or equal keys and rows after it larger or equal keys
+		 */
+		private void select(int start, int end, int k) {
+			int low = start;
+			int high = end - 1;
+			while(high > low) {
+				double pivot = keys[low + random.nextInt(high - low + 1)];
+				int i = low;
+				int j = high;
+				while(i <= j) {
+					while(keys[i] < pivot) {
+						i++;
+					}
+					while(keys[j] > pivot) {
+						j--;
+					}
+					if(i <= j) {
+						swap(i, j);
+						i++;
+						j--;
+					}
+				}
+				if(k <= j) {
+					high = j;
+				} else if(k >= i) {
+					low = i;
+				} else {
+					return;
+				}
+			}
+		}
+
+		private void swap(int i, int j) {
+			int row = order[i];
+			order[i] = order[j];
+			order[j] = row;
+			double key = keys[i];
+			keys[i] = keys[j];
+			keys[j] = key;
+		}
+	}
+
+	/**
+	 * The k best rows found so far, kept in a max-heap ordered by distance and row number
+	 */
+	private static class Candidates {
+		private final int capacity;
+		private final double[] distances;
+		private final int[] rows;
+		private int size = 0;
+
+		private Candidates(int capacity) {
+			this.capacity = capacity;
+			this.distances = new double[capacity];
+			this.rows = new int[capacity];
+		}
+
+		/**
+		 * @return Squared distance of the worst candidate or infinity if less than k rows have been found
+		 */
+		private double getWorstDistance() {
+			return size < capacity ? Double.POSITIVE_INFINITY : distances[0];
+		}
+
+		private void offer(double distance, int row) {
+			if(size < capacity) {
+				int i = size++;
+				while(i > 0) {
+					int parent = (i - 1) / 2;
+					if(!isWorse(distance, row, distances[parent], rows[parent])) {
+						break;
+					}
+					distances[i] = distances[parent];
+					rows[i] = rows[parent];
+					i = parent;
+				}
+				distances[i] = distance;
+				rows[i] = row;
+			} else if(capacity > 0 && isWorse(distances[0], rows[0], distance, row)) {
+				siftDown(distance, row);
+			}
+		}
+
+		private void siftDown(double distance, int row) {
+			int i = 0;
+			while(true) {
+				int child = 2 * i + 1;
+				if(child >= size) {
+					break;
+				}
+				if(child + 1 < size && isWorse(distances[child + 1], rows[child + 1], distances[child], rows[child])) {
+					child++;
+				}
+				if(!isWorse(distances[child], rows[child], distance, row)) {
+					break;
+				}
+				distances[i] = distances[child];
+				rows[i] = rows[child];
+				i = child;
+			}
+			distances[i] = distance;
+			rows[i] = row;
+		}
+
+		private static boolean isWorse(double distance, int row, double otherDistance, int otherRow) {
+			return distance > otherDistance || (distance == otherDistance && row > otherRow);
+		}
+
+		private Neighbours toNeighbours() {
+			int[] sortedRows = new int[size];
+			double[] sortedDistances = new double[size];
+			for(int i = size - 1; i >= 0; i--) {
+				sortedRows[i] = rows[0];
+				sortedDistances[i] = Math.sqrt(distances[0]);
+				size--;
+				if(size > 0) {
+					siftDown(distances[size], rows[size]);
+				}
+			}
+			return new Neighbours(sortedRows, sortedDistances);
+		}
+	}
+
+	/**
+	 * Nearest neighbours of a query, ordered by distance and row number
+	 */
+	public static class Neighbours {
+		private final int[] rows;
+		private final double[] distances;
+
+		private Neighbours(int[] rows, double[] distances) {
+			this.rows = rows;
+			this.distances = distances;
+		}
+
+		/**
+		 * @return Number of neighbours
+		 */
+		public int size() {
+			return rows.length;
+		}
+
+		/**
+		 * @param i Position of the neighbour (0 is the nearest)
+		 * @return Row number of the neighbour in the training data
+		 */
+		public int getRow(int i) {
+			return rows[i];
+		}
+
+		/**
+		 * @param i Position of the neighbour (0 is the nearest)
+		 * @return Euclidean distance of the neighbour to the query
+		 */
+		public double getDistance(int i) {
+			return distances[i];
+		}
+	}
+}
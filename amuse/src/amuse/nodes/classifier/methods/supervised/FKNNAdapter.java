@@ -23,9 +23,8 @@
 package amuse.nodes.classifier.methods.supervised;
 
 import java.io.File;
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
-import java.util.SortedSet;
-import java.util.TreeSet;
 
 import org.apache.log4j.Level;
 
@@ -39,7 +38,12 @@ import amuse.interfaces.nodes.NodeException;
 import amuse.interfaces.nodes.methods.AmuseTask;
 import amuse.nodes.classifier.ClassifierNodeScheduler;
 import amuse.nodes.classifier.ClassificationConfiguration;
+import amuse.nodes.classifier.NearestNeighbourSearch;
+import amuse.nodes.classifier.NearestNeighbourSearch.IndexType;
+import amuse.nodes.classifier.NearestNeighbourSearch.Neighbours;
 import amuse.nodes.classifier.interfaces.ClassifierSupervisedInterface;
+import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysIntValue;
 import amuse.util.AmuseLogger;
 
 /**
@@ -98,95 +102,42 @@ public class FKNNAdapter extends AmuseTask implements ClassifierSupervisedInterf
 				dataSetToClassify.addAttribute(new NumericAttribute("Predicted_" + trainingDataSet.getAttribute(i).getName(), new ArrayList<Double>()));
 			}
 			
+			// Views of the feature and category values for the distance calculation
+			int numberOfFeatures = trainingDataSet.getAttributeCount() - numberOfCategories - 2;
+			DoubleBuffer[] classifyColumns = new DoubleBuffer[numberOfFeatures];
+			DoubleBuffer[] trainingColumns = new DoubleBuffer[numberOfFeatures];
+			for(int n = 0; n < numberOfFeatures; n++) {
+				classifyColumns[n] = ((NumericAttribute)dataSetToClassify.getAttribute(n)).getValueBuffer();
+				trainingColumns[n] = ((NumericAttribute)trainingDataSet.getAttribute(n)).getValueBuffer();
+			}
+			DoubleBuffer[] categoryColumns = new DoubleBuffer[numberOfCategories];
+			for(int category = 0; category < numberOfCategories; category++) {
+				categoryColumns[category] = ((NumericAttribute)trainingDataSet.getAttribute(positionOfFirstCategory + category)).getValueBuffer();
+			}
+			
+			// Index the training partitions once and search the neighbours of all partitions in parallel
+			int numberOfPartitions = dataSetToClassify.getAttribute(0).getValueCount();
+			NearestNeighbourSearch search = new NearestNeighbourSearch(trainingColumns, trainingDataSet.getValueCount(), IndexType.AUTO);
+			Neighbours[] neighborsOfPartitions = search.search(classifyColumns, numberOfPartitions, neighborNumber, 
+					Math.min(Runtime.getRuntime().availableProcessors(), AmusePreferences.getInt(KeysIntValue.MAX_NUMBER_OF_TASK_THREADS)));
+			
 			//iterate through every partition that has to be classified
-			for(int partitionToClassify = 0; partitionToClassify < dataSetToClassify.getAttribute(0).getValueCount(); partitionToClassify++) {
-				
-				//SortedSet of the k nearestNeighbors
-				SortedSet<Example> nearestNeighbors = new TreeSet<Example>();
+			for(int partitionToClassify = 0; partitionToClassify < numberOfPartitions; partitionToClassify++) {
+				Neighbours nearestNeighbors = neighborsOfPartitions[partitionToClassify];
 				
-				//iterate through all training songs/partitions
-				for(int trainingPartition = 0; trainingPartition < trainingDataSet.getValueCount(); trainingPartition++) {
-					double distance = 0;
-					double classifyValue = 0;
-					double trainValue = 0;
-					boolean nanClassify = false;
-					boolean nanTrain = false;
-					//calculate the distance between test partition and training partition
-					for(int n = 0; n < trainingDataSet.getAttributeCount() - numberOfCategories - 2; n++) {
-						classifyValue = (Double)dataSetToClassify.getAttribute(n).getValueAt(partitionToClassify);
-						trainValue = (Double)trainingDataSet.getAttribute(n).getValueAt(trainingPartition);
-						if(Double.isNaN(classifyValue)){
-							try {
-								AmuseLogger.write(FKNNAdapter.class.getClass().getName(), Level.WARN,"Not a Number in song " + dataSetToClassify.getAttribute("Id").getValueAt(partitionToClassify));
-							} catch(DataSetException e) {
-								AmuseLogger.write(FKNNAdapter.class.getClass().getName(), Level.WARN,"Not a Number in an input song");
-							}
-							nanClassify = true;
-							break;
-						}
-						if(Double.isNaN(trainValue)){
-							nanTrain = true;
-							break;
-						}
-						
-						distance += Math.pow(classifyValue - trainValue, 2);
-					}
-					if(nanClassify) {//if there is a NaN in the partition, we want to classify, we cannot properly classify it
-						break;
-					}
-					if(nanTrain) {//if there is a NaN in the training partition, we ignore that partition
-						continue;
-					}
-					
-					distance = Math.sqrt(distance);
-					
-					//what category has the training partition?
-					double[] currentRelationships = new double[numberOfCategories];
-					
-					for(int category = 0; category < numberOfCategories; category++) {
-						currentRelationships[category] = (double)trainingDataSet.getAttribute(positionOfFirstCategory + category).getValueAt(trainingPartition);
-					}
-					
-					Example currentExample = new Example(distance, currentRelationships);
-					
-					//add the Example to the k nearest neighbors. Remove the Example with the largest distance, if we have to many neighbors.
-					nearestNeighbors.add(currentExample);
-					if(nearestNeighbors.size() > neighborNumber) {
-						nearestNeighbors.remove(nearestNeighbors.last());
+				//if there is a NaN in the partition, we want to classify, we cannot properly classify it
+				if(nearestNeighbors == null) {
+					try {
+						AmuseLogger.write(FKNNAdapter.class.getClass().getName(), Level.WARN,"Not a Number in song " + dataSetToClassify.getAttribute("Id").getValueAt(partitionToClassify));
+					} catch(DataSetException e) {
+						AmuseLogger.write(FKNNAdapter.class.getClass().getName(), Level.WARN,"Not a Number in an input song");
 					}
 				}
-				
-				if(nearestNeighbors.size() == 0) {//If no neighbors were found (probably because of NaN in the partition that has to be classified), the partition cannot be properly classified
+				if(nearestNeighbors == null || nearestNeighbors.size() == 0) {
 					throw new NodeException("Partition cannot be classified, because no neighbours were found.");
 				}
 				
-				//make sure that the distances are not 0
-				boolean allZero = nearestNeighbors.last().distance == 0;
-				
-				//if all distances are 0, they are weighed equally
-				if(allZero) {
-					AmuseLogger.write(FKNNAdapter.class.getClass().getName(), Level.WARN,"Distances are zero!");
-					for(Example example : nearestNeighbors) {
-						example.distance = 1;
-					}
-				} else { //otherwise all distances that are 0 are set to a value that is not 0, but is still the smallest distance
-					double minimumDistance = 0; //the smallest distance that is not 0
-					for(Example example : nearestNeighbors) {
-						if(example.distance != 0) {
-							minimumDistance = example.distance;
-							break;
-						}
-					}
-					for(Example example : nearestNeighbors) {
-						if(example.distance == 0) {
-							example.distance = minimumDistance/2;
-						}
-						else {
-							break;
-						}
-					}
-				}
-				
+				double[] weights = getWeights(nearestNeighbors);
 				double[] relationships = new double[numberOfCategories];
 				
 				for(int category = 0; category < numberOfCategories; category++) {
@@ -194,12 +145,10 @@ public class FKNNAdapter extends AmuseTask implements ClassifierSupervisedInterf
 					double relationship;
 					double enumerator = 0;
 					double denominator = 0;
-					double weight;
 				
-					for(Example example : nearestNeighbors) {
-						weight = 1.0/(Math.pow(example.distance, 2/(m - 1)));
-						enumerator += example.relationships[category] * weight;
-						denominator += weight;
+					for(int i = 0; i < nearestNeighbors.size(); i++) {
+						enumerator += categoryColumns[category].get(nearestNeighbors.getRow(i)) * weights[i];
+						denominator += weights[i];
 					}
 					relationship = enumerator/denominator;
 					
@@ -238,26 +187,44 @@ public class FKNNAdapter extends AmuseTask implements ClassifierSupervisedInterf
 		}
 	}
 	
-	private class Example implements Comparable<Example>{
-		
-		private double distance;
-		private double[] relationships;
-		
-		private Example(double distance, double[] relationships) {
-			this.distance = distance;
-			this.relationships = relationships.clone();
+	/**
+	 * Weights the neighbours by their inverse distance
+	 * 
+	 * @param nearestNeighbors Neighbours ordered by their distance
+	 * @return Weight of each neighbour
+	 */
+	protected double[] getWeights(Neighbours nearestNeighbors) {
+		double[] distances = new double[nearestNeighbors.size()];
+		for(int i = 0; i < distances.length; i++) {
+			distances[i] = nearestNeighbors.getDistance(i);
 		}
 		
-		public int compareTo(Example e) {
-			if(this.distance - e.distance < 0.0) {
-				return -1;
-			} else if(this.distance - e.distance == 0.0) {
-				return 0;
+		//make sure that the distances are not 0
+		boolean allZero = distances[distances.length - 1] == 0;
+		
+		//if all distances are 0, they are weighed equally
+		if(allZero) {
+			AmuseLogger.write(FKNNAdapter.class.getClass().getName(), Level.WARN,"Distances are zero!");
+			for(int i = 0; i < distances.length; i++) {
+				distances[i] = 1;
 			}
-			else {
-				return 1;
+		} else { //otherwise all distances that are 0 are set to a value that is not 0, but is still the smallest distance
+			double minimumDistance = 0; //the smallest distance that is not 0
+			for(int i = 0; i < distances.length; i++) {
+				if(distances[i] != 0) {
+					minimumDistance = distances[i];
+					break;
+				}
+			}
+			for(int i = 0; i < distances.length && distances[i] == 0; i++) {
+				distances[i] = minimumDistance/2;
 			}
 		}
-
+		
+		double[] weights = new double[distances.length];
+		for(int i = 0; i < distances.length; i++) {
+			weights[i] = 1.0/(Math.pow(distances[i], 2/(m - 1)));
+		}
+		return weights;
 	}
-}
\ No newline at end of file
+}
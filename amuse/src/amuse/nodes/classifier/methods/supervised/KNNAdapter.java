@@ -0,0 +1,101 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.classifier.methods.supervised;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import amuse.interfaces.nodes.NodeException;
+import amuse.interfaces.nodes.methods.AmuseTask;
+import amuse.nodes.classifier.NearestNeighbourSearch.Neighbours;
+import amuse.nodes.classifier.interfaces.ClassifierSupervisedInterface;
+
+/**
+ * Classifies data using the k-Nearest Neighbours algorithm: the relationship of a partition to a category
+ * is the mean relationship of its neighbours. Models trained by RapidMiner in earlier versions are
+ * classified by <code>RapidMinerModelLoader</code>.
+ *
+ * @version $Id$
+ */
+public class KNNAdapter extends FKNNAdapter {
+
+	/*
+	 * (non-Javadoc)
+	 * @see amuse.nodes.classifier.methods.supervised.FKNNAdapter#classify(java.lang.String)
+	 */
+	public void classify(String pathToModelFile) throws NodeException {
+		if(isArffFile(new File(pathToModelFile))) {
+			super.classify(pathToModelFile);
+		} else {
+			AmuseTask modelLoader = createModelLoader();
+			modelLoader.configure(this.properties, this.correspondingScheduler, null);
+			
+			// RapidMiner must be initialized before the model can be loaded
+			modelLoader.initialize();
+			((ClassifierSupervisedInterface)modelLoader).classify(pathToModelFile);
+		}
+	}
+
+	/**
+	 * @return The classifier for models trained by RapidMiner in earlier versions
+	 */
+	protected AmuseTask createModelLoader() {
+		return new RapidMinerModelLoader();
+	}
+
+	/**
+	 * Weights all neighbours equally
+	 *
+	 * @see amuse.nodes.classifier.methods.supervised.FKNNAdapter#getWeights(amuse.nodes.classifier.NearestNeighbourSearch.Neighbours)
+	 */
+	protected double[] getWeights(Neighbours nearestNeighbors) {
+		double[] weights = new double[nearestNeighbors.size()];
+		for(int i = 0; i < weights.length; i++) {
+			weights[i] = 1;
+		}
+		return weights;
+	}
+
+	/**
+	 * @return True if the file starts like an ARFF file (with a comment or a declaration)
+	 */
+	private static boolean isArffFile(File file) throws NodeException {
+		try {
+			InputStream in = new FileInputStream(file);
+			try {
+				int c;
+				do {
+					c = in.read();
+				} while(c != -1 && Character.isWhitespace(c));
+				return c == '%' || c == '@';
+			} finally {
+				in.close();
+			}
+		} catch(IOException e) {
+			throw new NodeException("Could not read the model " + file + ": " + e.getMessage());
+		}
+	}
+}
@@ -4,8 +4,10 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.Formatter;
 import java.util.List;
 
@@ -17,7 +19,12 @@ import amuse.util.AmuseLogger;
 
 public class Dendrogram {
 	
+	/** All nodes in the order of their creation, so that the position of a node is its dendrogram id */
+	List<Node> nodes;
+	/** The current (not yet merged) clusters, rebuilt from the nodes on demand */
 	List<Node> clusters;
+	/** True if nodes have been merged since clusters was built */
+	private boolean clustersOutdated = false;
 	
 	/**
 	 * Creates a Dendrogram (a binary tree like structure) for hierarchical clustering
@@ -25,14 +32,60 @@ public class Dendrogram {
 	 */
 	public Dendrogram (List<List<Integer>> clusterInput, List<idAndName> songIdsAndNames) {
 		
+		nodes = new ArrayList<Node>();
 		clusters = new ArrayList<Node>();
 		
 		// Create a new node for each cluster from clusterInput and add that node to the global clusters list
 		for (int clusterNumber=0; clusterNumber < clusterInput.size(); clusterNumber++) {
 			Node current = new Node(""+clusterNumber, songIdsAndNames.get(clusterNumber).getName(), clusterInput.get(clusterNumber), null, null);
+			nodes.add(current);
 			clusters.add(clusterNumber, current);
 		}
 	}
+	
+	
+	/**
+	 * Merges two current clusters given by their dendrogram ids. The initial clusters have the ids 0..n-1 and every merge
+	 * gets the next id, so the merges of a hierarchical clustering can be added one after another in constant time.
+	 * The new node is named after its id only, since joining all song paths for every merge would need quadratic memory.
+	 * @param clusterA = Id of the first cluster to be merged
+	 * @param clusterB = Id of the second cluster to be merged
+	 * @return The id of the merged cluster
+	 * @throws NodeException Is thrown when one of the ids is unknown or the cluster has already been merged
+	 */
+	public int addMerge (int clusterA, int clusterB) throws NodeException {
+		
+		if (clusterA < 0 || clusterA >= nodes.size() || clusterB < 0 || clusterB >= nodes.size() || clusterA == clusterB) {
+			throw new NodeException ("Dendogram - addMerge(): The clusters " + clusterA + " and " + clusterB + " can't be merged.");
+		}
+		Node nodeA = nodes.get(clusterA);
+		Node nodeB = nodes.get(clusterB);
+		if (nodeA.getParent() != null || nodeB.getParent() != null) {
+			throw new NodeException ("Dendogram - addMerge(): At least one of the clusters " + clusterA + " and " + clusterB + " has already been merged.");
+		}
+		
+		int parentID = nodes.size();
+		Node parent = new Node(""+parentID, "Cluster "+parentID, null, nodeA, nodeB);
+		nodeA.setParent(parent);
+		nodeB.setParent(parent);
+		nodes.add(parent);
+		clustersOutdated = true;
+		return parentID;
+	}
+	
+	
+	/** Rebuilds the list of current clusters if nodes have been merged since: these are all nodes without parent in the order of their creation */
+	private void updateClusters () {
+		if (clustersOutdated) {
+			clusters = new ArrayList<Node>();
+			for (int n=0; n < nodes.size(); n++) {
+				if (nodes.get(n).getParent() == null) {
+					clusters.add(nodes.get(n));
+				}
+			}
+			clustersOutdated = false;
+		}
+	}
 
 
 	/**
@@ -48,6 +101,7 @@ public class Dendrogram {
 		}
 		
 		// Search the input clusters in the own List clusters
+		this.updateClusters();
 		Node clusterA = null, clusterB = null;
 		for (int c=0; c < clusters.size(); c++) {
 			if (clusters.get(c).getValue().equals(inputClusterA)) {
@@ -71,9 +125,8 @@ public class Dendrogram {
 			clusterA.setParent(parent);
 			clusterB.setParent(parent);
 			
-			clusters.add(parent);
-			clusters.remove(clusterA);
-			clusters.remove(clusterB);
+			nodes.add(parent);
+			clustersOutdated = true;
 			
 			//AmuseLogger.write("DENDOGRAM", Level.DEBUG, "The clusters " + this.integerListToString(clusterA.getValue()) +
 			//		" and " +this.integerListToString(clusterB.getValue()) + " have been merged into " + this.integerListToString(parentValue));
@@ -83,6 +136,7 @@ public class Dendrogram {
 	
 	/** Shows the Dendogram in the AMUSE Debug Console */
 	public void showClusters() {
+		this.updateClusters();
 		String result = this.printClusters();
 		AmuseLogger.write("DENDOGRAM", Level.DEBUG, "Showing the dendogram for "+ clusters.size() +" different clusters: \n" +result);
 	}
@@ -91,6 +145,7 @@ public class Dendrogram {
 	/** @return The Dendrogram as String */ //----------------------------------------------------------------------------------------------------------------------
 	public String printClusters() {
 		
+		this.updateClusters();
 		String result = "";
 		if (clusters.size() > 0) {
 			
@@ -100,9 +155,9 @@ public class Dendrogram {
 				
 				// Get the cluster specific dendrogram array
 				int maxHightofThisCluster = this.findHeight(current);
-				String[][] outputStrings = new String[maxHightofThisCluster][current.getValue().size()];
-				int[][] kindOfEntries = new int[maxHightofThisCluster][current.getValue().size()];
-				this.fillOutputArray(outputStrings, maxHightofThisCluster-1, current.getValue().size()-1, current, kindOfEntries);
+				String[][] outputStrings = new String[maxHightofThisCluster][current.getSize()];
+				int[][] kindOfEntries = new int[maxHightofThisCluster][current.getSize()];
+				this.fillOutputArray(outputStrings, maxHightofThisCluster-1, current.getSize()-1, current, kindOfEntries);
 				
 				// Get the dendrogram array as string and add it to the result string
 				String formatInfo = this.makeMatrixPretty(outputStrings, kindOfEntries);
@@ -141,7 +196,7 @@ public class Dendrogram {
 			if (currentNode.getLeft() != null && currentNode.getRight() != null) {
 				kindOfEntry[column][row] = 2;
 				
-				int rowsToLeaveFree = currentNode.getValue().size() - (currentNode.getLeft().getValue().size());
+				int rowsToLeaveFree = currentNode.getSize() - (currentNode.getLeft().getSize());
 				
 				// Go up through the entries until row - rowsToLeaveFree and set the kindOfEntry
 				if (rowsToLeaveFree > 0) {
@@ -346,7 +401,7 @@ public class Dendrogram {
 		String result = "";
 		if (currentNode != null) {
 			
-			int depth = currentNode.getValue().size();
+			int depth = currentNode.getSize();
 			
 			// If this is a leaf node
 			if (depth == 1) {
@@ -421,6 +476,7 @@ public class Dendrogram {
 	/////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////////
 	public void printTikzDendrogram (String path) throws NodeException {
 		
+		this.updateClusters();
 		File dendogramFile = new File(path + "Ward_DENDROGRAM.tex");
 		BufferedWriter fileWriter;
 		try {
@@ -451,7 +507,7 @@ public class Dendrogram {
 				
 				// Get the node structure for every "main" cluster in clusters
 				Node current = clusters.get(clusterNumber);
-				String currentDendogram = this.getNodeStructure(current, current.getValue().size());
+				String currentDendogram = this.getNodeStructure(current);
 				
 				// Add the node structure to the .tex file
 				fileWriter.append( currentDendogram );
@@ -474,48 +530,68 @@ public class Dendrogram {
 	
 	
 	/**
-	 * This is a recursive working method to determine a TikZ Forest appropriate node structure
-	 * @param current = the current node to be looked at
-	 * @param maxDepth = the maximal depth of the dendrogram
+	 * Determines a TikZ Forest appropriate node structure. The tree is traversed iteratively (pre-order), so that
+	 * deep dendrograms do not overflow the stack; every depth level is indented by three more spaces.
+	 * The song ids of an inner node are taken from the leaf order of the tree, since the leaves of every
+	 * subtree follow each other in this order, instead of collecting them again for every inner node
+	 * @param root = the root node of the (sub)dendrogram
 	 * @return A TikZ Forest appropriate node structure as String which can be added to a LaTeX file
 	 */
-	private String getNodeStructure (Node current, int maxDepth) {
-		String result = "";
+	private String getNodeStructure (Node root) {
+		StringBuilder result = new StringBuilder();
+		if (root == null) {
+			return result.toString();
+		}
 		
-		if (current != null) {
-			
-			// The indent per depth level are 3 spaces
-			String indent = "   ";
-			// Set the indent for the following part
-			for (int depthLevel = current.getValue().size(); depthLevel < maxDepth; depthLevel++) {
-				indent += indent;
+		// The songs of the leaves from left to right
+		List<Integer> leafSongs = new ArrayList<Integer>(root.getSize());
+		Deque<Node> leafStack = new ArrayDeque<Node>();
+		leafStack.push(root);
+		while (!leafStack.isEmpty()) {
+			Node current = leafStack.pop();
+			if (current.getLeft() == null || current.getRight() == null) {
+				leafSongs.addAll(current.getValue());
+			} else {
+				leafStack.push(current.getRight());
+				leafStack.push(current.getLeft());
 			}
+		}
+		
+		// The indent per depth level are 3 spaces
+		StringBuilder indent = new StringBuilder();
+		int songsBefore = 0;
+		Deque<StructureEntry> stack = new ArrayDeque<StructureEntry>();
+		stack.push(new StructureEntry(root, 0, false));
+		while (!stack.isEmpty()) {
+			StructureEntry entry = stack.pop();
+			Node current = entry.node;
+			while (indent.length() < 3 * (entry.depth + 1)) {
+				indent.append("   ");
+			}
+			indent.setLength(3 * (entry.depth + 1));
 			
-			// A new node must be opened with a [
-			String openNode = indent + "[";
-			
+			// Close an inner node with a ] after its children
+			if (entry.closing) {
+				result.append(indent).append("] \n");
+			}
 			// If this is a leaf node
-			if (current.getValue().size() == 1) {
+			else if (current.getSize() == 1) {
 				
 				// A leaf node holds just one song and should be shown in the LaTeX dendrogram as "(x) <Song
-				openNode += "(" + current.getValue().get(0) + ") " + this.getSongnameFromPath(current);
-				// Close the node with a ] and add a line separator
-				return openNode + "] \n";
-				
+				result.append(indent).append("[(").append(current.getValue().get(0)).append(") ").append(this.getSongnameFromPath(current)).append("] \n");
+				songsBefore++;
 			}
 			// If this is a middle node wit a left and right child
 			else if (current.getLeft() != null && current.getRight() != null) {
 				
 				// Get the song ids of the songs in this cluster
-				openNode += this.integerListToString(current.getValue());
+				List<Integer> songs = current.value != null ? current.value : leafSongs.subList(songsBefore, songsBefore + current.getSize());
+				result.append(indent).append("[").append(this.integerListToString(songs)).append("\n");
 				
-				// Recursive call
-				String leftChildsString = this.getNodeStructure(current.getLeft(), maxDepth);
-				String rightChildsString = this.getNodeStructure(current.getRight(), maxDepth);
-				
-				// Close the node with a ] and add a line separator
-				String endNode = indent + "] \n";
-				return openNode + "\n" + leftChildsString + rightChildsString + endNode;
+				// The children are proceeded before the closing bracket, the left child first
+				stack.push(new StructureEntry(current, entry.depth, true));
+				stack.push(new StructureEntry(current.getRight(), entry.depth + 1, false));
+				stack.push(new StructureEntry(current.getLeft(), entry.depth + 1, false));
 			}
 			// Else: Error
 			else {
@@ -523,7 +599,23 @@ public class Dendrogram {
 			}
 		}
 		
-		return result;
+		return result.toString();
+	}
+	
+	
+	/** Node of the dendrogram which is waiting in the stack of getNodeStructure() */
+	private static class StructureEntry {
+		private final Node node;
+		/** Depth level of the node (0 for the root) */
+		private final int depth;
+		/** True if the closing bracket of the node is written */
+		private final boolean closing;
+		
+		private StructureEntry (Node node, int depth, boolean closing) {
+			this.node = node;
+			this.depth = depth;
+			this.closing = closing;
+		}
 	}
 	
 	
@@ -535,7 +627,7 @@ public class Dendrogram {
 		String result = "";
 		
 		// Only if it's a leaf node
-		if (current.getValue().size() == 1) {
+		if (current.getSize() == 1) {
 			char[] name = current.getName().toCharArray();
 			// Ignore the last 4 chars as they are something like ".mp3" or ".wav"
 			for (int c = name.length -5; c >= 0; c--) {
@@ -564,8 +656,10 @@ public class Dendrogram {
 		private String id;
 		/** Saves the path of all songs belonging to this node (cluster) divided by a line separator */
 		private String name;
-		/** Keeps track of all songs belonging to this cluster by adding their individual (integer) ids to this list */
+		/** Keeps track of all songs belonging to this cluster by adding their individual (integer) ids to this list (null if it should be collected from the children) */
 		private List<Integer> value;
+		/** The number of songs belonging to this cluster */
+		private int size;
 		/** The parent node - is empty at first and will only be set after this node (cluster) as been merged with another */
 		private Node parent;
 		/** The left child node */
@@ -582,18 +676,43 @@ public class Dendrogram {
 			this.parent = null;
 			this.left = left;
 			this.right = right;
+			if (value != null) {
+				this.size = value.size();
+			} else {
+				this.size = left.getSize() + right.getSize();
+			}
+		}
+		
+		/** @return The songs of this cluster; if they are not stored, they are collected from the leaves (left before right) */
+		private List<Integer> getValue () {
+			if (this.value != null) {
+				return this.value;
+			}
+			List<Integer> result = new ArrayList<Integer>(this.size);
+			Deque<Node> stack = new ArrayDeque<Node>();
+			stack.push(this);
+			while (!stack.isEmpty()) {
+				Node current = stack.pop();
+				if (current.value != null) {
+					result.addAll(current.value);
+				} else {
+					stack.push(current.right);
+					stack.push(current.left);
+				}
+			}
+			return result;
 		}
 		
 		// Getter and setter for all the variables
 		private String getID () {return this.id;}
 		private String getName () {return this.name;}
-		private List<Integer> getValue () {return this.value;}
+		private int getSize () {return this.size;}
 		private Node getParent () {return this.parent;}
 		private Node getLeft () {return this.left;}
 		private Node getRight () {return this.right;}
 		private void setID (String id) {this.id = id;}
 		private void setName (String name) {this.id = name;}
-		private void setValue (List<Integer> value) {this.value = value;}
+		private void setValue (List<Integer> value) {this.value = value; this.size = value.size();}
 		private void setParent (Node parent) {this.parent = parent;}
 		private void setLeft (Node left) {this.left = left;}
 		private void setRight (Node right) {this.right = right;}
@@ -0,0 +1,276 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.classifier.methods.unsupervised.supportclasses;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+import amuse.interfaces.nodes.NodeException;
+
+/**
+ * Agglomerative clustering with Ward's criterion. The merges are found by the nearest-neighbour-chain
+ * algorithm on a condensed (upper triangular) dissimilarity matrix, which is updated in place with the
+ * Lance-Williams formula after every merge. This needs O(n²) time and O(n²/2) memory and no recursion.
+ * 
+ * The merges are numbered like the nodes of a dendrogram: the songs (or partitions) get the ids 0..n-1 and
+ * the i-th merge (ordered by increasing dissimilarity) creates the cluster with the id n+i.
+ *  
+ * @version $Id$
+ */
+public class WardClustering {
+	
+	/** Number of songs (or partitions) to cluster */
+	private final int n;
+	/** Ids of the first merged clusters, ordered by merge dissimilarity */
+	private final int[] firstClusters;
+	/** Ids of the second merged clusters, ordered by merge dissimilarity */
+	private final int[] secondClusters;
+	/** Ward dissimilarities (increase of the error sum of squares) of the merges */
+	private final double[] mergeDissimilarities;
+	
+	/**
+	 * Clusters the given values
+	 * @param values = [songID][featureValuesOfOneSong]
+	 * @throws NodeException If the condensed dissimilarity matrix would not fit into an array
+	 */
+	public WardClustering(double[][] values) throws NodeException {
+		this.n = values.length;
+		this.firstClusters = new int[Math.max(n - 1, 0)];
+		this.secondClusters = new int[Math.max(n - 1, 0)];
+		this.mergeDissimilarities = new double[Math.max(n - 1, 0)];
+		
+		long matrixSize = (long)n * (n - 1) / 2;
+		if (matrixSize > Integer.MAX_VALUE - 8) {
+			throw new NodeException("WardClustering: " + n + " instances are too many for the dissimilarity matrix.");
+		}
+		if (n > 1) {
+			this.cluster(values, new double[(int) matrixSize]);
+		}
+	}
+	
+	/** @return The number of clustered songs (or partitions) */
+	public int getNumberOfInstances() {
+		return n;
+	}
+	
+	/** @return The number of merges (n-1) */
+	public int getNumberOfMerges() {
+		return mergeDissimilarities.length;
+	}
+	
+	/** @return The id of the first cluster of the given merge */
+	public int getFirstCluster(int merge) {
+		return firstClusters[merge];
+	}
+	
+	/** @return The id of the second cluster of the given merge */
+	public int getSecondCluster(int merge) {
+		return secondClusters[merge];
+	}
+	
+	/** @return The Ward dissimilarity of the given merge */
+	public double getMergeDissimilarity(int merge) {
+		return mergeDissimilarities[merge];
+	}
+	
+	/**
+	 * Cuts the hierarchy so that the given number of clusters is left
+	 * @param numberOfClusters = Desired number of clusters (between 1 and n)
+	 * @return For every song (or partition) the number of its cluster; clusters are numbered in order of their first song
+	 */
+	public int[] getClusterAssignment(int numberOfClusters) {
+		
+		// Apply the first n-k merges to a union find structure over the dendrogram ids
+		int[] parent = new int[2 * n];
+		for (int i=0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		for (int merge=0; merge < n - numberOfClusters; merge++) {
+			parent[firstClusters[merge]] = n + merge;
+			parent[secondClusters[merge]] = n + merge;
+		}
+		
+		int[] clusterNumberOfRoot = new int[2 * n];
+		Arrays.fill(clusterNumberOfRoot, -1);
+		int[] assignment = new int[n];
+		int nextClusterNumber = 0;
+		for (int i=0; i < n; i++) {
+			int root = find(parent, i);
+			if (clusterNumberOfRoot[root] == -1) {
+				clusterNumberOfRoot[root] = nextClusterNumber++;
+			}
+			assignment[i] = clusterNumberOfRoot[root];
+		}
+		return assignment;
+	}
+	
+	/**
+	 * Runs the nearest-neighbour-chain algorithm and stores the merges ordered by their dissimilarity
+	 * @param values = [songID][featureValuesOfOneSong]
+	 * @param dissimilarities = Condensed dissimilarity matrix to work in
+	 */
+	private void cluster(double[][] values, final double[] dissimilarities) {
+		
+		// Ward's criterion for two single songs is half of their squared euclidean distance
+		for (int i=0; i < n; i++) {
+			for (int j=i+1; j < n; j++) {
+				double distance = 0.0;
+				for (int featureNumber=0; featureNumber < values[i].length; featureNumber++) {
+					double difference = values[i][featureNumber] - values[j][featureNumber];
+					distance += difference * difference;
+				}
+				dissimilarities[index(i, j)] = distance / 2;
+			}
+		}
+		
+		// Each cluster is stored at the position (slot) of one of its songs
+		int[] sizes = new int[n];
+		Arrays.fill(sizes, 1);
+		boolean[] active = new boolean[n];
+		Arrays.fill(active, true);
+		int[] chain = new int[n];
+		int chainLength = 0;
+		int[] mergedSlotsA = new int[n - 1];
+		int[] mergedSlotsB = new int[n - 1];
+		
+		for (int merge=0; merge < n - 1; merge++) {
+			
+			// Start a new chain at any active cluster
+			if (chainLength == 0) {
+				int start = 0;
+				while (!active[start]) {
+					start++;
+				}
+				chain[chainLength++] = start;
+			}
+			
+			// Follow the nearest neighbours until two clusters are reciprocal nearest neighbours
+			int current;
+			int nearest;
+			double minimum;
+			while (true) {
+				current = chain[chainLength - 1];
+				nearest = -1;
+				minimum = Double.POSITIVE_INFINITY;
+				
+				// Prefer the predecessor on ties, otherwise the chain may cycle
+				if (chainLength > 1) {
+					nearest = chain[chainLength - 2];
+					minimum = dissimilarities[index(current, nearest)];
+				}
+				for (int i=0; i < n; i++) {
+					if (active[i] && i != current) {
+						double dissimilarity = dissimilarities[index(current, i)];
+						if (dissimilarity < minimum) {
+							minimum = dissimilarity;
+							nearest = i;
+						}
+					}
+				}
+				if (chainLength > 1 && nearest == chain[chainLength - 2]) {
+					break;
+				}
+				chain[chainLength++] = nearest;
+			}
+			chainLength -= 2;
+			
+			// Merge into the slot with the larger index
+			int slotA = Math.min(current, nearest);
+			int slotB = Math.max(current, nearest);
+			mergedSlotsA[merge] = slotA;
+			mergedSlotsB[merge] = slotB;
+			mergeDissimilarities[merge] = minimum;
+			
+			// Lance-Williams update for Ward's criterion
+			double sizeA = sizes[slotA];
+			double sizeB = sizes[slotB];
+			active[slotA] = false;
+			for (int i=0; i < n; i++) {
+				if (active[i] && i != slotB) {
+					double sizeC = sizes[i];
+					int indexAC = index(slotA, i);
+					int indexBC = index(slotB, i);
+					dissimilarities[indexBC] = ((sizeA + sizeC) * dissimilarities[indexAC] + (sizeB + sizeC) * dissimilarities[indexBC] 
+							- sizeC * minimum) / (sizeA + sizeB + sizeC);
+				}
+			}
+			sizes[slotB] += sizes[slotA];
+		}
+		
+		// The chain finds the merges out of order, so sort them by their dissimilarity (stable, Ward's criterion is monotone)
+		Integer[] order = new Integer[n - 1];
+		for (int i=0; i < order.length; i++) {
+			order[i] = i;
+		}
+		final double[] unsortedDissimilarities = mergeDissimilarities.clone();
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer a, Integer b) {
+				return Double.compare(unsortedDissimilarities[a], unsortedDissimilarities[b]);
+			}
+		});
+		
+		// Translate the slots into dendrogram ids: the slots are songs, whose current cluster is found by union find
+		int[] parent = new int[2 * n];
+		for (int i=0; i < parent.length; i++) {
+			parent[i] = i;
+		}
+		for (int merge=0; merge < order.length; merge++) {
+			int firstCluster = find(parent, mergedSlotsA[order[merge]]);
+			int secondCluster = find(parent, mergedSlotsB[order[merge]]);
+			firstClusters[merge] = firstCluster;
+			secondClusters[merge] = secondCluster;
+			mergeDissimilarities[merge] = unsortedDissimilarities[order[merge]];
+			parent[firstCluster] = n + merge;
+			parent[secondCluster] = n + merge;
+		}
+	}
+	
+	/**
+	 * @return The position of the dissimilarity between i and j (i != j) in the condensed matrix
+	 */
+	private int index(int i, int j) {
+		if (i > j) {
+			int swap = i;
+			i = j;
+			j = swap;
+		}
+		return (int) ((long)n * i - (long)i * (i + 1) / 2 + (j - i - 1));
+	}
+	
+	/**
+	 * Finds the root of the given id and compresses the path to it
+	 */
+	private static int find(int[] parent, int id) {
+		int root = id;
+		while (parent[root] != root) {
+			root = parent[root];
+		}
+		while (parent[id] != root) {
+			int next = parent[id];
+			parent[id] = root;
+			id = next;
+		}
+		return root;
+	}
+}
@@ -0,0 +1,205 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.extractor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import amuse.data.Feature;
+import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysStringValue;
+
+/**
+ * Estimates the time required to extract features from a music file. The estimation is based on
+ * the duration of the music file, the number of features of each extractor tool and the extraction
+ * times measured by the extractor nodes in previous runs, which are stored in the file
+ * <code>config/extractorTimings.properties</code>. The estimations are used to pack the music files
+ * into grid jobs of similar running time.
+ *
+ * @version $Id$
+ */
+public class ExtractionCostModel {
+
+	/** Name of the file with the measured extraction times in the config folder */
+	public static final String TIMINGS_FILE_NAME = "extractorTimings.properties";
+
+	/** Extraction time per second of audio and feature for tools which have not been measured yet */
+	private static final double DEFAULT_SECONDS_PER_AUDIO_SECOND_AND_FEATURE = 0.02;
+
+	/** Time to decode and split one second of audio before the extraction */
+	private static final double DECODING_SECONDS_PER_AUDIO_SECOND = 0.05;
+
+	/** Size of one second of compressed audio (128 kbit/s) for files whose duration is not available */
+	private static final double BYTES_PER_AUDIO_SECOND = 16000;
+
+	/** Weight of the previous measurements if a new extraction time is recorded */
+	private static final double HISTORY_WEIGHT = 0.8;
+
+	private static final String RATE_SUFFIX = ".secondsPerAudioSecondAndFeature";
+	private static final String MEASUREMENTS_SUFFIX = ".measurements";
+
+	/** Synchronizes the extractor nodes of this process; other processes are synchronized by a file lock */
+	private static final Object timingsLock = new Object();
+
+	private final Properties timings;
+
+	private ExtractionCostModel(Properties timings) {
+		this.timings = timings;
+	}
+
+	/**
+	 * Loads the extraction times measured in previous runs
+	 * @return Cost model
+	 * @throws IOException If the timings file exists but can not be read
+	 */
+	public static ExtractionCostModel load() throws IOException {
+		synchronized(timingsLock) {
+			return new ExtractionCostModel(loadTimings(getTimingsFile()));
+		}
+	}
+
+	/**
+	 * Estimates the time required to extract the given features
+	 * @param musicFile Music file
+	 * @param features Features to extract
+	 * @return Estimated extraction time in seconds
+	 */
+	public double estimateCost(File musicFile, List<Feature> features) {
+		double audioSeconds = getAudioDuration(musicFile);
+		double cost = DECODING_SECONDS_PER_AUDIO_SECOND * audioSeconds;
+		for(Feature feature : features) {
+			String rate = timings.getProperty(feature.getExtractorId() + RATE_SUFFIX);
+			cost += (rate == null ? DEFAULT_SECONDS_PER_AUDIO_SECOND_AND_FEATURE : new Double(rate)) * audioSeconds;
+		}
+		return cost;
+	}
+
+	/**
+	 * @param musicFile Music file
+	 * @return Duration of the music file in seconds; if the audio format does not provide it, the duration
+	 * is estimated from the file size
+	 */
+	public static double getAudioDuration(File musicFile) {
+		try {
+			AudioFileFormat format = AudioSystem.getAudioFileFormat(musicFile);
+			if(format.getFrameLength() != AudioSystem.NOT_SPECIFIED && format.getFormat().getFrameRate() > 0) {
+				return format.getFrameLength() / format.getFormat().getFrameRate();
+			}
+
+			// Compressed formats may provide the duration in microseconds
+			Object duration = format.getProperty("duration");
+			if(duration instanceof Long) {
+				return ((Long)duration).longValue() / 1000000.0;
+			}
+		} catch(UnsupportedAudioFileException e) {
+			// The duration is estimated from the file size
+		} catch(IOException e) {
+			// The duration is estimated from the file size
+		}
+		return musicFile.length() / BYTES_PER_AUDIO_SECOND;
+	}
+
+	/**
+	 * Adds the extraction times of one music file to the measurements of previous runs
+	 * @param extractionTimes Extraction time in seconds for each extractor tool id
+	 * @param numberOfFeatures Number of extracted features for each extractor tool id
+	 * @param audioSeconds Duration of the music file in seconds
+	 * @throws IOException If the timings file can not be updated
+	 */
+	public static void recordExtractionTimes(Map<Integer, Double> extractionTimes, Map<Integer, Integer> numberOfFeatures,
+			double audioSeconds) throws IOException {
+		if(audioSeconds <= 0) {
+			return;
+		}
+		File timingsFile = getTimingsFile();
+		synchronized(timingsLock) {
+
+			// Grid nodes on other machines may update the file at the same time
+			RandomAccessFile lockFile = new RandomAccessFile(new File(timingsFile.getPath() + ".lock"), "rw");
+			try {
+				FileChannel channel = lockFile.getChannel();
+				FileLock lock = channel.lock();
+				try {
+					Properties timings = loadTimings(timingsFile);
+					for(Integer extractorId : extractionTimes.keySet()) {
+						Integer features = numberOfFeatures.get(extractorId);
+						if(features == null || features == 0) {
+							continue;
+						}
+						double rate = extractionTimes.get(extractorId) / (audioSeconds * features);
+						String previousRate = timings.getProperty(extractorId + RATE_SUFFIX);
+						String measurements = timings.getProperty(extractorId + MEASUREMENTS_SUFFIX);
+						if(previousRate != null) {
+							rate = HISTORY_WEIGHT * new Double(previousRate) + (1 - HISTORY_WEIGHT) * rate;
+						}
+						timings.setProperty(extractorId + RATE_SUFFIX, Double.toString(rate));
+						timings.setProperty(extractorId + MEASUREMENTS_SUFFIX,
+								Long.toString(measurements == null ? 1 : new Long(measurements) + 1));
+					}
+					OutputStream out = new FileOutputStream(timingsFile);
+					try {
+						timings.store(out, "Extraction times measured by the extractor nodes");
+					} finally {
+						out.close();
+					}
+				} finally {
+					lock.release();
+				}
+			} finally {
+				lockFile.close();
+			}
+		}
+	}
+
+	private static File getTimingsFile() {
+		return new File(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "config" + File.separator + TIMINGS_FILE_NAME);
+	}
+
+	private static Properties loadTimings(File timingsFile) throws IOException {
+		Properties timings = new Properties();
+		if(timingsFile.exists()) {
+			InputStream in = new FileInputStream(timingsFile);
+			try {
+				timings.load(in);
+			} finally {
+				in.close();
+			}
+		}
+		return timings;
+	}
+}
@@ -0,0 +1,244 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.extractor;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+import amuse.data.Feature;
+import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysStringValue;
+
+/**
+ * Stores for the feature files of one music file the keys they were extracted with. A key consists
+ * of the hash of the audio content and the hash of the extractor (adapter class, base script or custom
+ * script and AMUSE version), so that a feature file is outdated if the music file or the extraction
+ * settings change, but not if the music file is only moved or touched. The manifest is saved in the
+ * feature database folder of the music file and is used by the incremental extraction
+ * (<code>KeysBooleanValue.INCREMENTAL_EXTRACTION</code>).
+ *
+ * @version $Id$
+ */
+public class ExtractionManifest {
+
+	/** Name of the manifest file in the feature folder of a music file */
+	public static final String MANIFEST_FILE_NAME = "extraction.manifest";
+
+	/** The audio hash is calculated again only if the size or modification time of the music file changes */
+	private static final String AUDIO_SIZE = "audio.size";
+	private static final String AUDIO_LAST_MODIFIED = "audio.lastModified";
+	private static final String AUDIO_HASH = "audio.hash";
+
+	/** Prefix of the keys of the feature files */
+	private static final String FEATURE_PREFIX = "feature.";
+
+	private final File featureFolder;
+	private final Properties entries = new Properties();
+	private boolean isModified = false;
+
+	/**
+	 * Loads the manifest of the feature folder if it exists
+	 * @param featureFolder Feature database folder of a music file
+	 * @throws IOException If the manifest can not be read
+	 */
+	public ExtractionManifest(File featureFolder) throws IOException {
+		this.featureFolder = featureFolder;
+		File manifestFile = new File(featureFolder, MANIFEST_FILE_NAME);
+		if(manifestFile.exists()) {
+			InputStream in = new FileInputStream(manifestFile);
+			try {
+				entries.load(in);
+			} finally {
+				in.close();
+			}
+		}
+	}
+
+	/**
+	 * @param musicFile Path to the music file
+	 * @param featureDatabase Path to the feature database
+	 * @return Folder with the feature files of the music file, which mirrors the folder structure of the music database
+	 */
+	public static File getFeatureFolder(String musicFile, String featureDatabase) {
+		return new File(featureDatabase + File.separator + getRelativeName(musicFile));
+	}
+
+	/**
+	 * @param musicFile Path to the music file
+	 * @param feature Feature
+	 * @return Name of the feature file as written by the extractor node
+	 */
+	public static String getFeatureFileName(String musicFile, Feature feature) {
+		String relativeName = getRelativeName(musicFile);
+		return relativeName.substring(relativeName.lastIndexOf(File.separator) + 1) + "_" + feature.getId() +
+			(feature.getConfigurationId() == null ? "" : "_" + feature.getConfigurationId()) + ".arff";
+	}
+
+	/**
+	 * Creates the part of the key which describes the extraction settings
+	 * @param adapterClass Class name of the extractor adapter
+	 * @param extractorId Id of the extractor tool
+	 * @param baseScript Base script of the tool for regular features or null for features with custom configurations
+	 * @param customScript Custom script or null for regular features
+	 * @return Extractor key
+	 * @throws IOException If the base script or the custom script can not be read
+	 */
+	public static String createExtractorKey(String adapterClass, int extractorId, File baseScript, String customScript) throws IOException {
+		MessageDigest digest = createDigest();
+		digest.update((adapterClass + "|" + extractorId + "|" + AmusePreferences.get(KeysStringValue.AMUSE_VERSION) + "|").getBytes("UTF-8"));
+		if(baseScript != null) {
+			update(digest, baseScript);
+		}
+		if(customScript != null) {
+			digest.update(("|" + customScript + "|").getBytes("UTF-8"));
+			update(digest, new File(customScript));
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * @param audioHash Hash of the music file content
+	 * @param extractorKey Key created by <code>createExtractorKey()</code>
+	 * @return Key of a feature file
+	 */
+	public static String createKey(String audioHash, String extractorKey) {
+		return audioHash + "/" + extractorKey;
+	}
+
+	/**
+	 * Returns the hash of the content of the music file. The hash stored in the manifest is used if
+	 * the size and the modification time of the music file have not changed
+	 * @param musicFile Music file of this feature folder
+	 * @return Hash of the music file content
+	 * @throws IOException If the music file can not be read
+	 */
+	public String getAudioHash(File musicFile) throws IOException {
+		String size = Long.toString(musicFile.length());
+		String lastModified = Long.toString(musicFile.lastModified());
+		String hash = entries.getProperty(AUDIO_HASH);
+		if(hash != null && size.equals(entries.getProperty(AUDIO_SIZE)) && lastModified.equals(entries.getProperty(AUDIO_LAST_MODIFIED))) {
+			return hash;
+		}
+		MessageDigest digest = createDigest();
+		update(digest, musicFile);
+		hash = toHex(digest.digest());
+		entries.setProperty(AUDIO_SIZE, size);
+		entries.setProperty(AUDIO_LAST_MODIFIED, lastModified);
+		entries.setProperty(AUDIO_HASH, hash);
+		isModified = true;
+		return hash;
+	}
+
+	/**
+	 * @param featureFileName Name of the feature file in this folder
+	 * @param key Key of the current extraction settings
+	 * @return True if the feature file exists and was extracted with the given key
+	 */
+	public boolean isCurrent(String featureFileName, String key) {
+		return key.equals(entries.getProperty(FEATURE_PREFIX + featureFileName)) && new File(featureFolder, featureFileName).exists();
+	}
+
+	/**
+	 * @param featureFileName Name of the feature file in this folder
+	 * @param key Key the feature file was extracted with
+	 */
+	public void setKey(String featureFileName, String key) {
+		entries.setProperty(FEATURE_PREFIX + featureFileName, key);
+		isModified = true;
+	}
+
+	/**
+	 * Saves the manifest if it has been changed
+	 * @throws IOException If the manifest can not be written
+	 */
+	public void save() throws IOException {
+		if(!isModified) {
+			return;
+		}
+		OutputStream out = new FileOutputStream(new File(featureFolder, MANIFEST_FILE_NAME));
+		try {
+			entries.store(out, "Keys of the extracted features");
+		} finally {
+			out.close();
+		}
+		isModified = false;
+	}
+
+	/**
+	 * @return Path of the music file relative to the music database without extension
+	 */
+	private static String getRelativeName(String musicFile) {
+		String relativeName;
+		if(musicFile.startsWith(AmusePreferences.get(KeysStringValue.MUSIC_DATABASE))) {
+			relativeName = musicFile.substring(new File(AmusePreferences.get(KeysStringValue.MUSIC_DATABASE)).getPath().length());
+		} else {
+			relativeName = musicFile;
+		}
+		if(relativeName.charAt(0) == File.separatorChar) {
+			relativeName = relativeName.substring(1);
+		}
+		if(relativeName.lastIndexOf('.') > relativeName.lastIndexOf(File.separatorChar)) {
+			relativeName = relativeName.substring(0, relativeName.lastIndexOf('.'));
+		}
+		return relativeName;
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch(NoSuchAlgorithmException e) {
+
+			// Every Java platform supports SHA-1
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void update(MessageDigest digest, File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[65536];
+			int n;
+			while((n = in.read(buffer)) != -1) {
+				digest.update(buffer, 0, n);
+			}
+		} finally {
+			in.close();
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder hex = new StringBuilder(bytes.length * 2);
+		for(byte b : bytes) {
+			hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+		}
+		return hex.toString();
+	}
+}
@@ -26,22 +26,25 @@ package amuse.nodes.extractor;
 import java.io.BufferedReader;
 import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Properties;
-import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Level;
 
+import amuse.data.BinaryFeatureFile;
 import amuse.data.Feature;
 import amuse.data.io.ArffDataSet;
 import amuse.data.io.DataSet;
@@ -50,11 +53,14 @@ import amuse.data.io.attributes.Attribute;
 import amuse.interfaces.nodes.NodeEvent;
 import amuse.interfaces.nodes.NodeException;
 import amuse.interfaces.nodes.NodeScheduler;
+import amuse.interfaces.nodes.TaskBundle;
 import amuse.interfaces.nodes.TaskConfiguration;
 import amuse.interfaces.nodes.methods.AmuseTask;
 import amuse.interfaces.scheduler.SchedulerException;
 import amuse.nodes.extractor.interfaces.ExtractorInterface;
 import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysBooleanValue;
+import amuse.preferences.KeysIntValue;
 import amuse.preferences.KeysStringValue;
 import amuse.scheduler.pluginmanagement.PluginLoader;
 import amuse.util.AmuseLogger;
@@ -86,6 +92,12 @@ public class ExtractorNodeScheduler extends NodeScheduler {
 	 * which is currently extracted by extractor i */
 	private HashMap<Integer,Integer> currentPartForThisExtractor;
 	
+	/** Synchronizes the extractors which move their features to the feature database in parallel */
+	private final Object featureDatabaseLock = new Object();
+	
+	/** Extraction time in seconds of each extractor tool for the current music file */
+	private final ConcurrentHashMap<Integer,Double> extractionTimes = new ConcurrentHashMap<Integer,Double>();
+	
 	/**
 	 * Constructor
 	 */
@@ -268,23 +280,49 @@ public class ExtractorNodeScheduler extends NodeScheduler {
 			System.exit(1);
 		}
 		
-		// Load the task configuration from %EXTRACTORHOME%/task.ser
-		ExtractionConfiguration extractorConfig = null;
-		FileInputStream fis = null;
-		ObjectInputStream in = null;
+		// Load the task configurations from %EXTRACTORHOME%/task_%id%.ser; each job is read when it is proceeded
+		TaskBundle taskBundle = null;
 		try {
-			fis = new FileInputStream(args[0] + File.separator + "task_" + args[1] + ".ser");
-			in = new ObjectInputStream(fis);
-			extractorConfig = (ExtractionConfiguration)in.readObject();
-		    in.close();
-		} catch(IOException ex) {
-		    ex.printStackTrace();
-		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
-		}
-		
-		// Proceed the extractor task
-		proceedTask(args[0],new Long(args[1]),extractorConfig);
+			taskBundle = new TaskBundle(new File(args[0] + File.separator + "task_" + args[1] + ".ser"));
+			
+			// Proceed the extractor task(s) for all music files of this job
+			for(int i=0;i<taskBundle.getNumberOfJobs();i++) {
+				if(i > 0) {
+					prepareNextTask(args[0], new Long(args[1]));
+				}
+				AmuseLogger.write(this.getClass().getName(), Level.INFO, "Extractor node is going to start job " + 
+						(i+1) + File.separator + taskBundle.getNumberOfJobs());
+				proceedTask(args[0],new Long(args[1]),(ExtractionConfiguration)taskBundle.getJob(i));
+			}
+		} catch(IOException e) {
+			AmuseLogger.write(this.getClass().getName(), Level.FATAL, "Could not load the task configuration: " + e.getMessage());
+		} finally {
+			if(taskBundle != null) {
+				taskBundle.close();
+			}
+		}
+	}
+	
+	/**
+	 * Resets the state of the previous music file, if several music files are proceeded by this node.
+	 * The folders of the previous music file are removed from the input folder; the files copied
+	 * into it for this job (e.g. the extractor table) remain
+	 */
+	private void prepareNextTask(String nodeHome, long jobId) {
+		this.extractors.clear();
+		this.currentPartForThisExtractor.clear();
+		this.extractionTimes.clear();
+		this.numberOfParts = 0;
+		File[] files = new File(nodeHome + File.separator + "input" + File.separator + "task_" + jobId).listFiles();
+		if(files == null) {
+			return;
+		}
+		for(File file : files) {
+			if(file.isDirectory() && !FileOperations.delete(file, true)) {
+				AmuseLogger.write(this.getClass().getName(), Level.WARN, "Could not remove the intermediate results in '" + 
+						file.getAbsolutePath() + "'");
+			}
+		}
 	}
 	
 	/**
@@ -339,6 +377,7 @@ public class ExtractorNodeScheduler extends NodeScheduler {
 			Attribute adapterClassAttribute = extractorTableSet.getAttribute("AdapterClass");
 			Attribute homeFolderAttribute = extractorTableSet.getAttribute("HomeFolder");
 			Attribute extractorStartScriptAttribute = extractorTableSet.getAttribute("StartScript");
+			Attribute inputExtractorBaseBatchAttribute = extractorTableSet.getAttribute("InputBaseBatch");
 			Attribute inputExtractorBatchAttribute = extractorTableSet.getAttribute("InputBatch");
 			
 			int highestId = 0;
@@ -374,6 +413,7 @@ public class ExtractorNodeScheduler extends NodeScheduler {
 								extractorProperties.setProperty("extractorFolder",nodeHome + File.separator + "tools" + File.separator + homeFolderAttribute.getValueAt(i));
 							}
 							extractorProperties.setProperty("extractorStartScript",extractorStartScriptAttribute.getValueAt(i).toString());
+							extractorProperties.setProperty("inputExtractorBaseBatch",inputExtractorBaseBatchAttribute.getValueAt(i).toString());
 							extractorProperties.setProperty("inputExtractorBatch",inputExtractorBatchAttribute.getValueAt(i).toString());
 							((AmuseTask)ead).configure(extractorProperties,this,null);
 							this.extractors.put(idOfCurrentExtractor,ead);
@@ -427,7 +467,10 @@ public class ExtractorNodeScheduler extends NodeScheduler {
 	}
 	
 	/**
-	 * Starts the extractor adapters
+	 * Starts the extractor adapters. The adapters of different extractor tools are independent
+	 * and run in parallel if <code>KeysIntValue.NUMBER_OF_PARALLEL_EXTRACTORS</code> is greater than 1.
+	 * The adapters of the same tool (e.g. with different custom scripts) share the batch scripts in the
+	 * tool folder and the output folders of the parts, so that they always run one after another
 	 */
 	public void startFeatureExtractors() {
 		
@@ -437,15 +480,65 @@ public class ExtractorNodeScheduler extends NodeScheduler {
 		if(inputFileName.lastIndexOf(File.separator) != -1) {
 			inputFileName = inputFileName.substring(inputFileName.lastIndexOf(File.separator)+1);
 		}
-	    
-	    // Start the extractor adapters
-		Set<?> usedExtractorIDs = this.extractors.keySet();
-		Iterator<?> it = usedExtractorIDs.iterator();
-		while(it.hasNext()) {
-			int i = (Integer)it.next();
-			this.currentPartForThisExtractor.put(new Integer(((AmuseTask)this.extractors.
-					get(i)).getProperties().getProperty("id")), 1);
-		    
+		
+		// Group the extractor adapters by their tools
+		LinkedHashMap<String,List<Integer>> extractorsOfTool = new LinkedHashMap<String,List<Integer>>();
+		for(Integer i : this.extractors.keySet()) {
+			String toolId = ((AmuseTask)this.extractors.get(i)).getProperties().getProperty("id");
+			this.currentPartForThisExtractor.put(new Integer(toolId), 1);
+			if(!extractorsOfTool.containsKey(toolId)) {
+				extractorsOfTool.put(toolId, new ArrayList<Integer>());
+			}
+			extractorsOfTool.get(toolId).add(i);
+		}
+		
+		int numberOfThreads = Math.min(AmusePreferences.getInt(KeysIntValue.NUMBER_OF_PARALLEL_EXTRACTORS), extractorsOfTool.size());
+		if(numberOfThreads <= 1) {
+			for(List<Integer> extractorIds : extractorsOfTool.values()) {
+				startFeatureExtractors(extractorIds, inputFileName);
+			}
+			recordExtractionTimes(inputFileName);
+			return;
+		}
+		
+	    // Start the extractor tools in parallel
+		AmuseLogger.write(this.getClass().getName(), Level.DEBUG, "Starting " + extractorsOfTool.size() + 
+				" extractor tools with " + numberOfThreads + " threads");
+		ExecutorService extractorPool = Executors.newFixedThreadPool(numberOfThreads);
+		ArrayList<Future<?>> results = new ArrayList<Future<?>>(extractorsOfTool.size());
+		for(List<Integer> extractorIds : extractorsOfTool.values()) {
+			results.add(extractorPool.submit(new ExtractionJob(extractorIds, inputFileName)));
+		}
+		extractorPool.shutdown();
+		try {
+			for(Future<?> result : results) {
+				try {
+					result.get();
+				} catch(ExecutionException e) {
+					AmuseLogger.write(this.getClass().getName(), Level.ERROR, 
+							"Error occured during feature extraction: " + e.getCause());
+				}
+			}
+		} catch(InterruptedException e) {
+			AmuseLogger.write(this.getClass().getName(), Level.ERROR, 
+					"Feature extraction was interrupted: " + e.getMessage());
+			extractorPool.shutdownNow();
+			Thread.currentThread().interrupt();
+			return;
+		}
+		recordExtractionTimes(inputFileName);
+	}
+	
+	/**
+	 * Starts the given extractor adapters one after another for all parts of the music file
+	 * and consolidates the results of each adapter as soon as it is finished
+	 * @param extractorIds Keys of the adapters in the map of extractors
+	 * @param inputFileName Music file name without path
+	 */
+	private void startFeatureExtractors(List<Integer> extractorIds, String inputFileName) {
+		for(int i : extractorIds) {
+			long startTime = System.nanoTime();
+			
 			// Start the feature extractors for all parts
 			for(int currentPart = 1; currentPart <= this.numberOfParts; currentPart++) {
                 String sep = File.separator;
@@ -465,11 +558,63 @@ public class ExtractorNodeScheduler extends NodeScheduler {
 				}
 			}
 			
+			// The adapters of one tool run in the same thread, so that their times can be added
+			Integer toolId = new Integer(((AmuseTask)this.extractors.get(i)).getProperties().getProperty("id"));
+			Double previousTime = this.extractionTimes.get(toolId);
+			this.extractionTimes.put(toolId, (previousTime == null ? 0 : previousTime) + (System.nanoTime() - startTime) / 1e9);
+			
 			// Consolidate the part results and copy them to feature database
 			consolidateResults(this.extractors.get(i));
 		}
 	}
 	
+	/**
+	 * Adds the extraction times of the current music file to the measurements which are used
+	 * to pack the music files into grid jobs (see <code>ExtractionCostModel</code>)
+	 * @param inputFileName Music file name without path
+	 */
+	private void recordExtractionTimes(String inputFileName) {
+		if(AmusePreferences.getInt(KeysIntValue.TARGET_TIME_PER_GRID_JOB_IN_S) == 0 || this.extractionTimes.isEmpty()) {
+			return;
+		}
+		
+		// The duration of the decoded parts
+		double audioSeconds = 0;
+		for(int currentPart = 1; currentPart <= this.numberOfParts; currentPart++) {
+			audioSeconds += ExtractionCostModel.getAudioDuration(new File(this.nodeHome + File.separator + "input" + File.separator + 
+					"task_" + this.jobId + File.separator + currentPart + File.separator + inputFileName));
+		}
+		
+		HashMap<Integer,Integer> numberOfFeatures = new HashMap<Integer,Integer>();
+		for(Feature feature : ((ExtractionConfiguration)this.taskConfiguration).getFeatureTable().getSelectedFeatures()) {
+			Integer previousNumber = numberOfFeatures.get(feature.getExtractorId());
+			numberOfFeatures.put(feature.getExtractorId(), previousNumber == null ? 1 : previousNumber + 1);
+		}
+		try {
+			ExtractionCostModel.recordExtractionTimes(this.extractionTimes, numberOfFeatures, audioSeconds);
+		} catch(IOException e) {
+			AmuseLogger.write(this.getClass().getName(), Level.WARN, "Could not record the extraction times: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Runs the adapters of one extractor tool in a thread of the extractor pool
+	 */
+	private class ExtractionJob implements Runnable {
+		
+		private final List<Integer> extractorIds;
+		private final String inputFileName;
+		
+		private ExtractionJob(List<Integer> extractorIds, String inputFileName) {
+			this.extractorIds = extractorIds;
+			this.inputFileName = inputFileName;
+		}
+		
+		public void run() {
+			startFeatureExtractors(extractorIds, inputFileName);
+		}
+	}
+	
 	/**
 	 * Copies the extracted features to feature database
 	 * @param adapter Extractor 
@@ -485,7 +630,8 @@ public class ExtractorNodeScheduler extends NodeScheduler {
 			File[] files = file.listFiles();
 			
 			// Create a folder for consolidated features
-			File folder = new File(this.nodeHome + File.separator + "input" + File.separator + "task_" + this.jobId + File.separator + "features" + File.separator);
+			File folder = new File(this.nodeHome + File.separator + "input" + File.separator + "task_" + this.jobId + File.separator + "features" + File.separator + 
+					((AmuseTask)adapter).getProperties().getProperty("id") + File.separator);
 			if (!folder.exists() && !folder.mkdirs()) {
 				AmuseLogger.write(this.getClass().getName(), Level.ERROR,
 						"Error creating temp folder; could not consolidate the features extracted by '" + 
@@ -506,8 +652,7 @@ public class ExtractorNodeScheduler extends NodeScheduler {
 					
 					// Create the ARFF feature file for all features
 					String featureFileName = files[i].toString().substring(files[i].toString().lastIndexOf(File.separator));
-					FileOutputStream values_to = new FileOutputStream(this.nodeHome + File.separator + "input" + File.separator + "task_" + this.jobId + 
-							File.separator + "features" + File.separator + featureFileName);
+					FileOutputStream values_to = new FileOutputStream(folder.getPath() + featureFileName);
 					DataOutputStream values_writer = new DataOutputStream(values_to);
 					String sep = System.getProperty("line.separator");
 					
@@ -678,13 +823,20 @@ public class ExtractorNodeScheduler extends NodeScheduler {
 		}
 		
 		// Move the extracted features
+		File extractedFeatureFolder;
+		if(numberOfParts > 1) {
+			extractedFeatureFolder = new File(this.nodeHome + File.separator + "input" + File.separator + "task_" + this.jobId + File.separator + "features" + File.separator + 
+					((AmuseTask)adapter).getProperties().getProperty("id") + File.separator);
+		} else {
+			extractedFeatureFolder = new File(this.nodeHome + File.separator + "input" + File.separator + "task_" + this.jobId + File.separator + "1" + File.separator +  
+					((AmuseTask)adapter).getProperties().getProperty("extractorFolderName"));
+		}
+		String[] extractedFeatureFiles = extractedFeatureFolder.list();
 		try {
-			if(numberOfParts > 1) {
-				FileOperations.move(new File(this.nodeHome + File.separator + "input" + File.separator + "task_" + this.jobId + File.separator + "features" + File.separator), new File(path2Create.toString()) );
-			} else {
-				FileOperations.move(new File(this.nodeHome + File.separator + "input" + File.separator + "task_" + this.jobId + File.separator + "1" + File.separator +  
-						((AmuseTask)adapter).getProperties().getProperty("extractorFolderName")), 
-						new File(path2Create.toString()));
+			
+			// Extractors running in parallel move their features into the same folder
+			synchronized(this.featureDatabaseLock) {
+				FileOperations.move(extractedFeatureFolder, new File(path2Create.toString()));
 			}
 		} catch(IOException e) {
 			AmuseLogger.write(this.getClass().getName(), Level.ERROR,
@@ -693,8 +845,67 @@ public class ExtractorNodeScheduler extends NodeScheduler {
 			return;
 		}
 		
+		// Save the binary feature files, which are loaded by the processor instead of ARFF files
+		if(AmusePreferences.getBoolean(KeysBooleanValue.SAVE_BINARY_FEATURES) && extractedFeatureFiles != null) {
+			for(String featureFileName : extractedFeatureFiles) {
+				if(featureFileName.endsWith(".arff")) {
+					try {
+						BinaryFeatureFile.convertArffFile(new File(path2Create.toString() + File.separator + featureFileName), false);
+					} catch(Exception e) {
+						
+						// E.g. string features can not be saved in binary format
+						AmuseLogger.write(this.getClass().getName(), Level.DEBUG,
+								"Binary feature file for '" + featureFileName + "' not saved: " + e.getMessage());
+					}
+				}
+			}
+		}
+		
+		// Remember the keys of the extracted features for the incremental extraction
+		if(AmusePreferences.getBoolean(KeysBooleanValue.INCREMENTAL_EXTRACTION) && extractedFeatureFiles != null) {
+			try {
+				updateExtractionManifest(adapter, new File(path2Create.toString()), extractedFeatureFiles);
+			} catch(IOException e) {
+				AmuseLogger.write(this.getClass().getName(), Level.WARN,
+						"Could not update the extraction manifest; the features will be extracted again: " + e.getMessage());
+			}
+		}
+		
 		AmuseLogger.write(this.getClass().getName(), Level.DEBUG, 
 				"Features extracted with '" + ((AmuseTask)adapter).getProperties().getProperty("extractorName") + "' are copied to feature database");
 	}
+	
+	/**
+	 * Saves the keys of the extracted feature files in the extraction manifest of the music file
+	 * @param adapter Extractor adapter which has extracted the features
+	 * @param featureFolder Feature database folder of the music file
+	 * @param extractedFeatureFiles Names of the extracted feature files
+	 */
+	private void updateExtractionManifest(ExtractorInterface adapter, File featureFolder, String[] extractedFeatureFiles) throws IOException {
+		Properties adapterProperties = ((AmuseTask)adapter).getProperties();
+		
+		// Adapters for features with custom configurations have no base script
+		String baseScript = adapterProperties.getProperty("inputExtractorBaseBatch");
+		File baseScriptFile = null;
+		if(baseScript != null) {
+			baseScriptFile = baseScript.startsWith(File.separator) ? new File(baseScript) : 
+				new File(adapterProperties.getProperty("extractorFolder") + File.separator + baseScript);
+		}
+		String extractorKey = ExtractionManifest.createExtractorKey(adapter.getClass().getName(), 
+				new Integer(adapterProperties.getProperty("id")), baseScriptFile, 
+				baseScript == null ? adapterProperties.getProperty("inputExtractorBatch") : null);
+		
+		synchronized(this.featureDatabaseLock) {
+			ExtractionManifest manifest = new ExtractionManifest(featureFolder);
+			String key = ExtractionManifest.createKey(manifest.getAudioHash(
+					new File(((ExtractionConfiguration)this.taskConfiguration).getMusicFileList().getFileAt(0))), extractorKey);
+			for(String featureFileName : extractedFeatureFiles) {
+				if(featureFileName.endsWith(".arff")) {
+					manifest.setKey(featureFileName, key);
+				}
+			}
+			manifest.save();
+		}
+	}
 
 }
@@ -56,9 +56,11 @@ import amuse.interfaces.nodes.methods.AmuseTask;
 import amuse.nodes.extractor.ExtractionConfiguration;
 import amuse.nodes.extractor.interfaces.ExtractorInterface;
 import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysIntValue;
 import amuse.preferences.KeysStringValue;
 import amuse.util.AmuseLogger;
 import amuse.util.ExternalProcessBuilder;
+import amuse.util.ExternalProcessPool;
 
 /**
  * Adapter to Matlab as feature extractor
@@ -68,6 +70,17 @@ import amuse.util.ExternalProcessBuilder;
  */
 public class MatlabAdapter extends AmuseTask implements ExtractorInterface {
 
+	/** Requests for Matlab worker processes: errors are caught and printed after the marker */
+	private static final ExternalProcessPool.RequestProtocol MATLAB_PROTOCOL = new ExternalProcessPool.RequestProtocol() {
+		public String createRequest(String request, String marker) {
+			return "try, " + request + "; disp('" + marker + " OK'); catch amuseError, disp(['" + marker + 
+				" ERROR ' amuseError.message]); end";
+		}
+		public String getExitCommand() {
+			return "exit";
+		}
+	};
+	
 	/** Input music file */
 	private String musicFile;
 	
@@ -229,6 +242,11 @@ public class MatlabAdapter extends AmuseTask implements ExtractorInterface {
 				for(int i=0;i<nList.getLength();i++) {
 					Node node = nList.item(i);
 					String content = node.getTextContent();
+					
+					// Matlab worker processes must not exit after the extraction
+					if(isWorkerPoolEnabled() && content.trim().equals("exit")) {
+						continue;
+					}
 					if(content.contains("%AMUSEHOME%")) {
 						content = content.replace("%AMUSEHOME%", System.getenv("AMUSEHOME"));
 					}
@@ -270,6 +288,37 @@ public class MatlabAdapter extends AmuseTask implements ExtractorInterface {
 					folder.toString());
 		}
 				
+		File inputBatchFile = new File(properties.getProperty("inputExtractorBatch"));
+		String inputBatchName = inputBatchFile.getName();
+		inputBatchName = inputBatchName.substring(0, inputBatchName.lastIndexOf("."));
+		String inputBatchFolder = properties.getProperty("extractorFolder");
+		if(properties.getProperty("inputExtractorBatch").startsWith(File.separator)) {
+			inputBatchFolder = inputBatchFile.getParent();
+		}
+		String extractionCall = inputBatchName + "('" + this.musicFile + "','" + folder + "')";
+		
+		// Use a running Matlab process if available
+		if(isWorkerPoolEnabled()) {
+			List<String> commands = new ArrayList<String>();
+			commands.add(AmusePreferences.get(KeysStringValue.MATLAB_PATH));
+			commands.add("-nodisplay");
+			commands.add("-nosplash");
+			commands.add("-nojvm");
+			ExternalProcessBuilder matlab = new ExternalProcessBuilder(commands);
+			matlab.setWorkingDirectory(new File(inputBatchFolder));
+			matlab.setEnv("MATLABPATH", properties.getProperty("extractorFolder"));
+			try {
+				
+				// The batch script may have been rewritten since the last call
+				String output = matlab.getWorkerPool(MATLAB_PROTOCOL).execute("clear('" + inputBatchName + "'); " + extractionCall);
+				AmuseLogger.write(this.getClass().getName(), Level.DEBUG, "Output from Matlab:\n" + output);
+			} catch(IOException e) {
+				throw new NodeException("Extraction with Matlab failed: " + e.getMessage());
+			}
+			convertOutput();
+			return;
+		}
+				
 		// Start Matlab
 		try {
 			List<String> commands = new ArrayList<String>();
@@ -278,14 +327,7 @@ public class MatlabAdapter extends AmuseTask implements ExtractorInterface {
 			commands.add("-nosplash");
 			commands.add("-nojvm");
 			commands.add("-r");
-			File inputBatchFile = new File(properties.getProperty("inputExtractorBatch"));
-			String inputBatchName = inputBatchFile.getName();
-			inputBatchName = inputBatchName.substring(0, inputBatchName.lastIndexOf("."));
-			String inputBatchFolder = properties.getProperty("extractorFolder");
-			if(properties.getProperty("inputExtractorBatch").startsWith(File.separator)) {
-				inputBatchFolder = inputBatchFile.getParent();
-			}
-			commands.add(inputBatchName + "('" + this.musicFile + "','" + folder + "')");
+			commands.add(extractionCall);
 			commands.add("-logfile");
 			commands.add("\"" + properties.getProperty("extractorFolder") + File.separator + "MatlabFeatures.log\"");
 			ExternalProcessBuilder matlab = new ExternalProcessBuilder(commands);
@@ -396,6 +438,13 @@ public class MatlabAdapter extends AmuseTask implements ExtractorInterface {
         } 
 	}
 	
+	/**
+	 * @return True if the features are extracted by Matlab processes which are kept running between music files
+	 */
+	private boolean isWorkerPoolEnabled() {
+		return AmusePreferences.getInt(KeysIntValue.NUMBER_OF_EXTERNAL_WORKER_PROCESSES) > 0;
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see amuse.nodes.extractor.interfaces.ExtractorInterface#convertOutput()
@@ -24,9 +24,7 @@
 package amuse.nodes.optimizer;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.Properties;
 
 import org.apache.log4j.Level;
@@ -37,6 +35,7 @@ import amuse.data.io.attributes.Attribute;
 import amuse.interfaces.nodes.NodeEvent;
 import amuse.interfaces.nodes.NodeException;
 import amuse.interfaces.nodes.NodeScheduler;
+import amuse.interfaces.nodes.TaskBundle;
 import amuse.interfaces.nodes.TaskConfiguration;
 import amuse.interfaces.nodes.methods.AmuseTask;
 import amuse.nodes.optimizer.interfaces.OptimizerInterface;
@@ -178,27 +177,23 @@ public class OptimizerNodeScheduler extends NodeScheduler {
 			System.exit(1);
 		}
 		
-		// Load the task configuration from %OPTIMIZERHOME%/task.ser
-		OptimizationConfiguration optimizerConfig[] = null;
-		FileInputStream fis = null;
-		ObjectInputStream in = null;
+		// Load the task configurations from %OPTIMIZERHOME%/task_%id%.ser; each job is read when it is proceeded
+		TaskBundle taskBundle = null;
 		try {
-			fis = new FileInputStream(args[0] + File.separator + "task_" + args[1] + ".ser");
-			in = new ObjectInputStream(fis);
-			Object o = in.readObject();
-			optimizerConfig = (OptimizationConfiguration[])o;
-			in.close();
-		} catch(IOException ex) {
-		    ex.printStackTrace();
-		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
-		}
-		
-		// Proceed the optimization task(s)
-		for(int i=0;i<optimizerConfig.length;i++) {
-			proceedTask(args[0],new Long(args[1]),optimizerConfig[i]);
-			AmuseLogger.write(this.getClass().getName(), Level.INFO, "Optimizer node is going to start job " + 
-					(i+1) + File.separator + optimizerConfig.length);
+			taskBundle = new TaskBundle(new File(args[0] + File.separator + "task_" + args[1] + ".ser"));
+			
+			// Proceed the optimization task(s)
+			for(int i=0;i<taskBundle.getNumberOfJobs();i++) {
+				proceedTask(args[0],new Long(args[1]),(OptimizationConfiguration)taskBundle.getJob(i));
+				AmuseLogger.write(this.getClass().getName(), Level.INFO, "Optimizer node is going to start job " + 
+						(i+1) + File.separator + taskBundle.getNumberOfJobs());
+			}
+		} catch(IOException e) {
+			AmuseLogger.write(this.getClass().getName(), Level.FATAL, "Could not load the task configuration: " + e.getMessage());
+		} finally {
+			if(taskBundle != null) {
+				taskBundle.close();
+			}
 		}
 	}
 	
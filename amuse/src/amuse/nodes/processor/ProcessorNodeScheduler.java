@@ -23,28 +23,32 @@
  */ 
 package amuse.nodes.processor;
 
-import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32;
 
 import org.apache.log4j.Level;
 
 import amuse.data.ArffFeatureLoader;
 import amuse.data.Feature;
+import amuse.data.FeatureCache;
 import amuse.data.FeatureTable;
 import amuse.data.io.ArffDataSet;
+import amuse.data.io.ArffWriter;
 import amuse.data.io.DataSet;
 import amuse.data.io.DataSetAbstract;
 import amuse.data.io.attributes.Attribute;
 import amuse.interfaces.nodes.methods.AmuseTask;
+import amuse.interfaces.nodes.TaskBundle;
 import amuse.interfaces.nodes.TaskConfiguration;
 import amuse.interfaces.nodes.NodeEvent;
 import amuse.interfaces.nodes.NodeException;
@@ -88,6 +92,27 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 	/** Saves the processed features if they are not saved in the database */
 	private List<Feature> processedFeatures;
 	
+	/** Adapter classes of the processing methods (key: class name) */
+	private static final ConcurrentHashMap<String,Class<?>> methodClasses = new ConcurrentHashMap<String,Class<?>>();
+	
+	/** Maximal number of algorithm tables kept per thread; the least recently used table is dropped first */
+	private static final int MAX_REUSABLE_ALGORITHM_TABLES = 8;
+	
+	/** Algorithm tables reused by all tracks processed in the same thread (key: file name, length and checksum of the content) */
+	private static final ThreadLocal<LinkedHashMap<String,DataSetAbstract>> reusableAlgorithmTables = new ThreadLocal<LinkedHashMap<String,DataSetAbstract>>() {
+		@Override
+		protected LinkedHashMap<String,DataSetAbstract> initialValue() {
+			return new LinkedHashMap<String,DataSetAbstract>(16, 0.75f, true) {
+				private static final long serialVersionUID = -3805374251478460921L;
+				
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String,DataSetAbstract> eldest) {
+					return size() > MAX_REUSABLE_ALGORITHM_TABLES;
+				}
+			};
+		}
+	};
+	
 	/**
 	 * Constructor
 	 */
@@ -249,27 +274,23 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 			System.exit(1);
 		}
 		
-		// Load the task configuration from %PROCESSORHOME%/task.ser
-		ProcessingConfiguration[] processorConfig = null;
-		FileInputStream fis = null;
-		ObjectInputStream in = null;
+		// Load the task configurations from %PROCESSORHOME%/task_%id%.ser; each job is read when it is proceeded
+		TaskBundle taskBundle = null;
 		try {
-			fis = new FileInputStream(args[0] + File.separator + "task_" + args[1] + ".ser");
-			in = new ObjectInputStream(fis);
-			Object o = in.readObject();
-			processorConfig = (ProcessingConfiguration[])o;
-			in.close();
-		} catch(IOException ex) {
-		    ex.printStackTrace();
-		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
-		}
-		
-		// Proceed the processing task(s)
-		for(int i=0;i<processorConfig.length;i++) {
-			proceedTask(args[0],new Long(args[1]),processorConfig[i]);
-			AmuseLogger.write(this.getClass().getName(), Level.INFO, "Processor node is going to start job " + 
-					(i+1) + File.separator + processorConfig.length);
+			taskBundle = new TaskBundle(new File(args[0] + File.separator + "task_" + args[1] + ".ser"));
+			
+			// Proceed the processing task(s)
+			for(int i=0;i<taskBundle.getNumberOfJobs();i++) {
+				proceedTask(args[0],new Long(args[1]),(ProcessingConfiguration)taskBundle.getJob(i));
+				AmuseLogger.write(this.getClass().getName(), Level.INFO, "Processor node is going to start job " + 
+						(i+1) + File.separator + taskBundle.getNumberOfJobs());
+			}
+		} catch(IOException e) {
+			AmuseLogger.write(this.getClass().getName(), Level.FATAL, "Could not load the task configuration: " + e.getMessage());
+		} finally {
+			if(taskBundle != null) {
+				taskBundle.close();
+			}
 		}
 	}
 	
@@ -296,6 +317,8 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 	private ArrayList<Feature> loadFeaturesRaw() throws NodeException {
 		
 		ArrayList<Feature> features = new ArrayList<Feature>();
+		FeatureCache featureCache = FeatureCache.getSharedInstance();
+		ArrayList<String> cacheKeys = new ArrayList<String>();
 		
 		// Calculate the first list of feature files to be processed.
 		// These files must be raw features from the Amuse feature database
@@ -319,17 +342,28 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 				relativeName = relativeName.substring(1);
 			}
 			relativeName = relativeName.substring(0,relativeName.lastIndexOf("."));
+			String featureFile;
 			if(relativeName.lastIndexOf(File.separator) != -1) {
-				features.add(ArffFeatureLoader.loadFeature(AmusePreferences.get(KeysStringValue.FEATURE_DATABASE) + File.separator + relativeName +
+				featureFile = AmusePreferences.get(KeysStringValue.FEATURE_DATABASE) + File.separator + relativeName +
 					relativeName.substring(relativeName.lastIndexOf(File.separator)) + "_" + featureIDs.get(i)
 					+ (configurationIDs.get(i) == null ? "" : "_" + configurationIDs.get(i))
-					+ ".arff", featureIDs.get(i)));
+					+ ".arff";
 			} else {
-				features.add(ArffFeatureLoader.loadFeature(AmusePreferences.get(KeysStringValue.FEATURE_DATABASE) + File.separator + relativeName +
+				featureFile = AmusePreferences.get(KeysStringValue.FEATURE_DATABASE) + File.separator + relativeName +
 						File.separator + relativeName + "_" + featureIDs.get(i)
 						+ (configurationIDs.get(i) == null ? "" : "_" + configurationIDs.get(i))
-						+ ".arff", featureIDs.get(i)));
+						+ ".arff";
+			}
+			
+			// Features used by several processing tasks are loaded only once
+			String cacheKey = FeatureCache.createKey(featureFile, featureIDs.get(i), configurationIDs.get(i));
+			Feature feature = featureCache.get(cacheKey);
+			if(feature == null) {
+				feature = ArffFeatureLoader.loadFeature(featureFile, featureIDs.get(i));
+				featureCache.put(cacheKey, feature);
 			}
+			features.add(feature);
+			cacheKeys.add(cacheKey);
 		}
 		
 		// Check if the all features have been extracted using the same sample rate
@@ -366,62 +400,34 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 			
 			// If the complete song is used as source..
 			if(actualFrameSize == -1) {
-				actualFrameSize = features.get(exampleOfFeatureWithMinimalFrame).getWindows().size() * minimalFrameSize;
+				actualFrameSize = features.get(exampleOfFeatureWithMinimalFrame).getNumberOfWindows() * minimalFrameSize;
 				features.get(i).getWindows().set(0,1d);
 			}
 			
 			if(actualFrameSize > minimalFrameSize) {
-				featureIdToWindowNumber.put(features.get(i).getId(), new Long(features.get(i).getValues().size()));
-				initialNumberOfUsedRawTimeWindows += (features.get(i).getValues().size() * (new Double(actualFrameSize) / minimalFrameSize));
-				ArrayList<Double[]> newValues = new ArrayList<Double[]>(features.get(exampleOfFeatureWithMinimalFrame).getWindows().size());
-				ArrayList<Double> newWindows = new ArrayList<Double>(features.get(exampleOfFeatureWithMinimalFrame).getWindows().size());
-				int numberOfCurrentSmallWindow = 0;
+				Feature largeFrameFeature = features.get(i);
+				int numberOfSmallWindows = features.get(exampleOfFeatureWithMinimalFrame).getNumberOfWindows();
+				featureIdToWindowNumber.put(largeFrameFeature.getId(), new Long(largeFrameFeature.getNumberOfWindows()));
+				initialNumberOfUsedRawTimeWindows += (largeFrameFeature.getNumberOfWindows() * (new Double(actualFrameSize) / minimalFrameSize));
 				
-				// Proceed the larger time frames and map them to the smallest time frame
-				for(int indexOfLargeWindow = 0; indexOfLargeWindow < features.get(i).getWindows().size(); indexOfLargeWindow++) {
-
-					// Time window numbers can be doubles e.g. for CENS features
-					double numberOfLargeTimeWindow = features.get(i).getWindows().get(indexOfLargeWindow);
+				Feature adaptedFeature;
+				if(largeFrameFeature.hasConsecutiveWindows()) {
 					
-					// The last small time window which correspond to the large time window
-					int numberOfLastSmallTWForThisLargeTW = new Double(Math.ceil(numberOfLargeTimeWindow * (double)actualFrameSize / 
-							(double)minimalFrameSize)).intValue();
+					// The values of large frames are repeated for small frames without copying
+					adaptedFeature = Feature.createRepeatedWindowView(largeFrameFeature, actualFrameSize, minimalFrameSize, numberOfSmallWindows);
+				} else {
 					
-					for(int smallTWCounter = numberOfCurrentSmallWindow; smallTWCounter < numberOfLastSmallTWForThisLargeTW;
-						smallTWCounter++) {
-						
-						Double[] currentVals = new Double[features.get(i).getValues().get(indexOfLargeWindow).length];
-						for(int b=0;b<currentVals.length;b++) {
-							currentVals[b] = new Double(features.get(i).getValues().get(indexOfLargeWindow)[b]);
-						}
-						
-						newValues.add(currentVals);
-						newWindows.add(new Double(smallTWCounter + 1)); // Time windows are counted up from 1, not 0!
+					// The harmonized feature depends only on the raw feature and on the minimal frame
+					String harmonizedKey = cacheKeys.get(i) + "|" + minimalFrameSize + "_" + numberOfSmallWindows;
+					adaptedFeature = featureCache.get(harmonizedKey);
+					if(adaptedFeature == null) {
+						adaptedFeature = harmonizeFeature(largeFrameFeature, actualFrameSize, numberOfSmallWindows);
+						featureCache.put(harmonizedKey, adaptedFeature);
 					}
-					numberOfCurrentSmallWindow = numberOfLastSmallTWForThisLargeTW;
-				}
-				
-				// The number of values in the updated feature should be equal to the number of values for all
-				// features with minimal frame length. However the features from longer source frames will not 
-				// achieve the end of music file so precise as the features from smaller source frames and we
-				// must fill some windows with NaN values
-				for(;numberOfCurrentSmallWindow < features.get(exampleOfFeatureWithMinimalFrame).getWindows().size();numberOfCurrentSmallWindow++) {
-					Double[] vals = new Double[features.get(i).getValues().get(0).length];
-					for(int k=0;k<vals.length;k++) vals[k] = Double.NaN;
-					newValues.add(vals);
-					newWindows.add(new Double(numberOfCurrentSmallWindow + 1)); // Time windows are counted up from 1, not 0!
 				}
-				
-				// Replace the old feature with adapted feature
-				Feature adaptedFeature = new Feature(features.get(i).getIds(), features.get(i).getDescription(), 
-						newValues, newWindows);
-				adaptedFeature.setHistory(features.get(i).getHistory());
-				adaptedFeature.setSampleRate(features.get(i).getSampleRate());
-				adaptedFeature.setSourceFrameSize(features.get(i).getSourceFrameSize());
-				adaptedFeature.setSourceStepSize(features.get(i).getSourceStepSize());
 				features.set(i, adaptedFeature);
 			} else {
-				initialNumberOfUsedRawTimeWindows += features.get(i).getValues().size();
+				initialNumberOfUsedRawTimeWindows += features.get(i).getNumberOfWindows();
 			}
 		}
 		
@@ -429,11 +435,74 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 		for(Feature f: features) {
 			numberOfAllFeatureDimensions += f.getDimension();
 		}
-		initialNumberOfFeatureMatrixEntries = numberOfAllFeatureDimensions * features.get(0).getWindows().size();
+		initialNumberOfFeatureMatrixEntries = numberOfAllFeatureDimensions * features.get(0).getNumberOfWindows();
 		
 		return features;
 	}
 	
+	/**
+	 * Maps the values of a feature extracted from larger frames to the minimal frame of the
+	 * features to process
+	 * @param largeFrameFeature Feature extracted from the larger frames
+	 * @param actualFrameSize Source frame size of the feature in samples
+	 * @param numberOfSmallWindows Number of time windows of the features with the minimal frame
+	 * @return Feature with the time windows of the minimal frame
+	 */
+	private Feature harmonizeFeature(Feature largeFrameFeature, int actualFrameSize, int numberOfSmallWindows) {
+		int dimension = largeFrameFeature.getDimension();
+		
+		// The adapted feature has at least as many time windows as the features with the minimal frame
+		double numberOfLastLargeTW = 0;
+		for(int indexOfLargeWindow = 0; indexOfLargeWindow < largeFrameFeature.getNumberOfWindows(); indexOfLargeWindow++) {
+			numberOfLastLargeTW = Math.max(numberOfLastLargeTW, largeFrameFeature.getWindow(indexOfLargeWindow));
+		}
+		int numberOfLastSmallTW = new Double(Math.ceil(numberOfLastLargeTW * 
+				(double)actualFrameSize / (double)minimalFrameSize)).intValue();
+		int numberOfNewWindows = Math.max(numberOfLastSmallTW, numberOfSmallWindows);
+		double[] newValues = new double[numberOfNewWindows * dimension];
+		double[] newWindows = new double[numberOfNewWindows];
+		int numberOfCurrentSmallWindow = 0;
+		
+		// Proceed the larger time frames and map them to the smallest time frame
+		for(int indexOfLargeWindow = 0; indexOfLargeWindow < largeFrameFeature.getNumberOfWindows(); indexOfLargeWindow++) {
+
+			// Time window numbers can be doubles e.g. for CENS features
+			double numberOfLargeTimeWindow = largeFrameFeature.getWindow(indexOfLargeWindow);
+			
+			// The last small time window which correspond to the large time window
+			int numberOfLastSmallTWForThisLargeTW = new Double(Math.ceil(numberOfLargeTimeWindow * (double)actualFrameSize / 
+					(double)minimalFrameSize)).intValue();
+			
+			for(int smallTWCounter = numberOfCurrentSmallWindow; smallTWCounter < numberOfLastSmallTWForThisLargeTW;
+				smallTWCounter++) {
+				for(int b=0;b<dimension;b++) {
+					newValues[smallTWCounter * dimension + b] = largeFrameFeature.getValue(indexOfLargeWindow, b);
+				}
+				newWindows[smallTWCounter] = smallTWCounter + 1; // Time windows are counted up from 1, not 0!
+			}
+			numberOfCurrentSmallWindow = Math.max(numberOfCurrentSmallWindow, numberOfLastSmallTWForThisLargeTW);
+		}
+		
+		// The number of values in the updated feature should be equal to the number of values for all
+		// features with minimal frame length. However the features from longer source frames will not 
+		// achieve the end of music file so precise as the features from smaller source frames and we
+		// must fill some windows with NaN values
+		for(;numberOfCurrentSmallWindow < numberOfSmallWindows;numberOfCurrentSmallWindow++) {
+			for(int k=0;k<dimension;k++) {
+				newValues[numberOfCurrentSmallWindow * dimension + k] = Double.NaN;
+			}
+			newWindows[numberOfCurrentSmallWindow] = numberOfCurrentSmallWindow + 1; // Time windows are counted up from 1, not 0!
+		}
+		
+		Feature adaptedFeature = new Feature(largeFrameFeature.getIds(), largeFrameFeature.getDescription(), 
+				newValues, newWindows, dimension);
+		adaptedFeature.setHistory(largeFrameFeature.getHistory());
+		adaptedFeature.setSampleRate(largeFrameFeature.getSampleRate());
+		adaptedFeature.setSourceFrameSize(largeFrameFeature.getSourceFrameSize());
+		adaptedFeature.setSourceStepSize(largeFrameFeature.getSourceStepSize());
+		return adaptedFeature;
+	}
+	
 	/**
 	 * Prepares the first list of all features to be processed from the already processed feature files
 	 * @return List of feature files
@@ -542,16 +611,15 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 			}
 			
 			// Adapter for a current reduction step
-			Class<?> adapter = null;
 			DimensionProcessorInterface dri = null;
 			
 			// Load the tool table
 			DataSetAbstract processingToolsSet;
 		    try {
 		    	if(this.directStart) {
-		    		processingToolsSet = new ArffDataSet(new File(AmusePreferences.getProcessorAlgorithmTablePath()));
+		    		processingToolsSet = loadAlgorithmTable(new File(AmusePreferences.getProcessorAlgorithmTablePath()));
 		    	} else {
-		    		processingToolsSet = new ArffDataSet(new File(this.nodeHome + File.separator + "input" + File.separator + "task_" + this.jobId + File.separator + "processorAlgorithmTable.arff"));
+		    		processingToolsSet = loadAlgorithmTable(new File(this.nodeHome + File.separator + "input" + File.separator + "task_" + this.jobId + File.separator + "processorAlgorithmTable.arff"));
 		    	}
 				Attribute idAttribute = processingToolsSet.getAttribute("Id");
 				for(int i=0;i<processingToolsSet.getValueCount();i++) {
@@ -567,9 +635,7 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 						Attribute inputProcessorBatchAttribute = processingToolsSet.getAttribute("InputBatch");
 						
 						try {
-							adapter = Class.forName(adapterClassAttribute.getValueAt(i).toString());
-							
-							dri = (DimensionProcessorInterface)adapter.newInstance();
+							dri = (DimensionProcessorInterface)createMethodInstance(adapterClassAttribute.getValueAt(i).toString());
 							Properties processorProperties = new Properties();
 							Integer idOfCurrentProcessor = new Double(idAttribute.getValueAt(i).toString()).intValue();
 							processorProperties.setProperty("id",idOfCurrentProcessor.toString());
@@ -615,6 +681,53 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 		calculateFinalUsedWindowNumbers(rawFeatures);
 	}
 
+	/**
+	 * Creates a new instance of the processing method for each track, since the methods may keep
+	 * the state of the previous track; only the adapter class is looked up once
+	 * @param adapterClass Name of the adapter class
+	 * @return Method instance
+	 */
+	private static Object createMethodInstance(String adapterClass) 
+			throws ClassNotFoundException, IllegalAccessException, InstantiationException {
+		Class<?> methodClass = methodClasses.get(adapterClass);
+		if(methodClass == null) {
+			methodClass = Class.forName(adapterClass);
+			methodClasses.put(adapterClass, methodClass);
+		}
+		return methodClass.newInstance();
+	}
+	
+	/**
+	 * Loads the given algorithm table; the tables are reused by all tracks processed in 
+	 * the current thread as long as their content is the same. Since the key does not depend on
+	 * the path, the copies of a table in the task folders of different jobs share one entry; therefore
+	 * the table is read into memory and does not refer to the file, which is removed with the task folder
+	 * @param tableFile Algorithm table file
+	 * @return Algorithm table
+	 * @throws IOException
+	 */
+	private static DataSetAbstract loadAlgorithmTable(File tableFile) throws IOException {
+		CRC32 checksum = new CRC32();
+		FileInputStream in = new FileInputStream(tableFile);
+		try {
+			byte[] buffer = new byte[8192];
+			int read;
+			while((read = in.read(buffer)) != -1) {
+				checksum.update(buffer, 0, read);
+			}
+		} finally {
+			in.close();
+		}
+		String key = tableFile.getName() + "_" + tableFile.length() + "_" + checksum.getValue();
+		LinkedHashMap<String,DataSetAbstract> tables = reusableAlgorithmTables.get();
+		DataSetAbstract table = tables.get(key);
+		if(table == null) {
+			table = new DataSet(tableFile);
+			tables.put(key, table);
+		}
+		return table;
+	}
+	
 	/**
 	 * Starts the method for partitioning and conversion of matrix to vector
 	 * @param currentListOfFeatureFiles List of feature files to process
@@ -639,16 +752,15 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 		
 			
 		// Adapter for a current reduction step
-		Class<?> adapter = null;
 		MatrixToVectorConverterInterface mtvci = null;
 			
 		// Load the tool table
 		DataSetAbstract processingToolsSet;
 		try {
 		   	if(this.directStart) {
-		   		processingToolsSet = new ArffDataSet(new File(AmusePreferences.getProcessorConversionAlgorithmTablePath()));
+		   		processingToolsSet = loadAlgorithmTable(new File(AmusePreferences.getProcessorConversionAlgorithmTablePath()));
 		   	} else {
-		   		processingToolsSet = new ArffDataSet(new File(this.nodeHome + File.separator + "input" + File.separator + "task_" + this.jobId + File.separator + "processorConversionAlgorithmTable.arff"));
+		   		processingToolsSet = loadAlgorithmTable(new File(this.nodeHome + File.separator + "input" + File.separator + "task_" + this.jobId + File.separator + "processorConversionAlgorithmTable.arff"));
 		   	}
 			Attribute idAttribute = processingToolsSet.getAttribute("Id");
 			for(int i=0;i<processingToolsSet.getValueCount();i++) {
@@ -664,9 +776,7 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 					Attribute inputProcessorBatchAttribute = processingToolsSet.getAttribute("InputBatch");
 						
 					try {
-						adapter = Class.forName(adapterClassAttribute.getValueAt(i).toString());
-							
-						mtvci = (MatrixToVectorConverterInterface)adapter.newInstance();
+						mtvci = (MatrixToVectorConverterInterface)createMethodInstance(adapterClassAttribute.getValueAt(i).toString());
 						Properties processorProperties = new Properties();
 						Integer idOfCurrentProcessor = new Double(idAttribute.getValueAt(i).toString()).intValue();
 						processorProperties.setProperty("id",idOfCurrentProcessor.toString());
@@ -767,46 +877,34 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 						feature_values_save_file.getAbsolutePath() + "' will be overwritten");
 			}
 			
-			FileOutputStream values_to = new FileOutputStream(feature_values_save_file);
-			DataOutputStream values_writer = new DataOutputStream(values_to);
-			String sep = System.getProperty("line.separator");
-			values_writer.writeBytes("@RELATION 'Classifier input'");
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("%initialNumberOfUsedRawTimeWindows=" + this.initialNumberOfUsedRawTimeWindows);
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("%finalNumberOfUsedRawTimeWindows=" + this.finalNumberOfUsedRawTimeWindows);
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("%initalNumberOfFeatureMatrixEntries=" + this.initialNumberOfFeatureMatrixEntries);
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("%finalNumberOfFeatureMatrixEntries=" + this.finalNumberOfFeatureMatrixEntries);
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("%finalNumberOfFeatureVectorEntries=" + features.size());
-			values_writer.writeBytes(sep);
+			ArffWriter values_writer = new ArffWriter(feature_values_save_file, System.getProperty("line.separator"));
+			values_writer.writeLine("@RELATION 'Classifier input'");
+			values_writer.writeLine("%initialNumberOfUsedRawTimeWindows=" + this.initialNumberOfUsedRawTimeWindows);
+			values_writer.writeLine("%finalNumberOfUsedRawTimeWindows=" + this.finalNumberOfUsedRawTimeWindows);
+			values_writer.writeLine("%initalNumberOfFeatureMatrixEntries=" + this.initialNumberOfFeatureMatrixEntries);
+			values_writer.writeLine("%finalNumberOfFeatureMatrixEntries=" + this.finalNumberOfFeatureMatrixEntries);
+			values_writer.writeLine("%finalNumberOfFeatureVectorEntries=" + features.size());
 			
 			// @deprecated
-			//values_writer.writeBytes("%finalNumberOfUsedTimeWindows=" + this.finalNumberOfUsedTimeWindows);
-			values_writer.writeBytes(sep+sep);
+			//values_writer.writeLine("%finalNumberOfUsedTimeWindows=" + this.finalNumberOfUsedTimeWindows);
+			values_writer.writeLine("");
+			values_writer.writeLine("");
 			
 			// Save the attributes
 			for(int i=0;i<features.size();i++) {
-				values_writer.writeBytes("@ATTRIBUTE '");
-				values_writer.writeBytes(features.get(i).getHistoryAsString());
-				values_writer.writeBytes("' NUMERIC" + sep);
+				values_writer.writeLine("@ATTRIBUTE '" + features.get(i).getHistoryAsString() + "' NUMERIC");
 			}
-			values_writer.writeBytes("@ATTRIBUTE Unit {milliseconds,samples}");
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("@ATTRIBUTE Start NUMERIC");
-			values_writer.writeBytes(sep);
-			values_writer.writeBytes("@ATTRIBUTE End NUMERIC");
-			values_writer.writeBytes(sep+sep);
-			values_writer.writeBytes("@DATA");
-			values_writer.writeBytes(sep);
+			values_writer.writeLine("@ATTRIBUTE Unit {milliseconds,samples}");
+			values_writer.writeLine("@ATTRIBUTE Start NUMERIC");
+			values_writer.writeLine("@ATTRIBUTE End NUMERIC");
+			values_writer.writeLine("");
+			values_writer.writeLine("@DATA");
 			
 			// TODO Consider only the partitions up to 6 minutes of a music track; should be a parameter?
-			int numberOfMaxPartitions = features.get(0).getValues().size();
+			int numberOfMaxPartitions = features.get(0).getNumberOfWindows();
 			for(int j=1;j<features.size();j++) {
-				if(features.get(j).getValues().size() < numberOfMaxPartitions) {
-					numberOfMaxPartitions = features.get(j).getValues().size();
+				if(features.get(j).getNumberOfWindows() < numberOfMaxPartitions) {
+					numberOfMaxPartitions = features.get(j).getNumberOfWindows();
 				}
 			}
 			if((numberOfMaxPartitions * (((ProcessingConfiguration)this.taskConfiguration).getAggregationWindowSize() - 
@@ -814,7 +912,7 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 				numberOfMaxPartitions = 360000 / (((ProcessingConfiguration)this.taskConfiguration).getAggregationWindowSize() - 
 						((ProcessingConfiguration)this.taskConfiguration).getAggregationWindowStepSize());
 				AmuseLogger.write(this.getClass().getName(), Level.WARN, 
-		   				"Number of partitions after processing reduced from " + features.get(0).getValues().size() + 
+		   				"Number of partitions after processing reduced from " + features.get(0).getNumberOfWindows() + 
 		   				" to " + numberOfMaxPartitions);
 			}
 			
@@ -833,24 +931,27 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 			double stepSize = ((ProcessingConfiguration)this.taskConfiguration).getAggregationWindowStepSize();
 			
 			// Save the data
+			boolean adaptiveOnsetPartitions = ((ProcessingConfiguration)this.taskConfiguration).getConversionStep().startsWith(new String("1"));
 			for(int i=0;i<numberOfMaxPartitions;i++) {
 				for(int j=0;j<features.size();j++) {
 				
-					// [0] since the converted features must be single-dimensional!
-					values_writer.writeBytes(features.get(j).getValues().get(i)[0].toString() + ",");
+					// 0 since the converted features must be single-dimensional!
+					values_writer.writeValue(features.get(j).getValue(i, 0));
 				}
-				double sampleRate = new Integer(features.get(0).getSampleRate()).doubleValue();
-				if(!((ProcessingConfiguration)this.taskConfiguration).getConversionStep().startsWith(new String("1"))) {
+				values_writer.writeValue("milliseconds");
+				if(!adaptiveOnsetPartitions) {
 					//values_writer.writeBytes("milliseconds," + features.get(0).getWindows().get(i)*((double)minimalFrameSize/sampleRate*1000d) + "," + 
 						//	(features.get(0).getWindows().get(i)*((double)minimalFrameSize/sampleRate*1000d)+((ProcessingConfiguration)this.taskConfiguration).getPartitionSize()) + sep);
-					values_writer.writeBytes("milliseconds," + (i*stepSize) + "," + (i*stepSize + partSize) + sep);
+					values_writer.writeValue(i*stepSize);
+					values_writer.writeValue(i*stepSize + partSize);
 				} else {
 					
 					// TODO [2/2] For adaptive onset partitions the boundaries are calculated here. A more generic solution
 					// is to change Feature class and allow frames of different sizes (e.g. with a child class)
-					values_writer.writeBytes("milliseconds," + attackStarts[i] * 1000 + "," + releaseEnds[i] * 1000 + sep);
-					
+					values_writer.writeValue(attackStarts[i] * 1000);
+					values_writer.writeValue(releaseEnds[i] * 1000);
 				}
+				values_writer.endRow();
 			} 
 			values_writer.close();
 		} catch(IOException e) {
@@ -882,11 +983,11 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 				
 				// Here we suggest that the windows are the same for all features!! (Reduction methods work for all features
 				// similarly, since the matrix form remains!)
-				finalNumberOfUsedRawTimeWindows += features.get(0).getWindows().size();
+				finalNumberOfUsedRawTimeWindows += features.get(0).getNumberOfWindows();
 			}
 			
 			else if(featureIdToSourceFrameSize.get(currentRawFeature) == -1) {
-				finalNumberOfUsedRawTimeWindows += features.get(0).getWindows().size();
+				finalNumberOfUsedRawTimeWindows += features.get(0).getNumberOfWindows();
 			}
 			
 			// In the frame size is larger than minimal frame size, the number of required minimal frames must be calculated..
@@ -895,9 +996,9 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 				int previousLargeWindow = 0;
 				int actualLargeWindow = 0;
 				int sourceFrameSize = featureIdToSourceFrameSize.get(currentRawFeature); 
-				for(int j=0;j<features.get(0).getWindows().size();j++) {
+				for(int j=0;j<features.get(0).getNumberOfWindows();j++) {
 					// Get the number of the corresponding large time window
-					double actualSmallWindow = features.get(0).getWindows().get(j);
+					double actualSmallWindow = features.get(0).getWindow(j);
 					actualLargeWindow = new Double(actualSmallWindow / 
 							((new Double(sourceFrameSize) / minimalFrameSize))).intValue();
 					
@@ -922,7 +1023,7 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 		for(Feature f: features) {
 			numberOfAllFeatureDimensions += f.getDimension();
 		}
-		finalNumberOfFeatureMatrixEntries = numberOfAllFeatureDimensions * features.get(0).getWindows().size();
+		finalNumberOfFeatureMatrixEntries = numberOfAllFeatureDimensions * features.get(0).getNumberOfWindows();
 	}
 	
 	// TODO Used only for measures for StructurePruner
@@ -981,7 +1082,7 @@ public class ProcessorNodeScheduler extends NodeScheduler {
 		for(Feature f: features) {
 			numberOfAllFeatureDimensions += f.getDimension();
 		}
-		finalNumberOfFeatureMatrixEntries = numberOfAllFeatureDimensions * features.get(0).getWindows().size();
+		finalNumberOfFeatureMatrixEntries = numberOfAllFeatureDimensions * features.get(0).getNumberOfWindows();
 	}
 
 	/**
@@ -98,108 +98,58 @@ public class AdaptiveOnsetGMM1Converter extends AmuseTask implements MatrixToVec
 
 			// Go through music features
 			for(int i=0;i<features.size();i++) {
-				int sampleRate = features.get(i).getSampleRate();
-				int numberOfAllSingleFeatures = features.get(i).getValues().get(0).length;
+				Feature feature = features.get(i);
+				int sampleRate = feature.getSampleRate();
+				int numberOfAllSingleFeatures = feature.getDimension();
 				
 				ArrayList<Feature> newFeatures = new ArrayList<Feature>(numberOfAllSingleFeatures * 
 						((saveMeanValues ? 1 : 0) + (saveStddevValues ? 1 : 0)));
 				for(int j=0;j<numberOfAllSingleFeatures;j++) {
 					if(saveMeanValues) {
 						Feature meanOfCurrentSingleFeature = new Feature(-1);
-						meanOfCurrentSingleFeature.setHistory(features.get(i).getHistory());
+						meanOfCurrentSingleFeature.setHistory(feature.getHistory());
 						meanOfCurrentSingleFeature.getHistory().add("Mean_" + (j+1));
 						meanOfCurrentSingleFeature.setSampleRate(sampleRate);
 						newFeatures.add(meanOfCurrentSingleFeature);
 					}
 					if(saveStddevValues) {
 						Feature stdDevOfCurrentSingleFeature = new Feature(-1);
-						stdDevOfCurrentSingleFeature.setHistory(features.get(i).getHistory());
+						stdDevOfCurrentSingleFeature.setHistory(feature.getHistory());
 						stdDevOfCurrentSingleFeature.getHistory().add("Std_dev_" + (j+1));
 						stdDevOfCurrentSingleFeature.setSampleRate(sampleRate);
 						newFeatures.add(stdDevOfCurrentSingleFeature);
 					}
 				}
 				
-				
-			    int currentWindow = 0;
+				// Mean and variance of all partitions are calculated from the prefix sums of the feature values
+				// (NaN values are omitted!)
+				PartitionAggregator aggregator = new PartitionAggregator(feature, 
+						new PartitionAggregator.Statistic[] {PartitionAggregator.MEAN, PartitionAggregator.VARIANCE}, true);
+				double[] partitionStatistics = null;
+				int numberOfSavedStatistics = (saveMeanValues ? 1 : 0) + (saveStddevValues ? 1 : 0);
 				
 				// Go through all onset partitions
 				for(int numberOfCurrentPartition=0;numberOfCurrentPartition<attackStarts.length;numberOfCurrentPartition++) {
 					
 					// Calculate the start and end windows for the current onset partition
-					Double partitionStart = Math.ceil((attackStarts[numberOfCurrentPartition] * (double)features.get(i).getSampleRate()) / windowSize); 
-					Double partitionEnd = Math.ceil((releaseEnds[numberOfCurrentPartition] * (double)features.get(i).getSampleRate()) / windowSize) + 1;
-					
-					// Increment the number of current time window if the lower partition boundary is not achieved
-					for(int k=currentWindow;k<features.get(i).getWindows().size();k++) {
-						if(features.get(i).getWindows().get(k) >= partitionStart) {
-							currentWindow = k;
-							break;
-						}
-					}
+					double partitionStart = Math.ceil((attackStarts[numberOfCurrentPartition] * (double)sampleRate) / windowSize); 
+					double partitionEnd = Math.ceil((releaseEnds[numberOfCurrentPartition] * (double)sampleRate) / windowSize) + 1;
 					
 					// If no features are available for the current partition, go to the next partition
-					if(features.get(i).getWindows().get(currentWindow) > partitionEnd) {
+					if(!aggregator.setPartition(partitionStart, partitionEnd)) {
 						continue;
 					}
+					partitionStatistics = aggregator.calculate(partitionStatistics);
 					
-					// Create a list with time windows which are in the current partition
-					ArrayList<Double> windowsOfCurrentPartition = new ArrayList<Double>();
-					while(features.get(i).getWindows().get(currentWindow) >= partitionStart && 
-							features.get(i).getWindows().get(currentWindow) < partitionEnd) {
-						windowsOfCurrentPartition.add(features.get(i).getWindows().get(currentWindow));
-						
-						// The last existing window is achieved
-						if(currentWindow == features.get(i).getWindows().size() - 1) {
-							break;
-						}
-						currentWindow++;
-					}
-					
-					// Check if the current partition has any windows
-					if(windowsOfCurrentPartition.size() == 0) {
-						continue;
-					}
-					
-					// Calculate mean and standard deviation for feature dimensions
-					// Go through all feature dimensions
+					// Add mean and deviation of all feature dimensions to the new generated features
 					for(int k=0;k<numberOfAllSingleFeatures;k++) {
-						
-						// Number of values (NaN values are omitted!)
-						int valueNumber = 0;
-						
-						// Calculate mean and variance
-						Double mean = 0d;
-						Double variance = 0d;
-						for(Double l:windowsOfCurrentPartition) {
-							if(!Double.isNaN(features.get(i).getValuesFromWindow(l)[k])) {
-								mean += features.get(i).getValuesFromWindow(l)[k];
-								valueNumber++;
-							}
-						}
-						mean /= valueNumber;
-						for(Double l:windowsOfCurrentPartition) {
-							if(!Double.isNaN(features.get(i).getValuesFromWindow(l)[k])) {
-								variance += Math.pow((Double)features.get(i).getValuesFromWindow(l)[k]-mean,2);
-							}
-						}
-						variance /= valueNumber;
-								
-						// Add mean and deviation to the new generated features
-						Double[] meanD = new Double[1]; meanD[0] = mean;
-						Double[] stddevD = new Double[1]; stddevD[0] = variance;
 						if(saveMeanValues) {
-							newFeatures.get(((saveMeanValues ? 1 : 0) + (saveStddevValues ? 1 : 0))*k).getValues().add(meanD);
-							newFeatures.get(((saveMeanValues ? 1 : 0) + (saveStddevValues ? 1 : 0))*k).getWindows().add(new Double(partitionStart));
+							newFeatures.get(numberOfSavedStatistics*k).addWindow(partitionStart, new Double[] {partitionStatistics[2*k]});
 						}
 						if(saveStddevValues) {
-							newFeatures.get(((saveMeanValues ? 1 : 0) + (saveStddevValues ? 1 : 0))*k+(saveMeanValues ? 1 : 0)).getValues().add(stddevD);
-							newFeatures.get(((saveMeanValues ? 1 : 0) + (saveStddevValues ? 1 : 0))*k+(saveMeanValues ? 1 : 0)).getWindows().add(new Double(partitionStart));
+							newFeatures.get(numberOfSavedStatistics*k+(saveMeanValues ? 1 : 0)).addWindow(partitionStart, new Double[] {partitionStatistics[2*k+1]});
 						}
 					}
-					
-					// Go one window back (for the case that release end frame is the same as the next attack start frame
-					currentWindow--;
 				}
 
 				for(int m=0;m<newFeatures.size();m++) {
@@ -79,22 +79,24 @@ public class GMMConverter extends AmuseTask implements MatrixToVectorConverterIn
 
 			// Go through music features
 			for(int i=0;i<features.size();i++) {
-				int sampleRate = features.get(i).getSampleRate();
-				int numberOfAllSingleFeatures = features.get(i).getValues().get(0).length;
+				Feature feature = features.get(i);
+				int sampleRate = feature.getSampleRate();
+				int numberOfAllSingleFeatures = feature.getDimension();
+				double lastWindow = feature.getWindow(feature.getNumberOfWindows()-1);
 				
 				ArrayList<Feature> newFeatures = new ArrayList<Feature>(numberOfAllSingleFeatures * 
 						((saveMeanValues ? 1 : 0) + (saveStddevValues ? 1 : 0)));
 				for(int j=0;j<numberOfAllSingleFeatures;j++) {
 					if(saveMeanValues) {
 						Feature meanOfCurrentSingleFeature = new Feature(-1);
-						meanOfCurrentSingleFeature.setHistory(features.get(i).getHistory());
+						meanOfCurrentSingleFeature.setHistory(feature.getHistory());
 						meanOfCurrentSingleFeature.getHistory().add("Mean_" + (j+1));
 						meanOfCurrentSingleFeature.setSampleRate(sampleRate);
 						newFeatures.add(meanOfCurrentSingleFeature);
 					}
 					if(saveStddevValues) {
 						Feature stdDevOfCurrentSingleFeature = new Feature(-1);
-						stdDevOfCurrentSingleFeature.setHistory(features.get(i).getHistory());
+						stdDevOfCurrentSingleFeature.setHistory(feature.getHistory());
 						stdDevOfCurrentSingleFeature.getHistory().add("Std_dev_" + (j+1));
 						stdDevOfCurrentSingleFeature.setSampleRate(sampleRate);
 						newFeatures.add(stdDevOfCurrentSingleFeature);
@@ -110,7 +112,7 @@ public class GMMConverter extends AmuseTask implements MatrixToVectorConverterIn
 					
 					// In 1st case we have only one "partition" which covers the complete song
 					// ("+ 1" is used because of the exclusive calculation of the partition end window)
-					partitionSizeInWindows = features.get(i).getWindows().get(features.get(i).getWindows().size()-1) + 1;
+					partitionSizeInWindows = lastWindow + 1;
 					overlapSizeInWindows = partitionSizeInWindows;
 					numberOfAllPartitions = 1;
 				} else {
@@ -120,7 +122,7 @@ public class GMMConverter extends AmuseTask implements MatrixToVectorConverterIn
 					overlapSizeInWindows = (Double)(sampleRate*((ms-stepSize)/1000d)/windowSize);
 					
 					// Calculates the last used time window and the number of maximum available partitions from it
-					double numberOfAllPartitionsD = ((features.get(i).getWindows().get(features.get(i).getWindows().size()-1)) - partitionSizeInWindows)/(partitionSizeInWindows - overlapSizeInWindows)+1;
+					double numberOfAllPartitionsD = (lastWindow - partitionSizeInWindows)/(partitionSizeInWindows - overlapSizeInWindows)+1;
 					numberOfAllPartitions = new Double(Math.ceil(numberOfAllPartitionsD)).intValue();
 				}
 				
@@ -135,88 +137,33 @@ public class GMMConverter extends AmuseTask implements MatrixToVectorConverterIn
 					//numberOfAllPartitions = 360000/overlap;
 				}*/
 				
-				int currentWindow = 0;
+				// Mean and variance of all partitions are calculated from the prefix sums of the feature values
+				// (NaN values are omitted!)
+				PartitionAggregator aggregator = new PartitionAggregator(feature, 
+						new PartitionAggregator.Statistic[] {PartitionAggregator.MEAN, PartitionAggregator.VARIANCE}, true);
+				double[] partitionStatistics = null;
+				int numberOfSavedStatistics = (saveMeanValues ? 1 : 0) + (saveStddevValues ? 1 : 0);
 				
 				// Go through all partitions
 				for(int numberOfCurrentPartition=0;numberOfCurrentPartition<numberOfAllPartitions;numberOfCurrentPartition++) {
 					
 					// Calculate the start (inclusive) and end (exclusive) windows for the current partition
-					Double partitionStart = Math.floor(new Double(partitionSizeInWindows - overlapSizeInWindows)*new Double(numberOfCurrentPartition));
-					Double partitionEnd = Math.ceil((new Double(partitionSizeInWindows - overlapSizeInWindows)*new Double(numberOfCurrentPartition)+partitionSizeInWindows));
-					
-					// Increment the number of current time window if the lower partition boundary is not achieved
-					for(int k=currentWindow;k<features.get(i).getWindows().size();k++) {
-						if(features.get(i).getWindows().get(k) >= partitionStart) {
-							currentWindow = k;
-							break;
-						}
-					}
+					double partitionStart = Math.floor((partitionSizeInWindows - overlapSizeInWindows)*numberOfCurrentPartition);
+					double partitionEnd = Math.ceil((partitionSizeInWindows - overlapSizeInWindows)*numberOfCurrentPartition+partitionSizeInWindows);
 					
 					// If no features are available for the current partition, go to the next partition
-					if(features.get(i).getWindows().get(currentWindow) > partitionEnd) {
+					if(!aggregator.setPartition(partitionStart, partitionEnd)) {
 						continue;
 					}
+					partitionStatistics = aggregator.calculate(partitionStatistics);
 					
-					// Create a list with time windows which are in the current partition
-					ArrayList<Double> windowsOfCurrentPartition = new ArrayList<Double>();
-					while(features.get(i).getWindows().get(currentWindow) >= partitionStart && 
-							features.get(i).getWindows().get(currentWindow) < partitionEnd) {
-						windowsOfCurrentPartition.add(features.get(i).getWindows().get(currentWindow));
-						
-						// The last existing window is achieved
-						if(currentWindow == features.get(i).getWindows().size() - 1) {
-							break;
-						}
-						currentWindow++;
-					}
-					
-					// Check if the current partition has any windows
-					if(windowsOfCurrentPartition.size() == 0) {
-						continue;
-					}
-					
-					// Calculate mean and standard deviation for feature dimensions
-					// Go through all feature dimensions
+					// Add mean and deviation of all feature dimensions to the new generated features
 					for(int k=0;k<numberOfAllSingleFeatures;k++) {
-						
-						// Number of values (NaN values are omitted!)
-						int valueNumber = 0;
-						
-						// Calculate mean and variance
-						Double mean = 0d;
-						Double variance = 0d;
-						for(Double l:windowsOfCurrentPartition) {
-							if(!Double.isNaN(features.get(i).getValuesFromWindow(l)[k])) {
-								mean += features.get(i).getValuesFromWindow(l)[k];
-								valueNumber++;
-							}
-						}
-						mean /= valueNumber;
-						for(Double l:windowsOfCurrentPartition) {
-							if(!Double.isNaN(features.get(i).getValuesFromWindow(l)[k])) {
-								variance += Math.pow((Double)features.get(i).getValuesFromWindow(l)[k]-mean,2);
-							}
-						}
-						variance /= valueNumber;
-								
-						// Add mean and deviation to the new generated features
-						if(numberOfCurrentPartition < numberOfAllPartitions) {
-							Double[] meanD = new Double[1]; meanD[0] = mean;
-							Double[] stddevD = new Double[1]; stddevD[0] = variance;
-							if(saveMeanValues) {
-								newFeatures.get(((saveMeanValues ? 1 : 0) + (saveStddevValues ? 1 : 0))*k).getValues().add(meanD);
-								newFeatures.get(((saveMeanValues ? 1 : 0) + (saveStddevValues ? 1 : 0))*k).getWindows().add(new Double(partitionStart));
-							}
-							if(saveStddevValues) {
-								newFeatures.get(((saveMeanValues ? 1 : 0) + (saveStddevValues ? 1 : 0))*k+(saveMeanValues ? 1 : 0)).getValues().add(stddevD);
-								newFeatures.get(((saveMeanValues ? 1 : 0) + (saveStddevValues ? 1 : 0))*k+(saveMeanValues ? 1 : 0)).getWindows().add(new Double(partitionStart));
-							}
+						if(saveMeanValues) {
+							newFeatures.get(numberOfSavedStatistics*k).addWindow(partitionStart, new Double[] {partitionStatistics[2*k]});
 						}
-						
-						// Go with the current window back because of overlap (some time windows used in the
-						// current partition may be also used in the next partition)
-						while(features.get(i).getWindows().get(currentWindow) >= partitionStart + (partitionSizeInWindows - overlapSizeInWindows) && currentWindow > 0) {
-							currentWindow--;
+						if(saveStddevValues) {
+							newFeatures.get(numberOfSavedStatistics*k+(saveMeanValues ? 1 : 0)).addWindow(partitionStart, new Double[] {partitionStatistics[2*k+1]});
 						}
 					}
 				}
@@ -0,0 +1,364 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.processor.methods.converters;
+
+import java.util.Arrays;
+
+import amuse.data.Feature;
+
+/**
+ * Calculates statistics of all feature dimensions for partitions of time windows, as required
+ * by the matrix to vector converters. The feature columns are read once into prefix sums, so that
+ * mean and variance of any partition are calculated in constant time, also for overlapping partitions.
+ * Order statistics (minimum, maximum, quantiles) use a sorted window of values which is updated
+ * incrementally if the partitions move forward.
+ *
+ * The time windows of the feature must be sorted in ascending order. A partition contains all time
+ * windows w with start <= w < end.
+ *
+ * @version $Id$
+ */
+public class PartitionAggregator {
+
+	/**
+	 * Statistic calculated for one feature dimension of the current partition
+	 */
+	public interface Statistic {
+
+		/**
+		 * @return True if the statistic requires the sorted values of the partition
+		 */
+		public boolean requiresSortedValues();
+
+		/**
+		 * @param partition Aggregator set to the current partition
+		 * @param dimension Feature dimension
+		 * @return Value of the statistic
+		 */
+		public double calculate(PartitionAggregator partition, int dimension);
+	}
+
+	/** Arithmetic mean */
+	public static final Statistic MEAN = new Statistic() {
+		public boolean requiresSortedValues() {
+			return false;
+		}
+		public double calculate(PartitionAggregator partition, int dimension) {
+			return partition.getMean(dimension);
+		}
+	};
+
+	/** Variance (divided by the number of values) */
+	public static final Statistic VARIANCE = new Statistic() {
+		public boolean requiresSortedValues() {
+			return false;
+		}
+		public double calculate(PartitionAggregator partition, int dimension) {
+			return partition.getVariance(dimension);
+		}
+	};
+
+	/** Standard deviation (square root of VARIANCE) */
+	public static final Statistic STANDARD_DEVIATION = new Statistic() {
+		public boolean requiresSortedValues() {
+			return false;
+		}
+		public double calculate(PartitionAggregator partition, int dimension) {
+			return Math.sqrt(partition.getVariance(dimension));
+		}
+	};
+
+	/** Minimum */
+	public static final Statistic MIN = quantile(0d);
+
+	/** Maximum */
+	public static final Statistic MAX = new Statistic() {
+		public boolean requiresSortedValues() {
+			return true;
+		}
+		public double calculate(PartitionAggregator partition, int dimension) {
+			return partition.getSortedValue(dimension, partition.getNumberOfValues(dimension) - 1);
+		}
+	};
+
+	/**
+	 * Returns the quantile statistic, which is the sorted value with the index (int)(n * p)
+	 * for n values of the partition
+	 * @param p Probability between 0 (inclusive) and 1 (exclusive)
+	 */
+	public static Statistic quantile(final double p) {
+		return new Statistic() {
+			public boolean requiresSortedValues() {
+				return true;
+			}
+			public double calculate(PartitionAggregator partition, int dimension) {
+				return partition.getSortedValue(dimension, (int)(partition.getNumberOfValues(dimension) * p));
+			}
+		};
+	}
+
+	private final Feature feature;
+	private final Statistic[] statistics;
+	private final int dimension;
+	private final int numberOfWindows;
+
+	/** If false, partitions with NaN values have NaN statistics */
+	private final boolean omitNaNValues;
+
+	/** Prefix sums for each dimension over the windows: position i contains the sum of the first i windows.
+	 * The values are shifted by the first value of the dimension to reduce rounding errors */
+	private final double[][] sums;
+	private final double[][] sumsOfSquares;
+	private final int[][] valueCounts;
+	private final int[][] nanCounts;
+	private final double[] shifts;
+
+	/** Sorted values of the current partition for each dimension (only if required by a statistic) */
+	private final double[][] sortedValues;
+	private final int[] numberOfSortedValues;
+
+	/** Current partition as window positions: from (inclusive) and to (exclusive) */
+	private int from = 0;
+	private int to = 0;
+
+	/**
+	 * Reads the values of the feature into the prefix sums
+	 * @param feature Feature with time windows in ascending order
+	 * @param statistics Statistics calculated by calculate()
+	 * @param omitNaNValues If true, NaN values are ignored; otherwise the statistics of partitions
+	 * with NaN values are NaN
+	 */
+	public PartitionAggregator(Feature feature, Statistic[] statistics, boolean omitNaNValues) {
+		this.feature = feature;
+		this.statistics = statistics;
+		this.dimension = feature.getDimension();
+		this.numberOfWindows = feature.getNumberOfWindows();
+		this.omitNaNValues = omitNaNValues;
+
+		sums = new double[dimension][numberOfWindows + 1];
+		sumsOfSquares = new double[dimension][numberOfWindows + 1];
+		valueCounts = new int[dimension][numberOfWindows + 1];
+		nanCounts = new int[dimension][numberOfWindows + 1];
+		shifts = new double[dimension];
+		double[] column = new double[numberOfWindows];
+		for(int d=0;d<dimension;d++) {
+			feature.getColumn(d, column);
+			double shift = Double.NaN;
+			double sum = 0, sumOfSquares = 0;
+			int valueCount = 0, nanCount = 0;
+			for(int i=0;i<numberOfWindows;i++) {
+				double value = column[i];
+				if(Double.isNaN(value)) {
+					nanCount++;
+				} else {
+					if(valueCount == 0) {
+						shift = value;
+					}
+					value -= shift;
+					sum += value;
+					sumOfSquares += value * value;
+					valueCount++;
+				}
+				sums[d][i + 1] = sum;
+				sumsOfSquares[d][i + 1] = sumOfSquares;
+				valueCounts[d][i + 1] = valueCount;
+				nanCounts[d][i + 1] = nanCount;
+			}
+			shifts[d] = shift;
+		}
+
+		boolean sortedValuesRequired = false;
+		for(Statistic statistic : statistics) {
+			sortedValuesRequired |= statistic.requiresSortedValues();
+		}
+		if(sortedValuesRequired) {
+			sortedValues = new double[dimension][16];
+			numberOfSortedValues = new int[dimension];
+		} else {
+			sortedValues = null;
+			numberOfSortedValues = null;
+		}
+	}
+
+	/**
+	 * Sets the current partition
+	 * @param start First time window (inclusive)
+	 * @param end Last time window (exclusive)
+	 * @return False if the partition does not contain any time windows
+	 */
+	public boolean setPartition(double start, double end) {
+		int newFrom = feature.getFirstWindowIndexFrom(start);
+		int newTo = Math.max(newFrom, feature.getFirstWindowIndexFrom(end));
+		if(sortedValues != null) {
+			updateSortedValues(newFrom, newTo);
+		}
+		from = newFrom;
+		to = newTo;
+		return to > from;
+	}
+
+	/**
+	 * @return Position of the first time window of the current partition
+	 */
+	public int getFromIndex() {
+		return from;
+	}
+
+	/**
+	 * @return Position after the last time window of the current partition
+	 */
+	public int getToIndex() {
+		return to;
+	}
+
+	/**
+	 * @return Number of values of the current partition used for the statistics
+	 */
+	public int getNumberOfValues(int dimension) {
+		return valueCounts[dimension][to] - valueCounts[dimension][from];
+	}
+
+	/**
+	 * @return Mean of the current partition or NaN if there are no values
+	 */
+	public double getMean(int dimension) {
+		int n = getNumberOfValues(dimension);
+		if(n == 0 || hasIgnoredNaNValues(dimension)) {
+			return Double.NaN;
+		}
+		return shifts[dimension] + (sums[dimension][to] - sums[dimension][from]) / n;
+	}
+
+	/**
+	 * @return Variance (divided by the number of values) of the current partition or NaN if there are no values
+	 */
+	public double getVariance(int dimension) {
+		int n = getNumberOfValues(dimension);
+		if(n == 0 || hasIgnoredNaNValues(dimension)) {
+			return Double.NaN;
+		}
+		double sum = sums[dimension][to] - sums[dimension][from];
+		double sumOfSquares = sumsOfSquares[dimension][to] - sumsOfSquares[dimension][from];
+		return Math.max(0d, (sumOfSquares - sum * sum / n) / n);
+	}
+
+	/**
+	 * @param rank Position in the sorted values of the current partition
+	 * @return Value or NaN if the partition has no values
+	 */
+	public double getSortedValue(int dimension, int rank) {
+		if(sortedValues == null) {
+			throw new IllegalStateException("Sorted values are not required by the statistics of this aggregator");
+		}
+		int n = numberOfSortedValues[dimension];
+		if(n == 0 || hasIgnoredNaNValues(dimension)) {
+			return Double.NaN;
+		}
+		return sortedValues[dimension][Math.max(0, Math.min(n - 1, rank))];
+	}
+
+	/**
+	 * Calculates all statistics for all dimensions of the current partition
+	 * @param target Array with at least dimension * number of statistics entries; if null, a new array is created
+	 * @return The target array with the statistics of the first dimension, then of the second dimension and so on
+	 */
+	public double[] calculate(double[] target) {
+		if(target == null) {
+			target = new double[dimension * statistics.length];
+		}
+		for(int d=0;d<dimension;d++) {
+			for(int s=0;s<statistics.length;s++) {
+				target[d * statistics.length + s] = statistics[s].calculate(this, d);
+			}
+		}
+		return target;
+	}
+
+	private boolean hasIgnoredNaNValues(int dimension) {
+		return !omitNaNValues && nanCounts[dimension][to] > nanCounts[dimension][from];
+	}
+
+	/**
+	 * Updates the sorted values for the new partition. If the partition moves forward and overlaps with
+	 * the previous one, only the windows which leave and enter the partition are processed
+	 */
+	private void updateSortedValues(int newFrom, int newTo) {
+		boolean isIncremental = newFrom >= from && newFrom <= to && newTo >= to &&
+			(newFrom - from) + (newTo - to) < newTo - newFrom;
+		for(int d=0;d<dimension;d++) {
+			if(isIncremental) {
+				for(int i=from;i<newFrom;i++) {
+					removeSortedValue(d, feature.getValue(i, d));
+				}
+				for(int i=to;i<newTo;i++) {
+					insertSortedValue(d, feature.getValue(i, d));
+				}
+			} else {
+				ensureSortedCapacity(d, newTo - newFrom);
+				int n = 0;
+				for(int i=newFrom;i<newTo;i++) {
+					double value = feature.getValue(i, d);
+					if(!Double.isNaN(value)) {
+						sortedValues[d][n++] = value;
+					}
+				}
+				Arrays.sort(sortedValues[d], 0, n);
+				numberOfSortedValues[d] = n;
+			}
+		}
+	}
+
+	private void insertSortedValue(int dimension, double value) {
+		if(Double.isNaN(value)) {
+			return;
+		}
+		int n = numberOfSortedValues[dimension];
+		ensureSortedCapacity(dimension, n + 1);
+		double[] values = sortedValues[dimension];
+		int position = Arrays.binarySearch(values, 0, n, value);
+		if(position < 0) {
+			position = -position - 1;
+		}
+		System.arraycopy(values, position, values, position + 1, n - position);
+		values[position] = value;
+		numberOfSortedValues[dimension] = n + 1;
+	}
+
+	private void removeSortedValue(int dimension, double value) {
+		if(Double.isNaN(value)) {
+			return;
+		}
+		int n = numberOfSortedValues[dimension];
+		double[] values = sortedValues[dimension];
+		int position = Arrays.binarySearch(values, 0, n, value);
+		System.arraycopy(values, position + 1, values, position, n - position - 1);
+		numberOfSortedValues[dimension] = n - 1;
+	}
+
+	private void ensureSortedCapacity(int dimension, int capacity) {
+		if(sortedValues[dimension].length < capacity) {
+			sortedValues[dimension] = Arrays.copyOf(sortedValues[dimension], Math.max(capacity, sortedValues[dimension].length * 2));
+		}
+	}
+}
@@ -73,29 +73,31 @@ public class QuartileConverter extends AmuseTask implements MatrixToVectorConver
 
 			// Go through music features
 			for(int i=0;i<features.size();i++) {
-				int sampleRate = features.get(i).getSampleRate();
-				int numberOfAllSingleFeatures = features.get(i).getValues().get(0).length;
+				Feature feature = features.get(i);
+				int sampleRate = feature.getSampleRate();
+				int numberOfAllSingleFeatures = feature.getDimension();
+				double lastWindow = feature.getWindow(feature.getNumberOfWindows()-1);
 				
 				ArrayList<Feature> newFeatures = new ArrayList<Feature>(numberOfAllSingleFeatures*5);
 				for(int j=0;j<numberOfAllSingleFeatures;j++) {
 					Feature minOfCurrentSingleFeature = new Feature(-1);
-					minOfCurrentSingleFeature.setHistory(features.get(i).getHistory());
+					minOfCurrentSingleFeature.setHistory(feature.getHistory());
 					minOfCurrentSingleFeature.getHistory().add("Min_" + (j+1));
 					minOfCurrentSingleFeature.setSampleRate(sampleRate);
 					Feature firstQBoundOfCurrentSingleFeature = new Feature(-1);
-					firstQBoundOfCurrentSingleFeature.setHistory(features.get(i).getHistory());
+					firstQBoundOfCurrentSingleFeature.setHistory(feature.getHistory());
 					firstQBoundOfCurrentSingleFeature.getHistory().add("1st_quartile_bound" + (j+1));
 					firstQBoundOfCurrentSingleFeature.setSampleRate(sampleRate);
 					Feature secondQBoundOfCurrentSingleFeature = new Feature(-1);
-					secondQBoundOfCurrentSingleFeature.setHistory(features.get(i).getHistory());
+					secondQBoundOfCurrentSingleFeature.setHistory(feature.getHistory());
 					secondQBoundOfCurrentSingleFeature.getHistory().add("2nd_quartile_bound" + (j+1));
 					secondQBoundOfCurrentSingleFeature.setSampleRate(sampleRate);
 					Feature thirdQBoundOfCurrentSingleFeature = new Feature(-1);
-					thirdQBoundOfCurrentSingleFeature.setHistory(features.get(i).getHistory());
+					thirdQBoundOfCurrentSingleFeature.setHistory(feature.getHistory());
 					thirdQBoundOfCurrentSingleFeature.getHistory().add("3rd_quartile_bound" + (j+1));
 					thirdQBoundOfCurrentSingleFeature.setSampleRate(sampleRate);
 					Feature maxOfCurrentSingleFeature = new Feature(-1);
-					maxOfCurrentSingleFeature.setHistory(features.get(i).getHistory());
+					maxOfCurrentSingleFeature.setHistory(feature.getHistory());
 					maxOfCurrentSingleFeature.getHistory().add("Max_" + (j+1));
 					maxOfCurrentSingleFeature.setSampleRate(sampleRate);
 					newFeatures.add(minOfCurrentSingleFeature);
@@ -113,7 +115,7 @@ public class QuartileConverter extends AmuseTask implements MatrixToVectorConver
 				if(ms == -1) {
 					
 					// In 1st case we have only one "partition" which covers the complete song
-					partitionSizeInWindows = features.get(i).getWindows().get(features.get(i).getWindows().size()-1);
+					partitionSizeInWindows = lastWindow;
 					overlapSizeInWindows = partitionSizeInWindows;
 					numberOfAllPartitions = 1;
 				} else {
@@ -123,7 +125,7 @@ public class QuartileConverter extends AmuseTask implements MatrixToVectorConver
 					overlapSizeInWindows = (Double)(sampleRate*((ms-stepSize)/1000d)/windowSize);
 					
 					// FIXME evtl. check! Calculates the last used time window and the number of maximum available partitions from it
-					double numberOfAllPartitionsD = ((features.get(i).getWindows().get(features.get(i).getWindows().size()-1)) - partitionSizeInWindows)/(partitionSizeInWindows - overlapSizeInWindows)+1;
+					double numberOfAllPartitionsD = (lastWindow - partitionSizeInWindows)/(partitionSizeInWindows - overlapSizeInWindows)+1;
 					numberOfAllPartitions = new Double(Math.floor(numberOfAllPartitionsD)).intValue();
 				}
 				
@@ -138,106 +140,30 @@ public class QuartileConverter extends AmuseTask implements MatrixToVectorConver
 					//numberOfAllPartitions = 360000/overlap;
 				}*/
 				
-				int currentWindow = 0;
+				// The quartile boundaries are calculated from the sorted feature values of each partition. NaN-values 
+				// are omitted for quartile calculation (it is also possible that for feature with large source frames
+				// the last smaller frames are filled with NaN-values!)
+				PartitionAggregator aggregator = new PartitionAggregator(feature, new PartitionAggregator.Statistic[] {
+						PartitionAggregator.MIN, PartitionAggregator.quantile(0.25), PartitionAggregator.quantile(0.5), 
+						PartitionAggregator.quantile(0.75), PartitionAggregator.MAX}, true);
+				double[] partitionStatistics = null;
 				
 				// Go through all partitions
 				for(int numberOfCurrentPartition=0;numberOfCurrentPartition<numberOfAllPartitions;numberOfCurrentPartition++) {
 					
 					// Calculate the start (inclusive) and end (exclusive) windows for the current partition
-					Double partitionStart = Math.floor(new Double(partitionSizeInWindows - overlapSizeInWindows)*new Double(numberOfCurrentPartition));
-					Double partitionEnd = Math.ceil((new Double(partitionSizeInWindows - overlapSizeInWindows)*new Double(numberOfCurrentPartition)+partitionSizeInWindows));
-					
-					// Increment the number of current time window if the lower partition boundary is not achieved
-					for(int k=currentWindow;k<features.get(i).getWindows().size();k++) {
-						if(features.get(i).getWindows().get(k) >= partitionStart) {
-							currentWindow = k;
-							break;
-						}
-					}
+					double partitionStart = Math.floor((partitionSizeInWindows - overlapSizeInWindows)*numberOfCurrentPartition);
+					double partitionEnd = Math.ceil((partitionSizeInWindows - overlapSizeInWindows)*numberOfCurrentPartition+partitionSizeInWindows);
 					
 					// If no features are available for the current partition, go to the next partition
-					if(features.get(i).getWindows().get(currentWindow) > partitionEnd) {
-						continue;
-					}
-					
-					// Create a list with time windows which are in the current partition
-					ArrayList<Double> windowsOfCurrentPartition = new ArrayList<Double>();
-					while(features.get(i).getWindows().get(currentWindow) >= partitionStart && 
-							features.get(i).getWindows().get(currentWindow) < partitionEnd) {
-						windowsOfCurrentPartition.add(features.get(i).getWindows().get(currentWindow));
-						
-						// The last existing window is achieved
-						if(currentWindow == features.get(i).getWindows().size() - 1) {
-							break;
-						}
-						currentWindow++;
-					}
-					
-					// Check if the current partition has any windows
-					if(windowsOfCurrentPartition.size() == 0) {
+					if(!aggregator.setPartition(partitionStart, partitionEnd)) {
 						continue;
 					}
 					
-					// Calculate mean and standard deviation for feature dimensions
-					// Go through all feature dimensions
-					for(int k=0;k<numberOfAllSingleFeatures;k++) {
-						
-						// Save the feature values for this partition here for sorting
-						ArrayList<Double> featureValuesForThisPartition = new ArrayList<Double>();
-						for(Double l:windowsOfCurrentPartition) {
-							featureValuesForThisPartition.add(features.get(i).getValuesFromWindow(l)[k]);
-						}
-						
-						// Remove NaN-values for quartile calculation (it is also possible that for feature with
-						// large source frames the last smaller frames are filled with NaN-values!)
-						for(int z=0;z<featureValuesForThisPartition.size();z++) {
-							if(featureValuesForThisPartition.get(z).isNaN()) {
-								featureValuesForThisPartition.remove(z); z--;
-							}
-						}
-						java.util.Collections.sort(featureValuesForThisPartition);
-						
-						Double[] minD = new Double[1]; 
-						Double[] firstQD = new Double[1]; 
-						Double[] secondQD = new Double[1]; 
-						Double[] thirdQD = new Double[1]; 
-						Double[] maxD = new Double[1];
-						
-						if(numberOfCurrentPartition < numberOfAllPartitions) {
-							if(featureValuesForThisPartition.size() > 0) {
-								minD[0] = (Double)featureValuesForThisPartition.get(0);
-								int indexOfFirstBoundary = new Double(featureValuesForThisPartition.size()*0.25).intValue();
-								firstQD[0] = (Double)featureValuesForThisPartition.get(indexOfFirstBoundary);
-								int indexOfSecondBoundary = new Double(featureValuesForThisPartition.size()*0.5).intValue();
-								secondQD[0] = (Double)featureValuesForThisPartition.get(indexOfSecondBoundary);
-								int indexOfThirdBoundary = new Double(featureValuesForThisPartition.size()*0.75).intValue();
-								thirdQD[0] = (Double)featureValuesForThisPartition.get(indexOfThirdBoundary);
-								maxD[0] = (Double)featureValuesForThisPartition.get(featureValuesForThisPartition.size()-1);
-							} else { // If all feature values consist of NaN values
-								minD[0] = Double.NaN;
-								firstQD[0] = Double.NaN;
-								secondQD[0] = Double.NaN;
-								thirdQD[0] = Double.NaN;
-								maxD[0] = Double.NaN;
-							}
-							
-							newFeatures.get(5*k).getValues().add(minD);
-							newFeatures.get(5*k).getWindows().add(new Double(partitionStart));
-							newFeatures.get(5*k+1).getValues().add(firstQD);
-							newFeatures.get(5*k+1).getWindows().add(new Double(partitionStart));
-							newFeatures.get(5*k+2).getValues().add(secondQD);
-							newFeatures.get(5*k+2).getWindows().add(new Double(partitionStart));
-							newFeatures.get(5*k+3).getValues().add(thirdQD);
-							newFeatures.get(5*k+3).getWindows().add(new Double(partitionStart));
-							newFeatures.get(5*k+4).getValues().add(maxD);
-							newFeatures.get(5*k+4).getWindows().add(new Double(partitionStart));
-						}
-							
-						// Go with the current window back because of overlap (some time windows used in the
-						// current partition may be also used in the next partition)
-						while(features.get(i).getWindows().get(currentWindow) >= partitionStart + (partitionSizeInWindows - overlapSizeInWindows) && currentWindow > 0) {
-							currentWindow--;
-						}
+					// Minimum, quartile boundaries and maximum of all feature dimensions (NaN if all feature values are NaN)
+					partitionStatistics = aggregator.calculate(partitionStatistics);
+					for(int k=0;k<5*numberOfAllSingleFeatures;k++) {
+						newFeatures.get(k).addWindow(partitionStart, new Double[] {partitionStatistics[k]});
 					}
 				}
 
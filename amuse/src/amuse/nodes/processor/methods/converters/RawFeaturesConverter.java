@@ -142,8 +142,7 @@ public class RawFeaturesConverter extends AmuseTask implements MatrixToVectorCon
 							int dimensions = feature.getDimension();
 							for(int dim=0; dim<dimensions; dim++) {
 								Double[] val = {Double.NaN};
-								endFeatures.get(currentEndFeature).getWindows().add(new Double(window));
-								endFeatures.get(currentEndFeature).getValues().add(val);
+								endFeatures.get(currentEndFeature).addWindow(window, val);
 								currentEndFeature++;
 							}
 						}
@@ -154,8 +153,7 @@ public class RawFeaturesConverter extends AmuseTask implements MatrixToVectorCon
 							Double[] vals = feature.getValues().get(currentWindow);
 							for(int dim=0; dim<dimensions; dim++) {
 								Double[] val = {vals[dim]};
-								endFeatures.get(currentEndFeature).getWindows().add(new Double(window));
-								endFeatures.get(currentEndFeature).getValues().add(val);
+								endFeatures.get(currentEndFeature).addWindow(window, val);
 								currentEndFeature++;
 							}
 						}
@@ -299,20 +299,13 @@ public class StructuralComplexityConverter extends AmuseTask implements MatrixTo
 							}
 						}
 							
-						newFeatures.get(7*s).getValues().add(minD);
-						newFeatures.get(7*s).getWindows().add(new Double(partitionStartWindow));
-						newFeatures.get(7*s+1).getValues().add(firstQD);
-						newFeatures.get(7*s+1).getWindows().add(new Double(partitionStartWindow));
-						newFeatures.get(7*s+2).getValues().add(secondQD);
-						newFeatures.get(7*s+2).getWindows().add(new Double(partitionStartWindow));
-						newFeatures.get(7*s+3).getValues().add(thirdQD);
-						newFeatures.get(7*s+3).getWindows().add(new Double(partitionStartWindow));
-						newFeatures.get(7*s+4).getValues().add(maxD);
-						newFeatures.get(7*s+4).getWindows().add(new Double(partitionStartWindow));
-						newFeatures.get(7*s+5).getValues().add(meanD);
-						newFeatures.get(7*s+5).getWindows().add(new Double(partitionStartWindow));
-						newFeatures.get(7*s+6).getValues().add(stddevD);
-						newFeatures.get(7*s+6).getWindows().add(new Double(partitionStartWindow));
+						newFeatures.get(7*s).addWindow(partitionStartWindow, minD);
+						newFeatures.get(7*s+1).addWindow(partitionStartWindow, firstQD);
+						newFeatures.get(7*s+2).addWindow(partitionStartWindow, secondQD);
+						newFeatures.get(7*s+3).addWindow(partitionStartWindow, thirdQD);
+						newFeatures.get(7*s+4).addWindow(partitionStartWindow, maxD);
+						newFeatures.get(7*s+5).addWindow(partitionStartWindow, meanD);
+						newFeatures.get(7*s+6).addWindow(partitionStartWindow, stddevD);
 					}
 						
 				}
@@ -25,6 +25,7 @@ package amuse.nodes.processor.methods.converters;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.HashSet;
 
 import org.apache.log4j.Level;
 
@@ -68,6 +69,7 @@ public class StructureGMMConverter extends AmuseTask implements MatrixToVectorCo
 		
 		// TODO Fuer Metrik-Berechnung, auslagern!!
 		ArrayList<Double> usedTimeWindows = new ArrayList<Double>();
+		HashSet<Double> usedTimeWindowSet = new HashSet<Double>();
 		
 		// Single features used as classifier input vector
 		ArrayList<Feature> endFeatures = new ArrayList<Feature>();
@@ -121,15 +123,16 @@ public class StructureGMMConverter extends AmuseTask implements MatrixToVectorCo
 			
 			// Go through music features
 			for(int i=0;i<features.size();i++) {
-				int numberOfAllSingleFeatures = features.get(i).getValues().get(0).length;
+				Feature feature = features.get(i);
+				int numberOfAllSingleFeatures = feature.getDimension();
 				
 				ArrayList<Feature> newFeatures = new ArrayList<Feature>(numberOfAllSingleFeatures*2);
 				for(int j=0;j<numberOfAllSingleFeatures;j++) {
 					Feature meanOfCurrentSingleFeature = new Feature(-1);
-					meanOfCurrentSingleFeature.setHistory(features.get(i).getHistory());
+					meanOfCurrentSingleFeature.setHistory(feature.getHistory());
 					meanOfCurrentSingleFeature.getHistory().add("Mean_" + (j+1));
 					Feature stdDevOfCurrentSingleFeature = new Feature(-1);
-					stdDevOfCurrentSingleFeature.setHistory(features.get(i).getHistory());
+					stdDevOfCurrentSingleFeature.setHistory(feature.getHistory());
 					stdDevOfCurrentSingleFeature.getHistory().add("Std_dev_" + (j+1));
 					newFeatures.add(meanOfCurrentSingleFeature);
 					newFeatures.add(stdDevOfCurrentSingleFeature);
@@ -139,7 +142,7 @@ public class StructureGMMConverter extends AmuseTask implements MatrixToVectorCo
 				double overlapSizeInWindows = (Double)(sampleRate*((ms-stepSize)/1000d)/windowSize);
 				
 				// FIXME evtl. check! Calculates the last used time window and the number of maximum available partitions from it
-				double numberOfAllPartitionsD = ((features.get(i).getWindows().get(features.get(i).getWindows().size()-1)) - partitionSizeInWindows)/(partitionSizeInWindows - overlapSizeInWindows)+1;
+				double numberOfAllPartitionsD = (feature.getWindow(feature.getNumberOfWindows()-1) - partitionSizeInWindows)/(partitionSizeInWindows - overlapSizeInWindows)+1;
 				int numberOfAllPartitions = new Double(Math.floor(numberOfAllPartitionsD)).intValue();
 				
 				// If the partition size is greater than music song length..
@@ -147,7 +150,11 @@ public class StructureGMMConverter extends AmuseTask implements MatrixToVectorCo
 					throw new NodeException("Partition size too large");
 				}
 				
-				int currentWindow = 0;
+				// Mean and variance of all partitions are calculated from the prefix sums of the feature values
+				// (partitions with NaN values get NaN statistics)
+				PartitionAggregator aggregator = new PartitionAggregator(feature, 
+						new PartitionAggregator.Statistic[] {PartitionAggregator.MEAN, PartitionAggregator.VARIANCE}, false);
+				double[] partitionStatistics = null;
 				
 				// Go through all required partitions
 				for(int numberOfCurrentPartition=0;numberOfCurrentPartition<numberOfSegments * numberOfPartitionsToSelect;
@@ -175,78 +182,27 @@ public class StructureGMMConverter extends AmuseTask implements MatrixToVectorCo
 							currentPartitionInSegment*(partitionSizeInWindows - overlapSizeInWindows); 
 					Double partitionEnd = partitionStart + partitionSizeInWindows;
 					
-					// Increment the number of current time window if the lower partition boundary is not achieved
-					for(int k=currentWindow;k<features.get(i).getWindows().size();k++) {
-						if(features.get(i).getWindows().get(k) >= partitionStart) {
-							currentWindow = k;
-							break;
-						}
-					}
-					
 					// If no features are available for the current partition, go to the next partition
-					if(features.get(i).getWindows().get(currentWindow) > partitionEnd) {
-						continue;
-					}
-					
-					// Create a list with time windows which are in the current partition
-					ArrayList<Double> windowsOfCurrentPartition = new ArrayList<Double>();
-					while(features.get(i).getWindows().get(currentWindow) >= partitionStart && 
-							features.get(i).getWindows().get(currentWindow) < partitionEnd) {
-						windowsOfCurrentPartition.add(features.get(i).getWindows().get(currentWindow));
-						
-						// The last existing window is achieved
-						if(currentWindow == features.get(i).getWindows().size() - 1) {
-							break;
-						}
-						currentWindow++;
-					}
-					
-					// Check if the current partition has any windows
-					if(windowsOfCurrentPartition.size() == 0) {
+					if(!aggregator.setPartition(partitionStart, partitionEnd)) {
 						continue;
 					}
 					
 					// Update the list with all used time windows for a measure
 					// TODO Evtl. auslagern
 					if(i == 0) {
-						for(int k=0;k<windowsOfCurrentPartition.size();k++) {
-							if(!usedTimeWindows.contains(windowsOfCurrentPartition.get(k))) {
-								usedTimeWindows.add(windowsOfCurrentPartition.get(k));
+						for(int k=aggregator.getFromIndex();k<aggregator.getToIndex();k++) {
+							if(usedTimeWindowSet.add(feature.getWindow(k))) {
+								usedTimeWindows.add(feature.getWindow(k));
 							}
 						}
 					}
 					
-					// Calculate mean and standard deviation for feature dimensions
-					// Go through all feature dimensions
+					// Add mean and deviation of all feature dimensions to the new generated features
+					partitionStatistics = aggregator.calculate(partitionStatistics);
 					for(int k=0;k<numberOfAllSingleFeatures;k++) {
-						
-						// Calculate mean and variance
-						Double mean = 0d;
-						Double variance = 0d;
-						for(Double l:windowsOfCurrentPartition) {
-							mean += features.get(i).getValuesFromWindow(l)[k];
-						}
-						mean /= windowsOfCurrentPartition.size();
-						for(Double l:windowsOfCurrentPartition) {
-							variance += Math.pow((Double)features.get(i).getValuesFromWindow(l)[k]-mean,2);
-						}
-						variance /= windowsOfCurrentPartition.size();
-								
-						// Add mean and deviation to the new generated features
-						Double[] meanD = new Double[1]; meanD[0] = mean;
-						Double[] stddevD = new Double[1]; stddevD[0] = variance;
-						newFeatures.get(2*k).getValues().add(meanD);
-						newFeatures.get(2*k).getWindows().add(partitionStart);
-						newFeatures.get(2*k+1).getValues().add(stddevD);
-						newFeatures.get(2*k+1).getWindows().add(partitionStart);
-						
-						// Go with the current window back because of overlap (some time windows used in the
-						// current partition may be also used in the next partition)
-						while(features.get(i).getWindows().get(currentWindow) >= partitionStart + (partitionSizeInWindows - overlapSizeInWindows) && currentWindow > 0) {
-							currentWindow--;
-						}
+						newFeatures.get(2*k).addWindow(partitionStart, new Double[] {partitionStatistics[2*k]});
+						newFeatures.get(2*k+1).addWindow(partitionStart, new Double[] {partitionStatistics[2*k+1]});
 					}
-					
 				}
 				
 				for(int m=0;m<newFeatures.size();m++) {
@@ -68,18 +68,26 @@ public class NaNEliminator extends AmuseTask implements DimensionProcessorInterf
 			for(int i=0;i<features.size();i++) {
 				features.get(i).getHistory().add(new String("NaN_eliminated"));
 				
-				int numberOfAllSingleFeatures = features.get(i).getValues().get(0).length;
+				Feature feature = features.get(i);
+				int numberOfAllSingleFeatures = feature.getDimension();
+				int numberOfWindows = feature.getNumberOfWindows();
 
 				// Go through all feature dimensions
 				for(int j=0;j<numberOfAllSingleFeatures;j++) {
 					
 					// Calculate the median
-					ArrayList<Double> featureValues = new ArrayList<Double>(features.get(i).getValues().size());
-					for(int k=0;k<features.get(i).getValues().size();k++) {
-						if(!features.get(i).getValues().get(k)[j].isNaN()) {
-							featureValues.add(new Double(features.get(i).getValues().get(k)[j]));
+					ArrayList<Double> featureValues = new ArrayList<Double>(numberOfWindows);
+					for(int k=0;k<numberOfWindows;k++) {
+						double value = feature.getValue(k, j);
+						if(!Double.isNaN(value)) {
+							featureValues.add(value);
 						}
 					}
+					
+					// The values are read without copying and changed only if NaN values exist
+					if(featureValues.size() == numberOfWindows) {
+						continue;
+					}
 					java.util.Collections.sort(featureValues);
 					
 					// If only NaN values are there, replace by zero
@@ -89,9 +97,10 @@ public class NaNEliminator extends AmuseTask implements DimensionProcessorInterf
 					}
 					
 					// Replace NaN-values to medians
-					for(int k=0;k<features.get(i).getValues().size();k++) {
-						if(features.get(i).getValues().get(k)[j].isNaN()) {
-							features.get(i).getValues().get(k)[j] = median;
+					ArrayList<Double[]> values = feature.getValues();
+					for(int k=0;k<numberOfWindows;k++) {
+						if(values.get(k)[j].isNaN()) {
+							values.get(k)[j] = median;
 						}
 					}
 			    }
@@ -95,13 +95,15 @@ public class BeatPruner extends AmuseTask implements DimensionProcessorInterface
 				windowOfCurrentBeat = new Double(Math.floor(beatTimes[currentBeatTimeNumber]*sampleRate/windowSize)).intValue()/2;
 			}
 					
-			// Go through all time windows
-			for(int k=0;k<features.get(j).getWindows().size();k++) {
+			// Go through all time windows and mark the windows which remain
+			boolean[] windowsToRetain = new boolean[features.get(j).getNumberOfWindows()];
+			for(int k=0;k<windowsToRetain.length;k++) {
 				
-				int currentWindow = features.get(j).getWindows().get(k).intValue()-1;
+				int currentWindow = (int)features.get(j).getWindow(k)-1;
 					
 				// The value remains
 				if(windowOfCurrentBeat == currentWindow) {
+					windowsToRetain[k] = true;
 							
 					// Go to the next beat time. If the next beat times corresponds to the
 					// same time window, proceed further!
@@ -126,14 +128,10 @@ public class BeatPruner extends AmuseTask implements DimensionProcessorInterface
 						}
 					} 
 				} 
-					
-				// Remove features from beat or between beat windows
-				else {
-					features.get(j).getValues().remove(k);
-					features.get(j).getWindows().remove(k);
-					k--;
-				}
 		    }
+			
+			// Remove features from beat or between beat windows
+			features.get(j).retainWindows(windowsToRetain);
 		}
 		
 		AmuseLogger.write(this.getClass().getName(), Level.INFO, "...reduction succeeded");
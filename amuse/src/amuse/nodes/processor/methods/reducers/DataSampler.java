@@ -140,7 +140,7 @@ public class DataSampler extends AmuseTask implements DimensionProcessorInterfac
 				
 				// Set the step size
 				eventTimesNumber *= coeff; 
-				stepSize = features.get(0).getValues().size() / eventTimesNumber;
+				stepSize = features.get(0).getNumberOfWindows() / eventTimesNumber;
 			} catch(IOException e) {
 				throw new NodeException("Problem occured during data sampling: " + e.getMessage());
 			}
@@ -151,23 +151,21 @@ public class DataSampler extends AmuseTask implements DimensionProcessorInterfac
 			features.get(j).getHistory().add(new String(this.stepSize + "_sampled"));
 			int windowToLookFor = 0;
 					
-			// Go through all time windows
-			for(int k=0;k<features.get(j).getWindows().size();k++) {
+			// Go through all time windows and mark the windows which remain
+			boolean[] windowsToRetain = new boolean[features.get(j).getNumberOfWindows()];
+			for(int k=0;k<windowsToRetain.length;k++) {
 				
-				int currentWindow = features.get(j).getWindows().get(k).intValue()-1;
+				int currentWindow = (int)features.get(j).getWindow(k)-1;
 						
 				// The value remains
 				if(windowToLookFor == currentWindow) {
+					windowsToRetain[k] = true;
 					windowToLookFor += this.stepSize;	
 				} 
-					
-				// Remove features
-				else {
-					features.get(j).getValues().remove(k);
-					features.get(j).getWindows().remove(k);
-					k--;
-				}
 			}
+			
+			// Remove features
+			features.get(j).retainWindows(windowsToRetain);
 		}
 				
 		AmuseLogger.write(this.getClass().getName(), Level.INFO, "...sampling succeeded");
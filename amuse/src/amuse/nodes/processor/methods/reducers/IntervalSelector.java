@@ -104,18 +104,16 @@ public class IntervalSelector extends AmuseTask implements DimensionProcessorInt
 				features.get(j).getHistory().add(new String(this.msNumber + "_ms_selected_from_middle"));
 			}
 				
-			// Go through all time windows
-			for(int k=0;k<features.get(j).getWindows().size();k++) {
+			// Go through all time windows and mark the windows inside of a given interval
+			boolean[] windowsToRetain = new boolean[features.get(j).getNumberOfWindows()];
+			for(int k=0;k<windowsToRetain.length;k++) {
 				
-				int currentWindow = features.get(j).getWindows().get(k).intValue()-1;
-						
-				// Remove features if they are outside of a given interval
-				if(currentWindow < startWindow || currentWindow >= endWindow) {
-					features.get(j).getValues().remove(k);
-					features.get(j).getWindows().remove(k);
-					k--;
-				} 
+				int currentWindow = (int)features.get(j).getWindow(k)-1;
+				windowsToRetain[k] = currentWindow >= startWindow && currentWindow < endWindow;
 			}
+			
+			// Remove features if they are outside of a given interval
+			features.get(j).retainWindows(windowsToRetain);
 		}
 				
 		AmuseLogger.write(this.getClass().getName(), Level.INFO, "...interval selection succeeded");
@@ -95,13 +95,15 @@ public class OnsetPruner extends AmuseTask implements DimensionProcessorInterfac
 				windowOfCurrentOnset = new Double(Math.floor(onsetTimes[currentOnsetTimeNumber]*sampleRate/windowSize)).intValue()/2;
 			}
 					
-			// Go through all time windows
-			for(int k=0;k<features.get(j).getWindows().size();k++) {
+			// Go through all time windows and mark the windows which remain
+			boolean[] windowsToRetain = new boolean[features.get(j).getNumberOfWindows()];
+			for(int k=0;k<windowsToRetain.length;k++) {
 				
-				int currentWindow = features.get(j).getWindows().get(k).intValue()-1;
+				int currentWindow = (int)features.get(j).getWindow(k)-1;
 						
 				// The value remains
 				if(windowOfCurrentOnset == currentWindow) {
+					windowsToRetain[k] = true;
 						
 					// Go to the next onset time. If the next onset times corresponds to the
 					// same time window, proceed further!
@@ -126,14 +128,10 @@ public class OnsetPruner extends AmuseTask implements DimensionProcessorInterfac
 						}
 					} 
 				} 
-					
-				// Remove features from onset or between onset windows
-				else {
-					features.get(j).getValues().remove(k);
-					features.get(j).getWindows().remove(k);
-					k--;
-				}
 		    }
+			
+			// Remove features from onset or between onset windows
+			features.get(j).retainWindows(windowsToRetain);
 		}
 
 		AmuseLogger.write(this.getClass().getName(), Level.INFO, "...reduction succeeded");
@@ -24,9 +24,7 @@
 package amuse.nodes.trainer;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -55,6 +53,7 @@ import amuse.data.io.attributes.NumericAttribute;
 import amuse.interfaces.nodes.NodeEvent;
 import amuse.interfaces.nodes.NodeException;
 import amuse.interfaces.nodes.NodeScheduler;
+import amuse.interfaces.nodes.TaskBundle;
 import amuse.interfaces.nodes.TaskConfiguration;
 import amuse.interfaces.nodes.methods.AmuseTask;
 import amuse.nodes.classifier.ClassifierNodeScheduler;
@@ -290,27 +289,23 @@ public class TrainerNodeScheduler extends NodeScheduler {
 			System.exit(1);
 		}
 		
-		// Load the task configuration from %TRAINERHOME%/task.ser
-		TrainingConfiguration[] trainerConfig = null;
-		FileInputStream fis = null;
-		ObjectInputStream in = null;
+		// Load the task configurations from %TRAINERHOME%/task_%id%.ser; each job is read when it is proceeded
+		TaskBundle taskBundle = null;
 		try {
-			fis = new FileInputStream(args[0] + File.separator + "task_" + args[1] + ".ser");
-			in = new ObjectInputStream(fis);
-			Object o = in.readObject();
-			trainerConfig = (TrainingConfiguration[])o;
-			in.close();
-		} catch(IOException ex) {
-		    ex.printStackTrace();
-		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
-		}
-		
-		// Proceed the training task(s)
-		for(int i=0;i<trainerConfig.length;i++) {
-			proceedTask(args[0],new Long(args[1]),trainerConfig[i]);
-			AmuseLogger.write(this.getClass().getName(), Level.INFO, "Trainer node is going to start job " + 
-					(i+1) + File.separator + trainerConfig.length);
+			taskBundle = new TaskBundle(new File(args[0] + File.separator + "task_" + args[1] + ".ser"));
+			
+			// Proceed the training task(s)
+			for(int i=0;i<taskBundle.getNumberOfJobs();i++) {
+				proceedTask(args[0],new Long(args[1]),(TrainingConfiguration)taskBundle.getJob(i));
+				AmuseLogger.write(this.getClass().getName(), Level.INFO, "Trainer node is going to start job " + 
+						(i+1) + File.separator + taskBundle.getNumberOfJobs());
+			}
+		} catch(IOException e) {
+			AmuseLogger.write(this.getClass().getName(), Level.FATAL, "Could not load the task configuration: " + e.getMessage());
+		} finally {
+			if(taskBundle != null) {
+				taskBundle.close();
+			}
 		}
 	}
 	
@@ -701,7 +696,7 @@ public class TrainerNodeScheduler extends NodeScheduler {
 					for(int i = 0; i < features.size(); i++) {
 						//Omit the attributes that are supposed to be ignored
 						if(!attributesToIgnore.contains(i%numberOfValuesPerWindow)) {
-							labeledInputForTraining.addAttribute(new NumericAttribute(features.get(i).getHistoryAsString(), new ArrayList<Double>()));
+							labeledInputForTraining.addAttribute(new NumericAttribute(features.get(i).getHistoryAsString(), features.get(i).getNumberOfWindows()));
 						}
 					}
 					
@@ -728,10 +723,10 @@ public class TrainerNodeScheduler extends NodeScheduler {
 						if(end == -1) {
 							
 							// TODO Consider only the partitions up to 6 minutes of a music track; should be a parameter?
-							int numberOfMaxPartitions = features.get(0).getValues().size();
+							int numberOfMaxPartitions = features.get(0).getNumberOfWindows();
 							for(int j=1;j<features.size();j++) {
-								if(features.get(j).getValues().size() < numberOfMaxPartitions) {
-									numberOfMaxPartitions = features.get(j).getValues().size();
+								if(features.get(j).getNumberOfWindows() < numberOfMaxPartitions) {
+									numberOfMaxPartitions = features.get(j).getNumberOfWindows();
 								}
 							}
 							if((numberOfMaxPartitions * (((TrainingConfiguration)this.taskConfiguration).getClassificationWindowSize() - 
@@ -739,7 +734,7 @@ public class TrainerNodeScheduler extends NodeScheduler {
 								numberOfMaxPartitions = 360000 / (((TrainingConfiguration)this.taskConfiguration).getClassificationWindowSize() - 
 										((TrainingConfiguration)this.taskConfiguration).getClassificationWindowOverlap());
 								AmuseLogger.write(this.getClass().getName(), Level.WARN, 
-						   				"Number of partitions after processing reduced from " + features.get(0).getValues().size() + 
+						   				"Number of partitions after processing reduced from " + features.get(0).getNumberOfWindows() + 
 						   				" to " + numberOfMaxPartitions);
 							}
 							
@@ -748,8 +743,7 @@ public class TrainerNodeScheduler extends NodeScheduler {
 								for(int k = 0; k < features.size(); k++) {
 									// Omit the attributes that are supposed to be ignored
 									if(!attributesToIgnore.contains(k%numberOfValuesPerWindow)) {
-										Double val = features.get(k).getValues().get(j)[0];
-										labeledInputForTraining.getAttribute(currentAttribute).addValue(val);
+										((NumericAttribute)labeledInputForTraining.getAttribute(currentAttribute)).addValue(features.get(k).getValue(j, 0));
 										currentAttribute++;
 									}
 								}
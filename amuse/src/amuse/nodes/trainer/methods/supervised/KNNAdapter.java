@@ -29,25 +29,12 @@ import amuse.interfaces.nodes.methods.AmuseTask;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.trainer.TrainingConfiguration;
 import amuse.nodes.trainer.interfaces.TrainerInterface;
-import amuse.util.FileOperations;
-import amuse.util.LibraryInitializer;
 
 import java.io.File;
 
-import com.rapidminer.Process;
-import com.rapidminer.operator.IOContainer;
-import com.rapidminer.operator.Operator;
-import com.rapidminer.operator.io.RepositoryStorer;
-import com.rapidminer.operator.ports.InputPort;
-import com.rapidminer.operator.ports.OutputPort;
-import com.rapidminer.repository.Repository;
-import com.rapidminer.repository.RepositoryManager;
-import com.rapidminer.repository.local.LocalRepository;
-import com.rapidminer.tools.OperatorService;
-import com.rapidminer.operator.learner.lazy.KNNLearner;
-
 /**
- * Adapter for k-Nearest Neighbours. For further details of RapidMiner see <a href="http://rapid-i.com/">http://rapid-i.com/</a>
+ * Adapter for k-Nearest Neighbours. Since k-NN is not trained, the training data is saved as the model; the
+ * neighbours are searched by <code>amuse.nodes.classifier.methods.supervised.KNNAdapter</code>.
  * 
  * @author Igor Vatolkin
  * @version $Id: KNNAdapter.java 241 2018-07-26 12:35:24Z frederik-h $
@@ -75,11 +62,7 @@ public class KNNAdapter extends AmuseTask implements TrainerInterface {
 	 * @see amuse.interfaces.AmuseTaskInterface#initialize()
 	 */
 	public void initialize() throws NodeException {
-		try {
-			LibraryInitializer.initializeRapidMiner();
-		} catch (Exception e) {
-			throw new NodeException("Could not initialize RapidMiner: " + e.getMessage());
-		}
+		//Does nothing
 	}
 	
 	/*
@@ -89,36 +72,11 @@ public class KNNAdapter extends AmuseTask implements TrainerInterface {
 	public void trainModel(String outputModel) throws NodeException {
 		DataSet dataSet = ((DataSetInput)((TrainingConfiguration)this.correspondingScheduler.getConfiguration()).getGroundTruthSource()).getDataSet();
 		
-		// Train the model and save it
+		// Save the complete data, which is indexed for the neighbour search during classification
 		try {
-			Process process = new Process();
-			
-			// Train the model
-			Operator modelLearner = OperatorService.createOperator(KNNLearner.class);
-			
-			//Set the parameters
-			modelLearner.setParameter("k", new Integer(neighbourNumber).toString());
-			process.getRootOperator().getSubprocess(0).addOperator(modelLearner);
-			
-			// Write the model
-			RepositoryStorer modelWriter = OperatorService.createOperator(RepositoryStorer.class);
-			modelWriter.setParameter(RepositoryStorer.PARAMETER_REPOSITORY_ENTRY, "//" + LibraryInitializer.RAPIDMINER_REPO_NAME + "/model");
-			process.getRootOperator().getSubprocess(0).addOperator(modelWriter);
-			
-			// Connect the Ports
-			InputPort modelLearnerInputPort = modelLearner.getInputPorts().getPortByName("training set");
-			OutputPort modelLearnerOutputPort = modelLearner.getOutputPorts().getPortByName("model");
-			InputPort modelWriterInputPort = modelWriter.getInputPorts().getPortByName("input");
-			OutputPort processOutputPort = process.getRootOperator().getSubprocess(0).getInnerSources().getPortByIndex(0);
-			
-			modelLearnerOutputPort.connectTo(modelWriterInputPort);
-			processOutputPort.connectTo(modelLearnerInputPort);
-			
-			// Run the process
-			process.run(new IOContainer(dataSet.convertToRapidMinerExampleSet()));
-			
-			// Copy the model into the model database
-			FileOperations.copy(new File(LibraryInitializer.REPOSITORY_PATH + File.separator + "model.ioo"), new File(outputModel));
+			File modelFile = new File(outputModel);
+			modelFile.getParentFile().mkdirs();
+			dataSet.saveToArffFile(modelFile);
 			
 		} catch (Exception e) {
 			throw new NodeException("Classification training failed: " + e.getMessage());
@@ -25,10 +25,8 @@ package amuse.nodes.validator;
 
 import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
@@ -54,6 +52,7 @@ import amuse.data.io.attributes.NumericAttribute;
 import amuse.interfaces.nodes.NodeEvent;
 import amuse.interfaces.nodes.NodeException;
 import amuse.interfaces.nodes.NodeScheduler;
+import amuse.interfaces.nodes.TaskBundle;
 import amuse.interfaces.nodes.TaskConfiguration;
 import amuse.interfaces.nodes.methods.AmuseTask;
 import amuse.nodes.classifier.ClassifierNodeScheduler;
@@ -63,6 +62,7 @@ import amuse.nodes.processor.ProcessorNodeScheduler;
 import amuse.nodes.trainer.TrainingConfiguration;
 import amuse.nodes.validator.interfaces.ValidationMeasure;
 import amuse.nodes.validator.interfaces.ValidatorInterface;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
 import amuse.preferences.AmusePreferences;
 import amuse.preferences.KeysStringValue;
 import amuse.scheduler.gui.algorithm.Algorithm;
@@ -282,27 +282,23 @@ public class ValidatorNodeScheduler extends NodeScheduler {
 			System.exit(1);
 		}
 		
-		// Load the task configuration from %VALIDATORHOME%/task.ser
-		ValidationConfiguration[] validatorConfig = null;
-		FileInputStream fis = null;
-		ObjectInputStream in = null;
+		// Load the task configurations from %VALIDATORHOME%/task_%id%.ser; each job is read when it is proceeded
+		TaskBundle taskBundle = null;
 		try {
-			fis = new FileInputStream(args[0] + File.separator + "task_" + args[1] + ".ser");
-			in = new ObjectInputStream(fis);
-			Object o = in.readObject();
-			validatorConfig = (ValidationConfiguration[])o;
-			in.close();
-		} catch(IOException ex) {
-		    ex.printStackTrace();
-		} catch (ClassNotFoundException e) {
-			e.printStackTrace();
-		}
-		
-		// Proceed the validation task(s)
-		for(int i=0;i<validatorConfig.length;i++) {
-			proceedTask(args[0],new Long(args[1]),validatorConfig[i]);
-			AmuseLogger.write(this.getClass().getName(), Level.INFO, "Validator node is going to start job " + 
-					(i+1) + File.separator + validatorConfig.length);
+			taskBundle = new TaskBundle(new File(args[0] + File.separator + "task_" + args[1] + ".ser"));
+			
+			// Proceed the validation task(s)
+			for(int i=0;i<taskBundle.getNumberOfJobs();i++) {
+				proceedTask(args[0],new Long(args[1]),(ValidationConfiguration)taskBundle.getJob(i));
+				AmuseLogger.write(this.getClass().getName(), Level.INFO, "Validator node is going to start job " + 
+						(i+1) + File.separator + taskBundle.getNumberOfJobs());
+			}
+		} catch(IOException e) {
+			AmuseLogger.write(this.getClass().getName(), Level.FATAL, "Could not load the task configuration: " + e.getMessage());
+		} finally {
+			if(taskBundle != null) {
+				taskBundle.close();
+			}
 		}
 	}
 	
@@ -757,7 +753,7 @@ public class ValidatorNodeScheduler extends NodeScheduler {
 					for(int i = 0; i < features.size(); i++) {
 						//Omit the attributes that are supposed to be ignored
 						if(!attributesToIgnore.contains(i%numberOfValuesPerWindow)) {
-							labeledInputForValidation.addAttribute(new NumericAttribute(features.get(i).getHistoryAsString(), new ArrayList<Double>()));
+							labeledInputForValidation.addAttribute(new NumericAttribute(features.get(i).getHistoryAsString(), features.get(i).getNumberOfWindows()));
 						}
 					}
 					
@@ -796,10 +792,10 @@ public class ValidatorNodeScheduler extends NodeScheduler {
 						if(end == -1) {
 							
 							// TODO Consider only the partitions up to 6 minutes of a music track; should be a parameter?
-							int numberOfMaxPartitions = features.get(0).getValues().size();
+							int numberOfMaxPartitions = features.get(0).getNumberOfWindows();
 							for(int j=1;j<features.size();j++) {
-								if(features.get(j).getValues().size() < numberOfMaxPartitions) {
-									numberOfMaxPartitions = features.get(j).getValues().size();
+								if(features.get(j).getNumberOfWindows() < numberOfMaxPartitions) {
+									numberOfMaxPartitions = features.get(j).getNumberOfWindows();
 								}
 							}
 							if((numberOfMaxPartitions * (((ValidationConfiguration)this.taskConfiguration).getClassificationWindowSize() - 
@@ -807,7 +803,7 @@ public class ValidatorNodeScheduler extends NodeScheduler {
 								numberOfMaxPartitions = 360000 / (((ValidationConfiguration)this.taskConfiguration).getClassificationWindowSize() - 
 										((ValidationConfiguration)this.taskConfiguration).getClassificationWindowOverlap());
 								AmuseLogger.write(this.getClass().getName(), Level.WARN, 
-						   				"Number of partitions after processing reduced from " + features.get(0).getValues().size() + 
+						   				"Number of partitions after processing reduced from " + features.get(0).getNumberOfWindows() + 
 						   				" to " + numberOfMaxPartitions);
 							}
 							
@@ -820,8 +816,7 @@ public class ValidatorNodeScheduler extends NodeScheduler {
 								for(int k = 0; k < features.size(); k++) {
 									// Omit the attributes that are supposed to be ignored
 									if(!attributesToIgnore.contains(k%numberOfValuesPerWindow)) {
-										Double val = features.get(k).getValues().get(j)[0];
-										labeledInputForValidation.getAttribute(currentAttribute).addValue(val);
+										((NumericAttribute)labeledInputForValidation.getAttribute(currentAttribute)).addValue(features.get(k).getValue(j, 0));
 										currentAttribute++;
 									}
 								}
@@ -1194,6 +1189,36 @@ public class ValidatorNodeScheduler extends NodeScheduler {
 		return labeledSongRelationships;
 	}
 	
+	/**
+	 * Calculates the confusion matrix of a validation run with binary classification, which is shared by
+	 * all confusion matrix based measures of this run
+	 * @param groundTruthRelationships Labeled relationships of the validated songs
+	 * @param predictedRelationships Predicted relationships of the validated songs
+	 * @return The confusion matrix or null if ground truth and predictions do not match
+	 */
+	public ConfusionMatrix createOneClassConfusionMatrix(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) {
+		if(groundTruthRelationships.size() != predictedRelationships.size()) {
+			return null;
+		}
+		return ConfusionMatrix.createOneClassMatrix(groundTruthRelationships, predictedRelationships, 
+				((ValidationConfiguration)this.getConfiguration()).getRelationshipType() == RelationshipType.CONTINUOUS);
+	}
+	
+	/**
+	 * Calculates the confusion matrix of a validation run with multi-label or multi-class classification,
+	 * which is shared by all confusion matrix based measures of this run
+	 * @param groundTruthRelationships Labeled relationships of the validated songs
+	 * @param predictedRelationships Predicted relationships of the validated songs
+	 * @return The confusion matrix or null if ground truth and predictions do not match
+	 */
+	public ConfusionMatrix createMultiLabelConfusionMatrix(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) {
+		if(groundTruthRelationships.isEmpty() || groundTruthRelationships.size() != predictedRelationships.size()) {
+			return null;
+		}
+		return ConfusionMatrix.createMultiLabelMatrix(groundTruthRelationships, predictedRelationships, 
+				((ValidationConfiguration)this.getConfiguration()).getRelationshipType() == RelationshipType.CONTINUOUS);
+	}
+	
 	/**
 	 * @return the labeledSongRelationships
 	 */
@@ -27,6 +27,7 @@ import java.util.ArrayList;
 
 import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
 
 /**
  * Methods which calculate double measures based on classification results and ground truth information should extend this class.
@@ -44,6 +45,9 @@ public abstract class ClassificationQualityDoubleMeasureCalculator implements Cl
 	
 	/** True if this measure will be calculated in a fuzzy way */
 	private boolean continuous = false;
+	
+	/** Confusion matrix of the current validation run, which is shared by the measures */
+	private ConfusionMatrix confusionMatrix = null;
 
 	/*
 	 * (non-Javadoc)
@@ -93,6 +97,37 @@ public abstract class ClassificationQualityDoubleMeasureCalculator implements Cl
 		this.continuous = continuous;
 	}
 	
+	/**
+	 * Sets the confusion matrix of the current validation run, so that the measure does not count
+	 * the classification results again
+	 * @param confusionMatrix Confusion matrix calculated for the ground truth and predictions of this run
+	 */
+	public void setConfusionMatrix(ConfusionMatrix confusionMatrix) {
+		this.confusionMatrix = confusionMatrix;
+	}
+	
+	/**
+	 * @return The confusion matrix for the given binary classification results; it is calculated only
+	 * if no matrix has been set or calculated before for the same results
+	 */
+	protected ConfusionMatrix getOneClassConfusionMatrix(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) {
+		if(confusionMatrix == null || !confusionMatrix.isCalculatedFor(groundTruthRelationships, predictedRelationships, isContinuous())) {
+			confusionMatrix = ConfusionMatrix.createOneClassMatrix(groundTruthRelationships, predictedRelationships, isContinuous());
+		}
+		return confusionMatrix;
+	}
+	
+	/**
+	 * @return The confusion matrix for the given multi-label or multi-class classification results; it is
+	 * calculated only if no matrix has been set or calculated before for the same results
+	 */
+	protected ConfusionMatrix getMultiLabelConfusionMatrix(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) {
+		if(confusionMatrix == null || !confusionMatrix.isCalculatedFor(groundTruthRelationships, predictedRelationships, isContinuous())) {
+			confusionMatrix = ConfusionMatrix.createMultiLabelMatrix(groundTruthRelationships, predictedRelationships, isContinuous());
+		}
+		return confusionMatrix;
+	}
+	
 	/**
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMeasure(java.util.ArrayList, java.util.ArrayList)
 	 */
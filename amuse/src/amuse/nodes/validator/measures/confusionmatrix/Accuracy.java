@@ -29,10 +29,8 @@ import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
-import amuse.nodes.validator.measures.confusionmatrix.base.FalseNegatives;
-import amuse.nodes.validator.measures.confusionmatrix.base.FalsePositives;
-import amuse.nodes.validator.measures.confusionmatrix.base.TrueNegatives;
-import amuse.nodes.validator.measures.confusionmatrix.base.TruePositives;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix.Level;
 
 /**
  * The root mean square error calculates the root of the sum of squared differences between 
@@ -54,30 +52,8 @@ public class Accuracy extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateOneClassMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double errorSum = 0.0d;
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			// Calculate the predicted value for this song (averaging among all partitions)
-			Double currentPredictedValue = 0.0d;
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				currentPredictedValue += predictedRelationships.get(i).getRelationships()[j][0];
-			}
-			currentPredictedValue /= predictedRelationships.get(i).getRelationships().length;
-			
-			//If the classification was not continuous, round the predicted values
-			if(!isContinuous()) {
-				if(currentPredictedValue >= 0.5) {
-					currentPredictedValue = 1.0d;
-				} else {
-					currentPredictedValue = 0.0d;
-				}
-			}
-			
-			Double currentGroundTruthValue = groundTruthRelationships.get(i);
-			
-			// Calculate error
-			Double error = Math.abs(currentPredictedValue - currentGroundTruthValue);
-			errorSum += error;
-		}
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double errorSum = matrix.getAbsoluteError(Level.SONG, 0);
 		Double numberOfCorrectClassifications = groundTruthRelationships.size() - errorSum;
 		Double accuracy = numberOfCorrectClassifications * 1.0d / groundTruthRelationships.size();
 		
@@ -94,14 +70,9 @@ public class Accuracy extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateOneClassMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double errorSum = 0;
-		int partitionNumber = 0;
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			partitionNumber += predictedRelationships.get(i).getRelationships().length;
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				errorSum += Math.abs(predictedRelationships.get(i).getRelationships()[j][0].doubleValue() - groundTruthRelationships.get(i).doubleValue());
-			}
-		}
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double errorSum = matrix.getAbsoluteError(Level.PARTITION, 0);
+		int partitionNumber = matrix.getNumberOfInstances(Level.PARTITION);
 		double numberOfCorrectClassifications = partitionNumber - errorSum;
 		Double accuracy = new Double(numberOfCorrectClassifications) * 1.0d / partitionNumber;
 		
@@ -134,35 +105,17 @@ public class Accuracy extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		//Get True Positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setSongLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tp = truePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		//Get True Negatives
-		TrueNegatives trueNegativesCalculator = new TrueNegatives();
-		trueNegativesCalculator.setSongLevel(true);
-		trueNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tn = trueNegativesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		//Get False Positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setSongLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fp = falsePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		//Get False Negatives
-		FalseNegatives falseNegativesCalculator = new FalseNegatives();
-		falseNegativesCalculator.setSongLevel(true);
-		falseNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fn = falseNegativesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
 		
 		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
 		
 		double accuracy = 0;
 		for(int i = 0; i < numberOfCategories; i++) {
-			accuracy += (tp[i].getValue() + tn[i].getValue()) / (tp[i].getValue() + fn[i].getValue() + fp[i].getValue() + tn[i].getValue());
+			double tp = matrix.getTruePositives(Level.SONG, i);
+			double tn = matrix.getTrueNegatives(Level.SONG, i);
+			double fp = matrix.getFalsePositives(Level.SONG, i);
+			double fn = matrix.getFalseNegatives(Level.SONG, i);
+			accuracy += (tp + tn) / (tp + fn + fp + tn);
 		}
 		accuracy /= numberOfCategories;
 		
@@ -181,35 +134,17 @@ public class Accuracy extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		//Get True Positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setPartitionLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tp = truePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		//Get True Negatives
-		TrueNegatives trueNegativesCalculator = new TrueNegatives();
-		trueNegativesCalculator.setPartitionLevel(true);
-		trueNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tn = trueNegativesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		//Get False Positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setPartitionLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fp = falsePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		//Get False Negatives
-		FalseNegatives falseNegativesCalculator = new FalseNegatives();
-		falseNegativesCalculator.setPartitionLevel(true);
-		falseNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fn = falseNegativesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
 		
 		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
 		
 		double accuracy = 0;
 		for(int i = 0; i < numberOfCategories; i++) {
-			accuracy += (tp[i].getValue() + tn[i].getValue()) / (tp[i].getValue() + fn[i].getValue() + fp[i].getValue() + tn[i].getValue());
+			double tp = matrix.getTruePositives(Level.PARTITION, i);
+			double tn = matrix.getTrueNegatives(Level.PARTITION, i);
+			double fp = matrix.getFalsePositives(Level.PARTITION, i);
+			double fn = matrix.getFalseNegatives(Level.PARTITION, i);
+			accuracy += (tp + tn) / (tp + fn + fp + tn);
 		}
 		accuracy /= numberOfCategories;
 		
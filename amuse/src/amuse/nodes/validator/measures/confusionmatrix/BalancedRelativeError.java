@@ -29,10 +29,8 @@ import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
-import amuse.nodes.validator.measures.confusionmatrix.base.FalseNegatives;
-import amuse.nodes.validator.measures.confusionmatrix.base.FalsePositives;
-import amuse.nodes.validator.measures.confusionmatrix.base.TrueNegatives;
-import amuse.nodes.validator.measures.confusionmatrix.base.TruePositives;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix.Level;
 
 /**
  * Precision measure
@@ -54,31 +52,12 @@ public class BalancedRelativeError extends ClassificationQualityDoubleMeasureCal
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
-		// Get true positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setSongLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble tp = truePositivesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		// Get false positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setSongLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble fp = falsePositivesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		// Get true negatives
-		TrueNegatives trueNegativesCalculator = new TrueNegatives();
-		trueNegativesCalculator.setSongLevel(true);
-		trueNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble tn = trueNegativesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		// Get false negatives
-		FalseNegatives falseNegativesCalculator = new FalseNegatives();
-		falseNegativesCalculator.setSongLevel(true);
-		falseNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble fn = falseNegativesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		double bre = 0.5 * (fn.getValue()/(tp.getValue() + fn.getValue()) + fp.getValue()/(tn.getValue() + fp.getValue()));
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double tp = matrix.getTruePositives(Level.SONG, 0);
+		double fp = matrix.getFalsePositives(Level.SONG, 0);
+		double tn = matrix.getTrueNegatives(Level.SONG, 0);
+		double fn = matrix.getFalseNegatives(Level.SONG, 0);
+		double bre = 0.5 * (fn/(tp + fn) + fp/(tn + fp));
 		
 		// Prepare the result
 		ValidationMeasureDouble[] breMeasure = new ValidationMeasureDouble[1];
@@ -94,31 +73,12 @@ public class BalancedRelativeError extends ClassificationQualityDoubleMeasureCal
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
-		// Get true positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setPartitionLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble tp = truePositivesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		// Get false positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setPartitionLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble fp = falsePositivesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		// Get true negatives
-		TrueNegatives trueNegativesCalculator = new TrueNegatives();
-		trueNegativesCalculator.setPartitionLevel(true);
-		trueNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble tn = trueNegativesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		// Get false negatives
-		FalseNegatives falseNegativesCalculator = new FalseNegatives();
-		falseNegativesCalculator.setPartitionLevel(true);
-		falseNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble fn = falseNegativesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		double bre = 0.5 * (fn.getValue()/(tp.getValue() + fn.getValue()) + fp.getValue()/(tn.getValue() + fp.getValue()));
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double tp = matrix.getTruePositives(Level.PARTITION, 0);
+		double fp = matrix.getFalsePositives(Level.PARTITION, 0);
+		double tn = matrix.getTrueNegatives(Level.PARTITION, 0);
+		double fn = matrix.getFalseNegatives(Level.PARTITION, 0);
+		double bre = 0.5 * (fn/(tp + fn) + fp/(tn + fp));
 		
 		// Prepare the result
 		ValidationMeasureDouble[] breMeasure = new ValidationMeasureDouble[1];
@@ -149,43 +109,12 @@ public class BalancedRelativeError extends ClassificationQualityDoubleMeasureCal
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		// Get true positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setSongLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tp = truePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		// Get false positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setSongLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fp = falsePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
 		
-		// Get true negatives
-		TrueNegatives trueNegativesCalculator = new TrueNegatives();
-		trueNegativesCalculator.setSongLevel(true);
-		trueNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tn = trueNegativesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		// Get false negatives
-		FalseNegatives falseNegativesCalculator = new FalseNegatives();
-		falseNegativesCalculator.setSongLevel(true);
-		falseNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fn = falseNegativesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
-		
-		double tpSum = 0;
-		double fpSum = 0;
-		double tnSum = 0;
-		double fnSum = 0;
-		
-		for(int i = 0; i < numberOfCategories; i++) {
-			tpSum += tp[i].getValue();
-			fpSum += fp[i].getValue();
-			tnSum += tn[i].getValue();
-			fnSum += fn[i].getValue();
-		}
+		double tpSum = matrix.getTruePositives(Level.SONG);
+		double fpSum = matrix.getFalsePositives(Level.SONG);
+		double tnSum = matrix.getTrueNegatives(Level.SONG);
+		double fnSum = matrix.getFalseNegatives(Level.SONG);
 		
 		double bre = 0.5 * (fnSum / (tpSum + fnSum) + fpSum / (tnSum + fpSum));
 		
@@ -204,43 +133,12 @@ public class BalancedRelativeError extends ClassificationQualityDoubleMeasureCal
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		// Get true positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setPartitionLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tp = truePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		// Get false positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setPartitionLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fp = falsePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		// Get true negatives
-		TrueNegatives trueNegativesCalculator = new TrueNegatives();
-		trueNegativesCalculator.setPartitionLevel(true);
-		trueNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tn = trueNegativesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		// Get false negatives
-		FalseNegatives falseNegativesCalculator = new FalseNegatives();
-		falseNegativesCalculator.setPartitionLevel(true);
-		falseNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fn = falseNegativesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
-		
-		double tpSum = 0;
-		double fpSum = 0;
-		double tnSum = 0;
-		double fnSum = 0;
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
 		
-		for(int i = 0; i < numberOfCategories; i++) {
-			tpSum += tp[i].getValue();
-			fpSum += fp[i].getValue();
-			tnSum += tn[i].getValue();
-			fnSum += fn[i].getValue();
-		}
+		double tpSum = matrix.getTruePositives(Level.PARTITION);
+		double fpSum = matrix.getFalsePositives(Level.PARTITION);
+		double tnSum = matrix.getTrueNegatives(Level.PARTITION);
+		double fnSum = matrix.getFalseNegatives(Level.PARTITION);
 		
 		double bre = 0.5 * (fnSum / (tpSum + fnSum) + fpSum / (tnSum + fpSum));
 		
@@ -29,6 +29,7 @@ import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
 
 /**
  * The classification algorithm distinguishes poorly between positive and negative examples if Discriminant Power (DP) < 1, 
@@ -51,10 +52,15 @@ public class DiscriminantPower extends ClassificationQualityDoubleMeasureCalcula
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		Specificity specificityCalculator = new Specificity();
 		specificityCalculator.setContinuous(isContinuous());
+		specificityCalculator.setConfusionMatrix(matrix);
 		Recall recallCalculator = new Recall();
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		
 		ValidationMeasureDouble[] specificity = specificityCalculator.calculateOneClassMeasureOnSongLevel(
 				groundTruthRelationships, predictedRelationships);
@@ -80,10 +86,15 @@ public class DiscriminantPower extends ClassificationQualityDoubleMeasureCalcula
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		Specificity specificityCalculator = new Specificity();
 		specificityCalculator.setContinuous(isContinuous());
+		specificityCalculator.setConfusionMatrix(matrix);
 		Recall recallCalculator = new Recall();
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		
 		ValidationMeasureDouble[] specificity = specificityCalculator.calculateOneClassMeasureOnPartitionLevel(
 				groundTruthRelationships, predictedRelationships);
@@ -125,10 +136,15 @@ public class DiscriminantPower extends ClassificationQualityDoubleMeasureCalcula
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		Specificity specificityCalculator = new Specificity();
 		specificityCalculator.setContinuous(isContinuous());
+		specificityCalculator.setConfusionMatrix(matrix);
 		Recall recallCalculator = new Recall();
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		
 		ValidationMeasureDouble[] specificity = specificityCalculator.calculateMultiLabelMeasureOnSongLevel(
 				groundTruthRelationships, predictedRelationships);
@@ -155,10 +171,15 @@ public class DiscriminantPower extends ClassificationQualityDoubleMeasureCalcula
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		Specificity specificityCalculator = new Specificity();
 		specificityCalculator.setContinuous(isContinuous());
+		specificityCalculator.setConfusionMatrix(matrix);
 		Recall recallCalculator = new Recall();
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		
 		ValidationMeasureDouble[] specificity = specificityCalculator.calculateMultiLabelMeasureOnPartitionLevel(
 				groundTruthRelationships, predictedRelationships);
@@ -29,6 +29,7 @@ import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
 
 /**
  * F-Measure measure 
@@ -50,16 +51,21 @@ public class FMeasure extends ClassificationQualityDoubleMeasureCalculator {
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		// Get precision
 		Precision precisionCalculator = new Precision();
 		precisionCalculator.setSongLevel(true);
 		precisionCalculator.setContinuous(isContinuous());
+		precisionCalculator.setConfusionMatrix(matrix);
 		ValidationMeasureDouble p = precisionCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
 		
 		// Get recall
 		Recall recallCalculator = new Recall();
 		recallCalculator.setSongLevel(true);
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		ValidationMeasureDouble r = recallCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
 		
 		double fMeasure = 2 * p.getValue() * r.getValue() / (p.getValue() + r.getValue());
@@ -78,16 +84,21 @@ public class FMeasure extends ClassificationQualityDoubleMeasureCalculator {
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		// Get precision
 		Precision precisionCalculator = new Precision();
 		precisionCalculator.setPartitionLevel(true);
 		precisionCalculator.setContinuous(isContinuous());
+		precisionCalculator.setConfusionMatrix(matrix);
 		ValidationMeasureDouble p = precisionCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
 		
 		// Get recall
 		Recall recallCalculator = new Recall();
 		recallCalculator.setPartitionLevel(true);
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		ValidationMeasureDouble r = recallCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
 		
 		double fMeasure = 2 * p.getValue() * r.getValue() / (p.getValue() + r.getValue());
@@ -123,16 +134,21 @@ public class FMeasure extends ClassificationQualityDoubleMeasureCalculator {
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		// Get precision
 		Precision precisionCalculator = new Precision();
 		precisionCalculator.setSongLevel(true);
 		precisionCalculator.setContinuous(isContinuous());
+		precisionCalculator.setConfusionMatrix(matrix);
 		ValidationMeasureDouble p = precisionCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships)[0];
 		
 		// Get recall
 		Recall recallCalculator = new Recall();
 		recallCalculator.setSongLevel(true);
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		ValidationMeasureDouble r = recallCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships)[0];
 		
 		double fMeasure = 2 * p.getValue() * r.getValue() / (p.getValue() + r.getValue());
@@ -152,16 +168,21 @@ public class FMeasure extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		// Get precision
 		Precision precisionCalculator = new Precision();
 		precisionCalculator.setPartitionLevel(true);
 		precisionCalculator.setContinuous(isContinuous());
+		precisionCalculator.setConfusionMatrix(matrix);
 		ValidationMeasureDouble p = precisionCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships)[0];
 		
 		// Get recall
 		Recall recallCalculator = new Recall();
 		recallCalculator.setPartitionLevel(true);
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		ValidationMeasureDouble r = recallCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships)[0];
 		
 		double fMeasure = 2 * p.getValue() * r.getValue() / (p.getValue() + r.getValue());
@@ -29,6 +29,7 @@ import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
 
 /**
  * This measure is high when sensivity and specificity are high and the difference between them is low. 
@@ -52,10 +53,15 @@ public class GeometricMeans extends ClassificationQualityDoubleMeasureCalculator
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		Specificity specificityCalculator = new Specificity();
 		specificityCalculator.setContinuous(isContinuous());
+		specificityCalculator.setConfusionMatrix(matrix);
 		Recall recallCalculator = new Recall();
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		
 		ValidationMeasureDouble[] specificity = specificityCalculator.calculateOneClassMeasureOnSongLevel(
 				groundTruthRelationships, predictedRelationships);
@@ -78,10 +84,15 @@ public class GeometricMeans extends ClassificationQualityDoubleMeasureCalculator
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		Specificity specificityCalculator = new Specificity();
 		specificityCalculator.setContinuous(isContinuous());
+		specificityCalculator.setConfusionMatrix(matrix);
 		Recall recallCalculator = new Recall();
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		
 		ValidationMeasureDouble[] specificity = specificityCalculator.calculateOneClassMeasureOnPartitionLevel(
 				groundTruthRelationships, predictedRelationships);
@@ -120,10 +131,15 @@ public class GeometricMeans extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		Specificity specificityCalculator = new Specificity();
 		specificityCalculator.setContinuous(isContinuous());
+		specificityCalculator.setConfusionMatrix(matrix);
 		Recall recallCalculator = new Recall();
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		
 		ValidationMeasureDouble[] specificity = specificityCalculator.calculateMultiLabelMeasureOnSongLevel(
 				groundTruthRelationships, predictedRelationships);
@@ -147,10 +163,15 @@ public class GeometricMeans extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		Specificity specificityCalculator = new Specificity();
 		specificityCalculator.setContinuous(isContinuous());
+		specificityCalculator.setConfusionMatrix(matrix);
 		Recall recallCalculator = new Recall();
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		
 		ValidationMeasureDouble[] specificity = specificityCalculator.calculateMultiLabelMeasureOnPartitionLevel(
 				groundTruthRelationships, predictedRelationships);
@@ -29,8 +29,8 @@ import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
-import amuse.nodes.validator.measures.confusionmatrix.base.FalsePositives;
-import amuse.nodes.validator.measures.confusionmatrix.base.TruePositives;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix.Level;
 
 /**
  * Precision measure
@@ -52,19 +52,10 @@ public class Precision extends ClassificationQualityDoubleMeasureCalculator {
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
-		// Get true positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setSongLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble tp = truePositivesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		// Get false positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setSongLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble fp = falsePositivesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		double precision = tp.getValue() / (tp.getValue() + fp.getValue());
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double tp = matrix.getTruePositives(Level.SONG, 0);
+		double fp = matrix.getFalsePositives(Level.SONG, 0);
+		double precision = tp / (tp + fp);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] precisionMeasure = new ValidationMeasureDouble[1];
@@ -80,19 +71,10 @@ public class Precision extends ClassificationQualityDoubleMeasureCalculator {
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
-		// Get true positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setPartitionLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble tp = truePositivesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		// Get false positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setPartitionLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble fp = falsePositivesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		double precision = tp.getValue() / (tp.getValue() + fp.getValue());
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double tp = matrix.getTruePositives(Level.PARTITION, 0);
+		double fp = matrix.getFalsePositives(Level.PARTITION, 0);
+		double precision = tp / (tp + fp);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] precisionMeasure = new ValidationMeasureDouble[1];
@@ -123,25 +105,15 @@ public class Precision extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		// Get true positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setSongLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tp = truePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		// Get false positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setSongLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fp = falsePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
 		
 		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
 		
 		double enumerator = 0;
 		double denominator = 0;
 		for(int i = 0; i < numberOfCategories; i++) {
-			enumerator += tp[i].getValue();
-			denominator += tp[i].getValue() + fp[i].getValue();
+			enumerator += matrix.getTruePositives(Level.SONG, i);
+			denominator += matrix.getTruePositives(Level.SONG, i) + matrix.getFalsePositives(Level.SONG, i);
 		}
 		double precision = enumerator / denominator;
 		
@@ -160,25 +132,15 @@ public class Precision extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		// Get true positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setPartitionLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tp = truePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		// Get false positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setPartitionLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fp = falsePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
 		
 		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
 		
 		double enumerator = 0;
 		double denominator = 0;
 		for(int i = 0; i < numberOfCategories; i++) {
-			enumerator += tp[i].getValue();
-			denominator += tp[i].getValue() + fp[i].getValue();
+			enumerator += matrix.getTruePositives(Level.PARTITION, i);
+			denominator += matrix.getTruePositives(Level.PARTITION, i) + matrix.getFalsePositives(Level.PARTITION, i);
 		}
 		double precision = enumerator / denominator;
 		
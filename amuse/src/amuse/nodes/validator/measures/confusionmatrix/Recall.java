@@ -29,8 +29,8 @@ import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
-import amuse.nodes.validator.measures.confusionmatrix.base.FalseNegatives;
-import amuse.nodes.validator.measures.confusionmatrix.base.TruePositives;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix.Level;
 
 /**
  * Recall measure
@@ -52,19 +52,10 @@ public class Recall extends ClassificationQualityDoubleMeasureCalculator {
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
-		// Get true positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setSongLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble tp = truePositivesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		// Get false negatives
-		FalseNegatives falseNegativesCalculator = new FalseNegatives();
-		falseNegativesCalculator.setSongLevel(true);
-		falseNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble fn = falseNegativesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		double recall = tp.getValue() / (tp.getValue() + fn.getValue());
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double tp = matrix.getTruePositives(Level.SONG, 0);
+		double fn = matrix.getFalseNegatives(Level.SONG, 0);
+		double recall = tp / (tp + fn);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] recallMeasure = new ValidationMeasureDouble[1];
@@ -80,19 +71,10 @@ public class Recall extends ClassificationQualityDoubleMeasureCalculator {
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
-		// Get true positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setPartitionLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble tp = truePositivesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		// Get false negatives
-		FalseNegatives falseNegativesCalculator = new FalseNegatives();
-		falseNegativesCalculator.setPartitionLevel(true);
-		falseNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble fn = falseNegativesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		double recall = tp.getValue() / (tp.getValue() + fn.getValue());
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double tp = matrix.getTruePositives(Level.PARTITION, 0);
+		double fn = matrix.getFalseNegatives(Level.PARTITION, 0);
+		double recall = tp / (tp + fn);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] recallMeasure = new ValidationMeasureDouble[1];
@@ -124,26 +106,15 @@ public class Recall extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		
-		// Get true positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setSongLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tp = truePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		// Get false negatives
-		FalseNegatives falseNegativesCalculator = new FalseNegatives();
-		falseNegativesCalculator.setSongLevel(true);
-		falseNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fn = falseNegativesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
 		
 		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
 		
 		double enumerator = 0;
 		double denominator = 0;
 		for(int i = 0; i < numberOfCategories; i++) {
-			enumerator += tp[i].getValue();
-			denominator += tp[i].getValue() + fn[i].getValue();
+			enumerator += matrix.getTruePositives(Level.SONG, i);
+			denominator += matrix.getTruePositives(Level.SONG, i) + matrix.getFalseNegatives(Level.SONG, i);
 		}
 		
 		double recall = enumerator / denominator;
@@ -163,26 +134,15 @@ public class Recall extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		
-		// Get true positives
-		TruePositives truePositivesCalculator = new TruePositives();
-		truePositivesCalculator.setPartitionLevel(true);
-		truePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tp = truePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		// Get false negatives
-		FalseNegatives falseNegativesCalculator = new FalseNegatives();
-		falseNegativesCalculator.setPartitionLevel(true);
-		falseNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fn = falseNegativesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
 		
 		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
 		
 		double enumerator = 0;
 		double denominator = 0;
 		for(int i = 0; i < numberOfCategories; i++) {
-			enumerator += tp[i].getValue();
-			denominator += tp[i].getValue() + fn[i].getValue();
+			enumerator += matrix.getTruePositives(Level.PARTITION, i);
+			denominator += matrix.getTruePositives(Level.PARTITION, i) + matrix.getFalseNegatives(Level.PARTITION, i);
 		}
 		
 		double recall = enumerator / denominator;
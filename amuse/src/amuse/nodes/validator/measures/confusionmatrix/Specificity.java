@@ -29,8 +29,8 @@ import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
-import amuse.nodes.validator.measures.confusionmatrix.base.FalsePositives;
-import amuse.nodes.validator.measures.confusionmatrix.base.TrueNegatives;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix.Level;
 
 /**
  * Specificity measure
@@ -52,19 +52,10 @@ public class Specificity extends ClassificationQualityDoubleMeasureCalculator {
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
-		// Get true negatives
-		TrueNegatives trueNegativesCalculator = new TrueNegatives();
-		trueNegativesCalculator.setSongLevel(true);
-		trueNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble tn = trueNegativesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		// Get false positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setSongLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble fp = falsePositivesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		double specificity = tn.getValue() / (fp.getValue() + tn.getValue());
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double tn = matrix.getTrueNegatives(Level.SONG, 0);
+		double fp = matrix.getFalsePositives(Level.SONG, 0);
+		double specificity = tn / (fp + tn);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] specificityMeasure = new ValidationMeasureDouble[1];
@@ -80,19 +71,10 @@ public class Specificity extends ClassificationQualityDoubleMeasureCalculator {
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
-		// Get true negatives
-		TrueNegatives trueNegativesCalculator = new TrueNegatives();
-		trueNegativesCalculator.setPartitionLevel(true);
-		trueNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble tn = trueNegativesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		// Get false positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setPartitionLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble fp = falsePositivesCalculator.calculateOneClassMeasure(groundTruthRelationships, predictedRelationships)[0];
-		
-		double specificity = tn.getValue() / (fp.getValue() + tn.getValue());
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double tn = matrix.getTrueNegatives(Level.PARTITION, 0);
+		double fp = matrix.getFalsePositives(Level.PARTITION, 0);
+		double specificity = tn / (fp + tn);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] specificityMeasure = new ValidationMeasureDouble[1];
@@ -123,25 +105,15 @@ public class Specificity extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		// Get true negatives
-		TrueNegatives trueNegativesCalculator = new TrueNegatives();
-		trueNegativesCalculator.setSongLevel(true);
-		trueNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tn = trueNegativesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		// Get false positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setSongLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fp = falsePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
 		
 		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
 		
 		double enumerator = 0;
 		double denominator = 0;
 		for(int i = 0; i < numberOfCategories; i++) {
-			enumerator += tn[i].getValue();
-			denominator += fp[i].getValue() + tn[i].getValue();
+			enumerator += matrix.getTrueNegatives(Level.SONG, i);
+			denominator += matrix.getFalsePositives(Level.SONG, i) + matrix.getTrueNegatives(Level.SONG, i);
 		}
 		
 		double specificity = enumerator / denominator;
@@ -161,25 +133,15 @@ public class Specificity extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		// Get true negatives
-		TrueNegatives trueNegativesCalculator = new TrueNegatives();
-		trueNegativesCalculator.setPartitionLevel(true);
-		trueNegativesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] tn = trueNegativesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
-		
-		// Get false positives
-		FalsePositives falsePositivesCalculator = new FalsePositives();
-		falsePositivesCalculator.setPartitionLevel(true);
-		falsePositivesCalculator.setContinuous(isContinuous());
-		ValidationMeasureDouble[] fp = falsePositivesCalculator.calculateMultiLabelMeasure(groundTruthRelationships, predictedRelationships);
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
 		
 		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
 		
 		double enumerator = 0;
 		double denominator = 0;
 		for(int i = 0; i < numberOfCategories; i++) {
-			enumerator += tn[i].getValue();
-			denominator += fp[i].getValue() + tn[i].getValue();
+			enumerator += matrix.getTrueNegatives(Level.PARTITION, i);
+			denominator += matrix.getFalsePositives(Level.PARTITION, i) + matrix.getTrueNegatives(Level.PARTITION, i);
 		}
 		
 		double specificity = enumerator / denominator;
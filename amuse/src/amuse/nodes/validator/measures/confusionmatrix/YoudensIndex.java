@@ -29,6 +29,7 @@ import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
 
 /**
  * Youden's index measures the algorithm's ability to correctly label both positive and negative data samples 
@@ -51,10 +52,15 @@ public class YoudensIndex extends ClassificationQualityDoubleMeasureCalculator {
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		Specificity specificityCalculator = new Specificity();
 		specificityCalculator.setContinuous(isContinuous());
+		specificityCalculator.setConfusionMatrix(matrix);
 		Recall recallCalculator = new Recall();
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		
 		ValidationMeasureDouble[] specificity = specificityCalculator.calculateOneClassMeasureOnSongLevel(
 				groundTruthRelationships, predictedRelationships);
@@ -77,10 +83,15 @@ public class YoudensIndex extends ClassificationQualityDoubleMeasureCalculator {
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		Specificity specificityCalculator = new Specificity();
 		specificityCalculator.setContinuous(isContinuous());
+		specificityCalculator.setConfusionMatrix(matrix);
 		Recall recallCalculator = new Recall();
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		
 		ValidationMeasureDouble[] specificity = specificityCalculator.calculateOneClassMeasureOnPartitionLevel(
 				groundTruthRelationships, predictedRelationships);
@@ -119,10 +130,15 @@ public class YoudensIndex extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		Specificity specificityCalculator = new Specificity();
 		specificityCalculator.setContinuous(isContinuous());
+		specificityCalculator.setConfusionMatrix(matrix);
 		Recall recallCalculator = new Recall();
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		
 		ValidationMeasureDouble[] specificity = specificityCalculator.calculateMultiLabelMeasureOnSongLevel(
 				groundTruthRelationships, predictedRelationships);
@@ -146,10 +162,15 @@ public class YoudensIndex extends ClassificationQualityDoubleMeasureCalculator {
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
+		// The sub-measures use the same confusion matrix
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		
 		Specificity specificityCalculator = new Specificity();
 		specificityCalculator.setContinuous(isContinuous());
+		specificityCalculator.setConfusionMatrix(matrix);
 		Recall recallCalculator = new Recall();
 		recallCalculator.setContinuous(isContinuous());
+		recallCalculator.setConfusionMatrix(matrix);
 		
 		ValidationMeasureDouble[] specificity = specificityCalculator.calculateMultiLabelMeasureOnPartitionLevel(
 				groundTruthRelationships, predictedRelationships);
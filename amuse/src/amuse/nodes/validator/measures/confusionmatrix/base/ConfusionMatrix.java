@@ -0,0 +1,261 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.validator.measures.confusionmatrix.base;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import amuse.data.annotation.ClassifiedSongPartitions;
+
+/**
+ * Numbers of true positives, false positives, true negatives and false negatives for each category
+ * on song and on partition level, which are counted in a single pass over the classification results.
+ * The matrix is created once for a validation run and is shared by all confusion matrix based measures.
+ * For continuous relationships, the counts are fuzzy, e.g. a song with the ground truth 1 and the
+ * predicted relationship 0.8 adds 0.8 to the true positives and 0.2 to the false negatives.
+ *
+ * @version $Id$
+ */
+public class ConfusionMatrix {
+
+	/** Level of classification instances */
+	public enum Level {SONG, PARTITION};
+
+	/** Ground truth and predictions the matrix has been calculated for */
+	private final List<?> groundTruthRelationships;
+	private final List<ClassifiedSongPartitions> predictedRelationships;
+	private final boolean continuous;
+
+	/** Counts for each level (first index) and category (second index) */
+	private final double[][] truePositives;
+	private final double[][] falsePositives;
+	private final double[][] trueNegatives;
+	private final double[][] falseNegatives;
+
+	/** Sums of the absolute differences between ground truth and predicted relationships */
+	private final double[][] absoluteErrors;
+
+	/** Number of songs and number of partitions */
+	private final int[] numberOfInstances = new int[2];
+
+	private ConfusionMatrix(List<?> groundTruthRelationships, List<ClassifiedSongPartitions> predictedRelationships,
+			boolean continuous, int numberOfCategories) {
+		this.groundTruthRelationships = groundTruthRelationships;
+		this.predictedRelationships = predictedRelationships;
+		this.continuous = continuous;
+		this.truePositives = new double[2][numberOfCategories];
+		this.falsePositives = new double[2][numberOfCategories];
+		this.trueNegatives = new double[2][numberOfCategories];
+		this.falseNegatives = new double[2][numberOfCategories];
+		this.absoluteErrors = new double[2][numberOfCategories];
+	}
+
+	/**
+	 * Calculates the confusion matrix for a binary classification
+	 * @param groundTruthRelationships Labeled relationships of the songs
+	 * @param predictedRelationships Predicted relationships of the song partitions
+	 * @param continuous If false, the predicted song relationships are rounded
+	 * @return Confusion matrix with one category
+	 */
+	public static ConfusionMatrix createOneClassMatrix(ArrayList<Double> groundTruthRelationships,
+			ArrayList<ClassifiedSongPartitions> predictedRelationships, boolean continuous) {
+		ConfusionMatrix matrix = new ConfusionMatrix(groundTruthRelationships, predictedRelationships, continuous, 1);
+		for(int i = 0; i < groundTruthRelationships.size(); i++) {
+			double groundTruthValue = groundTruthRelationships.get(i);
+			Double[][] relationships = predictedRelationships.get(i).getRelationships();
+			double predictedSongValue = 0.0d;
+			for(int j = 0; j < relationships.length; j++) {
+				predictedSongValue += relationships[j][0];
+				matrix.add(Level.PARTITION, 0, groundTruthValue, relationships[j][0]);
+			}
+			matrix.add(Level.SONG, 0, groundTruthValue, matrix.getPredictedSongValue(predictedSongValue, relationships.length));
+		}
+		return matrix;
+	}
+
+	/**
+	 * Calculates the confusion matrix for a multi-label or multi-class classification
+	 * @param groundTruthRelationships Labeled relationships of the song partitions
+	 * @param predictedRelationships Predicted relationships of the song partitions
+	 * @param continuous If false, the predicted song relationships are rounded
+	 * @return Confusion matrix with the categories of the ground truth
+	 */
+	public static ConfusionMatrix createMultiLabelMatrix(ArrayList<ClassifiedSongPartitions> groundTruthRelationships,
+			ArrayList<ClassifiedSongPartitions> predictedRelationships, boolean continuous) {
+		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
+		ConfusionMatrix matrix = new ConfusionMatrix(groundTruthRelationships, predictedRelationships, continuous, numberOfCategories);
+		double[] predictedSongValues = new double[numberOfCategories];
+		for(int i = 0; i < groundTruthRelationships.size(); i++) {
+			Double[][] groundTruthValues = groundTruthRelationships.get(i).getRelationships();
+			Double[][] relationships = predictedRelationships.get(i).getRelationships();
+			for(int category = 0; category < numberOfCategories; category++) {
+				predictedSongValues[category] = 0.0d;
+			}
+			for(int j = 0; j < relationships.length; j++) {
+				for(int category = 0; category < numberOfCategories; category++) {
+					predictedSongValues[category] += relationships[j][category];
+					matrix.add(Level.PARTITION, category, groundTruthValues[j][category], relationships[j][category]);
+				}
+			}
+			for(int category = 0; category < numberOfCategories; category++) {
+				matrix.add(Level.SONG, category, groundTruthValues[0][category],
+						matrix.getPredictedSongValue(predictedSongValues[category], relationships.length));
+			}
+		}
+		return matrix;
+	}
+
+	/**
+	 * @param groundTruth Labeled relationships
+	 * @param predicted Predicted relationships
+	 * @param isContinuous True for continuous relationships
+	 * @return True if this matrix has been calculated for the same lists (compared by identity) and relationship type
+	 */
+	public boolean isCalculatedFor(List<?> groundTruth, List<ClassifiedSongPartitions> predicted, boolean isContinuous) {
+		return groundTruthRelationships == groundTruth && predictedRelationships == predicted && continuous == isContinuous;
+	}
+
+	/**
+	 * @return Number of categories
+	 */
+	public int getNumberOfCategories() {
+		return truePositives[0].length;
+	}
+
+	/**
+	 * @param level Song or partition level
+	 * @return Number of songs or number of partitions
+	 */
+	public int getNumberOfInstances(Level level) {
+		return numberOfInstances[level.ordinal()];
+	}
+
+	/**
+	 * @param level Song or partition level
+	 * @param category Index of the category
+	 * @return Number of true positives
+	 */
+	public double getTruePositives(Level level, int category) {
+		return truePositives[level.ordinal()][category];
+	}
+
+	/**
+	 * @param level Song or partition level
+	 * @param category Index of the category
+	 * @return Number of false positives
+	 */
+	public double getFalsePositives(Level level, int category) {
+		return falsePositives[level.ordinal()][category];
+	}
+
+	/**
+	 * @param level Song or partition level
+	 * @param category Index of the category
+	 * @return Number of true negatives
+	 */
+	public double getTrueNegatives(Level level, int category) {
+		return trueNegatives[level.ordinal()][category];
+	}
+
+	/**
+	 * @param level Song or partition level
+	 * @param category Index of the category
+	 * @return Number of false negatives
+	 */
+	public double getFalseNegatives(Level level, int category) {
+		return falseNegatives[level.ordinal()][category];
+	}
+
+	/**
+	 * @param level Song or partition level
+	 * @param category Index of the category
+	 * @return Sum of the absolute differences between ground truth and (rounded on song level) predicted relationships
+	 */
+	public double getAbsoluteError(Level level, int category) {
+		return absoluteErrors[level.ordinal()][category];
+	}
+
+	/**
+	 * @param level Song or partition level
+	 * @return Number of true positives of all categories
+	 */
+	public double getTruePositives(Level level) {
+		return sum(truePositives[level.ordinal()]);
+	}
+
+	/**
+	 * @param level Song or partition level
+	 * @return Number of false positives of all categories
+	 */
+	public double getFalsePositives(Level level) {
+		return sum(falsePositives[level.ordinal()]);
+	}
+
+	/**
+	 * @param level Song or partition level
+	 * @return Number of true negatives of all categories
+	 */
+	public double getTrueNegatives(Level level) {
+		return sum(trueNegatives[level.ordinal()]);
+	}
+
+	/**
+	 * @param level Song or partition level
+	 * @return Number of false negatives of all categories
+	 */
+	public double getFalseNegatives(Level level) {
+		return sum(falseNegatives[level.ordinal()]);
+	}
+
+	/**
+	 * Averages the predicted relationships of the song partitions and rounds the mean for binary relationships
+	 */
+	private double getPredictedSongValue(double sumOfPartitionValues, int numberOfPartitions) {
+		double predictedValue = sumOfPartitionValues / numberOfPartitions;
+		if(!continuous) {
+			predictedValue = predictedValue >= 0.5 ? 1.0d : 0.0d;
+		}
+		return predictedValue;
+	}
+
+	private void add(Level level, int category, double groundTruthValue, double predictedValue) {
+		int l = level.ordinal();
+		truePositives[l][category] += groundTruthValue * predictedValue;
+		falsePositives[l][category] += (1 - groundTruthValue) * predictedValue;
+		trueNegatives[l][category] += (1 - groundTruthValue) * (1 - predictedValue);
+		falseNegatives[l][category] += groundTruthValue * (1 - predictedValue);
+		absoluteErrors[l][category] += Math.abs(predictedValue - groundTruthValue);
+		if(category == 0) {
+			numberOfInstances[l]++;
+		}
+	}
+
+	private static double sum(double[] values) {
+		double sum = 0;
+		for(double value : values) {
+			sum += value;
+		}
+		return sum;
+	}
+}
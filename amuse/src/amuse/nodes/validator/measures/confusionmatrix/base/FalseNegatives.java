@@ -29,6 +29,7 @@ import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix.Level;
 
 /**
  *  Number of false negatives
@@ -49,29 +50,7 @@ public class FalseNegatives extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateOneClassMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double numberOfFalseNegatives = 0;
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			
-			// Calculate the predicted value for this song (averaging among all partitions)
-			Double currentPredictedValue = 0.0d;
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				currentPredictedValue += predictedRelationships.get(i).getRelationships()[j][0];
-			}
-			currentPredictedValue /= predictedRelationships.get(i).getRelationships().length;
-			
-			//If the classification was not continuous, round the predicted values
-			if(!isContinuous()) {
-				if(currentPredictedValue >= 0.5) {
-					currentPredictedValue = 1.0d;
-				} else {
-					currentPredictedValue = 0.0d;
-				}
-			}
-			
-			Double currentGroundTruthValue = groundTruthRelationships.get(i);
-			
-			numberOfFalseNegatives += currentGroundTruthValue.doubleValue() * (1-currentPredictedValue.doubleValue());
-		}
+		double numberOfFalseNegatives = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships).getFalseNegatives(Level.SONG, 0);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] falseNegativesMeasure = new ValidationMeasureDouble[1];
@@ -86,12 +65,7 @@ public class FalseNegatives extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateOneClassMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double numberOfFalseNegatives = 0;
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				numberOfFalseNegatives += groundTruthRelationships.get(i).doubleValue() * (1-predictedRelationships.get(i).getRelationships()[j][0].doubleValue());
-			}
-		}
+		double numberOfFalseNegatives = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships).getFalseNegatives(Level.PARTITION, 0);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] falseNegativesMeasure = new ValidationMeasureDouble[1];
@@ -122,30 +96,10 @@ public class FalseNegatives extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double[] numberOfFalseNegatives = new double[groundTruthRelationships.get(0).getLabels().length];
-		
-		for(int i = 0; i < groundTruthRelationships.size(); i++	) {
-			for(int category = 0; category < groundTruthRelationships.get(i).getLabels().length; category ++) {
-				// Calculate the predicted value for this song (averaging among all partitions)
-				Double currentPredictedValue = 0.0d;
-				for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-					currentPredictedValue += predictedRelationships.get(i).getRelationships()[j][category];
-				}
-				currentPredictedValue /= predictedRelationships.get(i).getRelationships().length;
-				
-				//If the classification was not continuous, round the predicted values
-				if(!isContinuous()) {
-					if(currentPredictedValue >= 0.5) {
-						currentPredictedValue = 1.0d;
-					} else {
-						currentPredictedValue = 0.0d;
-					}
-				}
-				
-				Double currentGroundTruthValue = groundTruthRelationships.get(i).getRelationships()[0][category];
-				
-				numberOfFalseNegatives[category] += currentGroundTruthValue.doubleValue() * (1-currentPredictedValue.doubleValue());
-			}
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double[] numberOfFalseNegatives = new double[matrix.getNumberOfCategories()];
+		for(int category = 0; category < numberOfFalseNegatives.length; category++) {
+			numberOfFalseNegatives[category] = matrix.getFalseNegatives(Level.SONG, category);
 		}
 		
 		// Prepare the result
@@ -164,13 +118,10 @@ public class FalseNegatives extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double[] numberOfFalseNegatives = new double[groundTruthRelationships.get(0).getLabels().length];
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				for(int category = 0; category < numberOfFalseNegatives.length; category ++) {
-					numberOfFalseNegatives[category] += groundTruthRelationships.get(i).getRelationships()[j][category] * (1-predictedRelationships.get(i).getRelationships()[j][category]);
-				}
-			}
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double[] numberOfFalseNegatives = new double[matrix.getNumberOfCategories()];
+		for(int category = 0; category < numberOfFalseNegatives.length; category++) {
+			numberOfFalseNegatives[category] = matrix.getFalseNegatives(Level.PARTITION, category);
 		}
 		
 		// Prepare the result
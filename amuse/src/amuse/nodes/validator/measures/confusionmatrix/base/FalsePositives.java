@@ -29,6 +29,7 @@ import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix.Level;
 
 /**
  *  Number of false positives
@@ -49,30 +50,7 @@ public class FalsePositives extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateOneClassMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double numberOfFalsePositives = 0;
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			
-			// Calculate the predicted value for this song (averaging among all partitions)
-			Double currentPredictedValue = 0.0d;
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				currentPredictedValue += predictedRelationships.get(i).getRelationships()[j][0];
-			}
-			currentPredictedValue /= predictedRelationships.get(i).getRelationships().length;
-			
-			//If the classification was not continuous, round the predicted values
-			if(!isContinuous()) {
-				if(currentPredictedValue >= 0.5) {
-					currentPredictedValue = 1.0d;
-				} else {
-					currentPredictedValue = 0.0d;
-				}
-			}
-			
-			Double currentGroundTruthValue = groundTruthRelationships.get(i);
-			
-			numberOfFalsePositives += (1 - currentGroundTruthValue.doubleValue()) * currentPredictedValue.doubleValue();
-			
-		}
+		double numberOfFalsePositives = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships).getFalsePositives(Level.SONG, 0);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] falsePositivesMeasure = new ValidationMeasureDouble[1];
@@ -87,12 +65,7 @@ public class FalsePositives extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateOneClassMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double numberOfFalsePositives = 0;
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				numberOfFalsePositives += (1-groundTruthRelationships.get(i).doubleValue()) * predictedRelationships.get(i).getRelationships()[j][0].doubleValue();
-			}
-		}
+		double numberOfFalsePositives = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships).getFalsePositives(Level.PARTITION, 0);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] falsePositivesMeasure = new ValidationMeasureDouble[1];
@@ -124,30 +97,10 @@ public class FalsePositives extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double[] numberOfFalsePositives = new double[groundTruthRelationships.get(0).getLabels().length];
-		
-		for(int i = 0; i < groundTruthRelationships.size(); i++	) {
-			for(int category = 0; category < groundTruthRelationships.get(i).getLabels().length; category ++) {
-				// Calculate the predicted value for this song (averaging among all partitions)
-				Double currentPredictedValue = 0.0d;
-				for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-					currentPredictedValue += predictedRelationships.get(i).getRelationships()[j][category];
-				}
-				currentPredictedValue /= predictedRelationships.get(i).getRelationships().length;
-				
-				//If the classification was not continuous, round the predicted values
-				if(!isContinuous()) {
-					if(currentPredictedValue >= 0.5) {
-						currentPredictedValue = 1.0d;
-					} else {
-						currentPredictedValue = 0.0d;
-					}
-				}
-				
-				Double currentGroundTruthValue = groundTruthRelationships.get(i).getRelationships()[0][category];
-				
-				numberOfFalsePositives[category] += (1 - currentGroundTruthValue.doubleValue()) * currentPredictedValue.doubleValue();
-			}
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double[] numberOfFalsePositives = new double[matrix.getNumberOfCategories()];
+		for(int category = 0; category < numberOfFalsePositives.length; category++) {
+			numberOfFalsePositives[category] = matrix.getFalsePositives(Level.SONG, category);
 		}
 		
 		// Prepare the result
@@ -166,13 +119,10 @@ public class FalsePositives extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double[] numberOfFlasePositives = new double[groundTruthRelationships.get(0).getLabels().length];
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				for(int category = 0; category < numberOfFlasePositives.length; category ++) {
-					numberOfFlasePositives[category] += (1 - groundTruthRelationships.get(i).getRelationships()[j][category]) * predictedRelationships.get(i).getRelationships()[j][category];
-				}
-			}
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double[] numberOfFlasePositives = new double[matrix.getNumberOfCategories()];
+		for(int category = 0; category < numberOfFlasePositives.length; category++) {
+			numberOfFlasePositives[category] = matrix.getFalsePositives(Level.PARTITION, category);
 		}
 		
 		// Prepare the result
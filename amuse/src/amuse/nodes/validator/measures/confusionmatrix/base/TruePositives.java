@@ -30,6 +30,7 @@ import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
 import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix.Level;
 
 /**
  * Number of true positives
@@ -50,30 +51,7 @@ public class TruePositives extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateOneClassMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double numberOfTruePositives = 0;
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			
-			// Calculate the predicted value for this song (averaging among all partitions)
-			Double currentPredictedValue = 0.0d;
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				currentPredictedValue += predictedRelationships.get(i).getRelationships()[j][0];
-			}
-			currentPredictedValue /= predictedRelationships.get(i).getRelationships().length;
-			
-			//If the classification was not continuous, round the predicted values
-			if(!isContinuous()) {
-				if(currentPredictedValue >= 0.5) {
-						currentPredictedValue = 1.0d;
-				} else {
-						currentPredictedValue = 0.0d;
-				}
-			}
-			
-			Double currentGroundTruthValue = groundTruthRelationships.get(i);
-			
-			numberOfTruePositives += currentGroundTruthValue.doubleValue() * currentPredictedValue.doubleValue();
-			
-		}
+		double numberOfTruePositives = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships).getTruePositives(Level.SONG, 0);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] truePositivesMeasure = new ValidationMeasureDouble[1];
@@ -88,12 +66,7 @@ public class TruePositives extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateOneClassMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double numberOfTruePositives = 0;
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				numberOfTruePositives += groundTruthRelationships.get(i).doubleValue() * predictedRelationships.get(i).getRelationships()[j][0].doubleValue();
-			}
-		}
+		double numberOfTruePositives = getOneClassConfusionMatrix(groundTruthRelationships, predictedRelationships).getTruePositives(Level.PARTITION, 0);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] truePositivesMeasure = new ValidationMeasureDouble[1];
@@ -125,30 +98,10 @@ public class TruePositives extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnSongLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double[] numberOfTruePositives = new double[groundTruthRelationships.get(0).getLabels().length];
-		
-		for(int i = 0; i < groundTruthRelationships.size(); i++	) {
-			for(int category = 0; category < groundTruthRelationships.get(i).getLabels().length; category ++) {
-				// Calculate the predicted value for this song (averaging among all partitions)
-				Double currentPredictedValue = 0.0d;
-				for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-					currentPredictedValue += predictedRelationships.get(i).getRelationships()[j][category];
-				}
-				currentPredictedValue /= predictedRelationships.get(i).getRelationships().length;
-				
-				//If the classification was not continuous, round the predicted values
-				if(!isContinuous()) {
-					if(currentPredictedValue >= 0.5) {
-						currentPredictedValue = 1.0d;
-					} else {
-						currentPredictedValue = 0.0d;
-					}
-				}
-				
-				Double currentGroundTruthValue = groundTruthRelationships.get(i).getRelationships()[0][category];
-				
-				numberOfTruePositives[category] += currentGroundTruthValue.doubleValue() * currentPredictedValue.doubleValue();
-			}
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double[] numberOfTruePositives = new double[matrix.getNumberOfCategories()];
+		for(int category = 0; category < numberOfTruePositives.length; category++) {
+			numberOfTruePositives[category] = matrix.getTruePositives(Level.SONG, category);
 		}
 		
 		// Prepare the result
@@ -168,13 +121,10 @@ public class TruePositives extends ClassificationQualityDoubleMeasureCalculator
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
-		double[] numberOfTruePositives = new double[groundTruthRelationships.get(0).getLabels().length];
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				for(int category = 0; category < numberOfTruePositives.length; category ++) {
-					numberOfTruePositives[category] += groundTruthRelationships.get(i).getRelationships()[j][category] * predictedRelationships.get(i).getRelationships()[j][category];
-				}
-			}
+		ConfusionMatrix matrix = getMultiLabelConfusionMatrix(groundTruthRelationships, predictedRelationships);
+		double[] numberOfTruePositives = new double[matrix.getNumberOfCategories()];
+		for(int category = 0; category < numberOfTruePositives.length; category++) {
+			numberOfTruePositives[category] = matrix.getTruePositives(Level.PARTITION, category);
 		}
 		
 		// Prepare the result
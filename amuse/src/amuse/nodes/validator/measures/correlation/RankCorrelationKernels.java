@@ -0,0 +1,342 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.validator.measures.correlation;
+
+import java.util.ArrayList;
+
+import amuse.data.annotation.ClassifiedSongPartitions;
+
+/**
+ * Primitive rank kernels shared by the rank correlation measures. The measures first
+ * copy ground truth and predicted relationships into plain double buffers (see the
+ * fill methods) and pass these buffers to the kernels, so that no boxed per-song lists
+ * or value-to-rank maps are created.
+ *  
+ * @version $Id$
+ */
+public class RankCorrelationKernels {
+
+	private RankCorrelationKernels() {
+	}
+	
+	/**
+	 * Counts all partitions of the given songs
+	 * @param predictedRelationships Predicted song relationships
+	 * @return Overall number of partitions
+	 */
+	public static int getOverallPartitionNumber(ArrayList<ClassifiedSongPartitions> predictedRelationships) {
+		int overallPartitionNumber = 0;
+		for(int i=0;i<predictedRelationships.size();i++) {
+			overallPartitionNumber += predictedRelationships.get(i).getRelationships().length;
+		}
+		return overallPartitionNumber;
+	}
+	
+	/**
+	 * Writes the predicted song relationships (averaged over all partitions) for the given category into the buffer
+	 * @param predictedRelationships Predicted song relationships
+	 * @param category Category index
+	 * @param buffer Buffer with one entry per song
+	 */
+	public static void fillSongLevelPredictions(ArrayList<ClassifiedSongPartitions> predictedRelationships, int category, double[] buffer) {
+		for(int i=0;i<predictedRelationships.size();i++) {
+			Double[][] relationships = predictedRelationships.get(i).getRelationships();
+			double currentPredictedValue = 0.0d;
+			for(int j=0;j<relationships.length;j++) {
+				currentPredictedValue += relationships[j][category];
+			}
+			buffer[i] = currentPredictedValue / relationships.length;
+		}
+	}
+	
+	/**
+	 * Writes the predicted partition relationships for the given category into the buffer
+	 * @param predictedRelationships Predicted song relationships
+	 * @param category Category index
+	 * @param buffer Buffer with one entry per partition
+	 */
+	public static void fillPartitionLevelPredictions(ArrayList<ClassifiedSongPartitions> predictedRelationships, int category, double[] buffer) {
+		int position = 0;
+		for(int i=0;i<predictedRelationships.size();i++) {
+			Double[][] relationships = predictedRelationships.get(i).getRelationships();
+			for(int j=0;j<relationships.length;j++) {
+				buffer[position++] = relationships[j][category];
+			}
+		}
+	}
+	
+	/**
+	 * Writes the one-class song ground truth into the buffer
+	 * @param groundTruthRelationships Labeled song relationships
+	 * @param buffer Buffer with one entry per song
+	 */
+	public static void fillSongLevelGroundTruth(ArrayList<Double> groundTruthRelationships, double[] buffer) {
+		for(int i=0;i<groundTruthRelationships.size();i++) {
+			buffer[i] = groundTruthRelationships.get(i);
+		}
+	}
+	
+	/**
+	 * Writes the multi-label song ground truth for the given category into the buffer
+	 * @param groundTruthRelationships Labeled song relationships
+	 * @param category Category index
+	 * @param buffer Buffer with one entry per song
+	 */
+	public static void fillSongLevelGroundTruth(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, int category, double[] buffer) {
+		for(int i=0;i<groundTruthRelationships.size();i++) {
+			buffer[i] = groundTruthRelationships.get(i).getRelationships()[0][category];
+		}
+	}
+	
+	/**
+	 * Writes the one-class song ground truth into the buffer, repeated for every predicted partition of the song
+	 * @param groundTruthRelationships Labeled song relationships
+	 * @param predictedRelationships Predicted song relationships
+	 * @param buffer Buffer with one entry per partition
+	 */
+	public static void fillPartitionLevelGroundTruth(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships, double[] buffer) {
+		int position = 0;
+		for(int i=0;i<groundTruthRelationships.size();i++) {
+			double currentLabeledValue = groundTruthRelationships.get(i);
+			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
+				buffer[position++] = currentLabeledValue;
+			}
+		}
+	}
+	
+	/**
+	 * Writes the multi-label partition ground truth for the given category into the buffer
+	 * @param groundTruthRelationships Labeled song relationships
+	 * @param predictedRelationships Predicted song relationships
+	 * @param category Category index
+	 * @param buffer Buffer with one entry per partition
+	 */
+	public static void fillPartitionLevelGroundTruth(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships, 
+			int category, double[] buffer) {
+		int position = 0;
+		for(int i=0;i<groundTruthRelationships.size();i++) {
+			Double[][] relationships = groundTruthRelationships.get(i).getRelationships();
+			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
+				buffer[position++] = relationships[j][category];
+			}
+		}
+	}
+	
+	/**
+	 * Calculates the fractional ranks of the given values (ascending, starting with 1); tied values
+	 * get the average of the positions they occupy
+	 * @param values Values to rank
+	 * @return Ranks in the order of the given values
+	 */
+	public static double[] calculateFractionalRanks(double[] values) {
+		int[] order = sortIndices(values, null);
+		double[] ranks = new double[values.length];
+		int i = 0;
+		while(i < order.length) {
+			
+			// Find the run of equal values starting at the current position
+			int j = i + 1;
+			while(j < order.length && values[order[j]] == values[order[i]]) {
+				j++;
+			}
+			
+			// Positions i+1..j are shared by the run
+			double rank = (i + 1 + j) / 2d;
+			for(int k=i;k<j;k++) {
+				ranks[order[k]] = rank;
+			}
+			i = j;
+		}
+		return ranks;
+	}
+	
+	/**
+	 * Calculates Spearman's rank correlation coefficient as the correlation of the fractional ranks
+	 * @param predicted Predicted values
+	 * @param labeled Labeled values
+	 * @return Spearman's rho
+	 */
+	public static double calculateSpearmansRho(double[] predicted, double[] labeled) {
+		double[] predictedRanks = calculateFractionalRanks(predicted);
+		double[] labeledRanks = calculateFractionalRanks(labeled);
+		double sumOfRankMultiplications = 0.0d;
+		double sumOfSquaredPredictedRanks = 0.0d;
+		double sumOfSquaredLabeledRanks = 0.0d;
+		double p = predicted.length * Math.pow((predicted.length+1d)/2d, 2);
+		for(int i=0;i<predicted.length;i++) {
+			sumOfRankMultiplications += predictedRanks[i] * labeledRanks[i];
+			sumOfSquaredPredictedRanks += predictedRanks[i] * predictedRanks[i];
+			sumOfSquaredLabeledRanks += labeledRanks[i] * labeledRanks[i];
+		}
+		return (sumOfRankMultiplications - p) / 
+			(Math.sqrt(sumOfSquaredPredictedRanks - p) * Math.sqrt(sumOfSquaredLabeledRanks - p));
+	}
+	
+	/**
+	 * Calculates Kendall's tau-b in O(n log n) with Knight's algorithm: the pairs are sorted by
+	 * the first variable (ties broken by the second one) and the discordant pairs are then counted
+	 * as the number of exchanges a merge sort on the second variable needs
+	 * @param predicted Predicted values
+	 * @param labeled Labeled values
+	 * @return Kendall's tau-b
+	 */
+	public static double calculateKendallsTauB(double[] predicted, double[] labeled) {
+		int n = predicted.length;
+		long numberOfPairs = (long)n * (n - 1) / 2;
+		int[] order = sortIndices(predicted, labeled);
+		
+		// Count the pairs tied in the predicted values and the pairs tied in both values
+		long tiedPredicted = 0;
+		long tiedBoth = 0;
+		long predictedRun = 1;
+		long bothRun = 1;
+		for(int i=1;i<n;i++) {
+			if(predicted[order[i]] == predicted[order[i-1]]) {
+				predictedRun++;
+				if(labeled[order[i]] == labeled[order[i-1]]) {
+					bothRun++;
+				} else {
+					tiedBoth += bothRun * (bothRun - 1) / 2;
+					bothRun = 1;
+				}
+			} else {
+				tiedPredicted += predictedRun * (predictedRun - 1) / 2;
+				tiedBoth += bothRun * (bothRun - 1) / 2;
+				predictedRun = 1;
+				bothRun = 1;
+			}
+		}
+		tiedPredicted += predictedRun * (predictedRun - 1) / 2;
+		tiedBoth += bothRun * (bothRun - 1) / 2;
+		
+		// Count the exchanges needed to sort the labeled values in this order
+		double[] sortedLabeled = new double[n];
+		for(int i=0;i<n;i++) {
+			sortedLabeled[i] = labeled[order[i]];
+		}
+		long exchanges = mergeSortCountingExchanges(sortedLabeled, new double[n], 0, n);
+		
+		// Count the pairs tied in the labeled values
+		long tiedLabeled = 0;
+		long labeledRun = 1;
+		for(int i=1;i<n;i++) {
+			if(sortedLabeled[i] == sortedLabeled[i-1]) {
+				labeledRun++;
+			} else {
+				tiedLabeled += labeledRun * (labeledRun - 1) / 2;
+				labeledRun = 1;
+			}
+		}
+		tiedLabeled += labeledRun * (labeledRun - 1) / 2;
+		
+		// Concordant minus discordant pairs
+		double difference = numberOfPairs - tiedPredicted - tiedLabeled + tiedBoth - 2d * exchanges;
+		return difference / (Math.sqrt(numberOfPairs - tiedPredicted) * Math.sqrt(numberOfPairs - tiedLabeled));
+	}
+	
+	/**
+	 * Sorts the values in [from, to) ascending and returns the number of exchanges (inversions)
+	 * @param values Values to sort
+	 * @param buffer Temporary buffer of the same length
+	 * @param from First position (inclusive)
+	 * @param to Last position (exclusive)
+	 * @return Number of exchanges
+	 */
+	private static long mergeSortCountingExchanges(double[] values, double[] buffer, int from, int to) {
+		if(to - from < 2) {
+			return 0;
+		}
+		int middle = (from + to) >>> 1;
+		long exchanges = mergeSortCountingExchanges(values, buffer, from, middle);
+		exchanges += mergeSortCountingExchanges(values, buffer, middle, to);
+		int left = from;
+		int right = middle;
+		int position = from;
+		while(left < middle && right < to) {
+			if(values[right] < values[left]) {
+				exchanges += middle - left;
+				buffer[position++] = values[right++];
+			} else {
+				buffer[position++] = values[left++];
+			}
+		}
+		while(left < middle) {
+			buffer[position++] = values[left++];
+		}
+		while(right < to) {
+			buffer[position++] = values[right++];
+		}
+		System.arraycopy(buffer, from, values, from, to - from);
+		return exchanges;
+	}
+	
+	/**
+	 * Returns the positions of the values in ascending order; ties in the primary values are
+	 * ordered by the secondary values if these are given
+	 * @param primary Primary sort key
+	 * @param secondary Secondary sort key or null
+	 * @return Sorted positions
+	 */
+	private static int[] sortIndices(double[] primary, double[] secondary) {
+		int[] order = new int[primary.length];
+		for(int i=0;i<order.length;i++) {
+			order[i] = i;
+		}
+		mergeSortIndices(order, new int[order.length], 0, order.length, primary, secondary);
+		return order;
+	}
+	
+	private static void mergeSortIndices(int[] order, int[] buffer, int from, int to, double[] primary, double[] secondary) {
+		if(to - from < 2) {
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSortIndices(order, buffer, from, middle, primary, secondary);
+		mergeSortIndices(order, buffer, middle, to, primary, secondary);
+		int left = from;
+		int right = middle;
+		int position = from;
+		while(left < middle && right < to) {
+			if(isLess(order[right], order[left], primary, secondary)) {
+				buffer[position++] = order[right++];
+			} else {
+				buffer[position++] = order[left++];
+			}
+		}
+		while(left < middle) {
+			buffer[position++] = order[left++];
+		}
+		while(right < to) {
+			buffer[position++] = order[right++];
+		}
+		System.arraycopy(buffer, from, order, from, to - from);
+	}
+	
+	private static boolean isLess(int a, int b, double[] primary, double[] secondary) {
+		if(primary[a] != primary[b]) {
+			return primary[a] < primary[b];
+		}
+		return secondary != null && secondary[a] < secondary[b];
+	}
+}
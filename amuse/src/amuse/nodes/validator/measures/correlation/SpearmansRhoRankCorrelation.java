@@ -24,8 +24,6 @@
 package amuse.nodes.validator.measures.correlation;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 
 import amuse.data.annotation.ClassifiedSongPartitions;
 import amuse.interfaces.nodes.NodeException;
@@ -52,192 +50,37 @@ public class SpearmansRhoRankCorrelation extends ClassificationQualityDoubleMeas
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnSongLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
-		// Sort labeled and predicted values
-		ArrayList<Double> sortedPredictedRelationships = new ArrayList<Double>(groundTruthRelationships.size());
-		ArrayList<Double> sortedLabeledRelationships = new ArrayList<Double>(groundTruthRelationships.size());
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			
-			// Calculate the predicted value for this song (averaging among all partitions)
-			Double currentPredictedValue = 0.0d;
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				currentPredictedValue += predictedRelationships.get(i).getRelationships()[j][0];
-			}
-			currentPredictedValue /= predictedRelationships.get(i).getRelationships().length;
-			
-			sortedPredictedRelationships.add(currentPredictedValue);
-			sortedLabeledRelationships.add(new Double(groundTruthRelationships.get(i)));
-		}
-		Collections.sort(sortedPredictedRelationships);
-		Collections.sort(sortedLabeledRelationships);
-		
-		// Calculate ranks for predicted values
-		HashMap<Double, Double> predictedValueToRang = new HashMap<Double, Double>();
-		for(int i=sortedPredictedRelationships.size()-1;i>=0;i--) {
-			
-			// Calculate the number of the equal values
-			int equalValuesNumber = 1;
-			double rank = sortedPredictedRelationships.size() - i; // First position in descending order
-			for(int j=i-1;j>=0;j--) {
-				if(sortedPredictedRelationships.get(j).equals(sortedPredictedRelationships.get(i))) {
-					equalValuesNumber++;
-					rank += sortedPredictedRelationships.size() - j; // Add the next position in descending order
-				} else {
-					break;
-				}
-			}
-			rank /= equalValuesNumber;
-			predictedValueToRang.put(sortedPredictedRelationships.get(i), rank);
-			
-			// Go to the next position with different value
-			i -= (equalValuesNumber-1);
-		}
-		
-		// Calculate ranks for labeled values
-		HashMap<Double, Double> labeledValueToRang = new HashMap<Double, Double>();
-		for(int i=sortedLabeledRelationships.size()-1;i>=0;i--) {
-			
-			// Calculate the number of the equal values
-			int equalValuesNumber = 1;
-			double rank = sortedLabeledRelationships.size() - i; // First position in descending order
-			for(int j=i-1;j>=0;j--) {
-				if(sortedLabeledRelationships.get(j).equals(sortedLabeledRelationships.get(i))) {
-					equalValuesNumber++;
-					rank += sortedLabeledRelationships.size() - j; // Add the next position in descending order
-				} else {
-					break;
-				}
-			}
-			rank /= equalValuesNumber;
-			labeledValueToRang.put(sortedLabeledRelationships.get(i), rank);
-			
-			// Go to the next position with different value
-			i -= (equalValuesNumber-1);
-		}
-		
-		// Calculate the Spearman's rank correlation
-		double sumOfRankMultiplications = 0.0d;
-		double sumOfSquaredPredictedRanks = 0.0d;
-		double sumOfSquaredLabeledRanks = 0.0d;
-		double p = groundTruthRelationships.size() * Math.pow((groundTruthRelationships.size()+1d)/2d, 2);
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			
-			// Calculate the predicted value for this song (averaging among all partitions)
-			Double currentPredictedValue = 0.0d;
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				currentPredictedValue += predictedRelationships.get(i).getRelationships()[j][0];
-			}
-			currentPredictedValue /= predictedRelationships.get(i).getRelationships().length;
-			
-			sumOfRankMultiplications += predictedValueToRang.get(currentPredictedValue) * labeledValueToRang.get(groundTruthRelationships.get(i));
-			sumOfSquaredPredictedRanks += Math.pow(predictedValueToRang.get(currentPredictedValue), 2);
-			sumOfSquaredLabeledRanks += Math.pow(labeledValueToRang.get(groundTruthRelationships.get(i)), 2);
-			
-		}	
-		
-		// Calculate the correlation coefficient
-		double corrCoef = (sumOfRankMultiplications - p) / 
-			(Math.sqrt(sumOfSquaredPredictedRanks - p) * Math.sqrt(sumOfSquaredLabeledRanks - p));
+		double[] predictedValues = new double[groundTruthRelationships.size()];
+		double[] labeledValues = new double[groundTruthRelationships.size()];
+		RankCorrelationKernels.fillSongLevelPredictions(predictedRelationships, 0, predictedValues);
+		RankCorrelationKernels.fillSongLevelGroundTruth(groundTruthRelationships, labeledValues);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] correlationMeasure = new ValidationMeasureDouble[1];
 		correlationMeasure[0] = new ValidationMeasureDouble(false);
 		correlationMeasure[0].setId(301);
 		correlationMeasure[0].setName("Speraman's rank correlation coefficient on song level");
-		correlationMeasure[0].setValue(corrCoef);
+		correlationMeasure[0].setValue(RankCorrelationKernels.calculateSpearmansRho(predictedValues, labeledValues));
 		return correlationMeasure;
 	}
-	
+
 	/**
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateOneClassMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
 	 */
 	public ValidationMeasureDouble[] calculateOneClassMeasureOnPartitionLevel(ArrayList<Double> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		
-		// Calculate the number of all partitions
-		int overallPartitionNumber = 0;
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			overallPartitionNumber += predictedRelationships.get(i).getRelationships().length;
-		}
-		
-		// Sort labeled and predicted values
-		ArrayList<Double> sortedPredictedRelationships = new ArrayList<Double>(groundTruthRelationships.size());
-		ArrayList<Double> sortedLabeledRelationships = new ArrayList<Double>(groundTruthRelationships.size());
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				sortedPredictedRelationships.add(predictedRelationships.get(i).getRelationships()[j][0]);
-				sortedLabeledRelationships.add(new Double(groundTruthRelationships.get(i)));
-			}
-		}
-		Collections.sort(sortedPredictedRelationships);
-		Collections.sort(sortedLabeledRelationships);
-		
-		
-		// Calculate ranks for predicted values
-		HashMap<Double, Double> predictedValueToRang = new HashMap<Double, Double>();
-		for(int i=sortedPredictedRelationships.size()-1;i>=0;i--) {
-			
-			// Calculate the number of the equal values
-			int equalValuesNumber = 1;
-			double rank = sortedPredictedRelationships.size() - i; // First position in descending order
-			for(int j=i-1;j>=0;j--) {
-				if(sortedPredictedRelationships.get(j).equals(sortedPredictedRelationships.get(i))) {
-					equalValuesNumber++;
-					rank += sortedPredictedRelationships.size() - j; // Add the next position in descending order
-				} else {
-					break;
-				}
-			}
-			rank /= equalValuesNumber;
-			predictedValueToRang.put(sortedPredictedRelationships.get(i), rank);
-			
-			// Go to the next position with different value
-			i -= (equalValuesNumber-1);
-		}
-		
-		// Calculate ranks for labeled values
-		HashMap<Double, Double> labeledValueToRang = new HashMap<Double, Double>();
-		for(int i=sortedLabeledRelationships.size()-1;i>=0;i--) {
-			
-			// Calculate the number of the equal values
-			int equalValuesNumber = 1;
-			double rank = sortedLabeledRelationships.size() - i; // First position in descending order
-			for(int j=i-1;j>=0;j--) {
-				if(sortedLabeledRelationships.get(j).equals(sortedLabeledRelationships.get(i))) {
-					equalValuesNumber++;
-					rank += sortedLabeledRelationships.size() - j; // Add the next position in descending order
-				} else {
-					break;
-				}
-			}
-			rank /= equalValuesNumber;
-			labeledValueToRang.put(sortedLabeledRelationships.get(i), rank);
-			
-			// Go to the next position with different value
-			i -= (equalValuesNumber-1);
-		}
-		
-		// Calculate the Spearman's rank correlation
-		double sumOfRankMultiplications = 0.0d;
-		double sumOfSquaredPredictedRanks = 0.0d;
-		double sumOfSquaredLabeledRanks = 0.0d;
-		double p = overallPartitionNumber * Math.pow((overallPartitionNumber+1d)/2d, 2);
-		for(int i=0;i<groundTruthRelationships.size();i++) {
-			for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-				sumOfRankMultiplications += predictedValueToRang.get(predictedRelationships.get(i).getRelationships()[j][0]) * labeledValueToRang.get(groundTruthRelationships.get(i));
-				sumOfSquaredPredictedRanks += Math.pow(predictedValueToRang.get(predictedRelationships.get(i).getRelationships()[j][0]), 2);
-				sumOfSquaredLabeledRanks += Math.pow(labeledValueToRang.get(groundTruthRelationships.get(i)), 2);
-			}
-		}
-		
-		// Calculate the correlation coefficient
-		double corrCoef = (sumOfRankMultiplications - p) / 
-			(Math.sqrt(sumOfSquaredPredictedRanks - p) * Math.sqrt(sumOfSquaredLabeledRanks - p));
+		int overallPartitionNumber = RankCorrelationKernels.getOverallPartitionNumber(predictedRelationships);
+		double[] predictedValues = new double[overallPartitionNumber];
+		double[] labeledValues = new double[overallPartitionNumber];
+		RankCorrelationKernels.fillPartitionLevelPredictions(predictedRelationships, 0, predictedValues);
+		RankCorrelationKernels.fillPartitionLevelGroundTruth(groundTruthRelationships, predictedRelationships, labeledValues);
 		
 		// Prepare the result
 		ValidationMeasureDouble[] correlationMeasure = new ValidationMeasureDouble[1];
 		correlationMeasure[0] = new ValidationMeasureDouble(false);
 		correlationMeasure[0].setId(301);
 		correlationMeasure[0].setName("Speraman's rank correlation coefficient on partition level");
-		correlationMeasure[0].setValue(corrCoef);
+		correlationMeasure[0].setValue(RankCorrelationKernels.calculateSpearmansRho(predictedValues, labeledValues));
 		return correlationMeasure;
 	}
 
@@ -263,107 +106,21 @@ public class SpearmansRhoRankCorrelation extends ClassificationQualityDoubleMeas
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnSongLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
 		
-		double[] corrCoef = new double[numberOfCategories];
-		for(int category = 0; category < numberOfCategories; category++) {
-			// Sort labeled and predicted values
-			ArrayList<Double> sortedPredictedRelationships = new ArrayList<Double>(groundTruthRelationships.size());
-			ArrayList<Double> sortedLabeledRelationships = new ArrayList<Double>(groundTruthRelationships.size());
-			for(int i=0;i<groundTruthRelationships.size();i++) {
-				
-				// Calculate the predicted value for this song (averaging among all partitions)
-				Double currentPredictedValue = 0.0d;
-				for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-					currentPredictedValue += predictedRelationships.get(i).getRelationships()[j][category];
-				}
-				currentPredictedValue /= predictedRelationships.get(i).getRelationships().length;
-				
-				sortedPredictedRelationships.add(currentPredictedValue);
-				sortedLabeledRelationships.add(new Double(groundTruthRelationships.get(i).getRelationships()[0][category]));
-			}
-			Collections.sort(sortedPredictedRelationships);
-			Collections.sort(sortedLabeledRelationships);
-			
-			// Calculate ranks for predicted values
-			HashMap<Double, Double> predictedValueToRang = new HashMap<Double, Double>();
-			for(int i=sortedPredictedRelationships.size()-1;i>=0;i--) {
-				
-				// Calculate the number of the equal values
-				int equalValuesNumber = 1;
-				double rank = sortedPredictedRelationships.size() - i; // First position in descending order
-				for(int j=i-1;j>=0;j--) {
-					if(sortedPredictedRelationships.get(j).equals(sortedPredictedRelationships.get(i))) {
-						equalValuesNumber++;
-						rank += sortedPredictedRelationships.size() - j; // Add the next position in descending order
-					} else {
-						break;
-					}
-				}
-				rank /= equalValuesNumber;
-				predictedValueToRang.put(sortedPredictedRelationships.get(i), rank);
-				
-				// Go to the next position with different value
-				i -= (equalValuesNumber-1);
-			}
-			
-			// Calculate ranks for labeled values
-			HashMap<Double, Double> labeledValueToRang = new HashMap<Double, Double>();
-			for(int i=sortedLabeledRelationships.size()-1;i>=0;i--) {
-				
-				// Calculate the number of the equal values
-				int equalValuesNumber = 1;
-				double rank = sortedLabeledRelationships.size() - i; // First position in descending order
-				for(int j=i-1;j>=0;j--) {
-					if(sortedLabeledRelationships.get(j).equals(sortedLabeledRelationships.get(i))) {
-						equalValuesNumber++;
-						rank += sortedLabeledRelationships.size() - j; // Add the next position in descending order
-					} else {
-						break;
-					}
-				}
-				rank /= equalValuesNumber;
-				labeledValueToRang.put(sortedLabeledRelationships.get(i), rank);
-				
-				// Go to the next position with different value
-				i -= (equalValuesNumber-1);
-			}
-			
-			// Calculate the Spearman's rank correlation
-			double sumOfRankMultiplications = 0.0d;
-			double sumOfSquaredPredictedRanks = 0.0d;
-			double sumOfSquaredLabeledRanks = 0.0d;
-			double p = groundTruthRelationships.size() * Math.pow((groundTruthRelationships.size()+1d)/2d, 2);
-			for(int i=0;i<groundTruthRelationships.size();i++) {
-				
-				// Calculate the predicted value for this song (averaging among all partitions)
-				Double currentPredictedValue = 0.0d;
-				for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-					currentPredictedValue += predictedRelationships.get(i).getRelationships()[j][category];
-				}
-				currentPredictedValue /= predictedRelationships.get(i).getRelationships().length;
-				
-				sumOfRankMultiplications += predictedValueToRang.get(currentPredictedValue) * labeledValueToRang.get(groundTruthRelationships.get(i).getRelationships()[0][category]);
-				sumOfSquaredPredictedRanks += Math.pow(predictedValueToRang.get(currentPredictedValue), 2);
-				sumOfSquaredLabeledRanks += Math.pow(labeledValueToRang.get(groundTruthRelationships.get(i).getRelationships()[0][category]), 2);
-				
-			}	
-			
-			// Calculate the correlation coefficient
-			corrCoef[category] = (sumOfRankMultiplications - p) / 
-				(Math.sqrt(sumOfSquaredPredictedRanks - p) * Math.sqrt(sumOfSquaredLabeledRanks - p));
-		}
-		
-		// Prepare the result
+		// The buffers are shared by all categories
+		double[] predictedValues = new double[groundTruthRelationships.size()];
+		double[] labeledValues = new double[groundTruthRelationships.size()];
 		ValidationMeasureDouble[] correlationMeasure = new ValidationMeasureDouble[numberOfCategories];
 		for(int category = 0; category < numberOfCategories; category++) {
+			RankCorrelationKernels.fillSongLevelPredictions(predictedRelationships, category, predictedValues);
+			RankCorrelationKernels.fillSongLevelGroundTruth(groundTruthRelationships, category, labeledValues);
 			correlationMeasure[category] = new ValidationMeasureDouble(false);
 			correlationMeasure[category].setId(301);
 			correlationMeasure[category].setName("Speraman's rank correlation coefficient on song level for category " + groundTruthRelationships.get(0).getLabels()[category]);
-			correlationMeasure[category].setValue(corrCoef[category]);
+			correlationMeasure[category].setValue(RankCorrelationKernels.calculateSpearmansRho(predictedValues, labeledValues));
 		}
 		return correlationMeasure;
 	}
 
-
 	/*
 	 * (non-Javadoc)
 	 * @see amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface#calculateMultiLabelMeasureOnPartitionLevel(java.util.ArrayList, java.util.ArrayList)
@@ -371,99 +128,19 @@ public class SpearmansRhoRankCorrelation extends ClassificationQualityDoubleMeas
 	public ValidationMeasureDouble[] calculateMultiLabelMeasureOnPartitionLevel(ArrayList<ClassifiedSongPartitions> groundTruthRelationships, ArrayList<ClassifiedSongPartitions> predictedRelationships) throws NodeException {
 		int numberOfCategories = groundTruthRelationships.get(0).getLabels().length;
 		
-		double[] corrCoef = new double[numberOfCategories];
-		for(int category = 0; category < numberOfCategories; category++) {
-			// Calculate the number of all partitions
-			int overallPartitionNumber = 0;
-			for(int i=0;i<groundTruthRelationships.size();i++) {
-				overallPartitionNumber += predictedRelationships.get(i).getRelationships().length;
-			}
-			
-			// Sort labeled and predicted values
-			ArrayList<Double> sortedPredictedRelationships = new ArrayList<Double>(groundTruthRelationships.size());
-			ArrayList<Double> sortedLabeledRelationships = new ArrayList<Double>(groundTruthRelationships.size());
-			for(int i=0;i<groundTruthRelationships.size();i++) {
-				for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-					sortedPredictedRelationships.add(predictedRelationships.get(i).getRelationships()[j][category]);
-					sortedLabeledRelationships.add(new Double(groundTruthRelationships.get(i).getRelationships()[j][category]));
-				}
-			}
-			Collections.sort(sortedPredictedRelationships);
-			Collections.sort(sortedLabeledRelationships);
-			
-			
-			// Calculate ranks for predicted values
-			HashMap<Double, Double> predictedValueToRang = new HashMap<Double, Double>();
-			for(int i=sortedPredictedRelationships.size()-1;i>=0;i--) {
-				
-				// Calculate the number of the equal values
-				int equalValuesNumber = 1;
-				double rank = sortedPredictedRelationships.size() - i; // First position in descending order
-				for(int j=i-1;j>=0;j--) {
-					if(sortedPredictedRelationships.get(j).equals(sortedPredictedRelationships.get(i))) {
-						equalValuesNumber++;
-						rank += sortedPredictedRelationships.size() - j; // Add the next position in descending order
-					} else {
-						break;
-					}
-				}
-				rank /= equalValuesNumber;
-				predictedValueToRang.put(sortedPredictedRelationships.get(i), rank);
-				
-				// Go to the next position with different value
-				i -= (equalValuesNumber-1);
-			}
-			
-			// Calculate ranks for labeled values
-			HashMap<Double, Double> labeledValueToRang = new HashMap<Double, Double>();
-			for(int i=sortedLabeledRelationships.size()-1;i>=0;i--) {
-				
-				// Calculate the number of the equal values
-				int equalValuesNumber = 1;
-				double rank = sortedLabeledRelationships.size() - i; // First position in descending order
-				for(int j=i-1;j>=0;j--) {
-					if(sortedLabeledRelationships.get(j).equals(sortedLabeledRelationships.get(i))) {
-						equalValuesNumber++;
-						rank += sortedLabeledRelationships.size() - j; // Add the next position in descending order
-					} else {
-						break;
-					}
-				}
-				rank /= equalValuesNumber;
-				labeledValueToRang.put(sortedLabeledRelationships.get(i), rank);
-				
-				// Go to the next position with different value
-				i -= (equalValuesNumber-1);
-			}
-			
-			// Calculate the Spearman's rank correlation
-			double sumOfRankMultiplications = 0.0d;
-			double sumOfSquaredPredictedRanks = 0.0d;
-			double sumOfSquaredLabeledRanks = 0.0d;
-			double p = overallPartitionNumber * Math.pow((overallPartitionNumber+1d)/2d, 2);
-			for(int i=0;i<groundTruthRelationships.size();i++) {
-				for(int j=0;j<predictedRelationships.get(i).getRelationships().length;j++) {
-					sumOfRankMultiplications += predictedValueToRang.get(predictedRelationships.get(i).getRelationships()[j][category]) * labeledValueToRang.get(groundTruthRelationships.get(i).getRelationships()[j][category]);
-					sumOfSquaredPredictedRanks += Math.pow(predictedValueToRang.get(predictedRelationships.get(i).getRelationships()[j][category]), 2);
-					sumOfSquaredLabeledRanks += Math.pow(labeledValueToRang.get(groundTruthRelationships.get(i).getRelationships()[j][category]), 2);
-				}
-			}
-		
-			// Calculate the correlation coefficient
-			corrCoef[category] = (sumOfRankMultiplications - p) / 
-				(Math.sqrt(sumOfSquaredPredictedRanks - p) * Math.sqrt(sumOfSquaredLabeledRanks - p));
-		}
-		
-		// Prepare the result
+		// The buffers are shared by all categories
+		int overallPartitionNumber = RankCorrelationKernels.getOverallPartitionNumber(predictedRelationships);
+		double[] predictedValues = new double[overallPartitionNumber];
+		double[] labeledValues = new double[overallPartitionNumber];
 		ValidationMeasureDouble[] correlationMeasure = new ValidationMeasureDouble[numberOfCategories];
 		for(int category = 0; category < numberOfCategories; category++) {
+			RankCorrelationKernels.fillPartitionLevelPredictions(predictedRelationships, category, predictedValues);
+			RankCorrelationKernels.fillPartitionLevelGroundTruth(groundTruthRelationships, predictedRelationships, category, labeledValues);
 			correlationMeasure[category] = new ValidationMeasureDouble(false);
 			correlationMeasure[category].setId(301);
 			correlationMeasure[category].setName("Speraman's rank correlation coefficient on partition level for category " + groundTruthRelationships.get(0).getLabels()[category]);
-			correlationMeasure[category].setValue(corrCoef[category]);
+			correlationMeasure[category].setValue(RankCorrelationKernels.calculateSpearmansRho(predictedValues, labeledValues));
 		}
 		return correlationMeasure;
 	}
-
 }
-
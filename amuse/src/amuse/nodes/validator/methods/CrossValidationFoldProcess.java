@@ -0,0 +1,111 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.validator.methods;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+
+import org.apache.log4j.Level;
+
+import amuse.data.annotation.ClassifiedSongPartitions;
+import amuse.interfaces.nodes.NodeException;
+import amuse.interfaces.nodes.TaskBundle;
+import amuse.nodes.classifier.ClassificationConfiguration;
+import amuse.nodes.classifier.ClassifierNodeScheduler;
+import amuse.nodes.trainer.TrainerNodeScheduler;
+import amuse.nodes.trainer.TrainingConfiguration;
+import amuse.util.AmuseLogger;
+
+/**
+ * Trains and classifies one cross-validation fold in a separate Java process. It is started by
+ * <code>NFoldCrossValidator</code> for algorithms with a tool folder (e.g. the RapidMiner repository),
+ * which can not be used by parallel folds of the same process. Each process gets its own fold folder
+ * <code>%node home%/input/task_%fold job id%</code> and its own RapidMiner repository in this folder.
+ * 
+ * The fold folder contains the task bundle <code>fold.ser</code> with the training and the classification
+ * configuration; the predicted relationships are written to <code>predictions.ser</code>. 
+ * 
+ * @version $Id$
+ */
+public class CrossValidationFoldProcess {
+
+	/** Name of the task bundle with the training and the classification configuration */
+	static final String FOLD_BUNDLE = "fold.ser";
+	
+	/** Name of the file with the predicted relationships */
+	static final String PREDICTIONS = "predictions.ser";
+	
+	/**
+	 * Trains and classifies the fold
+	 * @param args Node home and the job id of the fold
+	 */
+	public static void main(String[] args) {
+		try {
+			proceedFold(args[0], Long.parseLong(args[1]));
+		} catch(Exception e) {
+			AmuseLogger.write(CrossValidationFoldProcess.class.getName(), Level.ERROR,
+					"Validation fold " + args[1] + " failed: " + e.getMessage());
+			System.exit(1);
+		}
+		System.exit(0);
+	}
+	
+	/**
+	 * Trains the model and classifies the validation set of the fold
+	 * @param nodeHome Home folder of the validator node
+	 * @param foldJobId Job id of the fold
+	 * @throws NodeException If the fold could not be validated
+	 * @throws IOException If the task bundle or the predictions can not be read or written
+	 */
+	private static void proceedFold(String nodeHome, long foldJobId) throws NodeException, IOException {
+		String foldFolder = nodeHome + File.separator + "input" + File.separator + "task_" + foldJobId;
+		TrainingConfiguration tConf;
+		ClassificationConfiguration cConf;
+		TaskBundle bundle = new TaskBundle(new File(foldFolder + File.separator + FOLD_BUNDLE));
+		try {
+			tConf = (TrainingConfiguration)bundle.getJob(0);
+			cConf = (ClassificationConfiguration)bundle.getJob(1);
+		} finally {
+			bundle.close();
+		}
+		
+		TrainerNodeScheduler ts = new TrainerNodeScheduler(foldFolder);
+		ts.setCleanInputFolder(false);
+		ts.proceedTask(nodeHome, foldJobId, tConf);
+		
+		ClassifierNodeScheduler cs = new ClassifierNodeScheduler(foldFolder);
+		cs.setCleanInputFolder(false);
+		ArrayList<ClassifiedSongPartitions> predictedSongs = cs.proceedTask(nodeHome, foldJobId, cConf, false);
+		
+		ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(foldFolder + File.separator + PREDICTIONS));
+		try {
+			out.writeObject(predictedSongs);
+		} finally {
+			out.close();
+		}
+	}
+}
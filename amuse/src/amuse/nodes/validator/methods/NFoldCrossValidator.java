@@ -24,11 +24,21 @@
 package amuse.nodes.validator.methods;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.log4j.Level;
 
 import weka.core.Attribute;
 import weka.core.Instance;
@@ -45,6 +55,8 @@ import amuse.data.io.attributes.NominalAttribute;
 import amuse.data.io.attributes.NumericAttribute;
 import amuse.data.io.attributes.StringAttribute;
 import amuse.interfaces.nodes.NodeException;
+import amuse.interfaces.nodes.TaskBundle;
+import amuse.interfaces.nodes.TaskConfiguration;
 import amuse.interfaces.nodes.methods.AmuseTask;
 import amuse.nodes.classifier.ClassifierNodeScheduler;
 import amuse.nodes.classifier.ClassificationConfiguration;
@@ -52,6 +64,7 @@ import amuse.nodes.trainer.TrainerNodeScheduler;
 import amuse.nodes.trainer.TrainingConfiguration;
 import amuse.nodes.validator.ValidationConfiguration;
 import amuse.nodes.validator.ValidatorNodeScheduler;
+import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface;
 import amuse.nodes.validator.interfaces.DataReductionMeasureCalculatorInterface;
 import amuse.nodes.validator.interfaces.EventDetectionQualityDoubleMeasureCalculator;
@@ -59,8 +72,13 @@ import amuse.nodes.validator.interfaces.MeasureCalculatorInterface;
 import amuse.nodes.validator.interfaces.ValidationMeasure;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
 import amuse.nodes.validator.interfaces.ValidatorInterface;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
 import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysIntValue;
 import amuse.preferences.KeysStringValue;
+import amuse.util.AmuseLogger;
+import amuse.util.FileOperations;
+import amuse.util.LibraryInitializer;
 
 /**
  * Performs n-fold cross-validation
@@ -87,6 +105,24 @@ public class NFoldCrossValidator extends AmuseTask implements ValidatorInterface
 	
 	private File folderForModels = null;
 	
+	/** True if the classification algorithm uses a tool folder, which can not be used by parallel validation runs
+	 * of the same process; such runs are proceeded in separate processes (see <code>CrossValidationFoldProcess</code>) */
+	private boolean usesToolFolder = false;
+	
+	/**
+	 * Validation of a single fold
+	 */
+	interface FoldValidation {
+		
+		/**
+		 * @param fold Number of the validation partition
+		 * @param parallel True if the folds are validated in parallel
+		 * @return Measures of this validation run
+		 * @throws NodeException
+		 */
+		ArrayList<ValidationMeasure> validateFold(int fold, boolean parallel) throws NodeException;
+	}
+	
 	public void validate() throws NodeException {
 		
 		// ---------------------------------------------
@@ -142,12 +178,14 @@ public class NFoldCrossValidator extends AmuseTask implements ValidatorInterface
 	    	}
 			Attribute idAttribute = classificationAlgorithmLoader.getStructure().attribute("Id");
 			Attribute nameAttribute = classificationAlgorithmLoader.getStructure().attribute("Name");
+			Attribute homeFolderAttribute = classificationAlgorithmLoader.getStructure().attribute("HomeFolder");
 			classificationAlgorithmInstance = classificationAlgorithmLoader.getNextInstance(classificationAlgorithmLoader.getStructure());
 			while(classificationAlgorithmInstance != null) {
 				
 				// If the given classification algorithm is found..
 				if(classificationAlgorithmInstance.value(idAttribute) == algorithmToSearch) {
 					classificationMethodFound = true;
+					this.usesToolFolder = !classificationAlgorithmInstance.stringValue(homeFolderAttribute).isEmpty();
 					
 					// Set the name of folder for models and measures (combined from
 					// classifier ID, parameters and name)
@@ -189,6 +227,25 @@ public class NFoldCrossValidator extends AmuseTask implements ValidatorInterface
 	 * @throws NodeException
 	 */
 	private void configureMeasureCalculators() throws NodeException {
+		this.measureCalculators = createMeasureCalculators();
+		MeasureTable mt = ((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getMeasures();
+		for(int i=0;i<mt.size();i++) {
+			this.measureIds.add(mt.get(i).getID());
+		}
+		
+		// Check if any measure calculators are loaded
+		if(this.measureCalculators.size() == 0) {
+			throw new NodeException("No measure method could be loaded for validation");
+		}
+	}
+	
+	/**
+	 * Creates the measure calculators for the measures of the validation configuration
+	 * @return Measure calculators
+	 * @throws NodeException
+	 */
+	private ArrayList<MeasureCalculatorInterface> createMeasureCalculators() throws NodeException {
+		ArrayList<MeasureCalculatorInterface> calculators = new ArrayList<MeasureCalculatorInterface>();
 		
 		// TODO Support measure calculators which use some parameters (like F-Measure) -> similar to algorithms 
 		try {
@@ -198,8 +255,7 @@ public class NFoldCrossValidator extends AmuseTask implements ValidatorInterface
 				// Set measure method properties
 				Class<?> measureMethod = Class.forName(mt.get(i).getMeasureClass());
 				MeasureCalculatorInterface vmc = (MeasureCalculatorInterface)measureMethod.newInstance();
-				this.measureCalculators.add(vmc);
-				this.measureIds.add(mt.get(i).getID());
+				calculators.add(vmc);
 				if(vmc instanceof ClassificationQualityMeasureCalculatorInterface) {
 					if(mt.get(i).isPartitionLevelSelected()) {
 						((ClassificationQualityMeasureCalculatorInterface)vmc).setPartitionLevel(true);
@@ -212,11 +268,7 @@ public class NFoldCrossValidator extends AmuseTask implements ValidatorInterface
 		} catch(Exception e) {
 			throw new NodeException("Configuration of measure method for validation failed: " + e.getMessage());
 		}
-		
-		// Check if any measure calculators are loaded
-		if(this.measureCalculators.size() == 0) {
-			throw new NodeException("No measure method could be loaded for validation");
-		}
+		return calculators;
 	}
 	
 	/**
@@ -254,150 +306,83 @@ public class NFoldCrossValidator extends AmuseTask implements ValidatorInterface
 			songIdToValidationPartition.put(shuffledSongIdsForCrossValidation.get(i), partitionNumber);
 		}
 		
-		// Validation measures are saved in a list (for each run)
-		ArrayList<ArrayList<ValidationMeasure>> measuresOfEveryValidationRun = new ArrayList<ArrayList<ValidationMeasure>>();
-		
 		// Go through all validation runs (equal to partition number), using the current partition as test partition each time
-		for(int i=0;i<this.n;i++) { 
-			
-			// Create the sets with the data of the current partition for training and validation
-			DataSet trainingSet = new DataSet("TrainingSet");
-			DataSet validationSet = new DataSet("ValidationSet");
-			
-			// Create the attributes for these sets
-			for(int a = 0; a < allPartitions.getAttributeCount(); a++) {
-				if(allPartitions.getAttribute(a) instanceof NumericAttribute) {
-					trainingSet.addAttribute(new NumericAttribute(allPartitions.getAttribute(a).getName(),new ArrayList<Double>()));
-					validationSet.addAttribute(new NumericAttribute(allPartitions.getAttribute(a).getName(),new ArrayList<Double>()));
-				} else if(allPartitions.getAttribute(a) instanceof StringAttribute) {
-					trainingSet.addAttribute(new StringAttribute(allPartitions.getAttribute(a).getName(),new ArrayList<String>()));
-					validationSet.addAttribute(new StringAttribute(allPartitions.getAttribute(a).getName(),new ArrayList<String>()));
-				} else {
-					trainingSet.addAttribute(new NominalAttribute(allPartitions.getAttribute(a).getName(),new ArrayList<String>()));
-					validationSet.addAttribute(new NominalAttribute(allPartitions.getAttribute(a).getName(),new ArrayList<String>()));
+		final DataSet partitions = allPartitions;
+		final HashMap<Integer,Integer> validationPartitions = songIdToValidationPartition;
+		final HashMap<Integer,Integer> songNumbers = songIdToSongNumber;
+		ArrayList<ArrayList<ValidationMeasure>> measuresOfEveryValidationRun = validateFolds(this.n, 
+				AmusePreferences.getInt(KeysIntValue.NUMBER_OF_PARALLEL_FOLDS), new FoldValidation() {
+			public ArrayList<ValidationMeasure> validateFold(int fold, boolean parallel) throws NodeException {
+				if(!parallel) {
+					return NFoldCrossValidator.this.validateFold(fold, partitions, validationPartitions, songNumbers, measureCalculators, false);
 				}
-			}
-			
-			// Ground truth for the validation set
-			ArrayList<Double> songRelationshipsValidationSet = new ArrayList<Double>(); // If binary classification is applied
-			ArrayList<ClassifiedSongPartitions> songRelationshipsMValidationSet = new ArrayList<ClassifiedSongPartitions>(); // If multiclass classification is applied
-			int currentSongId = -1;
-			
-			for(int j=0;j<allPartitions.getValueCount();j++) {
-				
-				// To which validation partition should the current song partition be assigned?
-				int songIdToSearchFor = new Double(allPartitions.getAttribute("Id").getValueAt(j).toString()).intValue();
 				
-				// Training or validation set? Go through all song partitions assigned to cv
-				if(songIdToValidationPartition.containsKey(songIdToSearchFor)) {
-					if(songIdToValidationPartition.get(songIdToSearchFor) == i) {
-						
-						// Add the partition to validation set
-						for(int a = 0; a < allPartitions.getAttributeCount(); a++) {
-							validationSet.getAttribute(a).addValue(allPartitions.getAttribute(a).getValueAt(j));
-						}
-						
-						// Save the ground truth for the validation set
-						// TODO It is assumed that partitions of the same song are coming all together one after each other in the DataSet
-						// - if the ID is changed to the next song, the ground truth of all partitions is then loaded
-						if(currentSongId != songIdToSearchFor) {
-							currentSongId = songIdToSearchFor;
-							if(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getLabelType() == LabelType.SINGLELABEL) {
-								songRelationshipsValidationSet.add(((ValidatorNodeScheduler)this.correspondingScheduler).
-									getLabeledAverageSongRelationships().get(songIdToSongNumber.get(songIdToSearchFor)));
-							} else {
-								songRelationshipsMValidationSet.add(((ValidatorNodeScheduler)this.correspondingScheduler).
-									getLabeledSongRelationships().get(songIdToSongNumber.get(songIdToSearchFor)));
-							}
-						}
-					
-					} else {
-						
-						// Add the partition to training set
-						for(int a = 0; a < allPartitions.getAttributeCount(); a++) {
-							trainingSet.getAttribute(a).addValue(allPartitions.getAttribute(a).getValueAt(j));
-						}
-					}
-				}
+				// The measure calculators are configured for each run and can not be shared
+				return NFoldCrossValidator.this.validateFold(fold, partitions, validationPartitions, songNumbers, createMeasureCalculators(), 
+						usesToolFolder);
 			}
-			
-			// Train the model
-			// TODO Classification preprocessing is not currently supported!
-			TrainingConfiguration tConf = new TrainingConfiguration(
-				((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getInputFeaturesDescription(), 
-				InputFeatureType.PROCESSED_FEATURES,
-				-1,
-				-1,
-				((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getClassificationAlgorithmDescription(),
-				"-1",
-				new DataSetInput(trainingSet),
-				GroundTruthSourceType.READY_INPUT,
-				((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getAttributesToPredict(),
-				((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getAttributesToIgnore(),
-				((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getModelType(),
-				"",
-				this.folderForModels + File.separator + "model_" + i + ".mod");
-			tConf.setNumberOfValuesPerWindow(((ValidationConfiguration)this.getCorrespondingScheduler().getConfiguration()).getNumberOfValuesPerWindow());
-			TrainerNodeScheduler ts = new TrainerNodeScheduler(this.correspondingScheduler.getHomeFolder() + File.separator + "input" + File.separator + "task_" + this.correspondingScheduler.getTaskId());
-			ts.setCleanInputFolder(false);
-			ts.proceedTask(this.correspondingScheduler.getHomeFolder(), this.correspondingScheduler.getTaskId(), tConf);
-			
-			// Classify the validation set
-			ClassificationConfiguration cConf = new ClassificationConfiguration(
-				new DataSetInput(validationSet),
-				ClassificationConfiguration.InputSourceType.READY_INPUT,
-				new ArrayList<Integer>(),
-				((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getInputFeaturesDescription(), 
-				InputFeatureType.PROCESSED_FEATURES,
-				-1,
-				-1,
-				((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getClassificationAlgorithmDescription(),
-				new ArrayList<Integer>(),
-				((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getModelType(),
-				0,
-				this.correspondingScheduler.getHomeFolder() + File.separator + "input" + File.separator + "task_" + this.correspondingScheduler.getTaskId() + File.separator + "result.arff");
-			cConf.setPathToInputModel(this.folderForModels + File.separator + "model_" + i + ".mod");
-			cConf.setNumberOfValuesPerWindow(((ValidationConfiguration)this.getCorrespondingScheduler().getConfiguration()).getNumberOfValuesPerWindow());
-			ClassifierNodeScheduler cs = new ClassifierNodeScheduler(this.correspondingScheduler.getHomeFolder() + File.separator + "input" + File.separator + "task_" + this.correspondingScheduler.getTaskId());
-			cs.setCleanInputFolder(false);
-			ArrayList<ClassifiedSongPartitions> predictedSongs = cs.proceedTask(this.correspondingScheduler.getHomeFolder(), this.correspondingScheduler.getTaskId(), cConf, false);
-			
-			// Calculate the classifier evaluation measures for result
-			try {
-				ArrayList<ValidationMeasure> measuresOfThisRun = new ArrayList<ValidationMeasure>();
-				for(int currentMeasure = 0; currentMeasure < this.measureCalculators.size(); currentMeasure++) {
-					ValidationMeasure[] currMeas = null;
-					if(this.measureCalculators.get(currentMeasure) instanceof ClassificationQualityMeasureCalculatorInterface) {
-						((ClassificationQualityMeasureCalculatorInterface)this.measureCalculators.get(currentMeasure)).setContinuous(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getRelationshipType() == RelationshipType.CONTINUOUS);
-						if(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getLabelType() == LabelType.SINGLELABEL) {
-							currMeas = ((ClassificationQualityMeasureCalculatorInterface)this.measureCalculators.get(currentMeasure)).calculateOneClassMeasure(
-								songRelationshipsValidationSet, predictedSongs);
-						} else if(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getLabelType() == LabelType.MULTILABEL) {
-							currMeas = ((ClassificationQualityMeasureCalculatorInterface)this.measureCalculators.get(currentMeasure)).calculateMultiLabelMeasure(
-									songRelationshipsMValidationSet, predictedSongs);
-						} else {
-							currMeas = ((ClassificationQualityMeasureCalculatorInterface)this.measureCalculators.get(currentMeasure)).calculateMultiClassMeasure(
-								songRelationshipsMValidationSet, predictedSongs);
-						}
-					} else if(this.measureCalculators.get(currentMeasure) instanceof DataReductionMeasureCalculatorInterface) {
-						currMeas = ((DataReductionMeasureCalculatorInterface)this.measureCalculators.get(currentMeasure)).calculateMeasure(
-								((ValidatorNodeScheduler)this.correspondingScheduler).getListOfAllProcessedFiles());
-					} else if(this.measureCalculators.get(currentMeasure) instanceof EventDetectionQualityDoubleMeasureCalculator) {
-						// Measure currently not supported by NFoldCrossValidator
-					} else {
-						throw new NodeException("Unknown measure: " + this.measureCalculators.get(currentMeasure));
-					}
-					if(currMeas != null) {
-						for(int k=0;k<currMeas.length;k++) {
-							measuresOfThisRun.add(currMeas[k]);
-						}
-					}
+		});
+		((ValidationConfiguration)this.getCorrespondingScheduler().getConfiguration()).setCalculatedMeasures(
+				createMeasureList(measuresOfEveryValidationRun));
+	}
+	
+	/**
+	 * Validates all folds. The runs are independent and may be proceeded in parallel; the measures
+	 * are returned in the order of the runs
+	 * @param numberOfFolds Number of folds
+	 * @param maxNumberOfThreads Maximum number of folds validated in parallel
+	 * @param foldValidation Validation of a single fold
+	 * @return Measures of every validation run
+	 * @throws NodeException
+	 */
+	static ArrayList<ArrayList<ValidationMeasure>> validateFolds(int numberOfFolds, int maxNumberOfThreads, 
+			final FoldValidation foldValidation) throws NodeException {
+		ArrayList<ArrayList<ValidationMeasure>> measuresOfEveryValidationRun = new ArrayList<ArrayList<ValidationMeasure>>(numberOfFolds);
+		int numberOfThreads = Math.min(numberOfFolds, maxNumberOfThreads);
+		if(numberOfThreads <= 1) {
+			for(int i=0;i<numberOfFolds;i++) {
+				measuresOfEveryValidationRun.add(foldValidation.validateFold(i, false));
+			}
+			return measuresOfEveryValidationRun;
+		}
+		
+		AmuseLogger.write(NFoldCrossValidator.class.getName(), Level.DEBUG, "Validating " + numberOfFolds + " folds with " + numberOfThreads + " threads");
+		ExecutorService foldPool = Executors.newFixedThreadPool(numberOfThreads);
+		ArrayList<Future<ArrayList<ValidationMeasure>>> results = new ArrayList<Future<ArrayList<ValidationMeasure>>>(numberOfFolds);
+		for(int i=0;i<numberOfFolds;i++) {
+			final int fold = i;
+			results.add(foldPool.submit(new Callable<ArrayList<ValidationMeasure>>() {
+				public ArrayList<ValidationMeasure> call() throws NodeException {
+					return foldValidation.validateFold(fold, true);
 				}
-				measuresOfEveryValidationRun.add(measuresOfThisRun);
-			} catch (NodeException e) {
-				throw e;
+			}));
+		}
+		foldPool.shutdown();
+		try {
+			for(Future<ArrayList<ValidationMeasure>> result : results) {
+				measuresOfEveryValidationRun.add(result.get());
+			}
+		} catch(ExecutionException e) {
+			foldPool.shutdownNow();
+			if(e.getCause() instanceof NodeException) {
+				throw (NodeException)e.getCause();
 			}
+			throw new NodeException("Validation run failed: " + e.getCause());
+		} catch(InterruptedException e) {
+			foldPool.shutdownNow();
+			Thread.currentThread().interrupt();
+			throw new NodeException("Cross-validation was interrupted");
 		}
+		return measuresOfEveryValidationRun;
+	}
+	
+	/**
+	 * Creates the list with the measures of every validation run and the mean values of double measures
+	 * @param measuresOfEveryValidationRun Measures of every validation run
+	 * @return Measure list
+	 * @throws NodeException
+	 */
+	static ArrayList<ValidationMeasure> createMeasureList(List<ArrayList<ValidationMeasure>> measuresOfEveryValidationRun) throws NodeException {
 		
 		// Calculate the number of double measures
 		int numberOfDoubleMeasures = 0;
@@ -457,7 +442,7 @@ public class NFoldCrossValidator extends AmuseTask implements ValidatorInterface
 					currentIndexOfMeanMeasure++;
 				}
 			}
-			((ValidationConfiguration)this.getCorrespondingScheduler().getConfiguration()).setCalculatedMeasures(measureList);
+			return measureList;
 		} catch(ClassNotFoundException e) {
 			throw new NodeException("Could not find the appropriate measure class: " + e.getMessage());
 		} catch(IllegalAccessException e) {
@@ -467,6 +452,270 @@ public class NFoldCrossValidator extends AmuseTask implements ValidatorInterface
 		}
 	}
 	
+	/**
+	 * Trains the model on all partitions except the given one and calculates the measures on the given partition
+	 * @param i Number of the validation partition
+	 * @param allPartitions Set with all data instances
+	 * @param songIdToValidationPartition Maps song id to the validation partition
+	 * @param songIdToSongNumber Maps song id to its position in the labeled song relationships
+	 * @param measureCalculators Configured measure calculators for this run
+	 * @param inSeparateProcess True if the model is trained and the validation set is classified in a separate process
+	 * @return Measures of this validation run
+	 * @throws NodeException
+	 */
+	private ArrayList<ValidationMeasure> validateFold(int i, DataSet allPartitions, HashMap<Integer,Integer> songIdToValidationPartition,
+			HashMap<Integer,Integer> songIdToSongNumber, ArrayList<MeasureCalculatorInterface> measureCalculators, boolean inSeparateProcess) throws NodeException {
+		
+		// Create the sets with the data of the current partition for training and validation
+		DataSet trainingSet = new DataSet("TrainingSet");
+		DataSet validationSet = new DataSet("ValidationSet");
+		
+		// Create the attributes for these sets
+		for(int a = 0; a < allPartitions.getAttributeCount(); a++) {
+			if(allPartitions.getAttribute(a) instanceof NumericAttribute) {
+				trainingSet.addAttribute(new NumericAttribute(allPartitions.getAttribute(a).getName(),new ArrayList<Double>()));
+				validationSet.addAttribute(new NumericAttribute(allPartitions.getAttribute(a).getName(),new ArrayList<Double>()));
+			} else if(allPartitions.getAttribute(a) instanceof StringAttribute) {
+				trainingSet.addAttribute(new StringAttribute(allPartitions.getAttribute(a).getName(),new ArrayList<String>()));
+				validationSet.addAttribute(new StringAttribute(allPartitions.getAttribute(a).getName(),new ArrayList<String>()));
+			} else {
+				trainingSet.addAttribute(new NominalAttribute(allPartitions.getAttribute(a).getName(),new ArrayList<String>()));
+				validationSet.addAttribute(new NominalAttribute(allPartitions.getAttribute(a).getName(),new ArrayList<String>()));
+			}
+		}
+		
+		// Ground truth for the validation set
+		ArrayList<Double> songRelationshipsValidationSet = new ArrayList<Double>(); // If binary classification is applied
+		ArrayList<ClassifiedSongPartitions> songRelationshipsMValidationSet = new ArrayList<ClassifiedSongPartitions>(); // If multiclass classification is applied
+		int currentSongId = -1;
+		
+		for(int j=0;j<allPartitions.getValueCount();j++) {
+			
+			// To which validation partition should the current song partition be assigned?
+			int songIdToSearchFor = new Double(allPartitions.getAttribute("Id").getValueAt(j).toString()).intValue();
+			
+			// Training or validation set? Go through all song partitions assigned to cv
+			if(songIdToValidationPartition.containsKey(songIdToSearchFor)) {
+				if(songIdToValidationPartition.get(songIdToSearchFor) == i) {
+					
+					// Add the partition to validation set
+					for(int a = 0; a < allPartitions.getAttributeCount(); a++) {
+						validationSet.getAttribute(a).addValue(allPartitions.getAttribute(a).getValueAt(j));
+					}
+					
+					// Save the ground truth for the validation set
+					// TODO It is assumed that partitions of the same song are coming all together one after each other in the DataSet
+					// - if the ID is changed to the next song, the ground truth of all partitions is then loaded
+					if(currentSongId != songIdToSearchFor) {
+						currentSongId = songIdToSearchFor;
+						if(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getLabelType() == LabelType.SINGLELABEL) {
+							songRelationshipsValidationSet.add(((ValidatorNodeScheduler)this.correspondingScheduler).
+								getLabeledAverageSongRelationships().get(songIdToSongNumber.get(songIdToSearchFor)));
+						} else {
+							songRelationshipsMValidationSet.add(((ValidatorNodeScheduler)this.correspondingScheduler).
+								getLabeledSongRelationships().get(songIdToSongNumber.get(songIdToSearchFor)));
+						}
+					}
+				
+				} else {
+					
+					// Add the partition to training set
+					for(int a = 0; a < allPartitions.getAttributeCount(); a++) {
+						trainingSet.getAttribute(a).addValue(allPartitions.getAttribute(a).getValueAt(j));
+					}
+				}
+			}
+		}
+		
+		// Train the model
+		// TODO Classification preprocessing is not currently supported!
+		TrainingConfiguration tConf = new TrainingConfiguration(
+			((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getInputFeaturesDescription(), 
+			InputFeatureType.PROCESSED_FEATURES,
+			-1,
+			-1,
+			((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getClassificationAlgorithmDescription(),
+			"-1",
+			new DataSetInput(trainingSet),
+			GroundTruthSourceType.READY_INPUT,
+			((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getAttributesToPredict(),
+			((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getAttributesToIgnore(),
+			((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getModelType(),
+			"",
+			this.folderForModels + File.separator + "model_" + i + ".mod");
+		tConf.setNumberOfValuesPerWindow(((ValidationConfiguration)this.getCorrespondingScheduler().getConfiguration()).getNumberOfValuesPerWindow());
+		
+		// Classify the validation set
+		ClassificationConfiguration cConf = new ClassificationConfiguration(
+			new DataSetInput(validationSet),
+			ClassificationConfiguration.InputSourceType.READY_INPUT,
+			new ArrayList<Integer>(),
+			((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getInputFeaturesDescription(), 
+			InputFeatureType.PROCESSED_FEATURES,
+			-1,
+			-1,
+			((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getClassificationAlgorithmDescription(),
+			new ArrayList<Integer>(),
+			((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getModelType(),
+			0,
+			this.correspondingScheduler.getHomeFolder() + File.separator + "input" + File.separator + "task_" + this.correspondingScheduler.getTaskId() + File.separator + "result_" + i + ".arff");
+		cConf.setPathToInputModel(this.folderForModels + File.separator + "model_" + i + ".mod");
+		cConf.setNumberOfValuesPerWindow(((ValidationConfiguration)this.getCorrespondingScheduler().getConfiguration()).getNumberOfValuesPerWindow());
+		
+		ArrayList<ClassifiedSongPartitions> predictedSongs;
+		if(inSeparateProcess) {
+			predictedSongs = proceedFoldInSeparateProcess(i, tConf, cConf);
+		} else {
+			TrainerNodeScheduler ts = new TrainerNodeScheduler(this.correspondingScheduler.getHomeFolder() + File.separator + "input" + File.separator + "task_" + this.correspondingScheduler.getTaskId());
+			ts.setCleanInputFolder(false);
+			ts.proceedTask(this.correspondingScheduler.getHomeFolder(), this.correspondingScheduler.getTaskId(), tConf);
+			ClassifierNodeScheduler cs = new ClassifierNodeScheduler(this.correspondingScheduler.getHomeFolder() + File.separator + "input" + File.separator + "task_" + this.correspondingScheduler.getTaskId());
+			cs.setCleanInputFolder(false);
+			predictedSongs = cs.proceedTask(this.correspondingScheduler.getHomeFolder(), this.correspondingScheduler.getTaskId(), cConf, false);
+		}
+		
+		// The confusion matrix is calculated once for all measures of this fold
+		ConfusionMatrix confusionMatrix;
+		if(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getLabelType() == LabelType.SINGLELABEL) {
+			confusionMatrix = ((ValidatorNodeScheduler)this.correspondingScheduler).createOneClassConfusionMatrix(
+				songRelationshipsValidationSet, predictedSongs);
+		} else {
+			confusionMatrix = ((ValidatorNodeScheduler)this.correspondingScheduler).createMultiLabelConfusionMatrix(
+				songRelationshipsMValidationSet, predictedSongs);
+		}
+		
+		// Calculate the classifier evaluation measures for result
+		try {
+			ArrayList<ValidationMeasure> measuresOfThisRun = new ArrayList<ValidationMeasure>();
+			for(int currentMeasure = 0; currentMeasure < measureCalculators.size(); currentMeasure++) {
+				ValidationMeasure[] currMeas = null;
+				if(measureCalculators.get(currentMeasure) instanceof ClassificationQualityDoubleMeasureCalculator) {
+					((ClassificationQualityDoubleMeasureCalculator)measureCalculators.get(currentMeasure)).setConfusionMatrix(confusionMatrix);
+				}
+				if(measureCalculators.get(currentMeasure) instanceof ClassificationQualityMeasureCalculatorInterface) {
+					((ClassificationQualityMeasureCalculatorInterface)measureCalculators.get(currentMeasure)).setContinuous(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getRelationshipType() == RelationshipType.CONTINUOUS);
+					if(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getLabelType() == LabelType.SINGLELABEL) {
+						currMeas = ((ClassificationQualityMeasureCalculatorInterface)measureCalculators.get(currentMeasure)).calculateOneClassMeasure(
+							songRelationshipsValidationSet, predictedSongs);
+					} else if(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getLabelType() == LabelType.MULTILABEL) {
+						currMeas = ((ClassificationQualityMeasureCalculatorInterface)measureCalculators.get(currentMeasure)).calculateMultiLabelMeasure(
+								songRelationshipsMValidationSet, predictedSongs);
+					} else {
+						currMeas = ((ClassificationQualityMeasureCalculatorInterface)measureCalculators.get(currentMeasure)).calculateMultiClassMeasure(
+							songRelationshipsMValidationSet, predictedSongs);
+					}
+				} else if(measureCalculators.get(currentMeasure) instanceof DataReductionMeasureCalculatorInterface) {
+					currMeas = ((DataReductionMeasureCalculatorInterface)measureCalculators.get(currentMeasure)).calculateMeasure(
+							((ValidatorNodeScheduler)this.correspondingScheduler).getListOfAllProcessedFiles());
+				} else if(measureCalculators.get(currentMeasure) instanceof EventDetectionQualityDoubleMeasureCalculator) {
+					// Measure currently not supported by NFoldCrossValidator
+				} else {
+					throw new NodeException("Unknown measure: " + measureCalculators.get(currentMeasure));
+				}
+				if(currMeas != null) {
+					for(int k=0;k<currMeas.length;k++) {
+						measuresOfThisRun.add(currMeas[k]);
+					}
+				}
+			}
+			return measuresOfThisRun;
+		} catch (NodeException e) {
+			throw e;
+		}
+	}
+	
+	/**
+	 * Trains the model and classifies the validation set of one fold in a separate Java process
+	 * (see <code>CrossValidationFoldProcess</code>), which uses its own fold folder and RapidMiner repository
+	 * @param i Number of the validation partition
+	 * @param tConf Training configuration of this fold
+	 * @param cConf Classification configuration of this fold
+	 * @return Predicted relationships of the validation set
+	 * @throws NodeException
+	 */
+	@SuppressWarnings("unchecked")
+	private ArrayList<ClassifiedSongPartitions> proceedFoldInSeparateProcess(int i, TrainingConfiguration tConf, ClassificationConfiguration cConf) 
+			throws NodeException {
+		String nodeHome = this.correspondingScheduler.getHomeFolder();
+		String taskFolder = nodeHome + File.separator + "input" + File.separator + "task_" + this.correspondingScheduler.getTaskId();
+		
+		// Each fold gets the folder of a job id which is not used by the scheduler (the scheduler uses only positive ids)
+		long foldJobId = -1;
+		File foldFolder = new File(nodeHome + File.separator + "input" + File.separator + "task_" + foldJobId);
+		while(!foldFolder.mkdirs()) {
+			if(!foldFolder.exists()) {
+				throw new NodeException("Could not create the folder for validation run " + i + ": " + foldFolder);
+			}
+			foldJobId--;
+			foldFolder = new File(nodeHome + File.separator + "input" + File.separator + "task_" + foldJobId);
+		}
+		File log = new File(foldFolder, "fold.log");
+		boolean succeeded = false;
+		try {
+			
+			// If the node is not started directly, the preferences and algorithm tables are loaded from the task folder
+			String[] taskFiles = {"amuse.properties", "classifierAlgorithmTable.arff", "classifierPreprocessingAlgorithmTable.arff"};
+			for(String taskFile : taskFiles) {
+				if(new File(taskFolder, taskFile).exists()) {
+					FileOperations.copy(new File(taskFolder, taskFile), new File(foldFolder, taskFile));
+				}
+			}
+			TaskBundle.write(new File(foldFolder, CrossValidationFoldProcess.FOLD_BUNDLE), new TaskConfiguration[] {tConf, cConf});
+			File repository = new File(foldFolder, "repository");
+			if(!repository.mkdir()) {
+				throw new IOException("Could not create the folder '" + repository + "'");
+			}
+			
+			List<String> command = new ArrayList<String>();
+			command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+			command.add("-Xmx" + AmusePreferences.getInt(KeysIntValue.NODE_PROCESS_HEAP_SIZE_IN_MB) + "m");
+			command.add("-D" + LibraryInitializer.REPOSITORY_PATH_PROPERTY + "=" + repository.getPath());
+			command.add("-classpath");
+			command.add(System.getProperty("java.class.path"));
+			command.add(CrossValidationFoldProcess.class.getName());
+			command.add(nodeHome);
+			command.add(Long.toString(foldJobId));
+			ProcessBuilder builder = new ProcessBuilder(command);
+			builder.environment().put("AMUSEHOME", AmusePreferences.get(KeysStringValue.AMUSE_PATH));
+			builder.directory(foldFolder);
+			builder.redirectErrorStream(true);
+			builder.redirectOutput(log);
+			
+			AmuseLogger.write(this.getClass().getName(), Level.DEBUG, "Validation run " + i + " started in a separate process");
+			Process process = builder.start();
+			try {
+				int exitValue = process.waitFor();
+				if(exitValue != 0) {
+					throw new NodeException("Validation run " + i + " failed with exit value " + exitValue + "; see " + log);
+				}
+			} catch(InterruptedException e) {
+				process.destroy();
+				Thread.currentThread().interrupt();
+				throw new NodeException("Validation run " + i + " was interrupted");
+			}
+			
+			ObjectInputStream in = new ObjectInputStream(new FileInputStream(new File(foldFolder, CrossValidationFoldProcess.PREDICTIONS)));
+			ArrayList<ClassifiedSongPartitions> predictedSongs;
+			try {
+				predictedSongs = (ArrayList<ClassifiedSongPartitions>)in.readObject();
+			} finally {
+				in.close();
+			}
+			succeeded = true;
+			return predictedSongs;
+		} catch(IOException e) {
+			throw new NodeException("Validation run " + i + " failed: " + e.getMessage());
+		} catch(ClassNotFoundException e) {
+			throw new NodeException("Could not read the predictions of validation run " + i + ": " + e.getMessage());
+		} finally {
+			
+			// The folder of a failed run is kept with its log
+			if(succeeded && !FileOperations.delete(foldFolder, true)) {
+				AmuseLogger.write(this.getClass().getName(), Level.WARN, "Could not remove the folder '" + foldFolder + "'; please delete it manually!");
+			}
+		}
+	}
+	
 	/*
 	 * (non-Javadoc)
 	 * @see amuse.nodes.validator.interfaces.ValidatorInterface#calculateListOfUsedProcessedFeatureFiles()
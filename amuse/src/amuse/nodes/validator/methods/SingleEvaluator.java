@@ -43,6 +43,7 @@ import amuse.nodes.classifier.ClassifierNodeScheduler;
 import amuse.nodes.classifier.ClassificationConfiguration;
 import amuse.nodes.validator.ValidationConfiguration;
 import amuse.nodes.validator.ValidatorNodeScheduler;
+import amuse.nodes.validator.interfaces.ClassificationQualityDoubleMeasureCalculator;
 import amuse.nodes.validator.interfaces.ClassificationQualityMeasureCalculatorInterface;
 import amuse.nodes.validator.interfaces.DataReductionMeasureCalculatorInterface;
 import amuse.nodes.validator.interfaces.EventDetectionQualityDoubleMeasureCalculator;
@@ -50,6 +51,7 @@ import amuse.nodes.validator.interfaces.MeasureCalculatorInterface;
 import amuse.nodes.validator.interfaces.ValidationMeasure;
 import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
 import amuse.nodes.validator.interfaces.ValidatorInterface;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix;
 import amuse.preferences.AmusePreferences;
 import amuse.preferences.KeysStringValue;
 import amuse.util.AmuseLogger;
@@ -192,16 +194,31 @@ public class SingleEvaluator extends AmuseTask implements ValidatorInterface {
 			cConf.setProcessedFeatureDatabase(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getProcessedFeatureDatabase());
 			predictedSongs = cs.proceedTask(this.correspondingScheduler.getHomeFolder(), this.correspondingScheduler.getTaskId(), cConf, false);
 			
+			// The confusion matrix is calculated once for all measures of this model
+			ArrayList<Double> labeledAverageSongRelationships = null;
+			ConfusionMatrix confusionMatrix;
+			if(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getLabelType() == LabelType.SINGLELABEL) {
+				labeledAverageSongRelationships = ((ValidatorNodeScheduler)this.getCorrespondingScheduler()).getLabeledAverageSongRelationships();
+				confusionMatrix = ((ValidatorNodeScheduler)this.getCorrespondingScheduler()).createOneClassConfusionMatrix(
+						labeledAverageSongRelationships, predictedSongs);
+			} else {
+				confusionMatrix = ((ValidatorNodeScheduler)this.getCorrespondingScheduler()).createMultiLabelConfusionMatrix(
+						((ValidatorNodeScheduler)this.getCorrespondingScheduler()).getLabeledSongRelationships(), predictedSongs);
+			}
+			
 			// Calculate the classifier evaluation measures for result
 			try {
 				ArrayList<ValidationMeasure> measuresOfThisRun = new ArrayList<ValidationMeasure>();
 				for(int currentMeasure = 0; currentMeasure < this.measureCalculators.size(); currentMeasure++) {
 					ValidationMeasure[] currMeas = null;
+					if(this.measureCalculators.get(currentMeasure) instanceof ClassificationQualityDoubleMeasureCalculator) {
+						((ClassificationQualityDoubleMeasureCalculator)this.measureCalculators.get(currentMeasure)).setConfusionMatrix(confusionMatrix);
+					}
 					if(this.measureCalculators.get(currentMeasure) instanceof ClassificationQualityMeasureCalculatorInterface) {
 						((ClassificationQualityMeasureCalculatorInterface)this.measureCalculators.get(currentMeasure)).setContinuous(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getRelationshipType() == RelationshipType.CONTINUOUS);
 						if(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getLabelType() == LabelType.SINGLELABEL) {
 							currMeas = ((ClassificationQualityMeasureCalculatorInterface)this.measureCalculators.get(currentMeasure)).calculateOneClassMeasure(
-								((ValidatorNodeScheduler)this.getCorrespondingScheduler()).getLabeledAverageSongRelationships(), predictedSongs);
+								labeledAverageSongRelationships, predictedSongs);
 						} else if(((ValidationConfiguration)this.correspondingScheduler.getConfiguration()).getLabelType() == LabelType.MULTILABEL) {
 							currMeas = ((ClassificationQualityMeasureCalculatorInterface)this.measureCalculators.get(currentMeasure)).calculateMultiLabelMeasure(
 									((ValidatorNodeScheduler)this.getCorrespondingScheduler()).getLabeledSongRelationships(), predictedSongs);
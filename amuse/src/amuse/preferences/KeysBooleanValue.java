@@ -48,7 +48,10 @@ public enum KeysBooleanValue {
     USE_GRID_VALIDATOR,
     USE_GRID_OPTIMIZER,
     MARK_CURRENT_TIME_IN_ANNOTATION_AUDIOSPECTRUM,
-    LOAD_CATEGORY_TABLE_LOCALLY;
+    LOAD_CATEGORY_TABLE_LOCALLY,
+    SAVE_BINARY_FEATURES,
+    INCREMENTAL_EXTRACTION,
+    RUN_GRID_JOBS_LOCALLY;
 
     /**
      * This method is used to determine and get default values for any key.
@@ -72,6 +75,12 @@ public enum KeysBooleanValue {
                 return true;
             case LOAD_CATEGORY_TABLE_LOCALLY:
             	return false;
+            case SAVE_BINARY_FEATURES:
+            	return true;
+            case INCREMENTAL_EXTRACTION:
+            	return false;
+            case RUN_GRID_JOBS_LOCALLY:
+            	return false;
             default:
                 AmuseLogger.write(this.getClass().getName(), Level.DEBUG,
                         this.toString() + ": no default value set!");
@@ -111,6 +120,9 @@ public enum KeysBooleanValue {
 		map.put(USE_GRID_OPTIMIZER.toString(), "TRUE to use grid for optimization:");
 		map.put(MARK_CURRENT_TIME_IN_ANNOTATION_AUDIOSPECTRUM.toString(), "TRUE to display a beam on the audio spectrum in the annotation editor that tracks the time:");
 		map.put(LOAD_CATEGORY_TABLE_LOCALLY.toString(), "TRUE to load multiple track annotation table from AMUSE local folder (may be required for the reduction of traffic in grid systems):");
+		map.put(SAVE_BINARY_FEATURES.toString(), "TRUE to save extracted features also as binary files, which are loaded much faster than ARFF files:");
+		map.put(INCREMENTAL_EXTRACTION.toString(), "TRUE to extract only the features which are missing or outdated in the feature database:");
+		map.put(RUN_GRID_JOBS_LOCALLY.toString(), "TRUE to run the grid jobs in separate node processes on this machine instead of submitting them with the grid scripts:");
 		return map;
 	}
 }
@@ -44,7 +44,16 @@ public enum KeysIntValue {
     DOWNSAMPLING_TARGET_SIZE_IN_HZ,
     AUDIOSPECTRUM_WINDOWSIZE,
     AUDIOSPECTRUM_HOPSIZE,
-    YALE_HEAP_SIZE;
+    YALE_HEAP_SIZE,
+    FEATURE_CACHE_SIZE_IN_MB,
+    NUMBER_OF_PARALLEL_EXTRACTORS,
+    NUMBER_OF_EXTERNAL_WORKER_PROCESSES,
+    EXTERNAL_WORKER_REQUEST_TIMEOUT_IN_S,
+    JOB_COMPLETION_PORT,
+    TARGET_TIME_PER_GRID_JOB_IN_S,
+    NUMBER_OF_LOCAL_NODE_PROCESSES,
+    NODE_PROCESS_HEAP_SIZE_IN_MB,
+    NUMBER_OF_PARALLEL_FOLDS;
 
     /**
      * This method is used to determin and get default values for any key.
@@ -68,6 +77,24 @@ public enum KeysIntValue {
             return 1;
         case YALE_HEAP_SIZE:
         	return 2000;
+        case FEATURE_CACHE_SIZE_IN_MB:
+        	return 256;
+        case NUMBER_OF_PARALLEL_EXTRACTORS:
+        	return 1;
+        case NUMBER_OF_EXTERNAL_WORKER_PROCESSES:
+        	return 0;
+        case EXTERNAL_WORKER_REQUEST_TIMEOUT_IN_S:
+        	return 3600;
+        case JOB_COMPLETION_PORT:
+        	return 0;
+        case TARGET_TIME_PER_GRID_JOB_IN_S:
+        	return 0;
+        case NUMBER_OF_LOCAL_NODE_PROCESSES:
+        	return 2;
+        case NODE_PROCESS_HEAP_SIZE_IN_MB:
+        	return 1800;
+        case NUMBER_OF_PARALLEL_FOLDS:
+        	return 1;
         default:
             AmuseLogger.write(this.getClass().getName(), Level.DEBUG, this.toString() + ": no default value set!");
             return 0;
@@ -97,6 +124,24 @@ public enum KeysIntValue {
             return (value == 0 || value == 1 || value == 2);
         case YALE_HEAP_SIZE:
         	return value >= 1;
+        case FEATURE_CACHE_SIZE_IN_MB:
+        	return value >= 0;
+        case NUMBER_OF_PARALLEL_EXTRACTORS:
+        	return value >= 1;
+        case NUMBER_OF_EXTERNAL_WORKER_PROCESSES:
+        	return value >= 0;
+        case EXTERNAL_WORKER_REQUEST_TIMEOUT_IN_S:
+        	return value >= 0;
+        case JOB_COMPLETION_PORT:
+        	return value >= 0 && value <= 65535;
+        case TARGET_TIME_PER_GRID_JOB_IN_S:
+        	return value >= 0;
+        case NUMBER_OF_LOCAL_NODE_PROCESSES:
+        	return value >= 1;
+        case NODE_PROCESS_HEAP_SIZE_IN_MB:
+        	return value >= 1;
+        case NUMBER_OF_PARALLEL_FOLDS:
+        	return value >= 1;
         default:
             AmuseLogger.write(this.getClass().getName(), Level.DEBUG, this.toString() + ": no validator available!");
             return true;
@@ -132,6 +177,15 @@ public enum KeysIntValue {
 		map.put(AUDIOSPECTRUM_WINDOWSIZE.toString(), "Window size used for the calculation of the audiospectrum in the annotation editor. (0 = 256, 1 = 512, 2 = 1024)");
 		map.put(AUDIOSPECTRUM_HOPSIZE.toString(), "Hop size used for the calculation of the audiospectrum in the annotation editor. (0 = 256, 1 = 512, 2 = 1024)");
 		map.put(YALE_HEAP_SIZE.toString(), "eap size in megabytes for Yale feature extractor (should be increased for long music files)");
+		map.put(FEATURE_CACHE_SIZE_IN_MB.toString(), "Maximum memory in megabytes for features cached between processing tasks (0 disables the cache):");
+		map.put(NUMBER_OF_PARALLEL_EXTRACTORS.toString(), "Maximum number of feature extractor tools running in parallel for one music file:");
+		map.put(NUMBER_OF_EXTERNAL_WORKER_PROCESSES.toString(), "Number of external extractor processes (e.g. Matlab) kept running between music files (0 starts a new process for each file):");
+		map.put(EXTERNAL_WORKER_REQUEST_TIMEOUT_IN_S.toString(), "Time in seconds after which a request to an external extractor process is aborted and the process is terminated (0 == no time limit):");
+		map.put(JOB_COMPLETION_PORT.toString(), "TCP port on which finished grid jobs may notify the scheduler (0 == only the job logs in the taskinput folder are watched):");
+		map.put(TARGET_TIME_PER_GRID_JOB_IN_S.toString(), "Target running time in seconds of one grid extraction job; music files are packed by their estimated extraction time (0 == the number of jobs per grid machine is used):");
+		map.put(NUMBER_OF_LOCAL_NODE_PROCESSES.toString(), "Number of node processes running in parallel if the grid jobs are run on this machine:");
+		map.put(NODE_PROCESS_HEAP_SIZE_IN_MB.toString(), "Heap size in megabytes of each node process if the grid jobs are run on this machine:");
+		map.put(NUMBER_OF_PARALLEL_FOLDS.toString(), "Maximum number of cross-validation folds trained and classified in parallel:");
 		return map;
 	}
 
@@ -57,7 +57,8 @@ public enum KeysStringValue {
     JAVA_PATH, 
     MATLAB_PATH,
     PYTHON_PATH,
-	LD_LIBRARY_PATH;
+	LD_LIBRARY_PATH,
+	JOB_COMPLETION_HOST;
 
     /**
      * This method is used to determine and get default values for any key.
@@ -73,6 +74,8 @@ public enum KeysStringValue {
 	    	return "matlab";
 	    case PYTHON_PATH:
 	    	return "python3";
+	    case JOB_COMPLETION_HOST:
+	    	return "localhost";
         default:
             //AmuseLogger.write(this.getClass().getName(), Level.DEBUG, this.toString() + ": no default value set!");
         return getNoValue();
@@ -124,6 +127,8 @@ public enum KeysStringValue {
 		return true;
 	    case LD_LIBRARY_PATH:
 		return true;
+	    case JOB_COMPLETION_HOST:
+		return true;
             default:
                 AmuseLogger.write(this.getClass().getName(), Level.DEBUG, this.toString() + ": no validator available!");
                 // If NoValue String is passed return false otherwise return true.
@@ -180,6 +185,7 @@ public enum KeysStringValue {
 		map.put(MATLAB_PATH.toString(), "Path to your local Matlab executable:");
 		map.put(PYTHON_PATH.toString(), "Path to your local Python3 executable:");
 		map.put(LD_LIBRARY_PATH.toString(), "Python library path:");
+		map.put(JOB_COMPLETION_HOST.toString(), "Host name or address on which the scheduler accepts notifications of finished grid jobs (localhost == only jobs on this machine):");
 		return map;
 	}
 }
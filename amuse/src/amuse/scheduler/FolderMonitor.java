@@ -0,0 +1,259 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.scheduler;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Level;
+
+import amuse.util.AmuseLogger;
+
+/**
+ * Reports new files in a folder, e.g. the logs of finished grid jobs or new task files in the loop
+ * mode of the scheduler. New files are reported by a <code>WatchService</code> as soon as they are
+ * created. Optionally, the names of finished jobs may be sent to a TCP port as single lines (e.g. with
+ * <code>echo log.$LSB_JOBID | nc host port</code>), since file system events are not delivered for files
+ * written by other machines on many network file systems. The port is bound to the given host only (the
+ * loopback address by default). A notification is just a hint: the caller should count a job only if its
+ * log exists. The folder is listed again only if there is no notification during the fallback interval.
+ *
+ * @version $Id$
+ */
+public class FolderMonitor {
+
+	/** Time to wait for a job notification on an open connection */
+	private static final int SOCKET_READ_TIMEOUT_IN_MS = 5000;
+
+	/** Notification which requires the folder to be listed again */
+	private static final String RESCAN = new String("RESCAN");
+
+	private final File folder;
+	private final long fallbackInterval;
+	private final LinkedBlockingQueue<String> notifications = new LinkedBlockingQueue<String>();
+	private WatchService watchService = null;
+	private ServerSocket notificationSocket = null;
+	private volatile boolean isClosed = false;
+
+	/**
+	 * Starts monitoring the folder without job notifications
+	 * @param folder Folder to monitor
+	 * @param fallbackInterval Time in ms after which the folder is listed if there are no notifications
+	 */
+	public FolderMonitor(File folder, long fallbackInterval) {
+		this(folder, null, 0, fallbackInterval);
+	}
+
+	/**
+	 * Starts monitoring the folder; the first call of <code>awaitNewFiles()</code> returns the files
+	 * which already exist
+	 * @param folder Folder to monitor
+	 * @param host Host name or address to bind the notification port to; the loopback address if null or empty
+	 * @param port TCP port for the notifications of finished jobs or 0 if only the folder is monitored
+	 * @param fallbackInterval Time in ms after which the folder is listed if there are no notifications
+	 */
+	public FolderMonitor(File folder, String host, int port, long fallbackInterval) {
+		this.folder = folder;
+		this.fallbackInterval = fallbackInterval;
+		notifications.add(RESCAN);
+
+		try {
+			watchService = FileSystems.getDefault().newWatchService();
+			folder.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE);
+			startDaemon(new Runnable() {
+				public void run() {
+					watchFolder();
+				}
+			}, "Watch service for " + folder.getName());
+		} catch(IOException e) {
+			AmuseLogger.write(this.getClass().getName(), Level.WARN, "Could not watch the folder " + folder +
+					"; it is listed every " + fallbackInterval + " ms: " + e.getMessage());
+			closeWatchService();
+		} catch(UnsupportedOperationException e) {
+			AmuseLogger.write(this.getClass().getName(), Level.WARN, "Could not watch the folder " + folder +
+					"; it is listed every " + fallbackInterval + " ms: " + e.getMessage());
+			closeWatchService();
+		}
+
+		if(port > 0) {
+			try {
+				InetAddress bindAddress = (host == null || host.trim().length() == 0) ?
+						InetAddress.getLoopbackAddress() : InetAddress.getByName(host.trim());
+				notificationSocket = new ServerSocket(port, 50, bindAddress);
+				startDaemon(new Runnable() {
+					public void run() {
+						receiveNotifications();
+					}
+				}, "Job notifications on port " + port);
+				AmuseLogger.write(this.getClass().getName(), Level.INFO, "Waiting for job notifications on " + 
+						bindAddress.getHostAddress() + ":" + port);
+			} catch(IOException e) {
+				AmuseLogger.write(this.getClass().getName(), Level.ERROR, "Could not open port " + port +
+						" for job notifications: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Waits until new files are reported or the fallback interval has passed
+	 * @return Names of new files or of finished jobs; after the fallback interval, the names of all files in
+	 * the folder. The names may have been reported before
+	 * @throws InterruptedException If the thread is interrupted while waiting
+	 */
+	public List<String> awaitNewFiles() throws InterruptedException {
+		List<String> names = new ArrayList<String>();
+		String name = notifications.poll(fallbackInterval, TimeUnit.MILLISECONDS);
+		if(name == null) {
+			name = RESCAN;
+		}
+		names.add(name);
+		notifications.drainTo(names);
+
+		// The markers are compared by identity, so that a file with the same name is not removed
+		boolean isRescanRequired = false;
+		Iterator<String> iterator = names.iterator();
+		while(iterator.hasNext()) {
+			if(iterator.next() == RESCAN) {
+				iterator.remove();
+				isRescanRequired = true;
+			}
+		}
+		if(isRescanRequired) {
+			String[] files = folder.list();
+			if(files != null) {
+				for(String file : files) {
+					names.add(file);
+				}
+			}
+		}
+		return names;
+	}
+
+	/**
+	 * Stops the monitoring
+	 */
+	public void close() {
+		isClosed = true;
+		closeWatchService();
+		if(notificationSocket != null) {
+			try {
+				notificationSocket.close();
+			} catch(IOException e) {
+				// Nothing to do
+			}
+		}
+	}
+
+	private void watchFolder() {
+		try {
+			while(!isClosed) {
+				WatchKey key = watchService.take();
+				for(WatchEvent<?> event : key.pollEvents()) {
+					if(event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						notifications.add(RESCAN);
+					} else {
+						notifications.add(((Path)event.context()).getFileName().toString());
+					}
+				}
+				if(!key.reset()) {
+
+					// The folder has been removed
+					notifications.add(RESCAN);
+					break;
+				}
+			}
+		} catch(InterruptedException e) {
+			// Monitoring is stopped
+		} catch(ClosedWatchServiceException e) {
+			// Monitoring is stopped
+		}
+	}
+
+	private void receiveNotifications() {
+		while(!isClosed) {
+			Socket connection = null;
+			try {
+				connection = notificationSocket.accept();
+				connection.setSoTimeout(SOCKET_READ_TIMEOUT_IN_MS);
+				BufferedReader reader = new BufferedReader(new InputStreamReader(connection.getInputStream(), "UTF-8"));
+				String line = reader.readLine();
+				if(line != null) {
+					String name = line.trim();
+
+					// Only plain file names are accepted, since the reported files are deleted by the scheduler
+					if(name.length() > 0 && name.indexOf('/') == -1 && name.indexOf('\\') == -1 && !name.startsWith(".")) {
+						notifications.add(name);
+					} else {
+						AmuseLogger.write(this.getClass().getName(), Level.WARN, "Invalid job notification ignored: " + name);
+					}
+				}
+			} catch(IOException e) {
+				if(!isClosed) {
+					AmuseLogger.write(this.getClass().getName(), Level.WARN, "Could not receive job notification: " + e.getMessage());
+				}
+			} finally {
+				if(connection != null) {
+					try {
+						connection.close();
+					} catch(IOException e) {
+						// Nothing to do
+					}
+				}
+			}
+		}
+	}
+
+	private void closeWatchService() {
+		if(watchService != null) {
+			try {
+				watchService.close();
+			} catch(IOException e) {
+				// Nothing to do
+			}
+		}
+	}
+
+	private static void startDaemon(Runnable runnable, String name) {
+		Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		thread.start();
+	}
+}
@@ -0,0 +1,145 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.scheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Groups the Amuse jobs of a task into grid jobs. Either a fixed number of Amuse jobs is proceeded
+ * by each grid job (<code>KeysIntValue.NUMBER_OF_JOBS_PER_GRID_MACHINE</code>) or the Amuse jobs are
+ * packed by their estimated costs, so that all grid jobs need about the same time
+ * (<code>KeysIntValue.TARGET_TIME_PER_GRID_JOB_IN_S</code>) and a single long job does not delay
+ * the end of the task.
+ *
+ * @version $Id$
+ */
+public class GridJobPacker {
+
+	/**
+	 * Groups consecutive Amuse jobs
+	 * @param numberOfJobs Number of Amuse jobs
+	 * @param jobsPerGridJob Number of Amuse jobs proceeded by one grid job
+	 * @return Indices of the Amuse jobs of each grid job
+	 */
+	public static List<List<Integer>> packByNumber(int numberOfJobs, int jobsPerGridJob) {
+		int groupSize = Math.max(1, jobsPerGridJob);
+		List<List<Integer>> gridJobs = new ArrayList<List<Integer>>();
+		for(int i = 0; i < numberOfJobs; i += groupSize) {
+			List<Integer> gridJob = new ArrayList<Integer>(groupSize);
+			for(int j = i; j < Math.min(i + groupSize, numberOfJobs); j++) {
+				gridJob.add(j);
+			}
+			gridJobs.add(gridJob);
+		}
+		return gridJobs;
+	}
+
+	/**
+	 * Packs the Amuse jobs into as many grid jobs as required for the target cost. The jobs are
+	 * distributed in the order of decreasing cost, each to the grid job with the lowest cost so far,
+	 * so that the most expensive grid job exceeds the optimum by at most one third. Each job which is
+	 * more expensive than the target cost starts a grid job of its own
+	 * @param costs Estimated costs of the Amuse jobs
+	 * @param targetCost Target cost of one grid job
+	 * @return Indices of the Amuse jobs of each grid job; the most expensive grid jobs are first
+	 */
+	public static List<List<Integer>> packByCost(final double[] costs, double targetCost) {
+		List<List<Integer>> gridJobs = new ArrayList<List<Integer>>();
+		if(costs.length == 0) {
+			return gridJobs;
+		}
+
+		Integer[] order = new Integer[costs.length];
+		double totalCost = 0;
+		int numberOfExpensiveJobs = 0;
+		for(int i = 0; i < costs.length; i++) {
+			order[i] = i;
+			totalCost += costs[i];
+			if(costs[i] >= targetCost) {
+				numberOfExpensiveJobs++;
+			}
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			public int compare(Integer first, Integer second) {
+				return Double.compare(costs[second], costs[first]);
+			}
+		});
+
+		// The expensive jobs run alone; the remaining cost is distributed to the other grid jobs
+		double remainingCost = totalCost;
+		for(int i = 0; i < numberOfExpensiveJobs; i++) {
+			remainingCost -= costs[order[i]];
+		}
+		int numberOfGridJobs = numberOfExpensiveJobs + (int)Math.ceil(remainingCost / targetCost);
+		numberOfGridJobs = Math.max(1, Math.min(costs.length, numberOfGridJobs));
+
+		PriorityQueue<GridJob> leastExpensiveGridJobs = new PriorityQueue<GridJob>();
+		List<GridJob> packedGridJobs = new ArrayList<GridJob>(numberOfGridJobs);
+		for(int i = 0; i < numberOfGridJobs; i++) {
+			GridJob gridJob = new GridJob(i);
+			leastExpensiveGridJobs.add(gridJob);
+			packedGridJobs.add(gridJob);
+		}
+		for(Integer job : order) {
+			GridJob gridJob = leastExpensiveGridJobs.poll();
+			gridJob.jobs.add(job);
+			gridJob.cost += costs[job];
+			leastExpensiveGridJobs.add(gridJob);
+		}
+
+		Collections.sort(packedGridJobs, Collections.reverseOrder());
+		for(GridJob gridJob : packedGridJobs) {
+			if(!gridJob.jobs.isEmpty()) {
+				gridJobs.add(gridJob.jobs);
+			}
+		}
+		return gridJobs;
+	}
+
+	/**
+	 * Amuse jobs of one grid job and their estimated cost
+	 */
+	private static class GridJob implements Comparable<GridJob> {
+
+		private final int number;
+		private final List<Integer> jobs = new ArrayList<Integer>();
+		private double cost = 0;
+
+		private GridJob(int number) {
+			this.number = number;
+		}
+
+		public int compareTo(GridJob other) {
+			if(cost != other.cost) {
+				return cost < other.cost ? -1 : 1;
+			}
+			return number < other.number ? -1 : (number == other.number ? 0 : 1);
+		}
+	}
+}
@@ -0,0 +1,243 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.scheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Level;
+
+import amuse.interfaces.nodes.NodeScheduler;
+import amuse.interfaces.scheduler.SchedulerException;
+import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysIntValue;
+import amuse.preferences.KeysStringValue;
+import amuse.util.AmuseLogger;
+import amuse.util.FileOperations;
+
+/**
+ * Runs grid jobs on this machine if <code>KeysBooleanValue.RUN_GRID_JOBS_LOCALLY</code> is set. Each
+ * job is proceeded by the <code>main()</code> method of its node scheduler in a separate Java process
+ * with the heap size <code>KeysIntValue.NODE_PROCESS_HEAP_SIZE_IN_MB</code>, so that the jobs do not share
+ * static state (e.g. preferences or tool libraries) and a crashed job does not stop the scheduler. At most
+ * <code>KeysIntValue.NUMBER_OF_LOCAL_NODE_PROCESSES</code> processes run at the same time; the other jobs
+ * wait in a queue.
+ *
+ * As the grid scripts, the pool moves the task bundle into the node folder and writes the log of a
+ * finished job to the task input folder, where it is found by the scheduler. A job is reported
+ * as finished also if its process could not be started or crashed.
+ *
+ * @version $Id$
+ */
+public class LocalNodeProcessPool {
+
+	/** The pool shared by all task starters */
+	private static LocalNodeProcessPool sharedInstance = null;
+
+	private final ExecutorService executor;
+	private final int numberOfProcesses;
+
+	/** Node processes which are currently running */
+	private final List<Process> runningProcesses = new ArrayList<Process>();
+
+	/**
+	 * @param numberOfProcesses Maximum number of node processes running at the same time
+	 */
+	public LocalNodeProcessPool(int numberOfProcesses) {
+		this.numberOfProcesses = Math.max(1, numberOfProcesses);
+		this.executor = Executors.newFixedThreadPool(this.numberOfProcesses, new ThreadFactory() {
+			private final AtomicInteger threadCounter = new AtomicInteger();
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "AMUSE node process " + threadCounter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Returns the pool shared by the task starters. It is created at the first call with the number of
+	 * processes given by <code>KeysIntValue.NUMBER_OF_LOCAL_NODE_PROCESSES</code>
+	 * @return Shared node process pool
+	 */
+	public static synchronized LocalNodeProcessPool getSharedInstance() {
+		int numberOfProcesses = Math.max(1, AmusePreferences.getInt(KeysIntValue.NUMBER_OF_LOCAL_NODE_PROCESSES));
+		if(sharedInstance == null) {
+			sharedInstance = new LocalNodeProcessPool(numberOfProcesses);
+		} else if(sharedInstance.numberOfProcesses != numberOfProcesses) {
+
+			// The preference has been changed; the waiting jobs are completed by the old pool
+			sharedInstance.executor.shutdown();
+			sharedInstance = new LocalNodeProcessPool(numberOfProcesses);
+		}
+		return sharedInstance;
+	}
+
+	/**
+	 * Moves the task bundle <code>taskoutput/task_%jobId%.ser</code> into the node folder and queues the job
+	 * @param nodeSchedulerClass Node scheduler which proceeds the job
+	 * @param nodeFolder Name of the node folder in <code>config/node</code>, e.g. "extractor"
+	 * @param jobId Id of the job
+	 * @throws SchedulerException If the task bundle can not be moved
+	 */
+	public void submit(Class<? extends NodeScheduler> nodeSchedulerClass, String nodeFolder, long jobId) throws SchedulerException {
+		String amusePath = AmusePreferences.get(KeysStringValue.AMUSE_PATH);
+		File nodeHome = new File(amusePath + File.separator + "config" + File.separator + "node" + File.separator + nodeFolder);
+		File taskBundle = new File(amusePath + File.separator + "taskoutput" + File.separator + "task_" + jobId + ".ser");
+		File nodeTaskBundle = new File(nodeHome, taskBundle.getName());
+		if(!taskBundle.renameTo(nodeTaskBundle)) {
+			try {
+				FileOperations.copy(taskBundle, nodeTaskBundle);
+			} catch(IOException e) {
+				throw new SchedulerException("Could not move the task bundle of job " + jobId + " to '" + nodeHome + "': " + e.getMessage());
+			}
+			taskBundle.delete();
+		}
+		executor.execute(new NodeProcess(nodeSchedulerClass, nodeHome, jobId));
+	}
+
+	/**
+	 * Stops the pool and the running node processes; waiting jobs are not started
+	 */
+	public void shutdown() {
+		executor.shutdownNow();
+		synchronized(runningProcesses) {
+			for(Process process : runningProcesses) {
+				process.destroy();
+			}
+		}
+	}
+
+	/**
+	 * Runs the node scheduler of one job in a separate process
+	 */
+	private class NodeProcess implements Runnable {
+
+		private final Class<? extends NodeScheduler> nodeSchedulerClass;
+		private final File nodeHome;
+		private final long jobId;
+
+		private NodeProcess(Class<? extends NodeScheduler> nodeSchedulerClass, File nodeHome, long jobId) {
+			this.nodeSchedulerClass = nodeSchedulerClass;
+			this.nodeHome = nodeHome;
+			this.jobId = jobId;
+		}
+
+		public void run() {
+			String amusePath = AmusePreferences.get(KeysStringValue.AMUSE_PATH);
+			File taskInputFolder = new File(amusePath + File.separator + "taskinput");
+
+			// The log is written to a hidden file, which is ignored by the scheduler until the job is finished
+			File runningLog = new File(taskInputFolder, ".log.local" + jobId);
+			File finishedLog = new File(taskInputFolder, "log.local" + jobId);
+
+			// Each process gets its own working folder, where log4j writes the file log
+			File workingFolder = new File(System.getProperty("java.io.tmpdir") + File.separator + 
+					System.getProperty("user.name") + "." + nodeHome.getName() + "local" + jobId);
+
+			List<String> command = new ArrayList<String>();
+			command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+			command.add("-Xmx" + AmusePreferences.getInt(KeysIntValue.NODE_PROCESS_HEAP_SIZE_IN_MB) + "m");
+			command.add("-classpath");
+			command.add(System.getProperty("java.class.path"));
+			command.add(nodeSchedulerClass.getName());
+			command.add(nodeHome.getPath());
+			command.add(Long.toString(jobId));
+			ProcessBuilder builder = new ProcessBuilder(command);
+			builder.environment().put("AMUSEHOME", amusePath);
+			builder.directory(workingFolder);
+			builder.redirectErrorStream(true);
+			builder.redirectOutput(runningLog);
+
+			Process process = null;
+			try {
+				if(!workingFolder.exists() && !workingFolder.mkdirs()) {
+					throw new IOException("Could not create the working folder '" + workingFolder + "'");
+				}
+				process = builder.start();
+				synchronized(runningProcesses) {
+					runningProcesses.add(process);
+				}
+				AmuseLogger.write(LocalNodeProcessPool.class.getName(), Level.INFO, 
+						"Job " + jobId + " started in a local " + nodeHome.getName() + " node process");
+				int exitValue = process.waitFor();
+				if(exitValue != 0) {
+					AmuseLogger.write(LocalNodeProcessPool.class.getName(), Level.ERROR, "Local " + nodeHome.getName() + 
+							" node process of job " + jobId + " terminated with exit value " + exitValue + "; see " + finishedLog);
+				}
+			} catch(IOException e) {
+				AmuseLogger.write(LocalNodeProcessPool.class.getName(), Level.ERROR, 
+						"Could not start the local node process of job " + jobId + ": " + e.getMessage());
+				appendToLog(runningLog, "Node process could not be started: " + e.getMessage());
+			} catch(InterruptedException e) {
+				process.destroy();
+				appendToLog(runningLog, "Node process was stopped");
+				Thread.currentThread().interrupt();
+			} finally {
+				if(process != null) {
+					synchronized(runningProcesses) {
+						runningProcesses.remove(process);
+					}
+				}
+				if(!FileOperations.delete(workingFolder, true)) {
+					AmuseLogger.write(LocalNodeProcessPool.class.getName(), Level.WARN, 
+							"Could not remove the working folder '" + workingFolder + "'");
+				}
+				File nodeTaskBundle = new File(nodeHome, "task_" + jobId + ".ser");
+				if(nodeTaskBundle.exists() && !nodeTaskBundle.delete()) {
+					AmuseLogger.write(LocalNodeProcessPool.class.getName(), Level.WARN, 
+							"Could not remove the task bundle '" + nodeTaskBundle + "'");
+				}
+
+				// Report the job as finished
+				if(!runningLog.renameTo(finishedLog)) {
+					AmuseLogger.write(LocalNodeProcessPool.class.getName(), Level.ERROR, 
+							"Could not write the log of job " + jobId + " to '" + finishedLog + "'");
+				}
+			}
+		}
+
+		private void appendToLog(File log, String message) {
+			try {
+				RandomAccessFile file = new RandomAccessFile(log, "rw");
+				try {
+					file.seek(file.length());
+					file.write((message + System.getProperty("line.separator")).getBytes());
+				} finally {
+					file.close();
+				}
+			} catch(IOException e) {
+				AmuseLogger.write(LocalNodeProcessPool.class.getName(), Level.WARN, 
+						"Could not write the log of job " + jobId + ": " + e.getMessage());
+			}
+		}
+	}
+}
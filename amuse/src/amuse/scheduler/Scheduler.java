@@ -29,11 +29,14 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.FileReader;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Properties;
+import java.util.Set;
 import java.util.StringTokenizer;
 
 import org.apache.log4j.Level;
 
+import amuse.data.FeatureCache;
 import amuse.interfaces.nodes.TaskConfiguration;
 import amuse.interfaces.scheduler.SchedulerException;
 import amuse.nodes.classifier.ClassificationConfiguration;
@@ -44,6 +47,7 @@ import amuse.nodes.trainer.TrainingConfiguration;
 import amuse.nodes.validator.ValidationConfiguration;
 import amuse.preferences.AmusePreferences;
 import amuse.preferences.KeysBooleanValue;
+import amuse.preferences.KeysIntValue;
 import amuse.preferences.KeysStringValue;
 import amuse.scheduler.pluginmanagement.PluginInstaller;
 import amuse.scheduler.pluginmanagement.PluginLoader;
@@ -80,6 +84,12 @@ public class Scheduler implements Runnable {
 	/** Main arguments defining the tasks */
 	private String[] taskList = null;
 	
+	/** Reports the logs of finished grid jobs; created when the scheduler waits for grid jobs first */
+	private FolderMonitor jobLogMonitor = null;
+	
+	/** Names of the logs of grid jobs which have already been counted */
+	private final Set<String> finishedJobs = new HashSet<String>();
+	
 	/** Scheduler private constructor */
 	private Scheduler() {
 		this.jobCounter = 0l;
@@ -285,52 +295,66 @@ public class Scheduler implements Runnable {
 			AmuseLogger.write(this.getClass().getName(),Level.FATAL,"Some of the tasks could not be started: " + 
 					e.getMessage());
 			System.exit(1);
+		} finally {
+			
+			// The cached features are valid only during one scheduler run
+			FeatureCache.getSharedInstance().clear();
+			if(jobLogMonitor != null) {
+				jobLogMonitor.close();
+			}
 		}
 	}
 
 	/**
-	 * Waits until all grid jobs belonging to one task are finished 
+	 * Waits until all grid jobs belonging to one task are finished. The finished jobs are reported
+	 * by their logs in the task input folder or by notifications on <code>KeysIntValue.JOB_COMPLETION_PORT</code>.
+	 * A job is counted once and only if its log ("log." followed by the job id) exists, so that notifications
+	 * for unknown jobs or notifications arriving before the log is written are ignored
 	 */
 	private void waitForJobs(Long numberOfJobsToWaitFor) {
 		File inputDir = new File(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "taskinput");
+		if(jobLogMonitor == null) {
+			jobLogMonitor = new FolderMonitor(inputDir, AmusePreferences.get(KeysStringValue.JOB_COMPLETION_HOST), 
+					AmusePreferences.getInt(KeysIntValue.JOB_COMPLETION_PORT), 5000);
+		}
 		
-		// Sleep and look up for finished jobs
-		boolean isReady = false;
+		// Wait for the logs of finished jobs
 		try {
-			while(!isReady) {
-				// If there are no new job log files in input folder, sleep a bit
-				if(inputDir.listFiles().length == 0) {
-					Thread.sleep(1000);
-				} 
-				// If there are any job log files...
-				else {
-					for(int j=0;j<inputDir.listFiles().length;j++) {
-						String fileName = inputDir.listFiles()[j].getPath();
-						
-						if(!fileName.substring(fileName.lastIndexOf(File.separator)+1,fileName.length()).startsWith(".")) {
-						
-							// TODO extract the exact Amuse job ID 
-							AmuseLogger.write(this.getClass().getName(),Level.INFO,
-								"Job " + fileName + " ready");
-	
-							// TODO RELEASE 0.2 The log results from nodes can be saved somewhere if required...
-							
-							// Delete logs
-							if(!inputDir.listFiles()[j].delete()) {
-								AmuseLogger.write(this.getClass().getName(),Level.FATAL,
-										"Log of job " + fileName.substring(fileName.lastIndexOf(".")+1) + 
-										" could not be deleted; Can't calculate properly if all jobs have been finished!");
-								System.exit(1);
-							}
-							// Update the number of currently running jobs
-							numberOfJobsToWaitFor--;
-							
-							// Are all extraction jobs ready? If yes, finish Amuse
-							if(numberOfJobsToWaitFor == 0l) {
-								isReady = true;
-							}
-						}
+			while(numberOfJobsToWaitFor > 0) {
+				for(String fileName : jobLogMonitor.awaitNewFiles()) {
+					if(!fileName.startsWith("log.")) {
+						continue;
 					}
+					
+					// Without the log the notification can't be trusted; the job is counted when its log is found
+					File log = new File(inputDir, fileName);
+					if(!log.isFile()) {
+						AmuseLogger.write(this.getClass().getName(),Level.DEBUG,
+								"Notification for job " + fileName + " ignored, since its log does not exist");
+						continue;
+					}
+					
+					// TODO RELEASE 0.2 The log results from nodes can be saved somewhere if required...
+					
+					// Delete logs
+					if(!log.delete() && log.exists()) {
+						AmuseLogger.write(this.getClass().getName(),Level.FATAL,
+								"Log of job " + fileName.substring(fileName.lastIndexOf(".")+1) + 
+								" could not be deleted; Can't calculate properly if all jobs have been finished!");
+						System.exit(1);
+					}
+					
+					// A job may be reported by its log and by a notification
+					if(!finishedJobs.add(fileName)) {
+						continue;
+					}
+					
+					// TODO extract the exact Amuse job ID 
+					AmuseLogger.write(this.getClass().getName(),Level.INFO,
+						"Job " + fileName + " ready");
+					
+					// Update the number of currently running jobs
+					numberOfJobsToWaitFor--;
 				}
 			}
 		} catch(InterruptedException e) {
@@ -347,6 +371,7 @@ public class Scheduler implements Runnable {
 	private void waitForTasksInLoopMode(File taskFolder) {
 		// Sleep and look up for new tasks
 		boolean isReady = false;
+		FolderMonitor taskMonitor = new FolderMonitor(taskFolder, 5000);
 		try {
 			while(!isReady) {
 				if(!taskFolder.exists()) {
@@ -354,10 +379,9 @@ public class Scheduler implements Runnable {
 					System.exit(1);
 				}
 				
-				// If there are no new job log files in input folder, sleep a bit
+				// If there are no new task files in input folder, wait until a file is created
 				if(taskFolder.listFiles().length == 0) {
-					// TODO Amuse configuration parameter
-					Thread.sleep(5000);
+					taskMonitor.awaitNewFiles();
 				} 
 				// If there are any task files...
 				else {
@@ -490,6 +514,8 @@ public class Scheduler implements Runnable {
 		} catch(IOException e) {
 			AmuseLogger.write(this.getClass().getName(),Level.FATAL,"Scheduler error: " + e.getMessage());
 			System.exit(1);
+		} finally {
+			taskMonitor.close();
 		}
 	}
 	
@@ -573,6 +599,12 @@ public class Scheduler implements Runnable {
 		} else {
 			fps = new FeatureProcessingStarter("processor", schedulerInstance.jobCounter, true);
 			schedulerInstance.jobCounter = fps.startTask(processingConfigurations, properties);
+			
+			// Processing tasks started in this JVM share the loaded features
+			FeatureCache featureCache = FeatureCache.getSharedInstance();
+			if(featureCache.isEnabled()) {
+				AmuseLogger.write(this.getClass().getName(),Level.INFO,"Feature cache: " + featureCache.getStatistics());
+			}
 		}
 		fps.logResults();
 	}
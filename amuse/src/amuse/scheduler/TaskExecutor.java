@@ -0,0 +1,205 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.scheduler;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import amuse.interfaces.nodes.NodeScheduler;
+import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysIntValue;
+
+/**
+ * Runs the node schedulers of all task starters which start their nodes directly. The number of
+ * worker threads is given by <code>KeysIntValue.MAX_NUMBER_OF_TASK_THREADS</code> and is shared by all
+ * task types. Waiting node schedulers are ordered by their priority (higher first) and by the order of
+ * submission. The number of waiting node schedulers is limited: if the queue is full, the submitting
+ * task starter blocks until a worker takes the next node scheduler.
+ *
+ * @version $Id$
+ */
+public class TaskExecutor {
+
+	/** Maximum number of waiting node schedulers per worker thread */
+	private static final int WAITING_TASKS_PER_WORKER = 4;
+
+	/** The executor shared by all task starters */
+	private static TaskExecutor sharedInstance = null;
+
+	private final ThreadPoolExecutor executor;
+
+	/** Permits for the node schedulers which are waiting or running */
+	private final Semaphore pendingTasks;
+	private final int maxPendingTasks;
+
+	/** Orders node schedulers with the same priority by submission */
+	private final AtomicLong submissionCounter = new AtomicLong();
+
+	/** Marks the worker threads, so that node schedulers submitted by a worker are not queued behind themselves */
+	private final ThreadLocal<Boolean> isWorkerThread = new ThreadLocal<Boolean>();
+
+	/**
+	 * @param numberOfWorkers Number of worker threads
+	 */
+	public TaskExecutor(int numberOfWorkers) {
+		final int workers = Math.max(1, numberOfWorkers);
+		this.maxPendingTasks = workers * (WAITING_TASKS_PER_WORKER + 1);
+		this.pendingTasks = new Semaphore(maxPendingTasks, true);
+		this.executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+				new PriorityBlockingQueue<Runnable>(), new ThreadFactory() {
+			private final AtomicInteger threadCounter = new AtomicInteger();
+			public Thread newThread(final Runnable r) {
+				Thread thread = new Thread(new Runnable() {
+					public void run() {
+						isWorkerThread.set(Boolean.TRUE);
+						r.run();
+					}
+				}, "AMUSE task worker " + threadCounter.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Returns the executor shared by the task starters. It is created at the first call with the number
+	 * of worker threads given by <code>KeysIntValue.MAX_NUMBER_OF_TASK_THREADS</code>
+	 * @return Shared task executor
+	 */
+	public static synchronized TaskExecutor getSharedInstance() {
+		if(sharedInstance == null) {
+			sharedInstance = new TaskExecutor(AmusePreferences.getInt(KeysIntValue.MAX_NUMBER_OF_TASK_THREADS));
+		} else if(sharedInstance.getNumberOfWorkers() != Math.max(1, AmusePreferences.getInt(KeysIntValue.MAX_NUMBER_OF_TASK_THREADS))) {
+
+			// The preference has been changed; running node schedulers complete in the old executor
+			sharedInstance.shutdown(false);
+			sharedInstance = new TaskExecutor(AmusePreferences.getInt(KeysIntValue.MAX_NUMBER_OF_TASK_THREADS));
+		}
+		return sharedInstance;
+	}
+
+	/**
+	 * Submits the node scheduler; blocks while the maximum number of node schedulers is waiting.
+	 * If called from a worker thread, the node scheduler is run directly in this thread
+	 * @param scheduler Node scheduler with set thread parameters
+	 * @param priority Node schedulers with higher priority are started first
+	 * @return Future with the running time of the node scheduler in ns
+	 * @throws InterruptedException If the thread is interrupted while waiting for a free place in the queue
+	 */
+	public Future<Long> submit(NodeScheduler scheduler, long priority) throws InterruptedException {
+		if(Boolean.TRUE.equals(isWorkerThread.get())) {
+			TimedTask task = new TimedTask(scheduler, priority, false);
+			task.run();
+			return task;
+		}
+		pendingTasks.acquire();
+		TimedTask task = new TimedTask(scheduler, priority, true);
+		try {
+			executor.execute(task);
+		} catch(RuntimeException e) {
+			pendingTasks.release();
+			throw e;
+		}
+		return task;
+	}
+
+	/**
+	 * @return Number of worker threads
+	 */
+	public int getNumberOfWorkers() {
+		return executor.getMaximumPoolSize();
+	}
+
+	/**
+	 * @return Number of node schedulers which are waiting or running
+	 */
+	public int getNumberOfPendingTasks() {
+		return maxPendingTasks - pendingTasks.availablePermits();
+	}
+
+	/**
+	 * Stops the executor
+	 * @param cancelRunningTasks If true, waiting node schedulers are removed and the workers are interrupted;
+	 * otherwise all submitted node schedulers are completed
+	 */
+	public void shutdown(boolean cancelRunningTasks) {
+		if(cancelRunningTasks) {
+			for(Runnable task : executor.shutdownNow()) {
+				((TimedTask)task).cancel(false);
+			}
+		} else {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * Runs a node scheduler and measures its running time
+	 */
+	private class TimedTask extends FutureTask<Long> implements Comparable<TimedTask> {
+
+		private final long priority;
+		private final long submissionNumber;
+
+		/** True if the task has taken a place in the queue, which is freed when the task is done */
+		private final boolean holdsPermit;
+
+		private TimedTask(final NodeScheduler scheduler, long priority, boolean holdsPermit) {
+			super(new Callable<Long>() {
+				public Long call() {
+					long start = System.nanoTime();
+					scheduler.run();
+					return System.nanoTime() - start;
+				}
+			});
+			this.priority = priority;
+			this.submissionNumber = submissionCounter.incrementAndGet();
+			this.holdsPermit = holdsPermit;
+		}
+
+		public int compareTo(TimedTask other) {
+			if(priority != other.priority) {
+				return priority > other.priority ? -1 : 1;
+			}
+			return submissionNumber < other.submissionNumber ? -1 : (submissionNumber == other.submissionNumber ? 0 : 1);
+		}
+
+		/**
+		 * Called once if the node scheduler is completed or cancelled
+		 */
+		protected void done() {
+			if(holdsPermit) {
+				pendingTasks.release();
+			}
+		}
+	}
+}
@@ -109,6 +109,13 @@ public class GeneralAmuseSettings extends AmuseSettingsPageBody {
 		String[] values = {"Debug", "Info", "Quiet"};
 		settings.add(new ListSelectionPanel("Log Level", values, KeysIntValue.GUI_LOG_LEVEL));
 		settings.add(new SliderIntSelectionPanel("Max number of Task Threads", 1, 10, KeysIntValue.MAX_NUMBER_OF_TASK_THREADS));
+		settings.add(new SliderIntSelectionPanel("Max number of parallel Extractors", 1, 10, KeysIntValue.NUMBER_OF_PARALLEL_EXTRACTORS));
+		settings.add(new SliderIntSelectionPanel("Number of external Extractor Processes", 0, 10, KeysIntValue.NUMBER_OF_EXTERNAL_WORKER_PROCESSES));
+		settings.add(new TextFieldWithValidation("Request timeout of external Extractor Processes in s", KeysIntValue.EXTERNAL_WORKER_REQUEST_TIMEOUT_IN_S));
+		settings.add(new SliderIntSelectionPanel("Max number of parallel Cross-Validation Folds", 1, 10, KeysIntValue.NUMBER_OF_PARALLEL_FOLDS));
+		settings.add(new BooleanSelectionPanel("Save Binary Feature Files", KeysBooleanValue.SAVE_BINARY_FEATURES));
+		settings.add(new BooleanSelectionPanel("Extract only missing or outdated Features", KeysBooleanValue.INCREMENTAL_EXTRACTION));
+		settings.add(new TextFieldWithValidation("Feature cache size in megabytes", KeysIntValue.FEATURE_CACHE_SIZE_IN_MB));
                for (EditableAmuseSettingInterface singlePref : settings) {
 			internalPanel.add(singlePref.getPanel(), "wrap");
 			watchForChanges(singlePref);
@@ -31,6 +31,7 @@ import net.miginfocom.swing.MigLayout;
 import amuse.preferences.KeysBooleanValue;
 import amuse.preferences.KeysIntValue;
 import amuse.preferences.KeysStringValue;
+import amuse.scheduler.gui.settings.panels.BooleanSelectionPanel;
 import amuse.scheduler.gui.settings.panels.CheckBoxTextField;
 import amuse.scheduler.gui.settings.panels.TextFieldWithValidation;
 
@@ -53,6 +54,10 @@ public class GridSettings extends AmuseSettingsPageBody {
 		settings.add(new CheckBoxTextField("Validator Script", KeysStringValue.GRID_SCRIPT_VALIDATOR, KeysBooleanValue.USE_GRID_VALIDATOR));
 		settings.add(new CheckBoxTextField("Optimizer Script", KeysStringValue.GRID_SCRIPT_OPTIMIZER, KeysBooleanValue.USE_GRID_OPTIMIZER));
 		settings.add(new TextFieldWithValidation("Number of jobs per grid machine", KeysIntValue.NUMBER_OF_JOBS_PER_GRID_MACHINE));
+		settings.add(new TextFieldWithValidation("Target time per grid extraction job in s (0 = fixed number of jobs)", KeysIntValue.TARGET_TIME_PER_GRID_JOB_IN_S));
+		settings.add(new BooleanSelectionPanel("Run grid jobs as local node processes", KeysBooleanValue.RUN_GRID_JOBS_LOCALLY));
+		settings.add(new TextFieldWithValidation("Number of local node processes", KeysIntValue.NUMBER_OF_LOCAL_NODE_PROCESSES));
+		settings.add(new TextFieldWithValidation("Heap size of local node processes in MB", KeysIntValue.NODE_PROCESS_HEAP_SIZE_IN_MB));
 		for (EditableAmuseSettingInterface singlePref : settings) {
 			panel.add(singlePref.getPanel(), "wrap");
 			watchForChanges(singlePref);
@@ -27,12 +27,12 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.Properties;
 
 import org.apache.log4j.Level;
 
 import amuse.interfaces.nodes.NodeException;
+import amuse.interfaces.nodes.TaskBundle;
 import amuse.interfaces.nodes.TaskConfiguration;
 import amuse.interfaces.scheduler.AmuseTaskStarter;
 import amuse.interfaces.scheduler.SchedulerException;
@@ -84,22 +84,13 @@ public class ClassificationValidationStarter extends AmuseTaskStarter {
 				}
 				i--; // Since the for-loop increments i  
 				
-				FileOutputStream fos = null;
-	   	   		ObjectOutputStream out = null;
-	   	   		try {
-	   	   			fos = new FileOutputStream(new String(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "taskoutput" + File.separator + "task_" + 
-	   	   					this.jobCounter + ".ser"));
-	   	   		    out = new ObjectOutputStream(fos);
-	   	   		    out.writeObject(validatorConfig);
-	   	   		    out.close();
-	   	   	    } catch(IOException ex) {
-	   	   		    ex.printStackTrace();
-	   	   	    }
+				try {
+					TaskBundle.write(new File(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "taskoutput" + File.separator + "task_" + 
+							this.jobCounter + ".ser"), validatorConfig);
+				} catch(IOException e) {
+					throw new SchedulerException("Could not write the task configuration for the grid: " + e.getMessage());
+				}
 	   	    	    
-	   	    	// Create parameter line
-				String parameterString = new String();
-				parameterString = new Long(this.jobCounter).toString();
-				
 				// Update the counter of batch jobs
 				try {
 					FileOutputStream values_toTest = new FileOutputStream(new File(System.getenv("AMUSEHOME") + "/config/jobcounter.txt"));
@@ -110,29 +101,8 @@ public class ClassificationValidationStarter extends AmuseTaskStarter {
 					throw new SchedulerException("Could not update job counter during proceeding a script to the grid: " + e.getMessage());
 				}
 		
-				// Proceed script to grid
-				Process process;
-				try {
-				    process = Runtime.getRuntime().exec(AmusePreferences.get(KeysStringValue.GRID_SCRIPT_VALIDATOR) + " " + parameterString);
-				} catch (IOException e) {
-				    throw new SchedulerException("Error on proceeding a script to the grid: " + e.getMessage());
-				}
-		
-				// Wait till the job is proceeded to grid (otherwise "too many open files" exception may occur)
-				try {
-				    process.waitFor();
-		
-					// DEBUG Show the runtime outputs
-					/*String s = null; 
-					java.io.BufferedReader stdInput = new java.io.BufferedReader(new java.io.InputStreamReader(process.getInputStream()));
- 			        java.io.BufferedReader stdError = new java.io.BufferedReader(new java.io.InputStreamReader(process.getErrorStream()));
-					System.out.println("Here is the standard output of the command:\n"); 
-					while ((s = stdInput.readLine()) != null) { System.out.println(s); } 
-					System.out.println("Here is the standard error of the command (if any):\n"); 
-					while ((s = stdError.readLine()) != null) { System.out.println(s); }*/
-				} catch (Exception e) {
-				    throw new SchedulerException("Problems at proceeding of jobs to grid: " + e.getMessage());
-				}
+				// Proceed script to grid or to a local node process
+				this.proceedToGrid(KeysStringValue.GRID_SCRIPT_VALIDATOR, ValidatorNodeScheduler.class);
 	   	    } 
 			
 			// ... or if the validator node scheduler will be started directly
@@ -146,21 +116,9 @@ public class ClassificationValidationStarter extends AmuseTaskStarter {
 					throw new SchedulerException("Validator node thread could not be started: " + e.getMessage());
 				}
 	
-			    // Prepare validator node scheduler arguments and start it as thread
+			    // Prepare validator node scheduler arguments and pass it to the task executor
 	   	    	validatorThread.setThreadParameters(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "config" + File.separator + "node" + File.separator + "validator", this.jobCounter, validatorConfig);
-			    Thread newValidatorThread = new Thread(validatorThread);
-			    // TODO Timeout einbauen
-			    while (this.nodeSchedulers.size() >= AmusePreferences.getInt(KeysIntValue.MAX_NUMBER_OF_TASK_THREADS)) {
-					try {
-					    Thread.sleep(1000);
-					} catch (InterruptedException e) {
-					    throw new SchedulerException(this.getClass().getName() + " was interrupted: " + e.getMessage());
-					}
-			    }
-			    this.connectSchedulerToErrorDescriptionList(validatorThread);
-			    nodeSchedulers.add(validatorThread);
-			    validatorThread.addListener(this);
-			    newValidatorThread.start();
+			    this.submitNodeScheduler(validatorThread, 0);
 			}
 			this.jobCounter++;
 		}
@@ -168,14 +126,7 @@ public class ClassificationValidationStarter extends AmuseTaskStarter {
 		// If the node schedulers are started directly (and not e.g. as grid scripts), wait until all jobs are ready
 		if(this.startNodeDirectly) {
 			
-			// TODO Timeout einbauen!
-			while(this.nodeSchedulers.size() > 0) {
-				try {
-					Thread.sleep(1000);
-				} catch (InterruptedException e) {
-					throw new SchedulerException(this.getClass().getName() + " was interrupted: " + e.getMessage());
-				}
-			}
+			this.waitForNodeSchedulers();
 		} 
 		
 		return this.jobCounter;
@@ -27,9 +27,9 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Properties;
 
@@ -43,16 +43,21 @@ import amuse.data.io.DataSet;
 import amuse.data.io.DataSetAbstract;
 import amuse.data.io.attributes.Attribute;
 import amuse.interfaces.nodes.NodeException;
+import amuse.interfaces.nodes.TaskBundle;
 import amuse.interfaces.nodes.TaskConfiguration;
 import amuse.interfaces.nodes.methods.AmuseTask;
 import amuse.interfaces.scheduler.AmuseTaskStarter;
 import amuse.interfaces.scheduler.SchedulerException;
 import amuse.nodes.extractor.ExtractionConfiguration;
+import amuse.nodes.extractor.ExtractionCostModel;
+import amuse.nodes.extractor.ExtractionManifest;
 import amuse.nodes.extractor.ExtractorNodeScheduler;
 import amuse.nodes.extractor.interfaces.ExtractorInterface;
 import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysBooleanValue;
 import amuse.preferences.KeysIntValue;
 import amuse.preferences.KeysStringValue;
+import amuse.scheduler.GridJobPacker;
 import amuse.util.AmuseLogger;
 
 /**
@@ -88,6 +93,11 @@ public class FeatureExtractionStarter extends AmuseTaskStarter {
     	// (5) pcs are now free, both jobs use the scripts which extract features 2 and 3!!
     	FeatureTable previousFeatureTable = null;
     	
+    	// Extract only the features which are missing or outdated
+    	if(AmusePreferences.getBoolean(KeysBooleanValue.INCREMENTAL_EXTRACTION)) {
+    		taskConfiguration = selectOutdatedFeatures(taskConfiguration);
+    	}
+    	
     	// Generate and proceed Amuse jobs
 		for (int i = 0; i < taskConfiguration.length; i++) {
 	
@@ -97,6 +107,11 @@ public class FeatureExtractionStarter extends AmuseTaskStarter {
 			
 			// Is the current feature table other than the previous? Then update the extraction scripts!
 			if(!featureTable.equals(previousFeatureTable)) {
+				
+				// The running extractor nodes still use the current scripts
+				if(this.startNodeDirectly && previousFeatureTable != null) {
+					this.waitForNodeSchedulers();
+				}
 				modifyBaseScripts(featureTable);
 
 				// Update previousFeatureTable
@@ -106,37 +121,34 @@ public class FeatureExtractionStarter extends AmuseTaskStarter {
 			
 			
 			// If the extractor node scheduler will be started via grid or batch script...
-			// Here the Amuse parameter "numberOfJobsPerGridMachine" is ignored since the conversion of base
-			// scripts is done here and not on the grid machine! 
+			// The Amuse parameter "numberOfJobsPerGridMachine" is applied only to the music files of the
+			// current task, since they share the feature table and thus the extraction scripts converted above.
 			// TODO Provide conversion in ExtractorNodeScheduler? (consider also previous TODO) 
 			// Then it will be done very often!
 			if (!this.startNodeDirectly) {
 				
-		   	   	// Create a separate job for each music file
-				for(int k=0;k<extractorConfig.getMusicFileList().getFiles().size();k++) {	
+		   	   	// Create a job for each group of music files: the extractor node proceeds them one after another
+				// in the same process, so that it is started only once for the group
+				List<List<Integer>> gridJobs = packMusicFiles(extractorConfig);
+				for(List<Integer> filesOfJob : gridJobs) {	
 					
-					ArrayList<Integer> fileId = new ArrayList<Integer>(1);
-					fileId.add(extractorConfig.getMusicFileList().getIds().get(k));
-					ArrayList<String> filePath = new ArrayList<String>(1);
-					filePath.add(extractorConfig.getMusicFileList().getFileAt(k));
-					ExtractionConfiguration extractorConfigWithOneFile = new ExtractionConfiguration(new FileTable(fileId,filePath), featureTable);
+					int numberOfFilesInJob = filesOfJob.size();
+					ExtractionConfiguration[] extractorConfigsOfJob = new ExtractionConfiguration[numberOfFilesInJob];
+					for(int l=0;l<numberOfFilesInJob;l++) {
+						ArrayList<Integer> fileId = new ArrayList<Integer>(1);
+						fileId.add(extractorConfig.getMusicFileList().getIds().get(filesOfJob.get(l)));
+						ArrayList<String> filePath = new ArrayList<String>(1);
+						filePath.add(extractorConfig.getMusicFileList().getFileAt(filesOfJob.get(l)));
+						extractorConfigsOfJob[l] = new ExtractionConfiguration(new FileTable(fileId,filePath), featureTable);
+					}
 					
-					FileOutputStream fos = null;
-		   	   		ObjectOutputStream out = null;
-		   	   		try {
-		   	   			fos = new FileOutputStream(new String(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "taskoutput" + File.separator + "task_" + 
-		   	   					this.jobCounter + ".ser"));
-		   	   		    out = new ObjectOutputStream(fos);
-		   	   		    out.writeObject(extractorConfigWithOneFile);
-		   	   		    out.close();
-		   	   	    } catch(IOException ex) {
-		   	   		    ex.printStackTrace();
-		   	   	    }
+					try {
+						TaskBundle.write(new File(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "taskoutput" + File.separator + "task_" + 
+								this.jobCounter + ".ser"), extractorConfigsOfJob);
+					} catch(IOException e) {
+						throw new SchedulerException("Could not write the task configuration for the grid: " + e.getMessage());
+					}
 		   	    	    
-		   	    	// Create parameter line
-					String parameterString = new String();
-					parameterString = new Long(this.jobCounter).toString();
-					
 					// Update the counter of batch jobs
 					try {
 						FileOutputStream values_toTest = new FileOutputStream(new File(System.getenv("AMUSEHOME") + "/config/jobcounter.txt"));
@@ -147,32 +159,13 @@ public class FeatureExtractionStarter extends AmuseTaskStarter {
 						throw new SchedulerException("Could not update job counter during proceeding a script to the grid: " + e.getMessage());
 					}
 			
-					// Proceed script to grid
-					Process process;
-					try {
-					    process = Runtime.getRuntime().exec(AmusePreferences.get(KeysStringValue.GRID_SCRIPT_EXTRACTOR) + " " + parameterString);
-					} catch (IOException e) {
-					    throw new SchedulerException("Error on proceeding a script to the grid: " + e.getMessage());
-					}
-			
-					AmuseLogger.write(this.getClass().getName(), Level.INFO, "Extraction task script for "
-						+ extractorConfigWithOneFile.getMusicFileList().getFileAt(0) + " is prepared");
-			
-					// Wait till the job is proceeded to grid (otherwise "too many open files" exception may occur)
-					try {
-					    process.waitFor();
-			
-						// DEBUG Show the runtime outputs
-						/*String s = null; 
-						java.io.BufferedReader stdInput = new java.io.BufferedReader(new java.io.InputStreamReader(process.getInputStream()));
-	 			        java.io.BufferedReader stdError = new java.io.BufferedReader(new java.io.InputStreamReader(process.getErrorStream()));
-						System.out.println("Here is the standard output of the command:\n"); 
-						while ((s = stdInput.readLine()) != null) { System.out.println(s); } 
-						System.out.println("Here is the standard error of the command (if any):\n"); 
-						while ((s = stdError.readLine()) != null) { System.out.println(s); }*/
-					} catch (Exception e) {
-					    throw new SchedulerException("Problems at proceeding of jobs to grid: " + e.getMessage());
+					for(int l=0;l<numberOfFilesInJob;l++) {
+						AmuseLogger.write(this.getClass().getName(), Level.INFO, "Extraction task script for "
+							+ extractorConfigsOfJob[l].getMusicFileList().getFileAt(0) + " is prepared");
 					}
+
+					// Proceed script to grid or to a local node process
+					this.proceedToGrid(KeysStringValue.GRID_SCRIPT_EXTRACTOR, ExtractorNodeScheduler.class);
 					this.jobCounter++;
 		   	   	}
 	   	    } 
@@ -201,22 +194,10 @@ public class FeatureExtractionStarter extends AmuseTaskStarter {
 						throw new SchedulerException("Extractor node thread could not be started: " + e.getMessage());
 					}
 		
-				    // Prepare extractor node scheduler arguments and start it as thread
+				    // Prepare extractor node scheduler arguments and pass it to the task executor;
+				    // larger music files are started first, so that they do not delay the end of the task
 				    extractorThread.setThreadParameters(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + sep + "config" + sep + "node" + sep + "extractor", this.jobCounter, extractorConfigWithOneFile);
-				    Thread newExtractorThread = new Thread(extractorThread);
-				    // TODO Timeout einbauen
-				    while (this.nodeSchedulers.size() >= AmusePreferences.getInt(KeysIntValue.MAX_NUMBER_OF_TASK_THREADS)) {
-						try {
-						    Thread.sleep(1000);
-						} catch (InterruptedException e) {
-						    throw new SchedulerException(this.getClass().getName() + " was interrupted: " + e.getMessage());
-						}
-				    }
-				    this.connectSchedulerToErrorDescriptionList(extractorThread);
-
-				    nodeSchedulers.add(extractorThread);
-				    extractorThread.addListener(this);
-				    newExtractorThread.start();
+				    this.submitNodeScheduler(extractorThread, new File(extractorConfig.getMusicFileList().getFileAt(k)).length());
 				    this.jobCounter++;
 				}
 			}
@@ -224,20 +205,174 @@ public class FeatureExtractionStarter extends AmuseTaskStarter {
 	
 		// If the node schedulers are started directly (and not e.g. as grid scripts), wait until all jobs are ready
 		if (this.startNodeDirectly) {
-			// Wait until all jobs are ready
-			// TODO Timeout einbauen!
-			while (this.nodeSchedulers.size() > 0) {
-			    try {
-			    	Thread.sleep(1000);
-				} catch (InterruptedException e) {
-					throw new SchedulerException(this.getClass().getName() + " was interrupted: " + e.getMessage());
-				}
-			}
+			this.waitForNodeSchedulers();
 		}
 		
 		return this.jobCounter;
 	} 
     
+    /**
+     * Groups the music files of the configuration into grid jobs. If a target time per grid job is set,
+     * the music files are packed by their estimated extraction time; otherwise each grid job proceeds
+     * the number of music files given by <code>KeysIntValue.NUMBER_OF_JOBS_PER_GRID_MACHINE</code>
+     * @param extractorConfig The extraction configuration
+     * @return Positions of the music files in the file list for each grid job
+     */
+    private List<List<Integer>> packMusicFiles(ExtractionConfiguration extractorConfig) {
+    	int numberOfFiles = extractorConfig.getMusicFileList().getFiles().size();
+    	int targetTime = AmusePreferences.getInt(KeysIntValue.TARGET_TIME_PER_GRID_JOB_IN_S);
+    	if(targetTime == 0) {
+    		return GridJobPacker.packByNumber(numberOfFiles, AmusePreferences.getInt(KeysIntValue.NUMBER_OF_JOBS_PER_GRID_MACHINE));
+    	}
+    	
+    	ExtractionCostModel costModel;
+    	try {
+    		costModel = ExtractionCostModel.load();
+    	} catch(IOException e) {
+    		AmuseLogger.write(this.getClass().getName(), Level.WARN, "Could not load the extraction times of previous runs; " + 
+    				"the number of jobs per grid machine is used: " + e.getMessage());
+    		return GridJobPacker.packByNumber(numberOfFiles, AmusePreferences.getInt(KeysIntValue.NUMBER_OF_JOBS_PER_GRID_MACHINE));
+    	}
+    	double[] costs = new double[numberOfFiles];
+    	for(int k = 0; k < numberOfFiles; k++) {
+    		costs[k] = costModel.estimateCost(new File(extractorConfig.getMusicFileList().getFileAt(k)), 
+    				extractorConfig.getFeatureTable().getSelectedFeatures());
+    	}
+    	List<List<Integer>> gridJobs = GridJobPacker.packByCost(costs, targetTime);
+    	if(!gridJobs.isEmpty()) {
+    		double maxCost = 0;
+    		for(Integer k : gridJobs.get(0)) {
+    			maxCost += costs[k];
+    		}
+    		AmuseLogger.write(this.getClass().getName(), Level.INFO, numberOfFiles + " music files are packed into " + gridJobs.size() + 
+    				" grid jobs (estimated time of the longest job: " + Math.round(maxCost) + " s)");
+    	}
+    	return gridJobs;
+    }
+    
+    /**
+     * Compares the feature files of the music files with the extraction manifests in the feature database
+     * and creates configurations only for the features which are missing or were extracted from other audio
+     * content or with other extraction settings. Music files with the same missing features are grouped into
+     * one configuration, so that the base scripts are converted once for each group
+     * @param taskConfiguration The extraction configurations
+     * @return Configurations with the outdated features; music files without outdated features are omitted
+     */
+    private TaskConfiguration[] selectOutdatedFeatures(TaskConfiguration[] taskConfiguration) throws SchedulerException {
+    	
+    	// Load the extractor keys of the regular features
+    	HashMap<Integer, String> adapterClasses = new HashMap<Integer, String>();
+    	HashMap<Integer, String> regularExtractorKeys = new HashMap<Integer, String>();
+    	try {
+    		DataSetAbstract toolTableSet = new ArffDataSet(new File(AmusePreferences.getFeatureExtractorToolTablePath()));
+    		Attribute idAttribute = toolTableSet.getAttribute("Id");
+    		Attribute adapterClassAttribute = toolTableSet.getAttribute("AdapterClass");
+    		Attribute homeFolderAttribute = toolTableSet.getAttribute("HomeFolder");
+    		Attribute inputExtractorBaseBatchAttribute = toolTableSet.getAttribute("InputBaseBatch");
+    		for(int i=0;i<toolTableSet.getValueCount();i++) {
+    			int extractorId = new Double(idAttribute.getValueAt(i).toString()).intValue();
+    			String baseScript = inputExtractorBaseBatchAttribute.getValueAt(i).toString();
+    			File baseScriptFile = baseScript.startsWith(File.separator) ? new File(baseScript) : 
+    				new File(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "tools" + File.separator + 
+    						homeFolderAttribute.getValueAt(i) + File.separator + baseScript);
+    			adapterClasses.put(extractorId, adapterClassAttribute.getValueAt(i).toString());
+    			regularExtractorKeys.put(extractorId, ExtractionManifest.createExtractorKey(adapterClassAttribute.getValueAt(i).toString(), 
+    					extractorId, baseScriptFile, null));
+    		}
+    	} catch(IOException e) {
+    		throw new SchedulerException("Could not load the extractor tool table: " + e.getMessage());
+    	}
+    	
+    	List<TaskConfiguration> outdatedConfigurations = new ArrayList<TaskConfiguration>();
+    	int numberOfFiles = 0;
+    	int numberOfSkippedFiles = 0;
+    	for(int i = 0; i < taskConfiguration.length; i++) {
+    		ExtractionConfiguration extractorConfig = (ExtractionConfiguration)taskConfiguration[i];
+    		List<Feature> selectedFeatures = extractorConfig.getFeatureTable().getSelectedFeatures();
+    		
+    		// Extractor keys of the selected features
+    		String[] extractorKeys = new String[selectedFeatures.size()];
+    		for(int j = 0; j < selectedFeatures.size(); j++) {
+    			Feature feature = selectedFeatures.get(j);
+    			if(feature.getConfigurationId() == null) {
+    				extractorKeys[j] = regularExtractorKeys.get(feature.getExtractorId());
+    			} else {
+    				try {
+    					extractorKeys[j] = ExtractionManifest.createExtractorKey(adapterClasses.get(feature.getExtractorId()), 
+    							feature.getExtractorId(), null, feature.getCustomScript());
+    				} catch(IOException e) {
+    					throw new SchedulerException("Could not create the extractor key: " + e.getMessage());
+    				}
+    			}
+    		}
+    		
+    		// Group the music files by the positions of their outdated features
+    		LinkedHashMap<String, List<Integer>> outdatedFeatures2FileIds = new LinkedHashMap<String, List<Integer>>();
+    		LinkedHashMap<String, List<String>> outdatedFeatures2Files = new LinkedHashMap<String, List<String>>();
+    		LinkedHashMap<String, List<Feature>> outdatedFeatures = new LinkedHashMap<String, List<Feature>>();
+    		for(int k = 0; k < extractorConfig.getMusicFileList().getFiles().size(); k++) {
+    			String musicFile = extractorConfig.getMusicFileList().getFileAt(k);
+    			numberOfFiles++;
+    			
+    			StringBuilder group = new StringBuilder();
+    			List<Feature> outdatedFeaturesOfFile = new ArrayList<Feature>();
+    			try {
+    				ExtractionManifest manifest = new ExtractionManifest(ExtractionManifest.getFeatureFolder(musicFile, 
+    						extractorConfig.getFeatureDatabase()));
+    				String audioHash = manifest.getAudioHash(new File(musicFile));
+    				for(int j = 0; j < selectedFeatures.size(); j++) {
+    					if(extractorKeys[j] == null || !manifest.isCurrent(ExtractionManifest.getFeatureFileName(musicFile, selectedFeatures.get(j)), 
+    							ExtractionManifest.createKey(audioHash, extractorKeys[j]))) {
+    						group.append(j).append(',');
+    						outdatedFeaturesOfFile.add(selectedFeatures.get(j));
+    					}
+    				}
+    				
+    				// Saves the audio hash if the music file has only been touched
+    				if(outdatedFeaturesOfFile.isEmpty()) {
+    					manifest.save();
+    				}
+    			} catch(IOException e) {
+    				AmuseLogger.write(this.getClass().getName(), Level.WARN, "Could not check the features of '" + musicFile + 
+    						"'; all features will be extracted: " + e.getMessage());
+    				group = new StringBuilder();
+    				for(int j = 0; j < selectedFeatures.size(); j++) {
+    					group.append(j).append(',');
+    				}
+    				outdatedFeaturesOfFile = selectedFeatures;
+    			}
+    			
+    			if(outdatedFeaturesOfFile.isEmpty()) {
+    				numberOfSkippedFiles++;
+    				continue;
+    			}
+    			String groupKey = group.toString();
+    			if(!outdatedFeatures.containsKey(groupKey)) {
+    				outdatedFeatures2FileIds.put(groupKey, new ArrayList<Integer>());
+    				outdatedFeatures2Files.put(groupKey, new ArrayList<String>());
+    				outdatedFeatures.put(groupKey, outdatedFeaturesOfFile);
+    			}
+    			outdatedFeatures2FileIds.get(groupKey).add(extractorConfig.getMusicFileList().getIds().get(k));
+    			outdatedFeatures2Files.get(groupKey).add(musicFile);
+    		}
+    		
+    		for(String groupKey : outdatedFeatures.keySet()) {
+    			
+    			// Keep the original feature table if all features are outdated, so that the base scripts are not converted again
+    			FeatureTable featureTable = outdatedFeatures.get(groupKey).size() == selectedFeatures.size() ? 
+    					extractorConfig.getFeatureTable() : new FeatureTable(outdatedFeatures.get(groupKey));
+    			ExtractionConfiguration outdatedConfig = new ExtractionConfiguration(new FileTable(outdatedFeatures2FileIds.get(groupKey), 
+    					outdatedFeatures2Files.get(groupKey)), featureTable);
+    			outdatedConfig.setFeatureDatabase(extractorConfig.getFeatureDatabase());
+    			outdatedConfigurations.add(outdatedConfig);
+    		}
+    	}
+    	
+    	AmuseLogger.write(this.getClass().getName(), Level.INFO, "Incremental extraction: " + numberOfSkippedFiles + " of " + 
+    			numberOfFiles + " music files have current features and are skipped");
+    	return outdatedConfigurations.toArray(new TaskConfiguration[outdatedConfigurations.size()]);
+    }
+    
     /**
      * Converts the extractor tools base scripts (which provide the extraction of ALL available features), so 
      * that only the features from the given feature table are extracted
@@ -27,7 +27,6 @@ import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Properties;
 import org.apache.log4j.Level;
@@ -35,10 +34,12 @@ import org.apache.log4j.Level;
 import amuse.data.FileTable;
 import amuse.data.ProcessingHistory;
 import amuse.interfaces.nodes.NodeException;
+import amuse.interfaces.nodes.TaskBundle;
 import amuse.interfaces.nodes.TaskConfiguration;
 import amuse.interfaces.scheduler.AmuseTaskStarter;
 import amuse.interfaces.scheduler.SchedulerException;
 import amuse.nodes.processor.*;
+import amuse.nodes.processor.ProcessorNodeScheduler;
 import amuse.preferences.AmusePreferences;
 import amuse.preferences.KeysIntValue;
 import amuse.preferences.KeysStringValue;
@@ -109,6 +110,11 @@ public class FeatureProcessingStarter extends AmuseTaskStarter {
         } catch (IOException ex) {
 
         }
+		
+		// If the node schedulers are started directly, the tracks are processed by the worker threads
+		// of the task executor; each worker reuses the processing methods for its tracks
+		long poolStartTime = System.nanoTime();
+		
 		// Generate and proceed Amuse jobs
 		for (int i = 0; i < oneTaskConfigs.size(); i++) {
 			
@@ -129,22 +135,13 @@ public class FeatureProcessingStarter extends AmuseTaskStarter {
 				}
 				i--; // Since the for-loop increments i  
 				
-	   	   		FileOutputStream fos = null;
-	   	   		ObjectOutputStream out = null;
-	   	   		try {
-	   	   			fos = new FileOutputStream(new String(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "taskoutput" + File.separator + "task_" + 
-	   	   					this.jobCounter + ".ser"));
-	   	   		    out = new ObjectOutputStream(fos);
-	   	   		    out.writeObject(processorConfig);
-	   	   		    out.close();
-	   	   	    } catch(IOException ex) {
-	   	   		    ex.printStackTrace();
-	   	   	    }
+				try {
+					TaskBundle.write(new File(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "taskoutput" + File.separator + "task_" + 
+							this.jobCounter + ".ser"), processorConfig);
+				} catch(IOException e) {
+					throw new SchedulerException("Could not write the task configuration for the grid: " + e.getMessage());
+				}
 	   	    	    
-	   	    	// Create parameter line
-				String parameterString = new String();
-				parameterString = new Long(this.jobCounter).toString();
-				
 				// Update the counter of batch jobs
 				try {
 					FileOutputStream values_toTest = new FileOutputStream(new File(System.getenv("AMUSEHOME") + "/config/jobcounter.txt"));
@@ -155,29 +152,8 @@ public class FeatureProcessingStarter extends AmuseTaskStarter {
 					throw new SchedulerException("Could not update job counter during proceeding a script to the grid: " + e.getMessage());
 				}
 		
-				// Proceed script to grid
-				Process process;
-				try {
-				    process = Runtime.getRuntime().exec(AmusePreferences.get(KeysStringValue.GRID_SCRIPT_PROCESSOR) + " " + parameterString);
-				} catch (IOException e) {
-				    throw new SchedulerException("Error on proceeding a script to the grid: " + e.getMessage());
-				}
-		
-				// Wait till the job is proceeded to grid (otherwise "too many open files" exception may occur)
-				try {
-				    process.waitFor();
-		
-					// DEBUG Show the runtime outputs
-					/*String s = null; 
-					java.io.BufferedReader stdInput = new java.io.BufferedReader(new java.io.InputStreamReader(process.getInputStream()));
- 			        java.io.BufferedReader stdError = new java.io.BufferedReader(new java.io.InputStreamReader(process.getErrorStream()));
-					System.out.println("Here is the standard output of the command:\n"); 
-					while ((s = stdInput.readLine()) != null) { System.out.println(s); } 
-					System.out.println("Here is the standard error of the command (if any):\n"); 
-					while ((s = stdError.readLine()) != null) { System.out.println(s); }*/
-				} catch (Exception e) {
-				    throw new SchedulerException("Problems at proceeding of jobs to grid: " + e.getMessage());
-				}
+				// Proceed script to grid or to a local node process
+				this.proceedToGrid(KeysStringValue.GRID_SCRIPT_PROCESSOR, ProcessorNodeScheduler.class);
 	   	    } 
 			
 			// ... or if the processor node scheduler will be started directly 
@@ -188,41 +164,53 @@ public class FeatureProcessingStarter extends AmuseTaskStarter {
 					processorThread = new ProcessorNodeScheduler(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + 
 							File.separator + "config" + File.separator + "node" + File.separator + "processor" + File.separator + "input" + File.separator + "task_" + this.jobCounter);
 				} catch (NodeException e) {
+					this.cancelNodeSchedulers();
 					throw new SchedulerException("Processor node thread could not be started: " + e.getMessage());
 				}
 	
-			    // Prepare processor node scheduler arguments and start it as thread
+			    // Prepare processor node scheduler arguments and pass it to the task executor;
+			    // larger music files are started first, so that they do not delay the end of the task
 	   	    	processorThread.setThreadParameters(AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "config" + File.separator + "node" + File.separator + "processor", this.jobCounter, processorConfig);
-			    Thread newProcessorThread = new Thread(processorThread);
-			    // TODO Timeout einbauen
-			    while (this.nodeSchedulers.size() >= AmusePreferences.getInt(KeysIntValue.MAX_NUMBER_OF_TASK_THREADS)) {
-					try {
-					    Thread.sleep(1000);
-					} catch (InterruptedException e) {
-					    throw new SchedulerException(this.getClass().getName() + " was interrupted: " + e.getMessage());
-					}
-			    }
-			    this.connectSchedulerToErrorDescriptionList(processorThread);
-			    nodeSchedulers.add(processorThread);
-			    processorThread.addListener(this); 
-			    newProcessorThread.start();
+			    this.submitNodeScheduler(processorThread, new File(processorConfig.getMusicFileList().getFileAt(0)).length());
 			}
 			this.jobCounter++;
 		}
 	
 		// If the node schedulers are started directly (and not e.g. as grid scripts), wait until all jobs are ready
 		if (this.startNodeDirectly) {
-			
-			// TODO Timeout einbauen!
-			while (this.nodeSchedulers.size() > 0) {
-			    try {
-					Thread.sleep(1000);
-			    } catch (InterruptedException e) {
-					throw new SchedulerException(this.getClass().getName() + " was interrupted: " + e.getMessage());
-			    }
-			}
+			long[] latencies = this.waitForNodeSchedulers();
+			logPerformance(latencies, System.nanoTime() - poolStartTime);
 		}
 		
 		return this.jobCounter;
 	}
+	
+	/**
+	 * Logs the processing time per track and the throughput of the worker threads
+	 * @param latencies Processing times of the tracks in ns (-1 for failed tracks)
+	 * @param wallTime Time since the submission of the first track in ns
+	 */
+	private void logPerformance(long[] latencies, long wallTime) {
+		int numberOfTracks = 0;
+		long sum = 0;
+		long min = Long.MAX_VALUE;
+		long max = 0;
+		for (long latency : latencies) {
+			if (latency < 0) {
+				continue;
+			}
+			numberOfTracks++;
+			sum += latency;
+			min = Math.min(min, latency);
+			max = Math.max(max, latency);
+		}
+		if (numberOfTracks == 0) {
+			return;
+		}
+		double seconds = wallTime / 1e9;
+		AmuseLogger.write(this.getClass().getName(), Level.INFO, String.format(
+				"Processed %d tracks in %.1f s (%.2f tracks/s); time per track: mean %.1f ms, min %.1f ms, max %.1f ms",
+				numberOfTracks, seconds, numberOfTracks / seconds, sum / 1e6 / numberOfTracks, min / 1e6, max / 1e6));
+	}
+	
 }
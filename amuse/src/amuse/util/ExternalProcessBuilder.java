@@ -24,12 +24,15 @@
 package amuse.util;
 
 import amuse.preferences.AmusePreferences;
+import amuse.preferences.KeysIntValue;
 import amuse.preferences.KeysStringValue;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.TreeMap;
 
 /**
  * This class starts other processes
@@ -42,6 +45,12 @@ public class ExternalProcessBuilder {
     private ProcessBuilder pb;
     private OSType os;
 
+    /** Environment variables set by setEnv(), part of the key of the worker pool */
+    private TreeMap<String, String> environmentChanges = new TreeMap<String, String>();
+
+    /** Pools of worker processes, one for each command, working directory and environment */
+    private static final HashMap<String, ExternalProcessPool> workerPools = new HashMap<String, ExternalProcessPool>();
+
     private ExternalProcessBuilder() {
         os = determineOS();
     }
@@ -123,6 +132,7 @@ public class ExternalProcessBuilder {
      */
     public void setEnv(String key, String value) {
         pb.environment().put(key, value);
+        environmentChanges.put(key, value);
     }
 
     /**
@@ -141,4 +151,49 @@ public class ExternalProcessBuilder {
     public Process start() throws IOException {
         return pb.start();
     }
+
+    /**
+     * Returns the pool of long-running worker processes which are started with the command, working
+     * directory and environment of this process builder. The pool is created at the first call with
+     * the number of processes given by <code>KeysIntValue.NUMBER_OF_EXTERNAL_WORKER_PROCESSES</code>
+     * and the request timeout given by <code>KeysIntValue.EXTERNAL_WORKER_REQUEST_TIMEOUT_IN_S</code>
+     * and is kept until AMUSE terminates.
+     * @param protocol Protocol for requests to the worker processes
+     * @return The worker pool or null if worker processes are disabled
+     */
+    public ExternalProcessPool getWorkerPool(ExternalProcessPool.RequestProtocol protocol) {
+        int numberOfWorkers = AmusePreferences.getInt(KeysIntValue.NUMBER_OF_EXTERNAL_WORKER_PROCESSES);
+        if (numberOfWorkers < 1) {
+            return null;
+        }
+        String key = pb.command() + "|" + pb.directory() + "|" + environmentChanges;
+        synchronized (workerPools) {
+            ExternalProcessPool pool = workerPools.get(key);
+            if (pool == null) {
+                if (workerPools.isEmpty()) {
+                    Runtime.getRuntime().addShutdownHook(new Thread() {
+                        public void run() {
+                            shutdownWorkerPools();
+                        }
+                    });
+                }
+                pool = new ExternalProcessPool(this, numberOfWorkers, 
+                        AmusePreferences.getInt(KeysIntValue.EXTERNAL_WORKER_REQUEST_TIMEOUT_IN_S), protocol);
+                workerPools.put(key, pool);
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Terminates the processes of all worker pools
+     */
+    public static void shutdownWorkerPools() {
+        synchronized (workerPools) {
+            for (ExternalProcessPool pool : workerPools.values()) {
+                pool.shutdown();
+            }
+            workerPools.clear();
+        }
+    }
 }
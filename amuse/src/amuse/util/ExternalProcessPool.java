@@ -0,0 +1,287 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.util;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.log4j.Level;
+
+/**
+ * Keeps external worker processes (e.g. Matlab interpreters) running between requests, so that
+ * adapters which start the same program for every music file do not pay its start-up time again.
+ * A request is written to the standard input of an idle worker; the worker prints a line with
+ * a marker to its standard output when the request is done.
+ *
+ * Workers which have terminated are replaced by new ones, and each worker is restarted after
+ * a fixed number of requests, so that memory leaks of the external program do not accumulate.
+ * A worker which does not finish a request within the request timeout is terminated and the
+ * request fails, so that a hanging external program does not block the extraction forever.
+ * The pools are created by <code>ExternalProcessBuilder.getWorkerPool()</code>.
+ *
+ * @version $Id$
+ */
+public class ExternalProcessPool {
+
+	/** Number of requests after which a worker process is restarted */
+	private static final int MAX_REQUESTS_PER_WORKER = 100;
+
+	/** Time to wait for a worker process to exit before it is destroyed */
+	private static final long EXIT_TIMEOUT_IN_SECONDS = 5;
+
+	/** Prefix of the markers which end the output of a request */
+	private static final String MARKER_PREFIX = "AMUSE_REQUEST_";
+
+	/** Added to the output queue of a worker after its output stream is closed */
+	private static final String END_OF_OUTPUT = new String("END_OF_OUTPUT");
+
+	/**
+	 * Translates requests into the input language of the worker processes
+	 */
+	public interface RequestProtocol {
+
+		/**
+		 * @param request The request, e.g. a function call
+		 * @param marker The marker to print after the request
+		 * @return Input for the worker process which executes the request and prints a line with the
+		 * marker followed by " OK" on success or by " ERROR" and the error message on failure
+		 */
+		public String createRequest(String request, String marker);
+
+		/**
+		 * @return Input which lets the worker process terminate
+		 */
+		public String getExitCommand();
+	}
+
+	private final ExternalProcessBuilder builder;
+	private final RequestProtocol protocol;
+
+	/** Maximum time of a request in seconds; 0 if the time is not limited */
+	private final int requestTimeoutInSeconds;
+
+	/** Limits the number of running requests to the number of workers */
+	private final Semaphore availableWorkers;
+	private final ArrayDeque<Worker> idleWorkers = new ArrayDeque<Worker>();
+	private final List<Worker> startedWorkers = new ArrayList<Worker>();
+	private final AtomicLong requestCounter = new AtomicLong();
+	private boolean isShutdown = false;
+
+	/**
+	 * @param builder Builder which starts a worker process
+	 * @param numberOfWorkers Maximum number of worker processes
+	 * @param requestTimeoutInSeconds Maximum time of a request in seconds; 0 if the time is not limited
+	 * @param protocol Protocol of the worker processes
+	 */
+	ExternalProcessPool(ExternalProcessBuilder builder, int numberOfWorkers, int requestTimeoutInSeconds, RequestProtocol protocol) {
+		this.builder = builder;
+		this.protocol = protocol;
+		this.requestTimeoutInSeconds = requestTimeoutInSeconds;
+		this.availableWorkers = new Semaphore(numberOfWorkers, true);
+	}
+
+	/**
+	 * Executes the request in an idle worker process; waits if all workers are busy
+	 * @param request The request
+	 * @return Output of the worker process for this request
+	 * @throws IOException If the request failed, the worker process terminated or the request timed out
+	 */
+	public String execute(String request) throws IOException {
+		try {
+			availableWorkers.acquire();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for a worker process");
+		}
+		Worker worker = null;
+		try {
+			worker = takeWorker();
+			return worker.execute(request, MARKER_PREFIX + requestCounter.incrementAndGet());
+		} finally {
+			if(worker != null) {
+				releaseWorker(worker);
+			}
+			availableWorkers.release();
+		}
+	}
+
+	/**
+	 * Terminates all worker processes; further requests fail
+	 */
+	public synchronized void shutdown() {
+		isShutdown = true;
+		for(Worker worker : startedWorkers) {
+			worker.destroy();
+		}
+		startedWorkers.clear();
+		idleWorkers.clear();
+	}
+
+	/**
+	 * @return An idle worker which is still running or a new worker
+	 */
+	private synchronized Worker takeWorker() throws IOException {
+		if(isShutdown) {
+			throw new IOException("The worker processes are shut down");
+		}
+		while(!idleWorkers.isEmpty()) {
+			Worker worker = idleWorkers.poll();
+			if(worker.isAlive()) {
+				return worker;
+			}
+			AmuseLogger.write(this.getClass().getName(), Level.WARN, "Worker process '" + builder.command().get(0) +
+					"' has terminated and is replaced");
+			startedWorkers.remove(worker);
+		}
+		Worker worker = new Worker();
+		startedWorkers.add(worker);
+		AmuseLogger.write(this.getClass().getName(), Level.DEBUG, "Worker process '" + builder.command().get(0) +
+				"' started (" + startedWorkers.size() + " running)");
+		return worker;
+	}
+
+	private void releaseWorker(Worker worker) {
+		synchronized(this) {
+			if(!isShutdown && worker.isAlive() && worker.numberOfRequests < MAX_REQUESTS_PER_WORKER) {
+				idleWorkers.push(worker);
+				return;
+			}
+			startedWorkers.remove(worker);
+		}
+		worker.destroy();
+	}
+
+	/**
+	 * A running worker process. Its output is read by a separate thread, so that the process
+	 * never blocks on a full output buffer
+	 */
+	private class Worker {
+
+		private final Process process;
+		private final BufferedWriter input;
+		private final LinkedBlockingQueue<String> outputLines = new LinkedBlockingQueue<String>();
+		private volatile boolean isTerminated = false;
+		private int numberOfRequests = 0;
+
+		private Worker() throws IOException {
+			process = builder.start();
+			input = new BufferedWriter(new OutputStreamWriter(process.getOutputStream()));
+			Thread outputReader = new Thread(new Runnable() {
+				public void run() {
+					BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream()));
+					try {
+						String line;
+						while((line = output.readLine()) != null) {
+							outputLines.add(line);
+						}
+					} catch(IOException e) {
+						// The process has been destroyed
+					} finally {
+						isTerminated = true;
+						outputLines.add(END_OF_OUTPUT);
+					}
+				}
+			}, "Output reader of " + builder.command().get(0));
+			outputReader.setDaemon(true);
+			outputReader.start();
+		}
+
+		private String execute(String request, String marker) throws IOException {
+			numberOfRequests++;
+			input.write(protocol.createRequest(request, marker));
+			input.newLine();
+			input.flush();
+
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(requestTimeoutInSeconds);
+			StringBuilder output = new StringBuilder();
+			while(true) {
+				String line;
+				try {
+					if(requestTimeoutInSeconds > 0) {
+						line = outputLines.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+					} else {
+						line = outputLines.take();
+					}
+				} catch(InterruptedException e) {
+					destroy();
+					Thread.currentThread().interrupt();
+					throw new IOException("Interrupted while waiting for the worker process");
+				}
+				if(line == null) {
+					
+					// The hanging process would not react to the exit command
+					isTerminated = true;
+					process.destroyForcibly();
+					AmuseLogger.write(ExternalProcessPool.class.getName(), Level.WARN, "Worker process '" + builder.command().get(0) +
+							"' did not finish the request within " + requestTimeoutInSeconds + " s and was terminated");
+					throw new IOException("Worker process did not finish the request within " + requestTimeoutInSeconds + " s: " + output);
+				}
+				if(line == END_OF_OUTPUT) {
+					throw new IOException("Worker process terminated during the request: " + output);
+				}
+
+				// Interpreters may print a prompt before the marker
+				int markerPosition = line.indexOf(marker);
+				if(markerPosition != -1) {
+					String status = line.substring(markerPosition + marker.length()).trim();
+					if(status.startsWith("OK")) {
+						return output.toString();
+					}
+					throw new IOException(status.startsWith("ERROR") ? status.substring(5).trim() : status);
+				}
+				output.append(line).append('\n');
+			}
+		}
+
+		private boolean isAlive() {
+			return !isTerminated && process.isAlive();
+		}
+
+		private void destroy() {
+			try {
+				input.write(protocol.getExitCommand());
+				input.newLine();
+				input.close();
+
+				// Give the process the chance to terminate properly
+				process.waitFor(EXIT_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+			} catch(IOException e) {
+				// The process has already terminated
+			} catch(InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			process.destroy();
+		}
+	}
+}
@@ -49,7 +49,11 @@ import amuse.preferences.KeysStringValue;
 public class LibraryInitializer {
 	
 	public static final String RAPIDMINER_REPO_NAME = "RapidMinerRepoAmuse";
-	public static final String REPOSITORY_PATH = AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "tools" + File.separator + "RapidMiner9" + File.separator + "repository";
+	
+	/** System property which sets another repository folder, e.g. for a process which validates one cross-validation fold */
+	public static final String REPOSITORY_PATH_PROPERTY = "amuse.rapidminer.repository";
+	public static final String REPOSITORY_PATH = System.getProperty(REPOSITORY_PATH_PROPERTY, 
+			AmusePreferences.get(KeysStringValue.AMUSE_PATH) + File.separator + "tools" + File.separator + "RapidMiner9" + File.separator + "repository");
 	
 	private static boolean rapidMinerInitialized = false;
 	private static Repository rapidMinerRepo;
@@ -38,9 +38,11 @@ import javax.sound.sampled.AudioFileFormat.Type;
 import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.nio.channels.FileChannel;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.logging.Logger;
 
 /**
@@ -54,107 +56,41 @@ public class AudioFileConversion {
    public enum KHz {
 	   KHz11, KHz22, KHz44
    }
-    public static void convertFile(File musicFile, File targetFile, KHz khz, boolean isReduceToMono, boolean isDownSamplingActive) throws IOException {
-	int targetKHZ;
-        if (khz == KHz.KHz44) {
-            targetKHZ = 44100;
-        } else if (khz == KHz.KHz22) {
-            targetKHZ = 22050;
-        } else if (khz == KHz.KHz11) {
-            targetKHZ = 11025;
-        } else {
-            targetKHZ = 44100;
-        }
-        boolean isOriginal = true;
-        AudioFileFormat audioFileFormat = null;
-        File wavFile = new File(targetFile.getParent() + File.separator + "tmp_" + musicFile.getName());
-        // ---------------------------------------------------------------------
-        // I.: Try to get AudioFileFormat:
-        // ---------------------------------------------------------------------
-        try {
-            audioFileFormat = AudioSystem.getAudioFileFormat(musicFile);
-        } catch (UnsupportedAudioFileException ex) {
-            // If no wave file is given, this exception is generated. However the conversion mp3->wave can
-            // be done!
-            // throw new NodeException("Could not convert audio file: " + ex.getMessage());
-        } catch (IOException ex) {
-            throw new IOException("Error accessing file to process: " + ex.getMessage());
-        }
 
-        // ---------------------------------------------------------------------
-        // II.: Try to convert mp3 to wave if needed:
-        // ---------------------------------------------------------------------
-        if (audioFileFormat == null || audioFileFormat.getType() != Type.WAVE) { // If not wave already, convert to wave
-            try {
-                AmuseLogger.write(AudioFileConversion.class.getName(), Level.INFO, "Converting " + musicFile.getName() + " to wave.");
-                convertMp3ToWave(musicFile, wavFile);
-                isOriginal = false;
-            } catch (IOException ex) {
-                throw new IOException("Error converting audio file " + musicFile.getName() + ": " + ex.getMessage());
-            }
-        } else {
+    /** Size of the buffers used for reading and writing audio data */
+    private static final int BUFFER_SIZE = 1 << 16;
 
-            // wavFile is now the file to process.
-            wavFile = musicFile;
-        }
+    /** Size of the header of the written wave files */
+    private static final int WAVE_HEADER_SIZE = 44;
 
-        // ---------------------------------------------------------------------
-        // III.: Try to reduce audio quality:
-        // ---------------------------------------------------------------------
+    /**
+     * Converts the given music file to a wave file with the given sample rate. The music file is
+     * decoded, down-sampled and reduced to mono in a single pass, without intermediate files.
+     */
+    public static void convertFile(File musicFile, File targetFile, KHz khz, boolean isReduceToMono, boolean isDownSamplingActive) throws IOException {
+        AudioInputStream stream = openConvertedStream(musicFile, khz, isReduceToMono, isDownSamplingActive);
+        final File target = targetFile;
         try {
-            AudioFormat format = AudioSystem.getAudioFileFormat(wavFile).getFormat();
-            AmuseLogger.write(AudioFileConversion.class.getName(), Level.DEBUG, "Starting: "+wavFile.getName() + " "+ (int)format.getFrameRate()+"kHz, "+format.getChannels());
-            fileCopy(wavFile, targetFile);
-            if (!isDownSamplingActive) {
-		targetKHZ = (int) format.getFrameRate();
-	    }
-            if (!isReduceToMono && format.getChannels() == 1) {
-		AmuseLogger.write(AudioFileConversion.class.getName(), Level.WARN, "Target is stereo, but this file is mono already: " + wavFile.getName());
-	    }
-            if (isDownSamplingActive && targetKHZ > format.getFrameRate()) {
-		AmuseLogger.write(AudioFileConversion.class.getName(), Level.WARN, "Target is " + targetKHZ + "kHz, but this file is at " + (int) format.getFrameRate() + "kHz already: " + wavFile.getName());
-	    }
-            sampleToTargetSize(targetFile, targetKHZ, isReduceToMono);
-            format = AudioSystem.getAudioFileFormat(targetFile).getFormat();
-            AmuseLogger.write(AudioFileConversion.class.getName(), Level.DEBUG, "Result: "+targetFile.getName() + " "+ (int)format.getFrameRate()+"kHz, "+format.getChannels());
-            if (isDownSamplingActive && format.getFrameRate() != 44100f && format.getFrameRate() != 22050f && format.getFrameRate() != 11025f) {
-                AmuseLogger.write(AudioFileConversion.class.getName(), Level.WARN, "This file has no standard frame rate: \"" + wavFile + "\"");
-            }
-            deleteConvertedFile(wavFile, isOriginal);
-        } catch (IOException ex) {
-            ex.printStackTrace();
-            AmuseLogger.write(AudioFileConversion.class.getName(), Level.ERROR, "Unable to perform down-sampling: " + ex.getMessage());
-            fileCopy(wavFile, targetFile);
-            deleteConvertedFile(wavFile, isOriginal);
-            throw ex;
-        } catch (UnsupportedAudioFileException ex) {
-            fileCopy(wavFile, targetFile);
-            deleteConvertedFile(wavFile, isOriginal);
-            AmuseLogger.write(AudioFileConversion.class.getName(), Level.ERROR, "Unsupported Audio-File: \"" + ex.getLocalizedMessage() + "\"");
-            throw new IOException(ex.getMessage());
+            new WavePartWriter() {
+                File getPartFile(int part) {
+                    return target;
+                }
+            }.write(stream, 0);
+        } finally {
+            stream.close();
         }
-
     }
+
     public static void convertWithSettings(File musicFile, File targetFile) throws IOException {
-        boolean isReduceToMono = AmusePreferences.getBoolean(KeysBooleanValue.REDUCE_TO_MONO);
-        boolean isDownSamplingActive = AmusePreferences.getBoolean(KeysBooleanValue.USE_DOWNSAMPLING);
-        int targetKHZ = AmusePreferences.getInt(KeysIntValue.DOWNSAMPLING_TARGET_SIZE_IN_HZ);
-	KHz khz;
-        if (targetKHZ == 0) {
-            khz = KHz.KHz44;
-        } else if (targetKHZ == 1) {
-            khz = KHz.KHz22;
-        } else if (targetKHZ == 2) {
-            khz = KHz.KHz11;
-        } else {
-            khz = KHz.KHz44;
-        }
-	convertFile(musicFile, targetFile, khz, isReduceToMono, isDownSamplingActive);
+	convertFile(musicFile, targetFile, getKHzFromSettings(), AmusePreferences.getBoolean(KeysBooleanValue.REDUCE_TO_MONO),
+		AmusePreferences.getBoolean(KeysBooleanValue.USE_DOWNSAMPLING));
     }
 
     /**
      * This method is used primarily by <class>ExtractorNodeScheduler</class> to prepare the feature extraction of the current music file.
      * The given file will be converted to wave, downsampled and split according to the settings stored in <class>AmusePreferences</class>.
+     * The conversion is done in a single pass: each split part is written directly from the decoded stream into its
+     * folder, so that neither the complete wave file nor temporary copies of the parts are written.
      *
      * @param targetDir The parent folder to place the processed music file into.
      * @param musicFile The music file to process.
@@ -169,45 +105,31 @@ public class AudioFileConversion {
         }
         boolean isSplittingEnabled = AmusePreferences.getBoolean(KeysBooleanValue.SPLIT_WAVE);
         int splitSize = AmusePreferences.getInt(KeysIntValue.SPLIT_SIZE_IN_KB);
-        File wavFile = new File(targetDir.getAbsolutePath() + File.separator +
-                musicFile.getName().substring(0, musicFile.getName().lastIndexOf('.')) + ".wav");
-        File targetFile = new File(targetDir.getAbsolutePath() + File.separator + "1" + File.separator + wavFile.getName());
+        final String targetPath = targetDir.getAbsolutePath();
+        final String wavFileName = musicFile.getName().substring(0, musicFile.getName().lastIndexOf('.')) + ".wav";
 
-        // Create targetDir if necessary
-        if (!new File(targetDir.getAbsolutePath() + File.separator + "1").exists()) {
-            new File(targetDir.getAbsolutePath() + File.separator + "1").mkdirs();
-        }
+        AudioInputStream stream = null;
         try {
-            convertWithSettings(musicFile, targetFile);
-        } catch (IOException e) {
-            throw new NodeException(e.getMessage());
-        }
-        // Again wavFile is now the current file to process.
-        wavFile = targetFile;
-
-        // ---------------------------------------------------------------------
-        // IV.II: Try splitting wave file and copy into according directories.
-        // ---------------------------------------------------------------------
-        if (isSplittingEnabled) {
-            int index = 1;
-            int splitFileCount = 1;
-
-            try {
-                splitFileCount = splitWaveFile(wavFile, splitSize);
-            } catch (IOException ex) {
-                AmuseLogger.write(AudioFileConversion.class.getName(), Level.ERROR, "Unable to split " + wavFile.getName() + ": " + ex.getMessage());
-            }
+            stream = openConvertedStream(musicFile, getKHzFromSettings(), AmusePreferences.getBoolean(KeysBooleanValue.REDUCE_TO_MONO),
+                AmusePreferences.getBoolean(KeysBooleanValue.USE_DOWNSAMPLING));
 
-            while (index <= splitFileCount) {
-                // Create folders if necessary:
-                if (!new File(targetDir.getAbsolutePath() + File.separator + index).exists()) { // Create targetDir if necessary.
-                    new File(targetDir.getAbsolutePath() + File.separator + index).mkdirs();
+            // The parts are written to the folders 1, 2, ... of the target directory
+            new WavePartWriter() {
+                File getPartFile(int part) {
+                    File partDir = new File(targetPath + File.separator + part);
+                    if (!partDir.exists()) {
+                        partDir.mkdirs();
+                    }
+                    return new File(partDir, wavFileName);
                 }
-                File src = new File(wavFile.getAbsolutePath() + "." + index);
-                File dest = new File(targetDir.getAbsolutePath() + File.separator + index + File.separator + wavFile.getName());
-                fileCopy(src, dest);
-                src.delete();
-                index++;
+            }.write(stream, isSplittingEnabled ? 1024L * splitSize : 0);
+        } catch (IOException e) {
+            throw new NodeException(e.getMessage());
+        } finally {
+            if (stream != null) {
+                try {
+                    stream.close();
+                } catch (IOException e) {}
             }
         }
     }
@@ -222,73 +144,24 @@ public class AudioFileConversion {
      * @throws java.io.IOException
      */
     public static int splitWaveFile(File waveFile, int splitSize) throws IOException {
-        int part = 1;
         AudioInputStream ais = null;
-        FileInputStream tmpFis = null;
-        BufferedInputStream tmpBis = null;
-        File tempOutputFile = null;
-        FileOutputStream tmpOutputStream = null;
-        
-        if (waveFile.length() < 1024 * splitSize) {
-        	
-        	// Also when the file is not splitted, processFile() expects that file ends with ".1"
-        	// (see the line with "while (index <= splitFileCount) {") 
-        	fileCopy(waveFile, getNextSplitFile(waveFile, part));
-        	return 1;
-        }
+        final File inputFile = waveFile;
         try {
-            tempOutputFile = new File(waveFile.getParentFile().getAbsolutePath() + File.separator + ".tmp_" + waveFile.getName());
-            tmpOutputStream = new FileOutputStream(tempOutputFile);
-            tmpFis = new FileInputStream(waveFile);
-            tmpBis = new BufferedInputStream(tmpFis);
-            ais = AudioSystem.getAudioInputStream(tmpBis);
-            // Size to split at in Byte.
-            int maxSize = 1024 * splitSize;
-            File currentOutputFile = getNextSplitFile(waveFile, part);
-            currentOutputFile.createNewFile();
-            AudioFormat format = ais.getFormat();
-            byte[] buffer = new byte[1024];
-            int bytesWritten = 0;
-            while (ais.read(buffer) > -1) {
-                if (bytesWritten > maxSize) {
-                    AudioInputStream tais = new AudioInputStream(new FileInputStream(tempOutputFile), format, tempOutputFile.length() / format.getFrameSize());
-                    AudioSystem.write(tais, Type.WAVE, currentOutputFile);
-                    tmpOutputStream.close();
-                    tempOutputFile.delete();
-                    tempOutputFile.createNewFile();
-                    tmpOutputStream = new FileOutputStream(tempOutputFile);
-                    part++;
-                    currentOutputFile = getNextSplitFile(waveFile, part);
-                    currentOutputFile.createNewFile();
-                    bytesWritten = 0;
+            ais = AudioSystem.getAudioInputStream(new BufferedInputStream(new FileInputStream(waveFile), BUFFER_SIZE));
+
+            // Also when the file is not splitted, the only part ends with ".1"
+            return new WavePartWriter() {
+                File getPartFile(int part) {
+                    return getNextSplitFile(inputFile, part);
                 }
-                tmpOutputStream.write(buffer);
-                bytesWritten += 1024;
-            }
-            tmpOutputStream.close();
-            AudioInputStream tais = new AudioInputStream(new FileInputStream(tempOutputFile), format, tempOutputFile.length() / format.getFrameSize());
-            AudioSystem.write(tais, Type.WAVE, currentOutputFile);
-            tais.close();
+            }.write(ais, 1024L * splitSize);
         } catch (UnsupportedAudioFileException ex) {
             throw new IOException(ex);
         } finally {
             if (ais != null) {
                 ais.close();
             }
-            if (tmpBis != null) {
-                tmpBis.close();
-            }
-            if (tmpFis != null) {
-                tmpFis.close();
-            }
-            if (tmpOutputStream != null) {
-                tmpOutputStream.close();
-            }
-            if (tempOutputFile.exists()) {
-                tempOutputFile.delete();
-            }
         }
-        return part;
     }
 
     /**
@@ -307,49 +180,197 @@ public class AudioFileConversion {
         }
     }
 
-    private static void deleteConvertedFile(File wavFile, boolean original) {
-        if (!original) {
-            boolean success = wavFile.delete();
-            if (!success) {
-		wavFile.deleteOnExit();
+    /**
+     * Opens the music file and returns a stream with the PCM data in the target format. The stream
+     * decodes, down-samples and mixes the audio data while it is read.
+     */
+    private static AudioInputStream openConvertedStream(File musicFile, KHz khz, boolean isReduceToMono, boolean isDownSamplingActive) throws IOException {
+	int targetKHZ;
+        if (khz == KHz.KHz44) {
+            targetKHZ = 44100;
+        } else if (khz == KHz.KHz22) {
+            targetKHZ = 22050;
+        } else if (khz == KHz.KHz11) {
+            targetKHZ = 11025;
+        } else {
+            targetKHZ = 44100;
+        }
+        AudioInputStream stream = openPcmStream(musicFile);
+        try {
+            AudioFormat format = stream.getFormat();
+            AmuseLogger.write(AudioFileConversion.class.getName(), Level.DEBUG, "Starting: "+musicFile.getName() + " "+ (int)format.getFrameRate()+"kHz, "+format.getChannels());
+            if (!isDownSamplingActive) {
+		targetKHZ = (int) format.getFrameRate();
+	    }
+            if (!isReduceToMono && format.getChannels() == 1) {
+		AmuseLogger.write(AudioFileConversion.class.getName(), Level.WARN, "Target is stereo, but this file is mono already: " + musicFile.getName());
 	    }
+            if (isDownSamplingActive && targetKHZ > format.getFrameRate()) {
+		AmuseLogger.write(AudioFileConversion.class.getName(), Level.WARN, "Target is " + targetKHZ + "kHz, but this file is at " + (int) format.getFrameRate() + "kHz already: " + musicFile.getName());
+	    }
+            float hz = format.getSampleRate();
+            while (hz > targetKHZ) {
+            hz = hz / 2;
+            }
+            stream = SampleRateConverter.convertStream(stream, hz, isReduceToMono);
+            format = stream.getFormat();
+            AmuseLogger.write(AudioFileConversion.class.getName(), Level.DEBUG, "Result: "+musicFile.getName() + " "+ (int)format.getFrameRate()+"kHz, "+format.getChannels());
+            if (isDownSamplingActive && format.getFrameRate() != 44100f && format.getFrameRate() != 22050f && format.getFrameRate() != 11025f) {
+                AmuseLogger.write(AudioFileConversion.class.getName(), Level.WARN, "This file has no standard frame rate: \"" + musicFile + "\"");
+            }
+            return stream;
+        } catch (IllegalArgumentException ex) {
+            stream.close();
+            AmuseLogger.write(AudioFileConversion.class.getName(), Level.ERROR, "Unable to perform down-sampling: " + ex.getMessage());
+            throw new IOException("Unable to perform down-sampling of " + musicFile.getName() + ": " + ex.getMessage());
         }
     }
 
-    private static void fileCopy(File srcFile, File destFile) {
-    	FileInputStream srcChannelFIS = null;
-    	FileOutputStream dstChannelFOS = null;
+    /**
+     * Opens a wave file directly or decodes other files (mp3) with the javazoom library
+     */
+    private static AudioInputStream openPcmStream(File musicFile) throws IOException {
+        AudioFileFormat audioFileFormat = null;
+        try {
+            audioFileFormat = AudioSystem.getAudioFileFormat(musicFile);
+        } catch (UnsupportedAudioFileException ex) {
+            // If no wave file is given, this exception is generated. However the mp3 file can be decoded!
+        } catch (IOException ex) {
+            throw new IOException("Error accessing file to process: " + ex.getMessage());
+        }
+        InputStream in = new BufferedInputStream(new FileInputStream(musicFile), BUFFER_SIZE);
         try {
-        	// System.out.println("Trying to copy " + srcFile.getName());
-            // Create channel on the source
-        	srcChannelFIS = new FileInputStream(srcFile);
-            FileChannel srcChannel = srcChannelFIS.getChannel();
+            if (audioFileFormat != null && audioFileFormat.getType() == Type.WAVE) {
+            return AudioSystem.getAudioInputStream(in);
+            }
+            AmuseLogger.write(AudioFileConversion.class.getName(), Level.INFO, "Decoding " + musicFile.getName() + ".");
+            return Mp3DecoderInputStream.getAudioInputStream(in);
+        } catch (UnsupportedAudioFileException ex) {
+            in.close();
+            AmuseLogger.write(AudioFileConversion.class.getName(), Level.ERROR, "Unsupported Audio-File: \"" + ex.getLocalizedMessage() + "\"");
+            throw new IOException(ex.getMessage());
+        } catch (IOException ex) {
+            in.close();
+            throw new IOException("Error converting audio file " + musicFile.getName() + ": " + ex.getMessage());
+        }
+    }
+
+    private static KHz getKHzFromSettings() {
+        int targetKHZ = AmusePreferences.getInt(KeysIntValue.DOWNSAMPLING_TARGET_SIZE_IN_HZ);
+        if (targetKHZ == 1) {
+            return KHz.KHz22;
+        } else if (targetKHZ == 2) {
+            return KHz.KHz11;
+        }
+        return KHz.KHz44;
+    }
 
-            // Create channel on the destination
-            dstChannelFOS = new FileOutputStream(destFile);
-            FileChannel dstChannel = dstChannelFOS.getChannel();
+    /**
+     * Writes an audio stream into one or more wave files in a single pass. The header of each
+     * file is completed after its data is written, so that the length of the stream does not
+     * have to be known in advance.
+     */
+    private static abstract class WavePartWriter {
 
-            // Copy file contents from source to destination
-            dstChannel.transferFrom(srcChannel, 0, srcChannel.size());
+	/**
+	 * @param part Number of the part starting with 1
+	 * @return The file to write the part to
+	 */
+	abstract File getPartFile(int part);
 
-            // Close the channels
-            srcChannel.close();
-            dstChannel.close();
-        } catch (IOException e) {
-            AmuseLogger.write(AudioFileConversion.class.getName(), Level.ERROR, "Unable to copy " + srcFile.getAbsolutePath() + " to " + destFile.getAbsolutePath() + ".");
-        }
-        finally{
-        	if(srcChannelFIS != null){
-        		try {
-					srcChannelFIS.close();
-				} catch (IOException e) {}
-        	}
-        	if(dstChannelFOS != null){
-        		try {
-        			dstChannelFOS.close();
-				} catch (IOException e) {}
-        	}
-        }
+	/**
+	 * @param stream The stream to write
+	 * @param maxPartSize Maximum size of the audio data of each part in bytes; 0 writes a single file
+	 * @return The number of written parts
+	 */
+	int write(AudioInputStream stream, long maxPartSize) throws IOException {
+	    stream = toWaveEncoding(stream);
+	    AudioFormat format = stream.getFormat();
+	    int frameSize = format.getFrameSize();
+	    long partSize = Long.MAX_VALUE;
+	    if (maxPartSize > 0) {
+		partSize = Math.max(frameSize, maxPartSize / frameSize * frameSize);
+	    }
+	    byte[] buffer = new byte[BUFFER_SIZE];
+	    int part = 0;
+	    RandomAccessFile out = null;
+	    long partBytes = 0;
+	    try {
+		int n;
+		while ((n = stream.read(buffer)) != -1) {
+		    int offset = 0;
+		    while (offset < n) {
+			if (out == null || partBytes == partSize) {
+			    finishPart(out, format, partBytes);
+			    out = startPart(++part);
+			    partBytes = 0;
+			}
+			int length = (int) Math.min(n - offset, partSize - partBytes);
+			out.write(buffer, offset, length);
+			offset += length;
+			partBytes += length;
+		    }
+		}
+
+		// Empty streams are written as a single empty wave file
+		if (out == null) {
+		    out = startPart(++part);
+		}
+		finishPart(out, format, partBytes);
+		out = null;
+	    } finally {
+		if (out != null) {
+		    out.close();
+		}
+	    }
+	    return part;
+	}
+
+	private RandomAccessFile startPart(int part) throws IOException {
+	    RandomAccessFile out = new RandomAccessFile(getPartFile(part), "rw");
+	    out.setLength(0);
+	    out.write(new byte[WAVE_HEADER_SIZE]);
+	    return out;
+	}
+
+	private void finishPart(RandomAccessFile out, AudioFormat format, long dataSize) throws IOException {
+	    if (out == null) {
+		return;
+	    }
+	    try {
+		ByteBuffer header = ByteBuffer.allocate(WAVE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.put("RIFF".getBytes("US-ASCII")).putInt((int) (dataSize + WAVE_HEADER_SIZE - 8));
+		header.put("WAVE".getBytes("US-ASCII"));
+		header.put("fmt ".getBytes("US-ASCII")).putInt(16);
+		header.putShort((short) 1).putShort((short) format.getChannels());
+		header.putInt((int) format.getSampleRate());
+		header.putInt((int) format.getSampleRate() * format.getFrameSize());
+		header.putShort((short) format.getFrameSize()).putShort((short) format.getSampleSizeInBits());
+		header.put("data".getBytes("US-ASCII")).putInt((int) dataSize);
+		out.seek(0);
+		out.write(header.array());
+	    } finally {
+		out.close();
+	    }
+	}
+
+	/**
+	 * Wave files store samples with more than 8 bits as signed little-endian and 8 bit samples as unsigned values
+	 */
+	private static AudioInputStream toWaveEncoding(AudioInputStream stream) throws IOException {
+	    AudioFormat format = stream.getFormat();
+	    boolean isSigned = format.getEncoding().equals(AudioFormat.Encoding.PCM_SIGNED);
+	    if (format.getSampleSizeInBits() > 8 ? (isSigned && !format.isBigEndian()) : !isSigned) {
+		return stream;
+	    }
+	    AudioFormat targetFormat = new AudioFormat(format.getSampleRate(), format.getSampleSizeInBits(), format.getChannels(),
+		    format.getSampleSizeInBits() > 8, false);
+	    try {
+		return AudioSystem.getAudioInputStream(targetFormat, stream);
+	    } catch (IllegalArgumentException ex) {
+		throw new IOException("Unable to write " + format + " as wave file: " + ex.getMessage());
+	    }
+	}
     }
 
     /**
@@ -393,16 +414,4 @@ public class AudioFileConversion {
         destFolder = new File("test" + File.separator + "mono11" + File.separator);
         processFile(destFolder, musicFile);
     }
-
-    private static void sampleToTargetSize(File file, int targetKHZ, boolean isReduceToMono) throws UnsupportedAudioFileException, IOException {
-        AudioFormat format = AudioSystem.getAudioFileFormat(file).getFormat();
-        File tmpFile = new File(file.getParent() + File.separator + "tmp_" + file.getName());
-        fileCopy(file, tmpFile);
-        float hz = format.getSampleRate();
-        while (hz > targetKHZ) {
-		    hz = hz / 2;
-		}
-	        SampleRateConverter.changeFormat(tmpFile, file, hz, isReduceToMono);
-	        tmpFile.delete();
-	    }
 }
@@ -0,0 +1,161 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.util.audio;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+import javazoom.jl.decoder.Bitstream;
+import javazoom.jl.decoder.Decoder;
+import javazoom.jl.decoder.Header;
+import javazoom.jl.decoder.JavaLayerException;
+import javazoom.jl.decoder.SampleBuffer;
+
+/**
+ * Decodes an mp3 stream frame by frame to 16 bit signed little-endian PCM data using the
+ * javazoom library, so that the decoded audio can be processed further without writing
+ * an intermediate wave file.
+ *
+ * @version $Id$
+ */
+public class Mp3DecoderInputStream extends InputStream {
+
+	private final Bitstream bitstream;
+	private final Decoder decoder = new Decoder();
+	private final AudioFormat format;
+
+	/** PCM data of the current frame */
+	private byte[] frameData = new byte[0];
+	private int position = 0;
+	private int length = 0;
+	private boolean isFinished = false;
+
+	/**
+	 * Decodes the first frame to determine the audio format
+	 * @param in Stream with mp3 data
+	 * @throws IOException If the stream does not contain mp3 frames
+	 */
+	public Mp3DecoderInputStream(InputStream in) throws IOException {
+		this.bitstream = new Bitstream(in);
+		if(!decodeNextFrame()) {
+			throw new IOException("No mp3 frames found");
+		}
+		this.format = new AudioFormat(decoder.getOutputFrequency(), 16, decoder.getOutputChannels(), true, false);
+	}
+
+	/**
+	 * @param in Stream with mp3 data
+	 * @return Audio stream with the decoded PCM data; its length is not specified
+	 * @throws IOException If the stream does not contain mp3 frames
+	 */
+	public static AudioInputStream getAudioInputStream(InputStream in) throws IOException {
+		Mp3DecoderInputStream decoderStream = new Mp3DecoderInputStream(in);
+		return new AudioInputStream(decoderStream, decoderStream.getFormat(), AudioSystem.NOT_SPECIFIED);
+	}
+
+	/**
+	 * @return Format of the decoded PCM data
+	 */
+	public AudioFormat getFormat() {
+		return format;
+	}
+
+	public int read() throws IOException {
+		while(position == length) {
+			if(!decodeNextFrame()) {
+				return -1;
+			}
+		}
+		return frameData[position++] & 0xff;
+	}
+
+	public int read(byte[] b, int off, int len) throws IOException {
+		if(len == 0) {
+			return 0;
+		}
+		int bytesRead = 0;
+		while(bytesRead < len) {
+			if(position == length && !decodeNextFrame()) {
+				break;
+			}
+			int n = Math.min(len - bytesRead, length - position);
+			System.arraycopy(frameData, position, b, off + bytesRead, n);
+			position += n;
+			bytesRead += n;
+		}
+		return bytesRead == 0 ? -1 : bytesRead;
+	}
+
+	public int available() {
+		return length - position;
+	}
+
+	public void close() throws IOException {
+		isFinished = true;
+		try {
+			bitstream.close();
+		} catch(JavaLayerException e) {
+			throw new IOException("Could not close mp3 stream: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Decodes the next frame into the frame data
+	 * @return False if the end of the stream is reached
+	 */
+	private boolean decodeNextFrame() throws IOException {
+		if(isFinished) {
+			return false;
+		}
+		try {
+			Header header = bitstream.readFrame();
+			if(header == null) {
+				isFinished = true;
+				return false;
+			}
+			SampleBuffer output = (SampleBuffer)decoder.decodeFrame(header, bitstream);
+			bitstream.closeFrame();
+
+			// The samples of all channels are interleaved
+			short[] samples = output.getBuffer();
+			int numberOfSamples = output.getBufferLength();
+			if(frameData.length < numberOfSamples * 2) {
+				frameData = new byte[numberOfSamples * 2];
+			}
+			for(int i=0;i<numberOfSamples;i++) {
+				frameData[2 * i] = (byte)samples[i];
+				frameData[2 * i + 1] = (byte)(samples[i] >> 8);
+			}
+			position = 0;
+			length = numberOfSamples * 2;
+			return true;
+		} catch(JavaLayerException e) {
+			throw new IOException("Could not decode mp3 frame: " + e.getMessage());
+		}
+	}
+}
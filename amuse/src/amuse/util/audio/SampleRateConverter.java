@@ -156,6 +156,44 @@ public class SampleRateConverter {
         System.out.println(strMessage);
     }
 
+    /**
+     * Changes the sample rate and the number of channels of an audio stream without intermediate
+     * files. The conversion takes place while the returned stream is read.
+     *
+     * @param sourceStream The stream to convert; non PCM data is decoded to 16 bit PCM first.
+     * @param targetSampleRate The sample rate of the returned stream.
+     * @param toMono If true, all channels are mixed down to a single channel.
+     * @return The converted stream or the source stream if no conversion is required.
+     * @throws IllegalArgumentException If no conversion from the source format is available.
+     */
+    public static AudioInputStream convertStream(AudioInputStream sourceStream, float targetSampleRate, boolean toMono) {
+        AudioInputStream targetStream = sourceStream;
+        AudioFormat sourceFormat = targetStream.getFormat();
+        if (!isPcm(sourceFormat.getEncoding())) {
+            targetStream = AudioSystem.getAudioInputStream(new AudioFormat(sourceFormat.getSampleRate(), 16,
+                    sourceFormat.getChannels(), true, false), targetStream);
+            sourceFormat = targetStream.getFormat();
+        }
+        if (sourceFormat.getSampleRate() != targetSampleRate) {
+            targetStream = AudioSystem.getAudioInputStream(createFormat(sourceFormat, targetSampleRate, sourceFormat.getChannels()), targetStream);
+        }
+        if (toMono && sourceFormat.getChannels() > 1) {
+            targetStream = AudioSystem.getAudioInputStream(createFormat(sourceFormat, targetSampleRate, 1), targetStream);
+        }
+        return targetStream;
+    }
+
+    private static AudioFormat createFormat(AudioFormat sourceFormat, float sampleRate, int channels) {
+        return new AudioFormat(
+                sourceFormat.getEncoding(),
+                sampleRate,
+                sourceFormat.getSampleSizeInBits(),
+                channels,
+                (sourceFormat.getSampleSizeInBits() + 7) / 8 * channels,
+                sampleRate,
+                sourceFormat.isBigEndian());
+    }
+
     public static void changeFormat(File src, File target, float targetSampleRate, boolean toMono) throws UnsupportedAudioFileException, IOException {
         if (toMono) {
             File tmpFile = new File(target.getParent()+ File.separator + "monotmp_" + target.getName());
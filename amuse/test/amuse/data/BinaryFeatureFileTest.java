@@ -0,0 +1,131 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+
+package amuse.data;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests saving and loading of binary feature files
+ */
+public class BinaryFeatureFileTest {
+
+    private static final File testFolder = new File("test/binaryfeatures/song");
+    private static final File arffFile = new File(testFolder, "song_7.arff");
+
+    public BinaryFeatureFileTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        testFolder.mkdirs();
+        FileWriter writer = new FileWriter(arffFile);
+        writer.write("@RELATION 'Music feature'\n");
+        writer.write("%columns=3\n%sample_rate=22050\n%window_size=512\n%step_size=256\n\n");
+        writer.write("@ATTRIBUTE 'Test feature' NUMERIC\n");
+        writer.write("@ATTRIBUTE 'Test feature' NUMERIC\n");
+        writer.write("@ATTRIBUTE WindowNumber NUMERIC\n\n@DATA\n");
+        writer.write("0.5,1.5,1\nNaN,2.5,2\n-3.25,1e-3,3\n");
+        writer.close();
+    }
+
+    @AfterClass
+    public static void tearDownClass() throws Exception {
+        new File(BinaryFeatureFile.getBinaryFileName(arffFile.getPath())).delete();
+        arffFile.delete();
+        testFolder.delete();
+        testFolder.getParentFile().delete();
+    }
+
+    @Test
+    public void testConvertAndLoad() throws Exception {
+        System.out.println("convert and load");
+        assertEquals(1, BinaryFeatureFile.convertFeatureDatabase(testFolder.getParentFile(), false));
+        assertTrue(BinaryFeatureFile.isAvailableFor(arffFile.getPath()));
+
+        Feature arffFeature = ArffFeatureLoader.loadFeatureFromArff(arffFile.getPath(), 7);
+        Feature binaryFeature = BinaryFeatureFile.load(BinaryFeatureFile.getBinaryFileName(arffFile.getPath()), -1);
+        assertEquals(7, binaryFeature.getId());
+        assertEquals(arffFeature.getDescription(), binaryFeature.getDescription());
+        assertEquals(512, binaryFeature.getSourceFrameSize());
+        assertEquals(256, binaryFeature.getSourceStepSize());
+        assertEquals(22050, binaryFeature.getSampleRate());
+        assertEquals(2, binaryFeature.getDimension());
+        assertEquals(3, binaryFeature.getNumberOfWindows());
+        for(int i=0;i<3;i++) {
+            assertEquals(arffFeature.getWindow(i), binaryFeature.getWindow(i), 0d);
+            for(int d=0;d<2;d++) {
+                assertEquals(arffFeature.getValue(i, d), binaryFeature.getValue(i, d), 0d);
+            }
+        }
+        assertTrue(Double.isNaN(binaryFeature.getValue(1, 0)));
+
+        // The loader should prefer the binary file
+        assertTrue(ArffFeatureLoader.loadFeature(arffFile.getPath(), 7).hasPrimitiveStorage());
+    }
+
+    @Test
+    public void testSinglePrecision() throws Exception {
+        System.out.println("single precision");
+        Feature feature = ArffFeatureLoader.loadFeatureFromArff(arffFile.getPath(), 7);
+        File floatFile = new File(testFolder, "float" + BinaryFeatureFile.FILE_EXTENSION);
+        BinaryFeatureFile.save(feature, floatFile.getPath(), true);
+        Feature loaded = BinaryFeatureFile.load(floatFile.getPath(), 3);
+        floatFile.delete();
+        assertEquals(3, loaded.getId());
+        assertEquals(-3.25d, loaded.getValue(2, 0), 0d);
+        assertEquals(1e-3d, loaded.getValue(2, 1), 1e-9d);
+        assertEquals(3d, loaded.getWindow(2), 0d);
+    }
+
+    @Test
+    public void testInvalidBytesPerValue() throws Exception {
+        System.out.println("invalid bytes per value");
+        Feature feature = ArffFeatureLoader.loadFeatureFromArff(arffFile.getPath(), 7);
+        File invalidFile = new File(testFolder, "invalid" + BinaryFeatureFile.FILE_EXTENSION);
+        BinaryFeatureFile.save(feature, invalidFile.getPath(), false);
+
+        // Bytes per value follow the magic number and the format version (little-endian)
+        RandomAccessFile file = new RandomAccessFile(invalidFile, "rw");
+        file.seek(8);
+        file.write(new byte[] {2, 0, 0, 0});
+        file.close();
+        try {
+            BinaryFeatureFile.load(invalidFile.getPath(), -1);
+            fail("Loading a file with 2 bytes per value should fail");
+        } catch(IOException e) {
+            assertTrue(e.getMessage().contains("2 bytes per value"));
+        } finally {
+            // The file is not locked after loading
+            assertTrue(invalidFile.delete());
+        }
+    }
+}
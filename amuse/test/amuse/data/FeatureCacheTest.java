@@ -0,0 +1,104 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+
+package amuse.data;
+
+import java.util.ArrayList;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the cache of loaded features
+ */
+public class FeatureCacheTest {
+
+    public FeatureCacheTest() {
+    }
+
+    private static Feature createFeature(int id, int numberOfWindows) {
+        ArrayList<Integer> ids = new ArrayList<Integer>(1);
+        ids.add(id);
+        double[] values = new double[numberOfWindows];
+        double[] windows = new double[numberOfWindows];
+        for(int i=0;i<numberOfWindows;i++) {
+            values[i] = id * i;
+            windows[i] = i + 1;
+        }
+        Feature feature = new Feature(ids, "Feature " + id, values, windows, 1);
+        feature.setSourceFrameSize(512);
+        return feature;
+    }
+
+    @Test
+    public void testCopies() {
+        System.out.println("copies");
+        FeatureCache instance = new FeatureCache(1024 * 1024);
+        Feature feature = createFeature(2, 10);
+        instance.put("a", feature);
+        assertNull(instance.get("b"));
+
+        // Changes of the stored or returned features must not change the cached feature
+        feature.getValues().get(3)[0] = -1d;
+        Feature cached = instance.get("a");
+        assertEquals(6d, cached.getValue(3, 0), 0d);
+        assertEquals(512, cached.getSourceFrameSize());
+        assertEquals("Feature 2", cached.getHistory().get(0));
+        cached.getValues().get(3)[0] = -1d;
+        assertEquals(6d, instance.get("a").getValue(3, 0), 0d);
+
+        assertEquals(2L, instance.getHits());
+        assertEquals(1L, instance.getMisses());
+    }
+
+    @Test
+    public void testEviction() {
+        System.out.println("eviction");
+        long featureSize = FeatureCache.estimateSize(createFeature(1, 100));
+        FeatureCache instance = new FeatureCache(2 * featureSize);
+        instance.put("1", createFeature(1, 100));
+        instance.put("2", createFeature(2, 100));
+        assertNotNull(instance.get("1"));
+
+        // The least recently used feature is removed
+        instance.put("3", createFeature(3, 100));
+        assertEquals(2, instance.getNumberOfEntries());
+        assertNull(instance.get("2"));
+        assertNotNull(instance.get("1"));
+        assertNotNull(instance.get("3"));
+        assertEquals(1L, instance.getEvictions());
+        assertEquals(2 * featureSize, instance.getSizeInBytes());
+
+        // Features larger than the cache are not stored
+        instance.put("4", createFeature(4, 1000));
+        assertNull(instance.get("4"));
+
+        instance.clear();
+        assertEquals(0L, instance.getSizeInBytes());
+        assertNull(instance.get("1"));
+
+        FeatureCache disabled = new FeatureCache(0);
+        disabled.put("1", createFeature(1, 0));
+        assertNull(disabled.get("1"));
+    }
+}
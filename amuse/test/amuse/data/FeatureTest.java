@@ -0,0 +1,194 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+
+package amuse.data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the storage modes of Feature
+ */
+public class FeatureTest {
+
+    public FeatureTest() {
+    }
+
+    private static Feature createPrimitiveFeature() {
+        ArrayList<Integer> ids = new ArrayList<Integer>(1);
+        ids.add(1);
+        double[] values = {1d, 2d, 3d, 4d, 5d, Double.NaN};
+        double[] windows = {1d, 2d, 3d};
+        return new Feature(ids, "Test feature", values, windows, 2);
+    }
+
+    @Test
+    public void testPrimitiveAccessors() {
+        System.out.println("primitive accessors");
+        Feature instance = createPrimitiveFeature();
+        assertTrue(instance.hasPrimitiveStorage());
+        assertEquals(3, instance.getNumberOfWindows());
+        assertEquals(2, instance.getDimension());
+        assertEquals(2d, instance.getWindow(1), 0d);
+        assertEquals(4d, instance.getValue(1, 1), 0d);
+        double[] row = instance.getRow(1, null);
+        assertEquals(3d, row[0], 0d);
+        assertEquals(4d, row[1], 0d);
+        double[] column = instance.getColumn(1, new double[3]);
+        assertEquals(2d, column[0], 0d);
+        assertEquals(4d, column[1], 0d);
+        assertTrue(Double.isNaN(column[2]));
+        assertTrue(instance.hasPrimitiveStorage());
+    }
+
+    @Test
+    public void testListStorageRoundTrip() {
+        System.out.println("list storage round trip");
+        Feature instance = createPrimitiveFeature();
+        ArrayList<Double[]> values = instance.getValues();
+        assertFalse(instance.hasPrimitiveStorage());
+        assertEquals(3, values.size());
+        assertEquals(new Double(5d), values.get(2)[0]);
+        assertEquals(new Double(3d), instance.getWindows().get(2));
+
+        // Changes of the list storage must be visible after the conversion back
+        values.get(0)[1] = 7d;
+        instance.convertToPrimitiveStorage();
+        assertTrue(instance.hasPrimitiveStorage());
+        assertEquals(7d, instance.getValue(0, 1), 0d);
+        double[] windowAxis = instance.getWindowAxis(null);
+        assertEquals(3, windowAxis.length);
+        assertEquals(3d, windowAxis[2], 0d);
+    }
+
+    @Test
+    public void testWindowIndex() {
+        System.out.println("window index");
+        Feature regular = createPrimitiveFeature();
+        assertEquals(2, regular.getWindowIndex(3d));
+        assertEquals(-1, regular.getWindowIndex(2.5d));
+        assertEquals(-1, regular.getWindowIndex(4d));
+        assertEquals(1, regular.getFirstWindowIndexFrom(1.5d));
+        assertEquals(3, regular.getFirstWindowIndexFrom(10d));
+
+        // Irregular sorted windows (e.g. event features)
+        ArrayList<Integer> ids = new ArrayList<Integer>(1);
+        ids.add(2);
+        Feature irregular = new Feature(ids, "Irregular", new double[] {1d, 2d, 3d, 4d}, new double[] {1d, 1.5d, 4d, 10d}, 1);
+        assertEquals(2, irregular.getWindowIndex(4d));
+        assertEquals(3, irregular.getFirstWindowIndexFrom(5d));
+        assertEquals(-1, irregular.getWindowIndex(5d));
+        List<Double[]> range = irregular.getValuesFromWindowRange(1.5d, 10d);
+        assertEquals(2, range.size());
+        assertEquals(new Double(2d), range.get(0)[0]);
+
+        // Unsorted windows
+        Feature unsorted = new Feature(ids, "Unsorted", new double[] {1d, 2d, 3d}, new double[] {5d, 1d, 3d}, 1);
+        assertEquals(1, unsorted.getWindowIndex(1d));
+        assertEquals(new Double(3d), unsorted.getValuesFromWindow(3d)[0]);
+        assertEquals(2, unsorted.getValuesFromWindowRange(3d, 6d).size());
+    }
+
+    @Test
+    public void testWindowIndexAfterChanges() {
+        System.out.println("window index after changes");
+        Feature instance = createPrimitiveFeature();
+        assertEquals(2, instance.getWindowIndex(3d));
+
+        // Changes through the returned lists must be recognized
+        instance.getValues().add(new Double[] {8d, 9d});
+        instance.getWindows().add(7d);
+        assertEquals(3, instance.getWindowIndex(7d));
+        assertEquals(new Double(9d), instance.getValuesFromWindow(7d)[1]);
+
+        instance.retainWindows(new boolean[] {false, true, false, true});
+        assertEquals(2, instance.getNumberOfWindows());
+        assertEquals(-1, instance.getWindowIndex(3d));
+        assertEquals(1, instance.getWindowIndex(7d));
+        assertEquals(new Double(3d), instance.getValuesFromWindow(2d)[0]);
+    }
+
+    @Test
+    public void testWindowIndexAfterChangeOfMiddleWindow() {
+        System.out.println("window index after change of middle window");
+        Feature instance = createPrimitiveFeature();
+        instance.addWindow(4d, new Double[] {8d, 9d});
+        assertEquals(1, instance.getWindowIndex(2d));
+
+        // Neither the number of windows nor the first and last window change
+        instance.getWindows().set(1, 2.5d);
+        assertEquals(-1, instance.getWindowIndex(2d));
+        assertEquals(1, instance.getWindowIndex(2.5d));
+        assertEquals(new Double(4d), instance.getValuesFromWindow(2.5d)[1]);
+
+        // Changes through iterators and sublists are recognized as well
+        ListIterator<Double> iterator = instance.getWindows().listIterator(2);
+        iterator.next();
+        iterator.set(3.5d);
+        assertEquals(2, instance.getWindowIndex(3.5d));
+        instance.getWindows().subList(1, 3).set(0, 2d);
+        assertEquals(1, instance.getWindowIndex(2d));
+        assertEquals(-1, instance.getWindowIndex(2.5d));
+    }
+
+    @Test
+    public void testRepeatedWindowView() {
+        System.out.println("repeated window view");
+        ArrayList<Integer> ids = new ArrayList<Integer>(1);
+        ids.add(3);
+        Feature source = new Feature(ids, "Large frames", new double[] {10d, 20d, 30d}, new double[] {1d, 2d, 3d}, 1);
+        source.setSourceFrameSize(768);
+        assertTrue(source.hasConsecutiveWindows());
+
+        // Each source frame covers 1.5 small frames
+        Feature view = Feature.createRepeatedWindowView(source, 768, 512, 7);
+        assertTrue(view.isRepeatedWindowView());
+        assertEquals(7, view.getNumberOfWindows());
+        assertEquals(3, view.getNumberOfStoredWindows());
+        assertEquals(768, view.getSourceFrameSize());
+        double[] expected = {10d, 10d, 20d, 30d, 30d, Double.NaN, Double.NaN};
+        double[] column = view.getColumn(0, null);
+        for(int i=0;i<expected.length;i++) {
+            assertEquals(expected[i], view.getValue(i, 0), 0d);
+            assertEquals(expected[i], column[i], 0d);
+            assertEquals(i + 1d, view.getWindow(i), 0d);
+        }
+        assertEquals(4, view.getWindowIndex(5d));
+        assertTrue(view.isRepeatedWindowView());
+
+        // Copies share the view, changes materialize the values
+        Feature copy = view.copy();
+        assertTrue(copy.isRepeatedWindowView());
+        copy.getValues().get(1)[0] = -1d;
+        assertFalse(copy.isRepeatedWindowView());
+        assertEquals(-1d, copy.getValue(1, 0), 0d);
+        assertEquals(20d, copy.getValue(2, 0), 0d);
+        assertTrue(Double.isNaN(copy.getValue(6, 0)));
+        assertEquals(10d, view.getValue(1, 0), 0d);
+        assertEquals(10d, source.getValue(0, 0), 0d);
+    }
+}
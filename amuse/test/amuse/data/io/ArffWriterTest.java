@@ -0,0 +1,134 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.data.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import amuse.data.io.attributes.NumericAttribute;
+import amuse.data.io.attributes.StringAttribute;
+
+/**
+ * Checks that ArffWriter formats numbers like the string concatenation used before
+ */
+public class ArffWriterTest {
+
+    public ArffWriterTest() {
+    }
+
+    @Test
+    public void testDoubleNotation() throws IOException {
+        double[] values = {0d, -0d, 3d, -3d, 0.5d, 9999999d, 1e7d, -12345678d, 1.5e-4d, 1e20d,
+                Double.NaN, Double.POSITIVE_INFINITY, Double.MIN_VALUE, Double.MAX_VALUE};
+        File file = File.createTempFile("ArffWriterTest", ".arff");
+        try {
+            ArffWriter writer = new ArffWriter(file);
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < values.length; i++) {
+                writer.writeValue(values[i]);
+                expected.append(i == 0 ? "" : ",").append(Double.toString(values[i]));
+            }
+            writer.endRow();
+            writer.close();
+            List<String> lines = readLines(file);
+            assertEquals(1, lines.size());
+            assertEquals(expected.toString(), lines.get(0));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testIntegerNotation() throws IOException {
+        long[] values = {0L, 7L, -1L, 1234567890123L, Long.MAX_VALUE, Long.MIN_VALUE};
+        File file = File.createTempFile("ArffWriterTest", ".arff");
+        try {
+            ArffWriter writer = new ArffWriter(file);
+            StringBuilder expected = new StringBuilder();
+            for (int i = 0; i < values.length; i++) {
+                writer.writeValue(values[i]);
+                expected.append(i == 0 ? "" : ",").append(Long.toString(values[i]));
+            }
+            writer.writeValue("'text'");
+            expected.append(",'text'");
+            writer.endRow();
+            writer.close();
+            assertEquals(expected.toString(), readLines(file).get(0));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testDataSetRoundTrip() throws IOException {
+        double[] numbers = {1d, 2.5d, -3d, 1e-5d, 0.1d};
+        String[] names = {"a", "b", "c", "d", "e"};
+        DataSet dataSet = new DataSet("RoundTrip");
+        dataSet.addAttribute(new NumericAttribute("Number", numbers));
+        dataSet.addAttribute(new StringAttribute("Name", names));
+        File file = File.createTempFile("ArffWriterTest", ".arff");
+        try {
+            dataSet.saveToArffFile(file);
+
+            // The data rows are the same as with NumericAttribute.getValueStrAt()
+            List<String> lines = readLines(file);
+            int dataStart = lines.indexOf("@DATA") + 1;
+            NumericAttribute numberAttribute = (NumericAttribute) dataSet.getAttribute("Number");
+            StringAttribute nameAttribute = (StringAttribute) dataSet.getAttribute("Name");
+            for (int i = 0; i < numbers.length; i++) {
+                assertEquals(numberAttribute.getValueStrAt(i) + "," + nameAttribute.getValueStrAt(i), lines.get(dataStart + i));
+            }
+
+            ArffDataSet loaded = new ArffDataSet(file);
+            assertEquals(numbers.length, loaded.getValueCount());
+            for (int i = 0; i < numbers.length; i++) {
+                assertEquals(numbers[i], ((NumericAttribute) loaded.getAttribute("Number")).getDoubleValueAt(i), 0d);
+                assertEquals(names[i], loaded.getAttribute("Name").getValueAt(i));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static List<String> readLines(File file) throws IOException {
+        List<String> lines = new ArrayList<String>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+}
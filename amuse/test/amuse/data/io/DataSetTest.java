@@ -30,6 +30,7 @@ import amuse.data.io.attributes.StringAttribute;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
@@ -263,6 +264,34 @@ public class DataSetTest {
         }
     }
 
+    @Test
+    public void testRandomAccess() throws IOException {
+        System.out.println("random access");
+        File randomAccessFile = new File("test/randomAccess.arff");
+        FileWriter writer = new FileWriter(randomAccessFile);
+        writer.write("@RELATION test\r\n\r\n@ATTRIBUTE a NUMERIC\r\n@ATTRIBUTE b NUMERIC\r\n@DATA\r\n");
+        for (int i = 0; i < 10; i++) {
+            if (i % 3 == 0) {
+                writer.write("% comment\r\n\r\n");
+            }
+            writer.write(i + "," + (i * 10) + "\r\n");
+        }
+        writer.write("  % trailing comment");
+        writer.close();
+        try {
+            ArffDataSet loadedSet = new ArffDataSet(randomAccessFile, 2);
+            assertEquals(10, loadedSet.getValueCount());
+            Attribute b = loadedSet.getAttribute("b");
+            int[] order = {9, 0, 5, 4, 7, 1, 8};
+            for (int i : order) {
+                assertEquals(i * 10d, (Double) b.getValueAt(i), 0d);
+                assertEquals((double) i, (Double) loadedSet.getAttribute(0).getValueAt(i), 0d);
+            }
+        } finally {
+            randomAccessFile.delete();
+        }
+    }
+
     private File[] getArffs(File folder) {
         if (!folder.isDirectory()) {
             return new File[0];
@@ -25,6 +25,7 @@
 package amuse.data.io.attributes;
 
 import amuse.data.io.attributes.NumericAttribute;
+import java.nio.DoubleBuffer;
 import java.util.List;
 import java.util.Vector;
 import org.junit.AfterClass;
@@ -110,4 +111,30 @@ public class NumericAttributeTest {
         result = instance.getValueStrAt(index);
         assertEquals(expResult, result);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPrimitiveValues() {
+        System.out.println("primitive values");
+        NumericAttribute instance = new NumericAttribute(name, 1);
+        instance.addValue(1d);
+        instance.addValue(new Double(2.5d));
+        instance.addValue(Double.NaN);
+        assertEquals(3, instance.getValueCount());
+        assertEquals(new Double(2.5d), instance.getValueAt(1));
+        assertEquals("1", instance.getValueStrAt(0));
+        instance.setValueAt(0, 4d);
+        assertEquals(4d, instance.getDoubleValueAt(0), 0d);
+        DoubleBuffer view = instance.getValueBuffer();
+        assertTrue(view.isReadOnly());
+        assertEquals(3, view.limit());
+        assertTrue(Double.isNaN(view.get(2)));
+
+        // List based Attributes are moved to the primitive storage by the view
+        NumericAttribute listInstance = new NumericAttribute(name, values);
+        assertEquals(2.5d, listInstance.getValueBuffer().get(1), 0d);
+        listInstance.addValue(new Double(5d));
+        assertEquals(5, listInstance.getValueCount());
+        assertEquals(values.size() + 1, listInstance.getValues().size());
+        assertEquals(5d, new NumericAttribute(listInstance).getDoubleValueAt(4), 0d);
+    }
+}
@@ -0,0 +1,122 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.interfaces.nodes;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import amuse.data.Feature;
+import amuse.data.FeatureTable;
+import amuse.data.FileTable;
+import amuse.nodes.extractor.ExtractionConfiguration;
+
+/**
+ * Tests writing and reading of task bundles
+ */
+public class TaskBundleTest {
+
+    private final File bundleFile = new File(System.getProperty("java.io.tmpdir") + File.separator + "amuseTaskBundleTest.ser");
+
+    public TaskBundleTest() {
+    }
+
+    @After
+    public void tearDown() {
+        bundleFile.delete();
+    }
+
+    private ExtractionConfiguration[] createJobs(int numberOfJobs) {
+        List<Feature> features = new ArrayList<Feature>();
+        for (int i = 0; i < 20; i++) {
+            features.add(new Feature(i, "Feature " + i, 1, 1, "WindowedNumeric"));
+        }
+        ExtractionConfiguration[] jobs = new ExtractionConfiguration[numberOfJobs];
+        for (int i = 0; i < numberOfJobs; i++) {
+            List<Integer> ids = new ArrayList<Integer>();
+            ids.add(i);
+            List<String> files = new ArrayList<String>();
+            files.add("/music/" + i + ".mp3");
+
+            // Equal, but not identical feature tables are stored once as well
+            jobs[i] = new ExtractionConfiguration(new FileTable(ids, files), new FeatureTable(features));
+        }
+        return jobs;
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        TaskBundle.write(bundleFile, createJobs(50));
+        long bundleSize = bundleFile.length();
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(bundleFile));
+        out.writeObject(createJobs(50));
+        out.close();
+        assertTrue(bundleSize < bundleFile.length());
+
+        TaskBundle.write(bundleFile, createJobs(50));
+        TaskBundle bundle = new TaskBundle(bundleFile);
+        try {
+            assertEquals(50, bundle.getNumberOfJobs());
+            ExtractionConfiguration job = (ExtractionConfiguration) bundle.getJob(42);
+            assertEquals("/music/42.mp3", job.getMusicFileList().getFileAt(0));
+            assertEquals(20, job.getFeatureTable().getFeatures().size());
+
+            // Each job gets its own feature table
+            assertNotSame(job.getFeatureTable(), ((ExtractionConfiguration) bundle.getJob(41)).getFeatureTable());
+        } finally {
+            bundle.close();
+        }
+    }
+
+    @Test
+    public void testReadSerializedJobs() throws IOException {
+        ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(bundleFile));
+        out.writeObject(createJobs(3));
+        out.close();
+        TaskBundle bundle = new TaskBundle(bundleFile);
+        try {
+            assertEquals(3, bundle.getNumberOfJobs());
+            assertEquals("/music/2.mp3", ((ExtractionConfiguration) bundle.getJob(2)).getMusicFileList().getFileAt(0));
+        } finally {
+            bundle.close();
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testIncompleteBundle() throws IOException {
+        TaskBundle.write(bundleFile, createJobs(3));
+        RandomAccessFile file = new RandomAccessFile(bundleFile, "rw");
+        file.setLength(file.length() - 10);
+        file.close();
+        new TaskBundle(bundleFile);
+    }
+}
@@ -0,0 +1,130 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.classifier;
+
+import java.nio.DoubleBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import amuse.nodes.classifier.NearestNeighbourSearch.IndexType;
+import amuse.nodes.classifier.NearestNeighbourSearch.Neighbours;
+
+/**
+ * Tests the index structures of the nearest neighbour search against a linear search
+ */
+public class NearestNeighbourSearchTest {
+
+    public NearestNeighbourSearchTest() {
+    }
+
+    @Test
+    public void testIndexTypes() throws InterruptedException {
+        for (int dimensions : new int[] {1, 3, 20, 80}) {
+            DoubleBuffer[] training = createColumns(1500, dimensions, 1);
+            DoubleBuffer[] queries = createColumns(300, dimensions, 2);
+            for (IndexType type : IndexType.values()) {
+                NearestNeighbourSearch search = new NearestNeighbourSearch(training, 1500, type);
+                Neighbours[] neighbours = search.search(queries, 300, 7, 4);
+                for (int q = 0; q < 300; q++) {
+                    double[] query = getRow(queries, q);
+                    if (Double.isNaN(query[0])) {
+                        assertNull(neighbours[q]);
+                        continue;
+                    }
+                    assertNeighbours(training, 1500, query, 7, neighbours[q]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSmallTrainingSet() {
+        DoubleBuffer[] training = new DoubleBuffer[] {DoubleBuffer.wrap(new double[] {3, Double.NaN, 1})};
+        NearestNeighbourSearch search = new NearestNeighbourSearch(training, 3, IndexType.AUTO);
+        assertEquals(IndexType.KD_TREE, search.getIndexType());
+        assertEquals(2, search.getNumberOfIndexedRows());
+
+        // The row with the missing value is not a neighbour
+        Neighbours neighbours = search.search(new double[] {2.5}, 5);
+        assertEquals(2, neighbours.size());
+        assertEquals(0, neighbours.getRow(0));
+        assertEquals(0.5, neighbours.getDistance(0), 1e-12);
+        assertEquals(2, neighbours.getRow(1));
+    }
+
+    /**
+     * Creates values on a coarse grid, so that there are many equal distances, and some missing values
+     */
+    private static DoubleBuffer[] createColumns(int rows, int dimensions, long seed) {
+        Random random = new Random(seed);
+        DoubleBuffer[] columns = new DoubleBuffer[dimensions];
+        for (int n = 0; n < dimensions; n++) {
+            columns[n] = DoubleBuffer.allocate(rows);
+            for (int i = 0; i < rows; i++) {
+                columns[n].put(i, random.nextInt(5));
+            }
+        }
+        for (int i = 0; i < rows; i += 97) {
+            columns[0].put(i, Double.NaN);
+        }
+        return columns;
+    }
+
+    private static double[] getRow(DoubleBuffer[] columns, int row) {
+        double[] values = new double[columns.length];
+        for (int n = 0; n < columns.length; n++) {
+            values[n] = columns[n].get(row);
+        }
+        return values;
+    }
+
+    private static void assertNeighbours(DoubleBuffer[] training, int rows, double[] query, int k, Neighbours neighbours) {
+        double[] distances = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            double[] row = getRow(training, i);
+            double distance = 0;
+            for (int n = 0; n < row.length; n++) {
+                distance += (row[n] - query[n]) * (row[n] - query[n]);
+            }
+            distances[i] = Math.sqrt(distance);
+        }
+
+        // Linear search with the same order of equal distances
+        assertEquals(k, neighbours.size());
+        boolean[] isUsed = new boolean[rows];
+        for (int j = 0; j < k; j++) {
+            int best = -1;
+            for (int i = 0; i < rows; i++) {
+                if (!Double.isNaN(distances[i]) && !isUsed[i] && (best == -1 || distances[i] < distances[best])) {
+                    best = i;
+                }
+            }
+            isUsed[best] = true;
+            assertEquals(best, neighbours.getRow(j));
+            assertEquals(distances[best], neighbours.getDistance(j), 1e-9);
+        }
+    }
+}
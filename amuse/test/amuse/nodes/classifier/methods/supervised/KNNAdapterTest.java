@@ -0,0 +1,97 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.classifier.methods.supervised;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import amuse.interfaces.nodes.NodeException;
+import amuse.interfaces.nodes.methods.AmuseTask;
+import amuse.nodes.classifier.interfaces.ClassifierSupervisedInterface;
+
+/**
+ * Tests that KNN models trained by RapidMiner are still passed to an initialized model loader
+ */
+public class KNNAdapterTest {
+
+    public KNNAdapterTest() {
+    }
+
+    @Test
+    public void testRapidMinerModelIsClassifiedByInitializedLoader() throws Exception {
+        File model = File.createTempFile("knn", ".mod");
+        OutputStream out = new FileOutputStream(model);
+        try {
+            // Serialized RapidMiner models are binary and do not start like ARFF files
+            out.write(new byte[] {(byte)0xac, (byte)0xed, 0x00, 0x05, 's', 'r'});
+        } finally {
+            out.close();
+        }
+
+        final RecordingModelLoader loader = new RecordingModelLoader();
+        KNNAdapter adapter = new KNNAdapter() {
+            protected AmuseTask createModelLoader() {
+                return loader;
+            }
+        };
+        Properties properties = new Properties();
+        adapter.configure(properties, null, null);
+        try {
+            adapter.classify(model.getPath());
+        } finally {
+            model.delete();
+        }
+
+        assertSame(properties, loader.getProperties());
+        assertEquals("classify " + model.getPath(), loader.calls.get(loader.calls.size() - 1));
+        assertTrue(loader.calls.indexOf("initialize") >= 0);
+        assertTrue(loader.calls.lastIndexOf("initialize") < loader.calls.size() - 1);
+    }
+
+    /** Records the calls instead of running RapidMiner */
+    private static class RecordingModelLoader extends AmuseTask implements ClassifierSupervisedInterface {
+
+        private final List<String> calls = new ArrayList<String>();
+
+        public void setParameters(String parameterString) throws NodeException {
+            calls.add("setParameters");
+        }
+
+        public void initialize() throws NodeException {
+            calls.add("initialize");
+        }
+
+        public void classify(String pathToModelFile) throws NodeException {
+            calls.add("classify " + pathToModelFile);
+        }
+    }
+}
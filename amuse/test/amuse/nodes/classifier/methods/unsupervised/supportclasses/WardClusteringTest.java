@@ -0,0 +1,213 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.classifier.methods.unsupervised.supportclasses;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import amuse.interfaces.nodes.NodeException;
+
+/**
+ * Compares the nearest-neighbour-chain clustering with a straightforward Ward agglomeration
+ */
+public class WardClusteringTest {
+
+    private static final double EPSILON = 1e-9;
+
+    public WardClusteringTest() {
+    }
+
+    @Test
+    public void testMergesMatchNaiveWard() throws NodeException {
+        Random random = new Random(3);
+        for(int run = 0; run < 20; run++) {
+            double[][] values = createValues(random, 2 + random.nextInt(30), 3);
+            WardClustering clustering = new WardClustering(values);
+            double[] expected = calculateNaiveMergeDissimilarities(values);
+
+            assertEquals(values.length - 1, clustering.getNumberOfMerges());
+            for(int merge = 0; merge < expected.length; merge++) {
+                assertEquals(expected[merge], clustering.getMergeDissimilarity(merge), EPSILON);
+            }
+        }
+    }
+
+    @Test
+    public void testClusterAssignment() throws NodeException {
+        // Two well separated groups
+        double[][] values = new double[][] {{0, 0}, {10, 10}, {0.1, 0}, {10, 10.2}, {0, 0.3}};
+        WardClustering clustering = new WardClustering(values);
+
+        int[] assignment = clustering.getClusterAssignment(2);
+        assertEquals(0, assignment[0]);
+        assertEquals(1, assignment[1]);
+        assertEquals(0, assignment[2]);
+        assertEquals(1, assignment[3]);
+        assertEquals(0, assignment[4]);
+
+        int[] single = clustering.getClusterAssignment(1);
+        for(int i = 0; i < single.length; i++) {
+            assertEquals(0, single[i]);
+        }
+        int[] separate = clustering.getClusterAssignment(values.length);
+        for(int i = 0; i < separate.length; i++) {
+            assertEquals(i, separate[i]);
+        }
+    }
+
+    @Test
+    public void testMergeIdsFormDendrogram() throws NodeException, IOException {
+        double[][] values = createValues(new Random(5), 12, 2);
+        WardClustering clustering = new WardClustering(values);
+
+        List<List<Integer>> initialClusters = new ArrayList<List<Integer>>();
+        List<idAndName> songIdsAndNames = new ArrayList<idAndName>();
+        for(int i = 0; i < values.length; i++) {
+            List<Integer> cluster = new ArrayList<Integer>();
+            cluster.add(i);
+            initialClusters.add(cluster);
+            songIdsAndNames.add(new idAndName(i, "song" + i + ".mp3"));
+        }
+        Dendrogram dendrogram = new Dendrogram(initialClusters, songIdsAndNames);
+        for(int merge = 0; merge < clustering.getNumberOfMerges(); merge++) {
+            assertEquals(values.length + merge, dendrogram.addMerge(clustering.getFirstCluster(merge), clustering.getSecondCluster(merge)));
+        }
+
+        // All songs are leaves of the single remaining tree
+        File directory = new File(System.getProperty("java.io.tmpdir"));
+        dendrogram.printTikzDendrogram(directory.getPath() + File.separator);
+        File tikzFile = new File(directory, "Ward_DENDROGRAM.tex");
+        String tikz = new String(Files.readAllBytes(tikzFile.toPath()));
+        tikzFile.delete();
+        assertEquals(1, tikz.split("begin\\{forest\\}").length - 1);
+        for(int i = 0; i < values.length; i++) {
+            assertTrue(tikz.contains("(" + i + ") song" + i));
+        }
+
+        try {
+            dendrogram.addMerge(0, 1);
+            fail("Already merged clusters must not be merged again");
+        } catch(NodeException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testTikzIndentPerDepthLevel() throws NodeException, IOException {
+        List<List<Integer>> initialClusters = new ArrayList<List<Integer>>();
+        List<idAndName> songIdsAndNames = new ArrayList<idAndName>();
+        for(int i = 0; i < 4; i++) {
+            List<Integer> cluster = new ArrayList<Integer>();
+            cluster.add(i);
+            initialClusters.add(cluster);
+            songIdsAndNames.add(new idAndName(i, "song" + i + ".mp3"));
+        }
+        Dendrogram dendrogram = new Dendrogram(initialClusters, songIdsAndNames);
+        dendrogram.addMerge(2, 3);
+        dendrogram.addMerge(1, 4);
+        dendrogram.addMerge(0, 5);
+
+        File directory = new File(System.getProperty("java.io.tmpdir"));
+        dendrogram.printTikzDendrogram(directory.getPath() + File.separator);
+        File tikzFile = new File(directory, "Ward_DENDROGRAM.tex");
+        String tikz = new String(Files.readAllBytes(tikzFile.toPath()));
+        tikzFile.delete();
+
+        // Three spaces per depth level; inner nodes list the songs of their leaves from left to right
+        String expected = "   [{0,1,2,3}\n"
+                + "      [(0) song0] \n"
+                + "      [{1,2,3}\n"
+                + "         [(1) song1] \n"
+                + "         [{2,3}\n"
+                + "            [(2) song2] \n"
+                + "            [(3) song3] \n"
+                + "         ] \n"
+                + "      ] \n"
+                + "   ] \n";
+        assertTrue(tikz, tikz.contains("   my tree \n" + expected + "\\end{forest}"));
+    }
+
+    private static double[][] createValues(Random random, int n, int features) {
+        double[][] values = new double[n][features];
+        for(int i = 0; i < n; i++) {
+            for(int f = 0; f < features; f++) {
+                values[i][f] = random.nextDouble();
+            }
+        }
+        return values;
+    }
+
+    /** Merges the pair with the smallest increase of the error sum of squares until one cluster is left */
+    private static double[] calculateNaiveMergeDissimilarities(double[][] values) {
+        List<List<Integer>> clusters = new ArrayList<List<Integer>>();
+        for(int i = 0; i < values.length; i++) {
+            List<Integer> cluster = new ArrayList<Integer>();
+            cluster.add(i);
+            clusters.add(cluster);
+        }
+        double[] dissimilarities = new double[values.length - 1];
+        for(int merge = 0; merge < dissimilarities.length; merge++) {
+            int bestA = -1, bestB = -1;
+            double best = Double.POSITIVE_INFINITY;
+            for(int a = 0; a < clusters.size(); a++) {
+                for(int b = a + 1; b < clusters.size(); b++) {
+                    double[] centroidA = calculateCentroid(values, clusters.get(a));
+                    double[] centroidB = calculateCentroid(values, clusters.get(b));
+                    double distance = 0;
+                    for(int f = 0; f < centroidA.length; f++) {
+                        distance += (centroidA[f] - centroidB[f]) * (centroidA[f] - centroidB[f]);
+                    }
+                    double sizeA = clusters.get(a).size(), sizeB = clusters.get(b).size();
+                    double dissimilarity = sizeA * sizeB / (sizeA + sizeB) * distance;
+                    if(dissimilarity < best) {
+                        best = dissimilarity;
+                        bestA = a;
+                        bestB = b;
+                    }
+                }
+            }
+            dissimilarities[merge] = best;
+            clusters.get(bestA).addAll(clusters.get(bestB));
+            clusters.remove(bestB);
+        }
+        return dissimilarities;
+    }
+
+    private static double[] calculateCentroid(double[][] values, List<Integer> cluster) {
+        double[] centroid = new double[values[0].length];
+        for(int i : cluster) {
+            for(int f = 0; f < centroid.length; f++) {
+                centroid[f] += values[i][f] / cluster.size();
+            }
+        }
+        return centroid;
+    }
+}
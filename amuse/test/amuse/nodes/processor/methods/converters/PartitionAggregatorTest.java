@@ -0,0 +1,127 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+
+package amuse.nodes.processor.methods.converters;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import amuse.data.Feature;
+
+/**
+ * Compares the partition statistics with the direct calculation
+ */
+public class PartitionAggregatorTest {
+
+    public PartitionAggregatorTest() {
+    }
+
+    private static Feature createFeature(int numberOfWindows, int dimension) {
+        Random random = new Random(7);
+        double[] values = new double[numberOfWindows * dimension];
+        double[] windows = new double[numberOfWindows];
+        for(int i=0;i<numberOfWindows;i++) {
+            windows[i] = i + 1;
+            for(int d=0;d<dimension;d++) {
+                values[i * dimension + d] = random.nextInt(10) == 0 ? Double.NaN : 1000d + random.nextGaussian() * (d + 1);
+            }
+        }
+        ArrayList<Integer> ids = new ArrayList<Integer>(1);
+        ids.add(1);
+        return new Feature(ids, "Test feature", values, windows, dimension);
+    }
+
+    @Test
+    public void testOverlappingPartitions() {
+        System.out.println("overlapping partitions");
+        Feature feature = createFeature(500, 3);
+        PartitionAggregator.Statistic[] statistics = {PartitionAggregator.MEAN, PartitionAggregator.VARIANCE,
+            PartitionAggregator.MIN, PartitionAggregator.quantile(0.25), PartitionAggregator.quantile(0.5),
+            PartitionAggregator.MAX};
+        PartitionAggregator instance = new PartitionAggregator(feature, statistics, true);
+        double[] result = null;
+
+        // Partitions of 40 windows with a step of 15 windows, and a jump back at the end
+        double[] starts = {0, 15, 30, 45, 60, 200, 215, 480, 100};
+        for(double start : starts) {
+            assertTrue(instance.setPartition(start, start + 40));
+            result = instance.calculate(result);
+            for(int d=0;d<3;d++) {
+                ArrayList<Double> values = new ArrayList<Double>();
+                for(int i=0;i<feature.getNumberOfWindows();i++) {
+                    if(feature.getWindow(i) >= start && feature.getWindow(i) < start + 40 && !Double.isNaN(feature.getValue(i, d))) {
+                        values.add(feature.getValue(i, d));
+                    }
+                }
+                double mean = 0;
+                for(double value : values) {
+                    mean += value;
+                }
+                mean /= values.size();
+                double variance = 0;
+                for(double value : values) {
+                    variance += (value - mean) * (value - mean);
+                }
+                variance /= values.size();
+                Collections.sort(values);
+                assertEquals(mean, result[d * 6], 1e-9);
+                assertEquals(variance, result[d * 6 + 1], 1e-7);
+                assertEquals(values.get(0), result[d * 6 + 2], 0d);
+                assertEquals(values.get((int)(values.size() * 0.25)), result[d * 6 + 3], 0d);
+                assertEquals(values.get(values.size() / 2), result[d * 6 + 4], 0d);
+                assertEquals(values.get(values.size() - 1), result[d * 6 + 5], 0d);
+            }
+        }
+        assertFalse(instance.setPartition(600, 640));
+    }
+
+    @Test
+    public void testNaNValues() {
+        System.out.println("NaN values");
+        ArrayList<Integer> ids = new ArrayList<Integer>(1);
+        ids.add(1);
+        Feature feature = new Feature(ids, "Test feature", new double[] {1d, Double.NaN, 3d, Double.NaN, Double.NaN}, 
+            new double[] {1d, 2d, 3d, 4d, 5d}, 1);
+        PartitionAggregator.Statistic[] statistics = {PartitionAggregator.MEAN, PartitionAggregator.STANDARD_DEVIATION, PartitionAggregator.MAX};
+        PartitionAggregator omitting = new PartitionAggregator(feature, statistics, true);
+        assertTrue(omitting.setPartition(1, 4));
+        double[] result = omitting.calculate(null);
+        assertEquals(2d, result[0], 0d);
+        assertEquals(1d, result[1], 1e-12);
+        assertEquals(3d, result[2], 0d);
+        assertTrue(omitting.setPartition(4, 6));
+        result = omitting.calculate(result);
+        assertTrue(Double.isNaN(result[0]));
+        assertTrue(Double.isNaN(result[2]));
+
+        PartitionAggregator propagating = new PartitionAggregator(feature, statistics, false);
+        assertTrue(propagating.setPartition(1, 3));
+        assertTrue(Double.isNaN(propagating.getMean(0)));
+        assertTrue(propagating.setPartition(3, 4));
+        assertEquals(3d, propagating.getMean(0), 0d);
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.validator.measures.confusionmatrix.base;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import amuse.data.annotation.ClassifiedSongPartitions;
+import amuse.interfaces.nodes.NodeException;
+import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
+import amuse.nodes.validator.measures.confusionmatrix.Accuracy;
+import amuse.nodes.validator.measures.confusionmatrix.FMeasure;
+import amuse.nodes.validator.measures.confusionmatrix.Precision;
+import amuse.nodes.validator.measures.confusionmatrix.Recall;
+import amuse.nodes.validator.measures.confusionmatrix.base.ConfusionMatrix.Level;
+
+/**
+ * Tests the counts of the confusion matrix and the measures calculated from it
+ */
+public class ConfusionMatrixTest {
+
+    private static final double EPSILON = 1e-9;
+
+    public ConfusionMatrixTest() {
+    }
+
+    @Test
+    public void testOneClassCounts() {
+        ArrayList<Double> groundTruth = createOneClassGroundTruth();
+        ArrayList<ClassifiedSongPartitions> predicted = createOneClassPredictions();
+
+        ConfusionMatrix matrix = ConfusionMatrix.createOneClassMatrix(groundTruth, predicted, false);
+        assertEquals(1, matrix.getNumberOfCategories());
+        assertEquals(3, matrix.getNumberOfInstances(Level.SONG));
+        assertEquals(6, matrix.getNumberOfInstances(Level.PARTITION));
+
+        // The predicted song relationships 0.8, 0.3 and 0.2 are rounded
+        assertEquals(1.0, matrix.getTruePositives(Level.SONG, 0), EPSILON);
+        assertEquals(0.0, matrix.getFalsePositives(Level.SONG, 0), EPSILON);
+        assertEquals(1.0, matrix.getTrueNegatives(Level.SONG, 0), EPSILON);
+        assertEquals(1.0, matrix.getFalseNegatives(Level.SONG, 0), EPSILON);
+        assertEquals(1.0, matrix.getAbsoluteError(Level.SONG, 0), EPSILON);
+
+        // The partition relationships are never rounded
+        assertEquals(1.8, matrix.getTruePositives(Level.PARTITION, 0), EPSILON);
+        assertEquals(0.9, matrix.getFalsePositives(Level.PARTITION, 0), EPSILON);
+        assertEquals(2.1, matrix.getTrueNegatives(Level.PARTITION, 0), EPSILON);
+        assertEquals(1.2, matrix.getFalseNegatives(Level.PARTITION, 0), EPSILON);
+        assertEquals(2.1, matrix.getAbsoluteError(Level.PARTITION, 0), EPSILON);
+
+        ConfusionMatrix continuousMatrix = ConfusionMatrix.createOneClassMatrix(groundTruth, predicted, true);
+        assertEquals(1.0, continuousMatrix.getTruePositives(Level.SONG, 0), EPSILON);
+        assertEquals(0.3, continuousMatrix.getFalsePositives(Level.SONG, 0), EPSILON);
+        assertEquals(0.7, continuousMatrix.getTrueNegatives(Level.SONG, 0), EPSILON);
+        assertEquals(1.0, continuousMatrix.getFalseNegatives(Level.SONG, 0), EPSILON);
+
+        assertTrue(matrix.isCalculatedFor(groundTruth, predicted, false));
+        assertFalse(matrix.isCalculatedFor(groundTruth, predicted, true));
+        assertFalse(matrix.isCalculatedFor(new ArrayList<Double>(groundTruth), predicted, false));
+    }
+
+    @Test
+    public void testOneClassMeasures() throws NodeException {
+        ArrayList<Double> groundTruth = createOneClassGroundTruth();
+        ArrayList<ClassifiedSongPartitions> predicted = createOneClassPredictions();
+
+        Precision precision = new Precision();
+        precision.setSongLevel(true);
+        precision.setPartitionLevel(true);
+        ValidationMeasureDouble[] precisionValues = precision.calculateOneClassMeasure(groundTruth, predicted);
+        assertEquals(1.0, precisionValues[0].getValue(), EPSILON);
+        assertEquals(1.8 / 2.7, precisionValues[1].getValue(), EPSILON);
+
+        Accuracy accuracy = new Accuracy();
+        accuracy.setSongLevel(true);
+        accuracy.setPartitionLevel(true);
+        ValidationMeasureDouble[] accuracyValues = accuracy.calculateOneClassMeasure(groundTruth, predicted);
+        assertEquals(2.0 / 3.0, accuracyValues[0].getValue(), EPSILON);
+        assertEquals(3.9 / 6.0, accuracyValues[1].getValue(), EPSILON);
+
+        // A shared matrix is used only for the results it has been calculated for
+        ConfusionMatrix sharedMatrix = ConfusionMatrix.createOneClassMatrix(groundTruth, predicted, false);
+        FMeasure fMeasure = new FMeasure();
+        fMeasure.setSongLevel(true);
+        fMeasure.setConfusionMatrix(sharedMatrix);
+        assertEquals(2.0 / 3.0, fMeasure.calculateOneClassMeasure(groundTruth, predicted)[0].getValue(), EPSILON);
+        ArrayList<Double> otherGroundTruth = new ArrayList<Double>();
+        otherGroundTruth.add(1.0);
+        otherGroundTruth.add(1.0);
+        otherGroundTruth.add(1.0);
+        assertEquals(0.5, fMeasure.calculateOneClassMeasure(otherGroundTruth, predicted)[0].getValue(), EPSILON);
+    }
+
+    @Test
+    public void testMultiLabelCounts() throws NodeException {
+        String[] labels = new String[] {"A", "B"};
+        ArrayList<ClassifiedSongPartitions> groundTruth = new ArrayList<ClassifiedSongPartitions>();
+        groundTruth.add(new ClassifiedSongPartitions("", 0, labels, new Double[][] {{1.0, 0.0}, {1.0, 0.0}}));
+        groundTruth.add(new ClassifiedSongPartitions("", 1, labels, new Double[][] {{0.0, 1.0}}));
+        ArrayList<ClassifiedSongPartitions> predicted = new ArrayList<ClassifiedSongPartitions>();
+        predicted.add(new ClassifiedSongPartitions("", 0, labels, new Double[][] {{1.0, 0.0}, {0.0, 1.0}}));
+        predicted.add(new ClassifiedSongPartitions("", 1, labels, new Double[][] {{0.0, 1.0}}));
+
+        ConfusionMatrix matrix = ConfusionMatrix.createMultiLabelMatrix(groundTruth, predicted, false);
+        assertEquals(2, matrix.getNumberOfCategories());
+        assertEquals(2, matrix.getNumberOfInstances(Level.SONG));
+        assertEquals(3, matrix.getNumberOfInstances(Level.PARTITION));
+
+        // The first song is assigned to both categories, since its mean relationships are 0.5
+        assertEquals(1.0, matrix.getTruePositives(Level.SONG, 0), EPSILON);
+        assertEquals(1.0, matrix.getTrueNegatives(Level.SONG, 0), EPSILON);
+        assertEquals(1.0, matrix.getTruePositives(Level.SONG, 1), EPSILON);
+        assertEquals(1.0, matrix.getFalsePositives(Level.SONG, 1), EPSILON);
+        assertEquals(2.0, matrix.getTruePositives(Level.SONG), EPSILON);
+
+        assertEquals(1.0, matrix.getFalseNegatives(Level.PARTITION, 0), EPSILON);
+        assertEquals(1.0, matrix.getFalsePositives(Level.PARTITION, 1), EPSILON);
+        assertEquals(2.0, matrix.getTruePositives(Level.PARTITION), EPSILON);
+        assertEquals(2.0, matrix.getTrueNegatives(Level.PARTITION), EPSILON);
+
+        Recall recall = new Recall();
+        recall.setPartitionLevel(true);
+        recall.setConfusionMatrix(matrix);
+        assertEquals(2.0 / 3.0, recall.calculateMultiLabelMeasure(groundTruth, predicted)[0].getValue(), EPSILON);
+    }
+
+    private static ArrayList<Double> createOneClassGroundTruth() {
+        ArrayList<Double> groundTruth = new ArrayList<Double>();
+        groundTruth.add(1.0);
+        groundTruth.add(0.0);
+        groundTruth.add(1.0);
+        return groundTruth;
+    }
+
+    private static ArrayList<ClassifiedSongPartitions> createOneClassPredictions() {
+        String[] labels = new String[] {"A"};
+        ArrayList<ClassifiedSongPartitions> predicted = new ArrayList<ClassifiedSongPartitions>();
+        predicted.add(new ClassifiedSongPartitions("", 0, labels, new Double[][] {{0.9}, {0.7}}));
+        predicted.add(new ClassifiedSongPartitions("", 1, labels, new Double[][] {{0.6}, {0.2}, {0.1}}));
+        predicted.add(new ClassifiedSongPartitions("", 2, labels, new Double[][] {{0.2}}));
+        return predicted;
+    }
+}
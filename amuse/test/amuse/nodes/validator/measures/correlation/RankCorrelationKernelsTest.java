@@ -0,0 +1,144 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.validator.measures.correlation;
+
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Compares the rank correlation kernels with straightforward quadratic implementations
+ */
+public class RankCorrelationKernelsTest {
+
+    private static final double EPSILON = 1e-9;
+
+    public RankCorrelationKernelsTest() {
+    }
+
+    @Test
+    public void testFractionalRanks() {
+        double[] ranks = RankCorrelationKernels.calculateFractionalRanks(new double[] {0.5, 0.1, 0.5, 0.9, 0.5});
+        double[] expectedRanks = new double[] {3d, 1d, 3d, 5d, 3d};
+        assertEquals(expectedRanks.length, ranks.length);
+        for(int i = 0; i < ranks.length; i++) {
+            assertEquals(expectedRanks[i], ranks[i], EPSILON);
+        }
+    }
+
+    @Test
+    public void testKendallsTauBWithoutTies() {
+        assertEquals(1d, RankCorrelationKernels.calculateKendallsTauB(new double[] {1, 2, 3, 4}, new double[] {10, 20, 30, 40}), EPSILON);
+        assertEquals(-1d, RankCorrelationKernels.calculateKendallsTauB(new double[] {1, 2, 3, 4}, new double[] {40, 30, 20, 10}), EPSILON);
+        // Concordant: 5 pairs, discordant: 1 pair
+        assertEquals(2d / 3d, RankCorrelationKernels.calculateKendallsTauB(new double[] {1, 2, 3, 4}, new double[] {1, 3, 2, 4}), EPSILON);
+    }
+
+    @Test
+    public void testKendallsTauBAgainstPairCounting() {
+        Random random = new Random(7);
+        for(int run = 0; run < 50; run++) {
+            int n = 2 + random.nextInt(40);
+            double[] predicted = new double[n];
+            double[] labeled = new double[n];
+            for(int i = 0; i < n; i++) {
+                // Few distinct values, so that ties in one and in both variables occur
+                predicted[i] = random.nextInt(5) / 4d;
+                labeled[i] = random.nextInt(3) / 2d;
+            }
+            assertEquals(calculateKendallsTauBByPairs(predicted, labeled),
+                    RankCorrelationKernels.calculateKendallsTauB(predicted, labeled), EPSILON);
+        }
+    }
+
+    @Test
+    public void testSpearmansRhoAgainstPearsonOnRanks() {
+        Random random = new Random(11);
+        for(int run = 0; run < 50; run++) {
+            int n = 3 + random.nextInt(40);
+            double[] predicted = new double[n];
+            double[] labeled = new double[n];
+            for(int i = 0; i < n; i++) {
+                predicted[i] = random.nextInt(6);
+                labeled[i] = random.nextDouble();
+            }
+            assertEquals(calculatePearson(calculateRanksByCounting(predicted), calculateRanksByCounting(labeled)),
+                    RankCorrelationKernels.calculateSpearmansRho(predicted, labeled), EPSILON);
+        }
+    }
+
+    private static double calculateKendallsTauBByPairs(double[] x, double[] y) {
+        long concordant = 0, discordant = 0, untiedX = 0, untiedY = 0;
+        for(int i = 0; i < x.length; i++) {
+            for(int j = i + 1; j < x.length; j++) {
+                double dx = Math.signum(x[i] - x[j]);
+                double dy = Math.signum(y[i] - y[j]);
+                if(dx != 0) {
+                    untiedX++;
+                }
+                if(dy != 0) {
+                    untiedY++;
+                }
+                if(dx * dy > 0) {
+                    concordant++;
+                } else if(dx * dy < 0) {
+                    discordant++;
+                }
+            }
+        }
+        return (concordant - discordant) / Math.sqrt((double)untiedX * untiedY);
+    }
+
+    private static double[] calculateRanksByCounting(double[] values) {
+        double[] ranks = new double[values.length];
+        for(int i = 0; i < values.length; i++) {
+            int smaller = 0, equal = 0;
+            for(int j = 0; j < values.length; j++) {
+                if(values[j] < values[i]) {
+                    smaller++;
+                } else if(values[j] == values[i]) {
+                    equal++;
+                }
+            }
+            ranks[i] = smaller + (equal + 1) / 2d;
+        }
+        return ranks;
+    }
+
+    private static double calculatePearson(double[] x, double[] y) {
+        double meanX = 0, meanY = 0;
+        for(int i = 0; i < x.length; i++) {
+            meanX += x[i] / x.length;
+            meanY += y[i] / y.length;
+        }
+        double covariance = 0, varianceX = 0, varianceY = 0;
+        for(int i = 0; i < x.length; i++) {
+            covariance += (x[i] - meanX) * (y[i] - meanY);
+            varianceX += (x[i] - meanX) * (x[i] - meanX);
+            varianceY += (y[i] - meanY) * (y[i] - meanY);
+        }
+        return covariance / Math.sqrt(varianceX * varianceY);
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.nodes.validator.methods;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+
+import org.junit.Test;
+
+import amuse.interfaces.nodes.NodeException;
+import amuse.nodes.validator.interfaces.ValidationMeasure;
+import amuse.nodes.validator.interfaces.ValidationMeasureDouble;
+import amuse.nodes.validator.interfaces.ValidationMeasureString;
+
+/**
+ * Tests the validation of cross-validation folds in parallel
+ *
+ * @version $Id$
+ */
+public class NFoldCrossValidatorTest {
+
+    private static final int NUMBER_OF_FOLDS = 6;
+
+    public NFoldCrossValidatorTest() {
+    }
+
+    /**
+     * Test that parallel and sequential folds give the same measures in the same order
+     */
+    @Test
+    public void testParallelFoldsKeepOrder() throws NodeException {
+        FoldStub sequentialFolds = new FoldStub();
+        ArrayList<ValidationMeasure> sequential = NFoldCrossValidator.createMeasureList(
+                NFoldCrossValidator.validateFolds(NUMBER_OF_FOLDS, 1, sequentialFolds));
+        FoldStub parallelFolds = new FoldStub();
+        ArrayList<ValidationMeasure> parallel = NFoldCrossValidator.createMeasureList(
+                NFoldCrossValidator.validateFolds(NUMBER_OF_FOLDS, 3, parallelFolds));
+
+        assertFalse(sequentialFolds.parallel);
+        assertTrue(parallelFolds.parallel);
+
+        // Runs of both measures and the mean of the double measure
+        assertEquals(2 * NUMBER_OF_FOLDS + 1, sequential.size());
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getClass(), parallel.get(i).getClass());
+            assertEquals(sequential.get(i).getName(), parallel.get(i).getName());
+            assertEquals(sequential.get(i).getId(), parallel.get(i).getId());
+            assertEquals(sequential.get(i).getValue(), parallel.get(i).getValue());
+        }
+        assertEquals("run_0_(Error)", parallel.get(0).getName());
+        assertEquals(0.0, (Double) parallel.get(0).getValue(), 0.0);
+        assertEquals("run_5_(Error)", parallel.get(5).getName());
+        assertEquals(0.5, (Double) parallel.get(5).getValue(), 0.0);
+        assertEquals("mean(Error)", parallel.get(6).getName());
+        assertEquals(0.25, (Double) parallel.get(6).getValue(), 1e-10);
+        assertEquals("run_2_(Label)", parallel.get(9).getName());
+        assertEquals("fold 2", parallel.get(9).getValue());
+    }
+
+    /**
+     * Test that the exception of a fold is passed on
+     */
+    @Test(expected = NodeException.class)
+    public void testFailedFold() throws NodeException {
+        NFoldCrossValidator.validateFolds(NUMBER_OF_FOLDS, 3, new NFoldCrossValidator.FoldValidation() {
+            public ArrayList<ValidationMeasure> validateFold(int fold, boolean parallel) throws NodeException {
+                if (fold == 4) {
+                    throw new NodeException("Fold failed");
+                }
+                return new ArrayList<ValidationMeasure>();
+            }
+        });
+    }
+
+    /**
+     * Calculates the measures of a fold from its number; the first folds take longest,
+     * so that the parallel folds finish in the reverse order
+     */
+    private static class FoldStub implements NFoldCrossValidator.FoldValidation {
+
+        private volatile boolean parallel = false;
+
+        public ArrayList<ValidationMeasure> validateFold(int fold, boolean parallel) throws NodeException {
+            this.parallel = parallel;
+            try {
+                Thread.sleep((NUMBER_OF_FOLDS - fold) * 20);
+            } catch (InterruptedException e) {
+                throw new NodeException("Interrupted");
+            }
+            ArrayList<ValidationMeasure> measures = new ArrayList<ValidationMeasure>();
+            ValidationMeasureDouble error = new ValidationMeasureDouble(true);
+            error.setId(1);
+            error.setName("Error");
+            error.setValue(fold / 10.0);
+            measures.add(error);
+            ValidationMeasureString label = new ValidationMeasureString();
+            label.setId(2);
+            label.setName("Label");
+            label.setValue("fold " + fold);
+            measures.add(label);
+            return measures;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.scheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the reports of new files and job notifications
+ */
+public class FolderMonitorTest {
+
+    public FolderMonitorTest() {
+    }
+
+    @Test
+    public void testNewFileIsReported() throws Exception {
+        File folder = createFolder();
+        FolderMonitor monitor = new FolderMonitor(folder, 10000);
+        try {
+            assertTrue(monitor.awaitNewFiles().isEmpty());
+            assertTrue(new File(folder, "log.1").createNewFile());
+            assertTrue(awaitName(monitor, "log.1"));
+        } finally {
+            monitor.close();
+            deleteFolder(folder);
+        }
+    }
+
+    @Test
+    public void testNotificationOnLoopback() throws Exception {
+        File folder = createFolder();
+        int port = findFreePort();
+        FolderMonitor monitor = new FolderMonitor(folder, "", port, 10000);
+        try {
+            monitor.awaitNewFiles();
+            Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            OutputStream output = socket.getOutputStream();
+            output.write("log.42\n".getBytes("UTF-8"));
+            output.flush();
+            socket.close();
+
+            // The notification is reported although the log does not exist; the scheduler checks the log
+            assertTrue(awaitName(monitor, "log.42"));
+        } finally {
+            monitor.close();
+            deleteFolder(folder);
+        }
+    }
+
+    private static boolean awaitName(FolderMonitor monitor, String name) throws InterruptedException {
+        List<String> names = new ArrayList<String>();
+        long end = System.currentTimeMillis() + 10000;
+        while (!names.contains(name) && System.currentTimeMillis() < end) {
+            names.addAll(monitor.awaitNewFiles());
+        }
+        return names.contains(name);
+    }
+
+    private static int findFreePort() throws IOException {
+        ServerSocket socket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        int port = socket.getLocalPort();
+        socket.close();
+        return port;
+    }
+
+    private static File createFolder() throws IOException {
+        File folder = File.createTempFile("foldermonitor", "");
+        assertTrue(folder.delete());
+        assertTrue(folder.mkdir());
+        return folder;
+    }
+
+    private static void deleteFolder(File folder) {
+        File[] files = folder.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        folder.delete();
+    }
+}
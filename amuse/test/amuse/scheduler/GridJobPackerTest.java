@@ -0,0 +1,76 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.scheduler;
+
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests the grouping of Amuse jobs into grid jobs
+ */
+public class GridJobPackerTest {
+
+    public GridJobPackerTest() {
+    }
+
+    @Test
+    public void testPackByNumber() {
+        List<List<Integer>> gridJobs = GridJobPacker.packByNumber(5, 2);
+        assertEquals(3, gridJobs.size());
+        assertEquals(2, gridJobs.get(0).size());
+        assertEquals(Integer.valueOf(4), gridJobs.get(2).get(0));
+    }
+
+    @Test
+    public void testPackByCost() {
+
+        // One long recording and many short clips
+        double[] costs = new double[21];
+        costs[0] = 1200;
+        for (int i = 1; i < costs.length; i++) {
+            costs[i] = 30;
+        }
+        List<List<Integer>> gridJobs = GridJobPacker.packByCost(costs, 300);
+
+        // The long recording runs alone, the clips fill two grid jobs of 300 s
+        assertEquals(3, gridJobs.size());
+        assertEquals(1, gridJobs.get(0).size());
+        assertEquals(Integer.valueOf(0), gridJobs.get(0).get(0));
+        boolean[] isPacked = new boolean[costs.length];
+        for (List<Integer> gridJob : gridJobs) {
+            double cost = 0;
+            for (Integer job : gridJob) {
+                assertFalse(isPacked[job]);
+                isPacked[job] = true;
+                cost += costs[job];
+            }
+            assertTrue(gridJob.size() == 1 || cost <= 300);
+        }
+        for (boolean packed : isPacked) {
+            assertTrue(packed);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/**
+ * This file is part of AMUSE framework (Advanced MUsic Explorer).
+ *
+ * Copyright 2006-2010 by code authors
+ *
+ * Created at TU Dortmund, Chair of Algorithm Engineering
+ * (Contact: <http://ls11-www.cs.tu-dortmund.de>)
+ *
+ * AMUSE is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * AMUSE is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with AMUSE. If not, see <http://www.gnu.org/licenses/>.
+ *
+ * Creation date: 18.10.2026
+ */
+package amuse.scheduler;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import amuse.interfaces.nodes.NodeException;
+import amuse.interfaces.nodes.NodeScheduler;
+import amuse.interfaces.nodes.TaskConfiguration;
+
+/**
+ * Tests the executor for the node schedulers
+ */
+public class TaskExecutorTest {
+
+    private static final String NODE_HOME = System.getProperty("java.io.tmpdir") + File.separator + "amuseTaskExecutorTest";
+
+    public TaskExecutorTest() {
+    }
+
+    /**
+     * Node scheduler which waits for a latch and records its start
+     */
+    private static class TestNodeScheduler extends NodeScheduler {
+        private final String name;
+        private final List<String> startOrder;
+        private final CountDownLatch latch;
+
+        TestNodeScheduler(String name, List<String> startOrder, CountDownLatch latch) throws NodeException {
+            super(NODE_HOME);
+            this.name = name;
+            this.startOrder = startOrder;
+            this.latch = latch;
+        }
+
+        public void run() {
+            startOrder.add(name);
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        public void proceedTask(String[] args) {
+        }
+
+        public void proceedTask(String homeFolder, long jobId, TaskConfiguration taskConfiguration) {
+        }
+    }
+
+    /**
+     * Polls the number of pending tasks until it is equal to the expected number or the timeout is reached
+     * @return Last number of pending tasks
+     */
+    private static int waitForPendingTasks(TaskExecutor instance, int expected, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (instance.getNumberOfPendingTasks() != expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        return instance.getNumberOfPendingTasks();
+    }
+
+    @Test
+    public void testPriorityOrder() throws Exception {
+        System.out.println("priorityOrder");
+        TaskExecutor instance = new TaskExecutor(1);
+        List<String> startOrder = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch blocker = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(0);
+
+        // The first node scheduler occupies the only worker until the others are queued
+        List<Future<Long>> futures = new ArrayList<Future<Long>>();
+        futures.add(instance.submit(new TestNodeScheduler("first", startOrder, blocker), 0));
+        futures.add(instance.submit(new TestNodeScheduler("low", startOrder, released), 1));
+        futures.add(instance.submit(new TestNodeScheduler("high", startOrder, released), 5));
+        futures.add(instance.submit(new TestNodeScheduler("low2", startOrder, released), 1));
+        blocker.countDown();
+        for (Future<Long> future : futures) {
+            assertTrue(future.get() >= 0);
+        }
+        assertEquals("[first, high, low, low2]", startOrder.toString());
+
+        // The place in the queue is freed after the future is completed
+        assertEquals(0, waitForPendingTasks(instance, 0, 5000));
+        instance.shutdown(false);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        System.out.println("cancel");
+        TaskExecutor instance = new TaskExecutor(1);
+        List<String> startOrder = Collections.synchronizedList(new ArrayList<String>());
+        CountDownLatch blocker = new CountDownLatch(1);
+        Future<Long> running = instance.submit(new TestNodeScheduler("running", startOrder, blocker), 0);
+        Future<Long> waiting = instance.submit(new TestNodeScheduler("waiting", startOrder, blocker), 0);
+        assertTrue(waiting.cancel(false));
+        assertEquals(1, instance.getNumberOfPendingTasks());
+        blocker.countDown();
+        running.get();
+        assertTrue(waiting.isCancelled());
+        assertEquals("[running]", startOrder.toString());
+        instance.shutdown(false);
+    }
+}